@@ -0,0 +1,61 @@
+package hello.itemservice.domain.item;
+
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 보조 인덱스를 쓰는 범위/접두사 조회와 전체 스캔 비교.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemIndexBenchmark {
+
+    @Param({"10000", "1000000"})
+    int storeSize;
+
+    ItemRepository indexed;
+    ItemRepository scanOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        indexed = new ItemRepository(new MemoryItemStore(), true);
+        scanOnly = new ItemRepository(new MemoryItemStore(), false);
+        for (int i = 0; i < storeSize; i++) {
+            Item item = new Item("item" + i, 1000 + (i % 100_000) * 10, i % 9999);
+            indexed.save(item);
+            scanOnly.save(new Item(item.getItemName(), item.getPrice(), item.getQuantity()));
+        }
+    }
+
+    @Benchmark
+    public List<Item> priceRangeIndexed() {
+        return indexed.findByPriceRange(50_000, 50_500, 100);
+    }
+
+    @Benchmark
+    public List<Item> priceRangeScan() {
+        return scanOnly.findByPriceRange(50_000, 50_500, 100);
+    }
+
+    @Benchmark
+    public List<Item> namePrefixIndexed() {
+        return indexed.findByNamePrefix("item4242", 100);
+    }
+
+    @Benchmark
+    public List<Item> namePrefixScan() {
+        return scanOnly.findByNamePrefix("item4242", 100);
+    }
+}
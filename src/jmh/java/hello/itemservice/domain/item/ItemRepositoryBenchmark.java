@@ -0,0 +1,106 @@
+package hello.itemservice.domain.item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 저장소 크기별 save / findById / findAll / update / findPage 처리량.
+ * 스레드 수는 -PjmhThreads로 바꾸고, 경합 상황은 *Contended 벤치마크로 따로 본다.
+ * save는 반복(iteration)마다 storeSize개로 새로 채운 저장소에서 잰다. 한 저장소를 계속 쓰면 반복이 거듭될수록 저장소가 커진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ItemRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int storeSize;
+
+    ItemRepository itemRepository;
+    ItemSearchCond firstPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        itemRepository = filled(storeSize);
+        firstPage = new ItemSearchCond();
+        firstPage.setSort(ItemSort.PRICE);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SaveState {
+
+        ItemRepository itemRepository;
+
+        @Setup(Level.Iteration)
+        public void setUp(ItemRepositoryBenchmark benchmark) {
+            itemRepository = filled(benchmark.storeSize);
+        }
+    }
+
+    @Benchmark
+    public Item save(SaveState state) {
+        return state.itemRepository.save(new Item("new", 10000, 10));
+    }
+
+    @Benchmark
+    public Item findById() {
+        return itemRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Item> findAll() {
+        return itemRepository.findAll();
+    }
+
+    @Benchmark
+    public ItemPage findPage() {
+        return itemRepository.findPage(firstPage);
+    }
+
+    @Benchmark
+    public void update() {
+        itemRepository.update(randomId(), new Item("updated", 20000, 20));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Item saveContended(SaveState state) {
+        return save(state);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Item findByIdContended() {
+        return findById();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void updateContended() {
+        update();
+    }
+
+    private static ItemRepository filled(int size) {
+        ItemRepository itemRepository = new ItemRepository();
+        for (int i = 0; i < size; i++) {
+            itemRepository.save(new Item("item" + i, 1000 + (i % 1000) * 10, i % 9999));
+        }
+        return itemRepository;
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, storeSize + 1);
+    }
+}
@@ -0,0 +1,56 @@
+package hello.itemservice.domain.item;
+
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품명 검색의 역색인 조회와 전체 스캔 비교.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemSearchBenchmark {
+
+    @Param({"10000", "1000000"})
+    int storeSize;
+
+    // item: 거의 모든 상품이 맞는 검색어, item4242: 단어 앞부분 일치가 몇 개 안 되는 검색어, em99999: 가운데 일치, 무선 마우스: 한글 두 단어
+    @Param({"item", "item4242", "em99999", "무선 마우스"})
+    String query;
+
+    ItemRepository indexed;
+    ItemRepository scanOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        indexed = new ItemRepository(new MemoryItemStore(), true);
+        scanOnly = new ItemRepository(new MemoryItemStore(), false);
+        String[] korean = {"블루투스 무선 마우스", "무선마우스 패드", "유선 키보드", "노트북 거치대"};
+        for (int i = 0; i < storeSize; i++) {
+            String name = i % 10 == 0 ? korean[i / 10 % korean.length] + " " + i : "item" + i;
+            indexed.save(new Item(name, 10000, 1));
+            scanOnly.save(new Item(name, 10000, 1));
+        }
+    }
+
+    @Benchmark
+    public List<Item> searchIndexed() {
+        return indexed.search(query, 20);
+    }
+
+    @Benchmark
+    public List<Item> searchScan() {
+        return scanOnly.search(query, 20);
+    }
+}
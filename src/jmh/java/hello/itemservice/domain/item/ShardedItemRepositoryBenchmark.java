@@ -0,0 +1,117 @@
+package hello.itemservice.domain.item;
+
+import hello.itemservice.domain.item.store.FsyncPolicy;
+import hello.itemservice.domain.item.store.ItemStore;
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import hello.itemservice.domain.item.store.ShardedItemStore;
+import hello.itemservice.domain.item.store.WalItemStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 샤드 수별 처리량. 샤드 수를 늘렸을 때 거의 선형으로 늘어나는지 본다.
+ * <p>
+ * 저장소 자체를 재기 위해 보조 인덱스는 끈다. (인덱스는 샤드와 상관없이 하나를 같이 쓴다)
+ * save는 WAL 저장소에서 샤드마다 쓰기 스레드가 하나씩 있으므로 샤드 수만큼 동시에 기록된다.
+ * findPage, findMinPrice는 인덱스 없이 전체를 훑는 조회로, 샤드마다 동시에 훑고 병합한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShardedItemRepositoryBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    int shards;
+
+    @Param({"MEMORY", "WAL"})
+    String type;
+
+    @Param({"1000000"})
+    int storeSize;
+
+    Path dir;
+    ItemStore store;
+    ItemRepository itemRepository;
+    ItemSearchCond pricePage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("item-shard-bench");
+        List<ItemStore> stores = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            stores.add(createStore(dir.resolve("shard-" + i)));
+        }
+        store = shards == 1 ? stores.get(0) : new ShardedItemStore(stores);
+        itemRepository = new ItemRepository(store, false);
+
+        List<Item> batch = new ArrayList<>();
+        for (int i = 0; i < storeSize; i++) {
+            batch.add(new Item("item" + i, 1000 + (i % 1000) * 10, i % 9999));
+            if (batch.size() == 10_000) {
+                itemRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        itemRepository.saveAll(batch);
+
+        pricePage = new ItemSearchCond();
+        pricePage.setSort(ItemSort.PRICE);
+        pricePage.setMinPrice(5000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store instanceof Closeable closeable) {
+            closeable.close();
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Item saveContended() {
+        return itemRepository.save(new Item("new", 10000, 10));
+    }
+
+    @Benchmark
+    public ItemPage findPage() {
+        return itemRepository.findPage(pricePage);
+    }
+
+    @Benchmark
+    public Integer findMinPrice() {
+        return itemRepository.findMinPrice();
+    }
+
+    private ItemStore createStore(Path shardDir) throws IOException {
+        if (type.equals("WAL")) {
+            // 디스크 fsync가 아니라 기록 경로가 나뉘는 효과를 보기 위해 fsync는 끈다.
+            return new WalItemStore(shardDir, FsyncPolicy.NEVER, Duration.ofMillis(100), Duration.ofHours(1), Long.MAX_VALUE);
+        }
+        return new MemoryItemStore();
+    }
+}
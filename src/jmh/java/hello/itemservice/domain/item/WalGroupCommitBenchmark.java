@@ -0,0 +1,113 @@
+package hello.itemservice.domain.item;
+
+import hello.itemservice.domain.item.store.FsyncPolicy;
+import hello.itemservice.domain.item.store.WalItemStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * fsync=always인 WAL 저장소에서 동시에 쓰는 스레드 수별 save / update 처리량(writes/ms).
+ * group commit이 fsync 한 번에 여러 쓰기를 묶으므로 스레드가 늘면 처리량도 늘어난다.
+ * commitDelay와 maxBatch를 바꿔 가며 쓰기 지연과 처리량의 균형을 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WalGroupCommitBenchmark {
+
+    @Param({"0", "200"})
+    long commitDelayMicros;
+
+    @Param({"64", "1024"})
+    int maxBatch;
+
+    @Param({"10000"})
+    int storeSize;
+
+    Path dir;
+    WalItemStore store;
+    ItemRepository itemRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("item-wal-bench");
+        store = new WalItemStore(dir, FsyncPolicy.ALWAYS, Duration.ofMillis(100), Duration.ofHours(1), Long.MAX_VALUE,
+                maxBatch, Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(commitDelayMicros)));
+        itemRepository = new ItemRepository(store, false);
+        List<Item> items = new ArrayList<>(storeSize);
+        for (int i = 0; i < storeSize; i++) {
+            items.add(new Item("item" + i, 1000 + (i % 1000) * 10, i % 9999));
+        }
+        itemRepository.saveAll(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Item save() {
+        return itemRepository.save(new Item("new", 10000, 10));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Item saveThreads4() {
+        return save();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Item saveThreads16() {
+        return save();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Item saveThreads64() {
+        return save();
+    }
+
+    @Benchmark
+    public void update() {
+        itemRepository.update(ThreadLocalRandom.current().nextLong(1, storeSize + 1), new Item("updated", 20000, 20));
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void updateThreads16() {
+        update();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void updateThreads64() {
+        update();
+    }
+}
@@ -0,0 +1,103 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
+import hello.itemservice.domain.item.ItemSearchCond;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품 목록 템플릿 렌더링 비용. 실제 MVC와 같은 ThymeleafView 경로로 렌더링한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemsTemplateBenchmark {
+
+    @Param({"basic/items", "validation/v2/items", "validation/v3/items"})
+    String viewName;
+
+    @Param({"20", "200"})
+    int rows;
+
+    // 0이면 ItemFragmentCache가 매번 조각을 렌더링한다.
+    @Param({"0", "10000"})
+    long fragmentCacheSize;
+
+    MockServletContext servletContext;
+    StaticWebApplicationContext applicationContext;
+    View view;
+    Map<String, Object> model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        servletContext = new MockServletContext();
+        applicationContext = new StaticWebApplicationContext();
+        applicationContext.setServletContext(servletContext);
+
+        SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
+        templateResolver.setApplicationContext(applicationContext);
+        templateResolver.setPrefix("classpath:/templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+
+        // 템플릿이 ${@itemFragmentCache.render(...)}로 부르므로 빈으로 등록한다.
+        applicationContext.getBeanFactory().registerSingleton("itemFragmentCache",
+                new ItemFragmentCache(templateEngine, fragmentCacheSize));
+        applicationContext.refresh();
+        servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+
+        ThymeleafViewResolver viewResolver = new ThymeleafViewResolver();
+        viewResolver.setApplicationContext(applicationContext);
+        viewResolver.setTemplateEngine(templateEngine);
+        viewResolver.setCharacterEncoding("UTF-8");
+        view = viewResolver.resolveViewName(viewName, Locale.KOREAN);
+
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= rows; i++) {
+            items.add(new Item((long) i, "item" + i, 1000 * i, i, 1L));
+        }
+        model = new HashMap<>();
+        model.put("items", items);
+        model.put("page", new ItemPage(items, String.valueOf(rows)));
+        model.put("cond", new ItemSearchCond());
+    }
+
+    @Benchmark
+    public int render() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/" + viewName);
+        request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, request, response);
+        return response.getContentAsByteArray().length;
+    }
+}
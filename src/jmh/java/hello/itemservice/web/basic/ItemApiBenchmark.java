@@ -0,0 +1,131 @@
+package hello.itemservice.web.basic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ReactiveItemRepository;
+import hello.itemservice.web.basic.exporter.ItemExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.DefaultMessageCodesResolver;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * 같은 요청을 MVC API(/validation/api/items)와 리액티브 API(/reactive/api/items)로 보냈을 때의 비용 비교.
+ * DispatcherServlet부터 응답 직렬화까지 MockMvc로 돌리고, 리액티브 쪽은 비동기 디스패치와 스케줄러 전환 비용까지 포함된다.
+ * 스레드 수를 늘려(-PjmhThreads=8) 동시 요청에서 검증이 여러 코어로 퍼지는 효과도 같이 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemApiBenchmark {
+
+    // 내보내기 대상 카탈로그 크기
+    @Param({"100", "10000"})
+    int items;
+
+    @Param({"100"})
+    int batchSize;
+
+    ItemRepository itemRepository;
+    LocalValidatorFactoryBean validator;
+    MockMvc mvc;
+    MockMvc reactive;
+    String batchJson;
+    long itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        itemRepository = new ItemRepository();
+        validator = new LocalValidatorFactoryBean();
+        validator.afterPropertiesSet();
+        ItemBatchProcessor itemBatchProcessor = new ItemBatchProcessor(itemRepository, validator, new DefaultMessageCodesResolver());
+
+        // 가져오기는 비교하지 않으므로 ItemImporter는 넣지 않는다.
+        mvc = MockMvcBuilders.standaloneSetup(new ValidationItemApiController(itemRepository, itemBatchProcessor,
+                objectMapper, null, new ItemExporter(itemRepository, objectMapper))).build();
+        reactive = MockMvcBuilders.standaloneSetup(new ReactiveItemApiController(new ReactiveItemRepository(itemRepository),
+                new ReactiveItemValidator(itemBatchProcessor))).build();
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < batchSize; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"itemName\":\"batch").append(i).append("\",\"price\":10000,\"quantity\":").append(i % 100 + 1).append('}');
+        }
+        batchJson = json.append(']').toString();
+    }
+
+    // 배치 등록이 카탈로그를 계속 늘리므로 반복마다 처음 크기로 되돌린다.
+    @Setup(Level.Iteration)
+    public void resetStore() {
+        itemRepository.clearStore();
+        // 저장소를 비워도 ID 시퀀스는 이어지므로 조회할 ID를 다시 잡는다.
+        itemId = itemRepository.save(new Item("item0", 1000, 1)).getId();
+        for (int i = 1; i < items; i++) {
+            itemRepository.save(new Item("item" + i, 1000 + i, i % 100 + 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validator.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse mvcItem() throws Exception {
+        return perform(mvc, get("/validation/api/items/{itemId}", itemId));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse reactiveItem() throws Exception {
+        return perform(reactive, get("/reactive/api/items/{itemId}", itemId));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse mvcBatch() throws Exception {
+        return perform(mvc, post("/validation/api/items/batch").contentType(MediaType.APPLICATION_JSON).content(batchJson));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse reactiveBatch() throws Exception {
+        return perform(reactive, post("/reactive/api/items/batch").contentType(MediaType.APPLICATION_JSON).content(batchJson));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse mvcExportNdjson() throws Exception {
+        return perform(mvc, get("/validation/api/items/export").param("format", "ndjson"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse reactiveExportNdjson() throws Exception {
+        return perform(reactive, get("/reactive/api/items/export").accept(MediaType.APPLICATION_NDJSON));
+    }
+
+    private static MockHttpServletResponse perform(MockMvc mockMvc, RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result.getAsyncResult(10_000);
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        return result.getResponse();
+    }
+}
@@ -0,0 +1,89 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.web.basic.form.ItemForm;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import hello.itemservice.web.validation.CompiledBeanValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 직접 만든 ItemValidator와 Hibernate Validator(ItemSaveForm의 애노테이션), 그 애노테이션을 미리 컴파일한 CompiledBeanValidator 검증 비용 비교.
+ * valid=false면 상품명과 totalPriceMin(1000원 * 1개)이 실패하는 입력으로 에러 코드 생성 비용까지 포함된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+
+    @Param({"true", "false"})
+    boolean valid;
+
+    ItemValidator itemValidator;
+    LocalValidatorFactoryBean beanValidator;
+    CompiledBeanValidator compiledValidator;
+
+    ItemForm item;
+    ItemSaveForm form;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        itemValidator = new ItemValidator();
+        beanValidator = new LocalValidatorFactoryBean();
+        beanValidator.afterPropertiesSet();
+        compiledValidator = new CompiledBeanValidator(beanValidator);
+        compiledValidator.compile(ItemSaveForm.class);
+
+        item = new ItemForm();
+        item.setItemName(valid ? "itemA" : " ");
+        item.setPrice(valid ? 10000 : 1000);
+        item.setQuantity(valid ? 10 : 1);
+        form = new ItemSaveForm();
+        form.setItemName(item.getItemName());
+        form.setPrice(item.getPrice());
+        form.setQuantity(item.getQuantity());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        beanValidator.close();
+    }
+
+    @Benchmark
+    public BindingResult itemValidator() {
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+        itemValidator.validate(item, bindingResult);
+        return bindingResult;
+    }
+
+    @Benchmark
+    public BindingResult beanValidation() {
+        return validateForm(beanValidator);
+    }
+
+    @Benchmark
+    public BindingResult compiledValidation() {
+        return validateForm(compiledValidator);
+    }
+
+    private BindingResult validateForm(Validator validator) {
+        BindingResult bindingResult = new BeanPropertyBindingResult(form, "item");
+        validator.validate(form, bindingResult);
+        // 컨트롤러에서 직접 하는 복합 룰 검증까지 포함해야 ItemValidator와 같은 일을 한다.
+        TotalPriceCheck.check(form.getPrice(), form.getQuantity(), bindingResult);
+        return bindingResult;
+    }
+}
@@ -0,0 +1,65 @@
+package hello.itemservice.web.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품 API 본문 변환 비용. ItemJsonHttpMessageConverter와 기본 Jackson 변환기로 ItemSaveForm 요청을 읽고 Item 응답을 쓴다.
+ * 할당량은 GC 프로파일러(-PjmhProfilers=gc)의 gc.alloc.rate.norm으로 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemJsonBenchmark {
+
+    @Param({"codec", "jackson"})
+    String converter;
+
+    AbstractHttpMessageConverter<Object> messageConverter;
+    byte[] saveBody;
+    Item item;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        messageConverter = converter.equals("codec")
+                ? new ItemJsonHttpMessageConverter(objectMapper)
+                : new MappingJackson2HttpMessageConverter(objectMapper);
+        saveBody = "{\"itemName\":\"상품 itemA\",\"price\":10000,\"quantity\":10}".getBytes(StandardCharsets.UTF_8);
+        item = new Item(1234L, "상품 itemA", 10000, 10, 3L);
+    }
+
+    @Benchmark
+    public Object readSaveForm() throws IOException {
+        MockHttpInputMessage input = new MockHttpInputMessage(saveBody);
+        input.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return messageConverter.read(ItemSaveForm.class, input);
+    }
+
+    @Benchmark
+    public Object writeItem() throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        messageConverter.write(item, MediaType.APPLICATION_JSON, output);
+        return output;
+    }
+}
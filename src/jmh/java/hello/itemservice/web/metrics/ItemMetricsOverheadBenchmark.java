@@ -0,0 +1,144 @@
+package hello.itemservice.web.metrics;
+
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.basic.ValidationItemController3;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.DelegatingWebMvcConfiguration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * 요청 지표(item.metrics.enabled)를 켰을 때와 껐을 때 POST /validation/v3/items/add 비용 비교. 둘의 차이가 단계 타이머와 오류 카운터의 오버헤드다.
+ * 운영 설정처럼 item.request.stage에 히스토그램을 켠다. 뷰는 그리지 않으므로(리다이렉트, 포워드만 기록) 실제 요청 시간에 대한 비율은 이보다 작다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemMetricsOverheadBenchmark {
+
+    @Param({"false", "true"})
+    boolean metrics;
+
+    AnnotationConfigWebApplicationContext context;
+    ItemRepository itemRepository;
+    MockMvc mvc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        if (metrics) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            registry.config().meterFilter(stageHistograms());
+            context.registerBean(ItemRequestMetrics.class, () -> new ItemRequestMetrics(registry));
+        }
+        context.register(MvcConfig.class);
+        context.refresh();
+        itemRepository = context.getBean(ItemRepository.class);
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    // 저장이 반복마다 상품을 늘리므로 처음 상태로 되돌린다.
+    @Setup(Level.Iteration)
+    public void resetStore() {
+        itemRepository.clearStore();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse addItem() throws Exception {
+        return mvc.perform(post("/validation/v3/items/add")
+                .param("itemName", "itemA").param("price", "10000").param("quantity", "10")).andReturn().getResponse();
+    }
+
+    // totalPriceMin에 걸려서 오류 카운터까지 센다.
+    @Benchmark
+    public MockHttpServletResponse addInvalidItem() throws Exception {
+        return mvc.perform(post("/validation/v3/items/add")
+                .param("itemName", "itemA").param("price", "1000").param("quantity", "1")).andReturn().getResponse();
+    }
+
+    private static MeterFilter stageHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals("item.request.stage")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) TimeUnit.MICROSECONDS.toNanos(1))
+                        .maximumExpectedValue((double) TimeUnit.SECONDS.toNanos(10))
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    /**
+     * 스프링 부트 없이 ItemMetricsConfig와 같은 구성(타이머를 다는 어댑터와 인터셉터)을 만든다. 지표를 끄면 기본 MVC 구성이다.
+     */
+    @Configuration
+    public static class MvcConfig extends DelegatingWebMvcConfiguration {
+
+        private final ObjectProvider<ItemRequestMetrics> metrics;
+
+        public MvcConfig(ObjectProvider<ItemRequestMetrics> metrics) {
+            this.metrics = metrics;
+        }
+
+        @Bean
+        public ItemRepository itemRepository() {
+            return new ItemRepository();
+        }
+
+        @Bean
+        public ValidationItemController3 validationItemController3(ItemRepository itemRepository) {
+            return new ValidationItemController3(itemRepository);
+        }
+
+        @Override
+        protected RequestMappingHandlerAdapter createRequestMappingHandlerAdapter() {
+            ItemRequestMetrics requestMetrics = metrics.getIfAvailable();
+            return requestMetrics == null ? super.createRequestMappingHandlerAdapter() : new TimedRequestMappingHandlerAdapter(requestMetrics);
+        }
+
+        @Override
+        protected void addInterceptors(InterceptorRegistry registry) {
+            super.addInterceptors(registry);
+            ItemRequestMetrics requestMetrics = metrics.getIfAvailable();
+            if (requestMetrics != null) {
+                registry.addInterceptor(new ItemMetricsInterceptor(requestMetrics));
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package hello.itemservice.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 떠 있는 서버에 연결 수를 고정해 두고 요청을 계속 보내서 처리량과 지연 시간 분포를 잰다.
+ * 연결마다 응답을 받으면 바로 다음 요청을 보내므로(closed loop) 동시에 처리 중인 요청 수는 항상 connections개다.
+ * <p>
+ * 요청은 상품 목록 화면(/validation/v3/items), 상품 상세 화면(/basic/items/{id}), API 조회(/validation/api/items/{id})를
+ * 골고루 섞고, writes 비율만큼 API 수정(/validation/api/items/{id}/edit)을 보낸다.
+ * 막히는 I/O가 있어야 스레드 모델 차이가 드러나므로 서버는 item.store.type=wal, fsync=always로 띄우는 것을 기준으로 한다.
+ * <p>
+ * 플랫폼 스레드 풀과 가상 스레드 비교 (10k 연결은 서버와 이 도구 모두 ulimit -n이 연결 수보다 커야 한다):
+ * <pre>
+ * ./gradlew bootRun -PjavaToolchain=21 --args='--item.store.type=wal --server.tomcat.max-connections=12000'
+ * ./gradlew loadTest -PloadArgs='--label=platform --connections=10000 --seconds=60'
+ * ./gradlew bootRun -PjavaToolchain=21 --args='--item.store.type=wal --server.tomcat.max-connections=12000 --item.threads.virtual=true'
+ * ./gradlew loadTest -PloadArgs='--label=virtual --connections=10000 --seconds=60'
+ * </pre>
+ * 결과는 한 줄씩 --out 파일(CSV)에 이어 붙으므로 두 줄을 나란히 비교하면 된다.
+ */
+public class ItemLoadTest {
+
+    private static final String CSV_HEADER = "label,connections,seconds,requests,errors,throughput_rps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+    private final URI baseUrl;
+    private final int connections;
+    private final Duration warmup;
+    private final Duration duration;
+    private final double writes;
+    private final int itemIds;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final Histogram histogram = new Histogram();
+    private final LongAdder errors = new LongAdder();
+
+    ItemLoadTest(URI baseUrl, int connections, Duration warmup, Duration duration, double writes, int itemIds, ExecutorService executor) {
+        this.baseUrl = baseUrl;
+        this.connections = connections;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.writes = writes;
+        this.itemIds = itemIds;
+        this.executor = executor;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(executor)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int connections = Integer.parseInt(options.getOrDefault("connections", "10000"));
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        ItemLoadTest loadTest = new ItemLoadTest(
+                URI.create(options.getOrDefault("url", "http://localhost:8080")),
+                connections,
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10"))),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("seconds", "60"))),
+                Double.parseDouble(options.getOrDefault("writes", "0.1")),
+                Integer.parseInt(options.getOrDefault("items", "2")),
+                executor);
+        try {
+            Result result = loadTest.run(options.getOrDefault("label", "run"));
+            System.out.println(CSV_HEADER);
+            System.out.println(result.csv());
+            appendCsv(Path.of(options.getOrDefault("out", "build/reports/loadtest/results.csv")), result);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    Result run(String label) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(connections);
+        for (int i = 0; i < connections; i++) {
+            next(measureFrom, deadline, done);
+        }
+        done.await();
+        double seconds = duration.toNanos() / 1e9;
+        return new Result(label, connections, seconds, histogram.count(), errors.sum(), histogram.count() / seconds,
+                histogram.percentile(0.50), histogram.percentile(0.90), histogram.percentile(0.99),
+                histogram.percentile(0.999), histogram.max());
+    }
+
+    /**
+     * 연결 하나의 요청 루프. 응답이 오면 그 콜백에서 다음 요청을 보낸다.
+     */
+    private void next(long measureFrom, long deadline, CountDownLatch done) {
+        long sentAt = System.nanoTime();
+        if (sentAt >= deadline) {
+            done.countDown();
+            return;
+        }
+        client.sendAsync(request(), HttpResponse.BodyHandlers.discarding())
+                // 바로 실패한 요청의 콜백이 호출한 스레드에서 돌면서 재귀가 깊어지지 않게 항상 executor로 넘긴다.
+                .whenCompleteAsync((response, e) -> {
+                    long receivedAt = System.nanoTime();
+                    if (sentAt >= measureFrom && receivedAt < deadline) {
+                        if (e != null || response.statusCode() >= 400) {
+                            errors.increment();
+                        } else {
+                            histogram.record((receivedAt - sentAt) / 1000);
+                        }
+                    }
+                    next(measureFrom, deadline, done);
+                }, executor);
+    }
+
+    private HttpRequest request() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long itemId = random.nextInt(itemIds) + 1;
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(60));
+        if (random.nextDouble() < writes) {
+            String body = "{\"id\":" + itemId + ",\"itemName\":\"load" + random.nextInt(1000)
+                    + "\",\"price\":10000,\"quantity\":" + (random.nextInt(100) + 1) + "}";
+            return builder.uri(baseUrl.resolve("/validation/api/items/" + itemId + "/edit"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                    .build();
+        }
+        String path = switch (random.nextInt(3)) {
+            case 0 -> "/validation/v3/items";
+            case 1 -> "/basic/items/" + itemId;
+            default -> "/validation/api/items/" + itemId;
+        };
+        return builder.uri(baseUrl.resolve(path)).GET().build();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("options must look like --name=value: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static void appendCsv(Path out, Result result) throws IOException {
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        String line = (Files.exists(out) ? "" : CSV_HEADER + System.lineSeparator()) + result.csv() + System.lineSeparator();
+        Files.writeString(out, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    record Result(String label, int connections, double seconds, long requests, long errors, double throughput,
+                  long p50Micros, long p90Micros, long p99Micros, long p999Micros, long maxMicros) {
+
+        String csv() {
+            return String.format(Locale.ROOT, "%s,%d,%.0f,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f", label, connections, seconds,
+                    requests, errors, throughput, p50Micros / 1000.0, p90Micros / 1000.0, p99Micros / 1000.0,
+                    p999Micros / 1000.0, maxMicros / 1000.0);
+        }
+    }
+
+    /**
+     * 마이크로초 단위 지연 시간 히스토그램. 32 미만은 1 단위로, 그 위는 2배 구간마다 16칸으로 나누므로 오차는 6% 이내다.
+     * 여러 HttpClient 스레드가 동시에 기록하므로 칸마다 AtomicLong을 쓴다.
+     */
+    static final class Histogram {
+
+        private static final int LINEAR = 32;
+        private static final int SUB_BUCKETS = 16;
+
+        private final AtomicLongArray counts = new AtomicLongArray(LINEAR + 64 * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long micros) {
+            long value = Math.max(micros, 0);
+            counts.incrementAndGet(index(value));
+            count.increment();
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /**
+         * @return 비율 q에 해당하는 칸의 상한값
+         */
+        long percentile(double q) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max());
+                }
+            }
+            return max();
+        }
+
+        static int index(long value) {
+            if (value < LINEAR) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - 4;
+            int top = (int) (value >>> shift);
+            return LINEAR + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+        }
+
+        static long upperBound(int index) {
+            if (index < LINEAR) {
+                return index;
+            }
+            int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+            long top = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+            return ((top + 1) << shift) - 1;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package hello.itemservice.config;
+
+import hello.itemservice.web.basic.form.ItemForm;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import hello.itemservice.web.basic.form.ItemUpdateForm;
+import hello.itemservice.web.validation.CompiledBeanValidator;
+import jakarta.validation.ValidatorFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Validator;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * @Validated 검증에 쓰는 글로벌 Validator(mvcValidator)를 CompiledBeanValidator로 바꾼다.
+ * 빈으로 따로 등록하지 않는 이유는 jakarta Validator 타입 빈이 생기면 스프링 부트가 기본 Validator(defaultValidator)를 만들지 않기 때문이다.
+ * item.validation.compiled=false면 원래대로 Hibernate Validator를 쓴다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.validation.compiled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class CompiledValidationConfig implements WebMvcConfigurer {
+
+    private final ValidatorFactory validatorFactory;
+
+    @Override
+    public Validator getValidator() {
+        CompiledBeanValidator validator = new CompiledBeanValidator(validatorFactory);
+        validator.compile(ItemSaveForm.class, ItemUpdateForm.class, ItemForm.class);
+        return validator;
+    }
+}
@@ -0,0 +1,29 @@
+package hello.itemservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.web.json.ItemJsonHttpMessageConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 상품 API의 Item, ItemSaveForm, ItemUpdateForm JSON을 Jackson 변환기 대신 ItemJsonHttpMessageConverter로 읽고 쓴다.
+ * item.json.codec=false면 원래대로 Jackson 변환기만 쓴다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.json.codec", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ItemJsonConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Jackson 변환기보다 먼저 고르도록 맨 앞에 둔다. 세 타입 말고는 맡지 않으므로 다른 응답에는 영향이 없다.
+        converters.add(0, new ItemJsonHttpMessageConverter(objectMapper));
+    }
+}
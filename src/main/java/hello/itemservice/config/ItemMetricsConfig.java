@@ -0,0 +1,46 @@
+package hello.itemservice.config;
+
+import hello.itemservice.web.metrics.ItemMetricsInterceptor;
+import hello.itemservice.web.metrics.ItemRequestMetrics;
+import hello.itemservice.web.metrics.TimedRequestMappingHandlerAdapter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * 컨트롤러 요청을 단계별(handler, binding, validation, total_price, render)로 재고 검증 오류를 센다. (ItemRequestMetrics)
+ * 값은 /actuator/metrics, /actuator/prometheus로 본다. item.metrics.enabled=false면 재지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class ItemMetricsConfig implements WebMvcConfigurer {
+
+    private final ItemRequestMetrics metrics;
+
+    public ItemMetricsConfig(MeterRegistry meterRegistry) {
+        this.metrics = new ItemRequestMetrics(meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ItemMetricsInterceptor(metrics));
+    }
+
+    /**
+     * 스프링 부트가 만드는 RequestMappingHandlerAdapter 대신 binding, validation 시간을 재는 어댑터를 쓰게 한다.
+     */
+    @Bean
+    public WebMvcRegistrations timedWebMvcRegistrations() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+                return new TimedRequestMappingHandlerAdapter(metrics);
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package hello.itemservice.config;
+
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.replication.ItemReplicationFollower;
+import hello.itemservice.domain.item.replication.ItemReplicationLeader;
+import hello.itemservice.domain.item.replication.ItemReplicationNode;
+import hello.itemservice.web.ItemReplicationInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 여러 인스턴스를 로드 밸런서 뒤에 둘 때 item.replication.role로 노드 하나를 리더, 나머지를 팔로워로 띄운다.
+ * 리더가 모든 쓰기의 순서를 정해서 팔로워에게 보내고, 팔로워는 읽기를 자기 저장소에서 처리하고 쓰기는 리더로 넘긴다.
+ * ex) --item.replication.role=leader --item.replication.bind-address=10.0.0.1 --item.replication.port=7070
+ *     --item.replication.role=follower --item.replication.leader=10.0.0.1:7070
+ * 두 쪽 모두 item.replication.secret을 같은 값으로 줘야 한다.
+ */
+@Configuration
+@ConditionalOnProperty("item.replication.role")
+@EnableConfigurationProperties(ItemReplicationProperties.class)
+public class ItemReplicationConfig implements WebMvcConfigurer {
+
+    private static final Duration CHECKPOINT_INTERVAL = Duration.ofSeconds(1);
+
+    private final ItemReplicationProperties properties;
+    private final ObjectProvider<ItemReplicationNode> replicationNode;
+
+    public ItemReplicationConfig(ItemReplicationProperties properties, ObjectProvider<ItemReplicationNode> replicationNode) {
+        this.properties = properties;
+        this.replicationNode = replicationNode;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "item.replication.role", havingValue = "leader")
+    public ItemReplicationLeader itemReplicationLeader(ItemRepository itemRepository) throws IOException {
+        return new ItemReplicationLeader(itemRepository, InetAddress.getByName(properties.getBindAddress()),
+                properties.getPort(), properties.getLogCapacity(), secret());
+    }
+
+    /**
+     * ItemRepository가 쓰기 전달자로 주입받아 붙인다. (ItemRepository.setWriteForwarder)
+     * WAL 저장소면 반영한 위치를 WAL 디렉터리에 남겨서, 다시 떴을 때 스냅샷 없이 이어 받는다.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "item.replication.role", havingValue = "follower")
+    public ItemReplicationFollower itemReplicationFollower(ItemStoreProperties storeProperties) {
+        if (storeProperties.getType() == ItemStoreProperties.Type.MAPPED) {
+            throw new IllegalStateException("복제 팔로워는 item.store.type=memory 또는 wal이어야 합니다.");
+        }
+        String leader = properties.getLeader();
+        int colon = leader.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalStateException("item.replication.leader는 host:port 형식이어야 합니다: " + leader);
+        }
+        String host = leader.substring(0, colon);
+        int port = Integer.parseInt(leader.substring(colon + 1));
+        if (storeProperties.getType() != ItemStoreProperties.Type.WAL) {
+            return new ItemReplicationFollower(host, port, secret(), properties.getTimeout());
+        }
+        // 위치를 쓸 때마다 저장소를 sync하므로(fsync 정책, write-behind와 상관없이) 주기는 fsync를 얼마나 자주 더 할지만 정한다.
+        return new ItemReplicationFollower(host, port, secret(), properties.getTimeout(),
+                Path.of(storeProperties.getWal().getDir()).resolve("replication.position"), CHECKPOINT_INTERVAL);
+    }
+
+    private String secret() {
+        String secret = properties.getSecret();
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("복제하려면 item.replication.secret을 설정해야 합니다.");
+        }
+        return secret;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ItemReplicationInterceptor(replicationNode.getObject(), properties.getTimeout()));
+    }
+}
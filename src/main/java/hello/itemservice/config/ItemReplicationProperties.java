@@ -0,0 +1,52 @@
+package hello.itemservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("item.replication")
+public class ItemReplicationProperties {
+
+    public enum Role {
+        LEADER, FOLLOWER
+    }
+
+    /**
+     * 비워 두면 복제하지 않는다.
+     */
+    private Role role;
+
+    /**
+     * 리더가 팔로워 연결을 받는 주소. 다른 호스트의 팔로워를 받으려면 내부망 주소로 바꾼다.
+     */
+    private String bindAddress = "127.0.0.1";
+
+    /**
+     * 리더가 팔로워 연결을 받는 포트
+     */
+    private int port = 7070;
+
+    /**
+     * 리더와 팔로워가 같은 값을 써야 하는 공유 비밀. 비어 있으면 복제를 시작하지 않는다.
+     * 비밀은 연결마다 challenge의 HMAC으로만 오가지만 상품과 쓰기 요청은 암호화하지 않으므로, 복제 연결은 내부망이나 TLS 터널 안에 둔다.
+     */
+    private String secret;
+
+    /**
+     * 팔로워가 연결할 리더의 host:port
+     */
+    private String leader = "localhost:7070";
+
+    /**
+     * 리더가 메모리에 남겨 두는 최근 변경 수. 이보다 뒤처진 팔로워는 스냅샷부터 다시 받는다.
+     */
+    private int logCapacity = 100_000;
+
+    /**
+     * 팔로워가 넘긴 쓰기의 응답, 앞선 쓰기가 이 노드에 반영되기를 기다리는 최대 시간
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+}
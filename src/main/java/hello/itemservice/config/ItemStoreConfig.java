@@ -0,0 +1,124 @@
+package hello.itemservice.config;
+
+import hello.itemservice.domain.item.store.CachingItemStore;
+import hello.itemservice.domain.item.store.ItemStore;
+import hello.itemservice.domain.item.store.MappedItemStore;
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import hello.itemservice.domain.item.store.ShardedItemStore;
+import hello.itemservice.domain.item.store.TimedItemStore;
+import hello.itemservice.domain.item.store.WalItemStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * item.store.type으로 ItemRepository 뒤에 붙일 저장 엔진을 고른다.
+ * item.store.shards가 1보다 크면 같은 엔진을 샤드 수만큼 만들어 ShardedItemStore로 묶는다.
+ * item.store.cache.enabled면 findById 캐시(CachingItemStore)를 앞에 두고,
+ * item.metrics.enabled면 호출 시간을 재는 TimedItemStore로 감싼다.
+ */
+@Configuration
+@EnableConfigurationProperties(ItemStoreProperties.class)
+public class ItemStoreConfig {
+
+    static final String SHARDS_MARKER = "item-store.shards";
+
+    @Bean
+    public ItemStore itemStore(ItemStoreProperties properties,
+                               @Value("${item.metrics.enabled:true}") boolean metricsEnabled,
+                               ObjectProvider<MeterRegistry> meterRegistry) throws IOException {
+        ItemStore store = createStore(properties);
+        MeterRegistry registry = metricsEnabled ? meterRegistry.getIfAvailable() : null;
+        ItemStoreProperties.Cache cache = properties.getCache();
+        if (cache.isEnabled()) {
+            store = new CachingItemStore(store, cache.getMaxSize().toBytes(), cache.getWrite(),
+                    cache.getWriteBehindDelay(), registry);
+        }
+        return registry != null ? new TimedItemStore(store, registry) : store;
+    }
+
+    private ItemStore createStore(ItemStoreProperties properties) throws IOException {
+        int shards = properties.getShards();
+        if (properties.getType() == ItemStoreProperties.Type.WAL) {
+            checkShardLayout(Path.of(properties.getWal().getDir()), Math.max(shards, 1));
+        }
+        if (shards <= 1) {
+            return createStore(properties, "");
+        }
+        if (properties.getType() == ItemStoreProperties.Type.MAPPED) {
+            throw new IllegalStateException("item.store.shards는 memory, wal 저장소에서만 쓸 수 있습니다.");
+        }
+        List<ItemStore> stores = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            // WAL 샤드는 각자 디렉터리를 가진다. (data/shard-0, data/shard-1, ...)
+            stores.add(createStore(properties, "shard-" + shard));
+        }
+        return new ShardedItemStore(stores);
+    }
+
+    private ItemStore createStore(ItemStoreProperties properties, String subDir) throws IOException {
+        return switch (properties.getType()) {
+            case MEMORY -> new MemoryItemStore();
+            case WAL -> {
+                ItemStoreProperties.Wal wal = properties.getWal();
+                yield new WalItemStore(Path.of(wal.getDir()).resolve(subDir), wal.getFsync(), wal.getFsyncInterval(),
+                        wal.getSnapshotInterval(), wal.getSnapshotMinRecords(), wal.getMaxBatch(), wal.getCommitDelay());
+            }
+            case MAPPED -> new MappedItemStore(Path.of(properties.getMapped().getDir()));
+        };
+    }
+
+    /**
+     * wal.dir에 샤드 수를 적어 두고, 다른 샤드 수로 쓴 데이터를 열려고 하면 거부한다.
+     * 샤드 수를 약수로 줄이면(4 -> 2) 남은 샤드의 ID는 여전히 제 샤드를 가리켜서 ShardedItemStore의 확인을 지나가고,
+     * 나머지 shard-* 디렉터리의 상품만 조용히 빠진다. 샤드 수를 적어 두기 전에 쓴 디렉터리는 남아 있는 파일로 판단한다.
+     */
+    static void checkShardLayout(Path dir, int shards) throws IOException {
+        Files.createDirectories(dir);
+        Path marker = dir.resolve(SHARDS_MARKER);
+        if (Files.exists(marker)) {
+            int written;
+            try {
+                written = Integer.parseInt(Files.readString(marker).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException(marker + "에 적힌 샤드 수를 읽을 수 없습니다.", e);
+            }
+            if (written != shards) {
+                throw new IllegalStateException(dir + "는 item.store.shards=" + written + "로 쓴 데이터입니다. (지금 설정: "
+                        + shards + ") 샤드 수를 바꾸려면 데이터를 다시 나눠 담아야 합니다.");
+            }
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                boolean shardDir = name.startsWith("shard-");
+                boolean rootLog = name.startsWith("items-") && name.endsWith(".wal") || name.startsWith("items.snapshot");
+                if (shards == 1 ? shardDir : rootLog || shardDir && !isShardDir(name, shards)) {
+                    throw new IllegalStateException(dir + "에 item.store.shards=" + shards + "와 맞지 않는 " + name
+                            + "이 있습니다. 샤드 수를 바꾸려면 데이터를 다시 나눠 담아야 합니다.");
+                }
+            }
+        }
+        Files.writeString(marker, shards + "\n");
+    }
+
+    private static boolean isShardDir(String name, int shards) {
+        try {
+            int shard = Integer.parseInt(name.substring("shard-".length()));
+            return shard >= 0 && shard < shards;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
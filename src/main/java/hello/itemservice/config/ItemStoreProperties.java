@@ -0,0 +1,72 @@
+package hello.itemservice.config;
+
+import hello.itemservice.domain.item.store.CacheWritePolicy;
+import hello.itemservice.domain.item.store.FsyncPolicy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties("item.store")
+public class ItemStoreProperties {
+
+    public enum Type {
+        MEMORY, WAL, MAPPED
+    }
+
+    private Type type = Type.MEMORY;
+
+    /**
+     * 1보다 크면 상품을 ID로 이만큼의 샤드에 나눠 담는다. 한 번 데이터를 쓴 뒤에는 바꿀 수 없다.
+     */
+    private int shards = 1;
+
+    private final Wal wal = new Wal();
+    private final Mapped mapped = new Mapped();
+    private final Cache cache = new Cache();
+
+    @Getter @Setter
+    public static class Wal {
+        private String dir = "data";
+        private FsyncPolicy fsync = FsyncPolicy.ALWAYS;
+        /**
+         * fsync가 interval일 때 fsync하는 간격. 0보다 커야 한다.
+         */
+        private Duration fsyncInterval = Duration.ofMillis(100);
+        private Duration snapshotInterval = Duration.ofMinutes(1);
+        /**
+         * 마지막 스냅샷 이후 이만큼 쓰기가 쌓였을 때만 스냅샷을 만든다.
+         */
+        private long snapshotMinRecords = 10_000;
+        /**
+         * group commit 한 번에 묶는 최대 레코드 수
+         */
+        private int maxBatch = 1024;
+        /**
+         * fsync가 always일 때 동시에 들어온 쓰기를 더 모으려고 기다리는 시간. 0이면 기다리지 않는다.
+         */
+        private Duration commitDelay = Duration.ZERO;
+    }
+
+    @Getter @Setter
+    public static class Mapped {
+        private String dir = "data/mapped";
+    }
+
+    @Getter @Setter
+    public static class Cache {
+        /**
+         * 저장소 앞에 findById 캐시(CachingItemStore)를 둘지 여부. 저장소가 디스크를 읽을 때 켠다.
+         */
+        private boolean enabled = false;
+        /**
+         * 캐시에 담을 상품들의 대략적인 메모리 크기 상한
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+        private CacheWritePolicy write = CacheWritePolicy.THROUGH;
+        private Duration writeBehindDelay = Duration.ofMillis(100);
+    }
+}
@@ -0,0 +1,83 @@
+package hello.itemservice.config;
+
+import hello.itemservice.web.validation.CachingMessageCodesResolver;
+import hello.itemservice.web.validation.CachingMessageSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.context.MessageSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.MessageCodesResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Arrays;
+
+/**
+ * 스프링 부트가 만드는 messageSource 대신 CachingMessageSource를 쓰고, 검증 오류 코드 생성도 캐시한다.
+ * spring.messages.* 설정(basename, encoding, cache-duration 등)은 그대로 따른다.
+ * item.metrics.enabled면 message.cache(result=hit|miss)와 message.cache.size로 메시지 캐시 적중률을 본다.
+ */
+@Configuration
+public class MessageConfig implements WebMvcConfigurer {
+
+    @Bean
+    @ConfigurationProperties("spring.messages")
+    public MessageSourceProperties messageSourceProperties() {
+        return new MessageSourceProperties();
+    }
+
+    @Bean
+    public CachingMessageSource messageSource(MessageSourceProperties properties,
+                                              @Value("${item.metrics.enabled:true}") boolean metricsEnabled,
+                                              ObjectProvider<MeterRegistry> meterRegistry) {
+        CachingMessageSource messageSource = new CachingMessageSource();
+        // messages, errors -> classpath:messages, classpath:errors (ResourceBundle처럼 .은 경로 구분자로 본다)
+        String[] basenames = StringUtils.commaDelimitedListToStringArray(StringUtils.trimAllWhitespace(properties.getBasename()));
+        messageSource.setBasenames(Arrays.stream(basenames)
+                .map(basename -> basename.contains(":") ? basename : "classpath:" + (basename.contains("/") ? basename : basename.replace('.', '/')))
+                .toArray(String[]::new));
+        if (properties.getEncoding() != null) {
+            messageSource.setDefaultEncoding(properties.getEncoding().name());
+        }
+        if (properties.getCacheDuration() != null) {
+            messageSource.setCacheMillis(properties.getCacheDuration().toMillis());
+        }
+        messageSource.setFallbackToSystemLocale(properties.isFallbackToSystemLocale());
+        messageSource.setAlwaysUseMessageFormat(properties.isAlwaysUseMessageFormat());
+        messageSource.setUseCodeAsDefaultMessage(properties.isUseCodeAsDefaultMessage());
+        MeterRegistry registry = metricsEnabled ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            bindMetrics(messageSource, registry);
+        }
+        return messageSource;
+    }
+
+    static void bindMetrics(CachingMessageSource messageSource, MeterRegistry registry) {
+        FunctionCounter.builder("message.cache", messageSource, CachingMessageSource::getHitCount)
+                .description("Message lookups served from the message cache")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("message.cache", messageSource, CachingMessageSource::getMissCount)
+                .description("Message lookups that searched the property files")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("message.cache.size", messageSource, CachingMessageSource::getCacheSize)
+                .description("Cached message code lists")
+                .register(registry);
+    }
+
+    @Bean
+    public CachingMessageCodesResolver messageCodesResolver() {
+        return new CachingMessageCodesResolver();
+    }
+
+    @Override
+    public MessageCodesResolver getMessageCodesResolver() {
+        return messageCodesResolver();
+    }
+}
@@ -0,0 +1,47 @@
+package hello.itemservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * item.threads.virtual=true면 Tomcat이 요청마다 가상 스레드를 하나씩 만들어서 처리한다.
+ * <p>
+ * 기본 Tomcat 스레드 풀(최대 200개)은 요청이 저장소 fsync나 외부 호출에서 막혀 있는 동안 스레드를 붙잡고 있으므로
+ * 동시에 처리할 수 있는 요청 수가 풀 크기에서 멈춘다. 가상 스레드는 막히는 동안 캐리어 스레드를 내려놓는다.
+ * 모든 컨트롤러가 같은 커넥터를 쓰므로 화면 컨트롤러와 API 컨트롤러 모두 가상 스레드에서 돈다.
+ * <p>
+ * 빌드는 Java 17 그대로 두기 위해 Executors.newVirtualThreadPerTaskExecutor()를 리플렉션으로 부른다.
+ * JDK 21 이상에서 실행해야 하고(./gradlew bootRun -PjavaToolchain=21), 그보다 낮으면 시작할 때 실패한다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "item.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        log.info("Tomcat 요청을 가상 스레드에서 처리합니다. java={}", Runtime.version());
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("item.threads.virtual=true는 JDK 21 이상이 필요합니다. 지금 JDK: " + Runtime.version(), e);
+        } catch (InvocationTargetException e) {
+            // JDK 19, 20에서는 --enable-preview 없이 부르면 UnsupportedOperationException이 난다.
+            throw new IllegalStateException("가상 스레드를 만들 수 없습니다. 지금 JDK: " + Runtime.version(), e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,25 +1,44 @@
 package hello.itemservice.domain.item;
 
-import jakarta.validation.constraints.Max;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.Setter;
-import org.hibernate.validator.constraints.Range;
+import lombok.ToString;
 
-@Getter @Setter
-public class Item {
+/**
+ * 상품 값. 한 번 만들어지면 바뀌지 않으므로 저장소가 들고 있는 인스턴스를 복사 없이 여러 스레드에 그대로 내준다.
+ * 수정은 항상 새 인스턴스로 바꿔 끼우는 방식이고, 화면 입력을 받는 가변 객체는 웹 계층의 폼(ItemForm 등)이다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class Item {
 
-    private Long id;
-    private String itemName;
-    private Integer price;
-    private Integer quantity;
-
-    public Item() {}
+    private final Long id;
+    private final String itemName;
+    private final Integer price;
+    private final Integer quantity;
+    // 저장될 때 1이고 수정될 때마다 1씩 올라간다. 아직 저장되지 않은 상품은 null
+    private final Long version;
 
+    /**
+     * 아직 저장되지 않은 상품. 저장하거나 수정 값으로 넘길 때 쓴다.
+     */
     public Item(String itemName, Integer price, Integer quantity) {
+        this(null, itemName, price, quantity, null);
+    }
+
+    public Item(Long id, String itemName, Integer price, Integer quantity, Long version) {
+        this.id = id;
         this.itemName = itemName;
         this.price = price;
         this.quantity = quantity;
+        this.version = version;
+    }
+
+    /**
+     * 값은 그대로 두고 ID와 버전만 바꾼 새 상품. 저장소가 ID와 버전을 매길 때 쓴다.
+     */
+    public Item withIdentity(long id, long version) {
+        return new Item(id, itemName, price, quantity, version);
     }
 }
@@ -0,0 +1,17 @@
+package hello.itemservice.domain.item;
+
+/**
+ * ItemRepository의 쓰기를 따라가야 하는 부가 구조(인덱스 등)가 구현한다.
+ * 같은 상품에 대한 호출은 순서대로 한 번에 하나씩만 들어온다.
+ */
+public interface ItemChangeListener {
+
+    /**
+     * @param oldItem 변경 전 상품. 새로 저장된 경우 null
+     * @param newItem 변경 후 상품
+     */
+    void onChange(Item oldItem, Item newItem);
+
+    default void onClear() {
+    }
+}
@@ -1,40 +1,748 @@
 package hello.itemservice.domain.item;
 
+import hello.itemservice.domain.item.index.IntValueIndex;
+import hello.itemservice.domain.item.index.ItemIndexes;
+import hello.itemservice.domain.item.index.ItemTextQuery;
+import hello.itemservice.domain.item.index.NamePrefixIndex;
+import hello.itemservice.domain.item.store.ItemStore;
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
 @Repository
 public class ItemRepository {
 
-    private static final Map<Long, Item> store = new HashMap<>();
-    private static long sequence = 0L;
+    private static final int LOCK_STRIPES = 64;
+    // 복제 스냅샷을 저장소에 이만큼씩 묶어서 쓴다.
+    private static final int REPLICATED_BATCH_SIZE = 1000;
 
+    private final ItemStore store;
+    private final ItemIndexes indexes;
+    private final List<ItemChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    // 쓰기가 끝날 때마다 1씩 올린다. findAll 스냅샷이 아직 최신인지 이 값으로 확인한다.
+    private final AtomicLong modCount = new AtomicLong();
+    private volatile Snapshot snapshot;
+    // 복제 팔로워면 쓰기를 리더로 넘긴다.
+    private volatile ItemWriteForwarder forwarder;
+
+    public ItemRepository() {
+        this(new MemoryItemStore(), true);
+    }
+
+    public ItemRepository(ItemStore store) {
+        this(store, true);
+    }
+
+    @Autowired
+    public ItemRepository(ItemStore store, @Value("${item.store.indexed:true}") boolean indexed) {
+        this.store = store;
+        this.indexes = indexed ? new ItemIndexes() : null;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        if (indexes != null) {
+            // 디스크에서 복구된 저장소라면 이미 들어 있는 상품으로 인덱스를 채우고 시작한다.
+            store.forEach(item -> indexes.onChange(null, item));
+            listeners.add(indexes);
+        }
+    }
+
+    public void addListener(ItemChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 지금 들어 있는 상품을 listener에 onChange(null, item)으로 한 번씩 알려 준 뒤 이후의 쓰기를 이어서 알린다.
+     * 모든 락 스트라이프를 잡은 채로 하므로 그 사이의 쓰기가 빠지거나 두 번 알려지지 않는다.
+     */
+    public void addListenerWithExisting(ItemChangeListener listener) {
+        lockAll();
+        try {
+            store.forEach(item -> listener.onChange(null, item));
+            listeners.add(listener);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * 이후의 쓰기를 forwarder로 넘긴다. 복제 팔로워 노드에서 한 번 설정한다.
+     */
+    @Autowired(required = false)
+    public void setWriteForwarder(ItemWriteForwarder forwarder) {
+        this.forwarder = forwarder;
+        forwarder.attach(this);
+    }
+
+    /**
+     * 쓰기를 다른 노드로 넘기는 복제 팔로워인지.
+     */
+    public boolean isFollower() {
+        return forwarder != null;
+    }
+
+    /**
+     * 새 ID를 먼저 발급받고 그 ID의 락을 잡은 채로 저장하고 알린다. 저장된 상품이 보이자마자 다른 요청이 수정하더라도
+     * 수정은 같은 락을 기다리므로, 리스너는 항상 INSERT를 먼저 받는다.
+     * ID를 미리 발급하지 못하는 저장소는 모든 락을 잡고 저장한다.
+     */
     public Item save(Item item) {
-        item.setId(++sequence);
-        store.put(item.getId(), item);
-        return item;
+        ItemWriteForwarder forwarder = this.forwarder;
+        if (forwarder != null) {
+            return forwarder.save(item);
+        }
+        long id = store.reserveId();
+        if (id < 0) {
+            lockAll();
+            try {
+                Item savedItem = store.save(item);
+                publish(null, savedItem);
+                return savedItem;
+            } finally {
+                unlockAll();
+            }
+        }
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Item savedItem = store.saveReserved(id, item);
+            publish(null, savedItem);
+            return savedItem;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 여러 상품을 저장소의 배치 쓰기 한 번으로 저장한다. 락은 save처럼 새 ID들의 스트라이프를 번호 순서대로 잡는다.
+     */
+    public List<Item> saveAll(List<Item> items) {
+        ItemWriteForwarder forwarder = this.forwarder;
+        if (forwarder != null) {
+            return forwarder.saveAll(items);
+        }
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long[] ids = new long[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = store.reserveId();
+            if (ids[i] < 0) {
+                break;
+            }
+        }
+        if (ids[0] < 0) {
+            lockAll();
+            try {
+                List<Item> savedItems = store.saveAll(items);
+                savedItems.forEach(savedItem -> publish(null, savedItem));
+                return savedItems;
+            } finally {
+                unlockAll();
+            }
+        }
+        int[] stripes = Arrays.stream(ids).mapToInt(ItemRepository::stripeOf).distinct().sorted().toArray();
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            List<Item> savedItems = store.saveAllReserved(ids, items);
+            savedItems.forEach(savedItem -> publish(null, savedItem));
+            return savedItems;
+        } finally {
+            for (int stripe : stripes) {
+                locks[stripe].unlock();
+            }
+        }
+    }
+
+    /**
+     * 저장소가 비어 있을 때만 items를 저장한다. 영속 저장소는 재시작해도 상품이 남아 있으므로 예제 상품을 다시 넣지 않는다.
+     * 복제 팔로워는 리더가 넣은 것을 받으므로 넣지 않는다.
+     *
+     * @return 저장했으면 true
+     */
+    public boolean seedIfEmpty(List<Item> items) {
+        if (isFollower() || size() > 0) {
+            return false;
+        }
+        saveAll(items);
+        return true;
     }
 
     public Item findById(Long id) {
-        return store.get(id);
+        if (id == null) {
+            return null;
+        }
+        return store.findById(id);
     }
 
+    /**
+     * 전체 상품의 읽기 전용 스냅샷. 그 사이에 쓰기가 없었다면 앞서 만든 목록을 복사 없이 그대로 다시 내준다.
+     * Item이 바뀌지 않는 값이므로 여러 요청이 같은 목록을 나눠 봐도 안전하다.
+     */
     public List<Item> findAll() {
-        return new ArrayList<>(store.values());
+        long version = modCount.get();
+        Snapshot current = snapshot;
+        if (current != null && current.modCount() == version) {
+            return current.items();
+        }
+        // ! 순회를 시작하기 전의 modCount를 붙여 둔다. 순회 중에 끝난 쓰기가 있으면 번호가 달라서 다음 호출이 다시 만든다.
+        List<? extends ItemStore> partitions = store.partitions();
+        List<Item> items;
+        if (partitions.size() == 1) {
+            items = new ArrayList<>((int) store.size());
+            store.forEach(items::add);
+        } else {
+            List<List<Item>> parts = partitions.parallelStream().map(partition -> {
+                List<Item> part = new ArrayList<>((int) partition.size());
+                partition.forEach(part::add);
+                return part;
+            }).toList();
+            items = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+            parts.forEach(items::addAll);
+        }
+        List<Item> view = Collections.unmodifiableList(items);
+        snapshot = new Snapshot(version, view);
+        return view;
+    }
+
+    public long size() {
+        return store.size();
+    }
+
+    /**
+     * 지금까지 반환한 쓰기가 저장소의 디스크까지 내려갈 때까지 기다린다. (ItemStore.sync)
+     */
+    public void sync() {
+        store.sync();
+    }
+
+    /**
+     * 목록을 만들지 않고 저장소를 바로 순회한다. 순회 중에 들어온 변경은 보일 수도, 안 보일 수도 있다.
+     */
+    public void forEach(Consumer<? super Item> action) {
+        store.forEach(action);
+    }
+
+    /**
+     * 가격이 min 이상 max 이하인 상품을 가격순으로 최대 limit개 반환한다. min, max가 null이면 그쪽은 제한이 없다.
+     */
+    public List<Item> findByPriceRange(Integer min, Integer max, int limit) {
+        if (indexes != null) {
+            return collect(indexes.price().range(min, max), IntValueIndex.Entry::id,
+                    (entry, item) -> Objects.equals(item.getPrice(), entry.value()), limit);
+        }
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setMinPrice(min);
+        cond.setMaxPrice(max);
+        return scan(cond::matches, ItemSort.PRICE.comparator(false), limit);
+    }
+
+    public List<Item> findByQuantityRange(Integer min, Integer max, int limit) {
+        if (indexes != null) {
+            return collect(indexes.quantity().range(min, max), IntValueIndex.Entry::id,
+                    (entry, item) -> Objects.equals(item.getQuantity(), entry.value()), limit);
+        }
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setMinQuantity(min);
+        cond.setMaxQuantity(max);
+        return scan(cond::matches, ItemSort.QUANTITY.comparator(false), limit);
+    }
+
+    /**
+     * 가장 낮은 가격. 가격 인덱스가 있으면 O(log n)이고 없으면 전체를 훑는다. 가격이 있는 상품이 없으면 null
+     */
+    public Integer findMinPrice() {
+        if (indexes != null) {
+            return indexes.price().min();
+        }
+        return scanPrice(Math::min);
+    }
+
+    /**
+     * 가장 높은 가격. findMinPrice와 같다.
+     */
+    public Integer findMaxPrice() {
+        if (indexes != null) {
+            return indexes.price().max();
+        }
+        return scanPrice(Math::max);
+    }
+
+    /**
+     * 상품명이 prefix로 시작하는 상품을 상품명순으로 최대 limit개 반환한다.
+     */
+    public List<Item> findByNamePrefix(String prefix, int limit) {
+        if (indexes != null) {
+            return collect(indexes.name().prefix(prefix), NamePrefixIndex.Entry::id,
+                    (entry, item) -> entry.name().equals(item.getItemName()), limit);
+        }
+        return scan(item -> item.getItemName() != null && item.getItemName().startsWith(prefix),
+                ItemSort.NAME.comparator(false), limit);
+    }
+
+    /**
+     * 상품명 검색. 검색어의 단어가 모두 들어 있는 상품을 ItemTextQuery의 순위대로 최대 limit개 반환한다.
+     * 인덱스가 꺼져 있으면 전체를 훑는다.
+     */
+    public List<Item> search(String query, int limit) {
+        ItemTextQuery textQuery = ItemTextQuery.parse(query);
+        if (textQuery.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (indexes != null) {
+            return indexes.text().search(textQuery, limit, store::findById);
+        }
+        return scan(item -> textQuery.match(item.getItemName()) != ItemTextQuery.NONE, textQuery.ranking(), limit);
+    }
+
+    /**
+     * 조건에 맞는 한 페이지만 반환한다.
+     * 정렬 기준에 인덱스가 있으면 인덱스를 커서 위치부터 따라가고,
+     * 없으면 전체를 복사해서 정렬하지 않고 커서 뒤쪽 상품 중 앞에서부터 size + 1개만 힙에 유지하면서 한 번 훑는다.
+     */
+    public ItemPage findPage(ItemSearchCond cond) {
+        ItemSort sort = cond.getSort() == null ? ItemSort.ID : cond.getSort();
+        Comparator<Item> comparator = sort.comparator(cond.isDesc());
+        Item after = parseCursor(sort, cond.getCursor());
+        int limit = cond.pageSize() + 1;
+
+        List<Item> items = findPageFromIndex(sort, cond, after, limit);
+        if (items == null) {
+            items = scan(item -> cond.matches(item) && (after == null || comparator.compare(item, after) > 0),
+                    comparator, limit);
+        }
+
+        String nextCursor = null;
+        if (items.size() == limit) {
+            items.remove(limit - 1);
+            nextCursor = sort.cursorOf(items.get(items.size() - 1));
+        }
+        return new ItemPage(items, nextCursor);
     }
 
     public void update(Long itemId, Item updateParam) {
-        Item item = findById(itemId);
-        item.setItemName(updateParam.getItemName());
-        item.setPrice(updateParam.getPrice());
-        item.setQuantity(updateParam.getQuantity());
+        update(itemId, updateParam, null);
+    }
+
+    /**
+     * 지금 버전이 expectedVersion일 때만 수정한다(compare-and-set). expectedVersion이 null이면 버전을 보지 않는다.
+     * 같은 상품의 쓰기는 락 스트라이프로 한 줄로 세우므로 버전 확인과 교체 사이에 다른 수정이 끼어들지 않는다.
+     * 저장소는 상품을 새 인스턴스로 통째로 바꿔 끼우므로 읽는 쪽은 락 없이 수정 전이나 후 중 하나만 본다.
+     *
+     * @return 수정된 상품. 없는 상품이면 null
+     * @throws ItemVersionConflictException 지금 버전이 expectedVersion과 다른 경우
+     */
+    public Item update(Long itemId, Item updateParam, Long expectedVersion) {
+        ItemWriteForwarder forwarder = this.forwarder;
+        if (forwarder != null) {
+            return forwarder.update(itemId, updateParam, expectedVersion);
+        }
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            Item oldItem = store.findById(itemId);
+            if (oldItem == null) {
+                return null;
+            }
+            if (expectedVersion != null && !expectedVersion.equals(oldItem.getVersion())) {
+                throw new ItemVersionConflictException(itemId, expectedVersion, oldItem.getVersion());
+            }
+            Item newItem = store.update(itemId, updateParam);
+            publish(oldItem, newItem);
+            return newItem;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * updateParams 각각의 id로 상품을 수정한다. 반환 목록은 입력 순서와 같고, 없는 상품 자리는 null이다.
+     * updateParam에 버전이 있으면 그 버전일 때만 수정하고, 버전이 다른 자리도 null이다.
+     * 관련된 락 스트라이프를 번호 순서대로 모두 잡은 뒤 저장소의 배치 쓰기 한 번으로 처리한다.
+     */
+    public List<Item> updateAll(List<Item> updateParams) {
+        ItemWriteForwarder forwarder = this.forwarder;
+        if (forwarder != null) {
+            return forwarder.updateAll(updateParams);
+        }
+        int[] stripes = updateParams.stream()
+                .mapToInt(updateParam -> stripeOf(updateParam.getId()))
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            List<Item> oldItems = new ArrayList<>(updateParams.size());
+            List<Item> existing = new ArrayList<>(updateParams.size());
+            // 같은 상품이 한 배치에 여러 번 나오면 뒤쪽 수정은 앞쪽 수정이 반영된 버전과 비교한다.
+            Map<Long, Long> versions = new HashMap<>();
+            for (Item updateParam : updateParams) {
+                Item oldItem = store.findById(updateParam.getId());
+                if (oldItem != null) {
+                    long currentVersion = versions.getOrDefault(oldItem.getId(), oldItem.getVersion());
+                    if (updateParam.getVersion() != null && updateParam.getVersion() != currentVersion) {
+                        oldItem = null;
+                    } else {
+                        versions.put(oldItem.getId(), currentVersion + 1);
+                        existing.add(updateParam);
+                    }
+                }
+                oldItems.add(oldItem);
+            }
+            Iterator<Item> updated = store.updateAll(existing).iterator();
+            List<Item> newItems = new ArrayList<>(updateParams.size());
+            // 같은 상품이 한 배치에 여러 번 나오면 앞선 수정 결과가 다음 수정의 변경 전 상품이 된다.
+            Map<Long, Item> latest = new HashMap<>();
+            for (Item oldItem : oldItems) {
+                Item newItem = oldItem == null ? null : updated.next();
+                if (newItem != null) {
+                    publish(latest.getOrDefault(newItem.getId(), oldItem), newItem);
+                    latest.put(newItem.getId(), newItem);
+                }
+                newItems.add(newItem);
+            }
+            return newItems;
+        } finally {
+            for (int stripe : stripes) {
+                locks[stripe].unlock();
+            }
+        }
     }
 
     public void clearStore() {
-        store.clear();
+        ItemWriteForwarder forwarder = this.forwarder;
+        if (forwarder != null) {
+            forwarder.clear();
+            return;
+        }
+        clearLocal();
+    }
+
+    /**
+     * 리더에게 받은 상품을 그대로 반영한다. 같은 상품의 같거나 더 새 버전이 이미 있으면 무시한다.
+     * (스냅샷을 받는 동안 스냅샷에 먼저 들어간 새 버전을 뒤따라오는 로그의 옛 버전이 덮어쓰지 않게 하고,
+     * RESUME 뒤에 다시 받은 로그가 같은 변경을 또 알리지 않게 한다)
+     */
+    public void applyReplicated(Item item) {
+        ReentrantLock lock = lockFor(item.getId());
+        lock.lock();
+        try {
+            Item oldItem = store.findById(item.getId());
+            if (oldItem != null && oldItem.getVersion() >= item.getVersion()) {
+                return;
+            }
+            store.restore(item);
+            publish(oldItem, item);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 리더의 스냅샷을 받는 대로 한 묶음씩 반영한다. 팔로워가 REPLICATED_BATCH_SIZE개 안쪽으로 나눠 넘긴다.
+     * 스냅샷과 같은 상품은 그대로 두고 다른 상품만 교체하고 알린다. 스냅샷은 리더의 현재 상태라서 버전이 아니라 내용으로 비교한다.
+     * 묶음의 상품이 속한 스트라이프만 잠그므로 받는 동안에도 다른 상품의 읽기와 쓰기는 멈추지 않는다.
+     */
+    public void applyReplicatedSnapshotBatch(List<Item> items) {
+        int[] stripes = items.stream()
+                .mapToInt(item -> stripeOf(item.getId()))
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            List<Item> oldItems = new ArrayList<>();
+            List<Item> newItems = new ArrayList<>();
+            for (Item item : items) {
+                Item oldItem = store.findById(item.getId());
+                if (item.equals(oldItem)) {
+                    continue;
+                }
+                oldItems.add(oldItem);
+                newItems.add(item);
+            }
+            restoreAndPublish(oldItems, newItems);
+        } finally {
+            for (int stripe : stripes) {
+                locks[stripe].unlock();
+            }
+        }
+    }
+
+    /**
+     * 스냅샷을 다 반영한 뒤 부른다. 스냅샷에 없는 상품이 있으면(그 사이 리더가 비워졌거나 다른 리더인 경우)
+     * 상품을 하나씩 지울 수 없으므로 스냅샷에 있던 상품만 모아 두고 비운 뒤 다시 넣는다. 그때만 반영하는 동안의 읽기가 일부만 볼 수 있다.
+     *
+     * @param ids 스냅샷에 있던 상품 ID. 오름차순이어야 한다.
+     */
+    public void finishReplicatedSnapshot(long[] ids) {
+        lockAll();
+        try {
+            boolean[] stale = new boolean[1];
+            store.forEach(item -> stale[0] |= Arrays.binarySearch(ids, item.getId()) < 0);
+            if (!stale[0]) {
+                return;
+            }
+            List<Item> kept = new ArrayList<>();
+            store.forEach(item -> {
+                if (Arrays.binarySearch(ids, item.getId()) >= 0) {
+                    kept.add(item);
+                }
+            });
+            clearLocal();
+            List<Item> oldItems = new ArrayList<>();
+            List<Item> newItems = new ArrayList<>();
+            for (Item item : kept) {
+                oldItems.add(null);
+                newItems.add(item);
+                if (newItems.size() == REPLICATED_BATCH_SIZE) {
+                    restoreAndPublish(oldItems, newItems);
+                }
+            }
+            restoreAndPublish(oldItems, newItems);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private void restoreAndPublish(List<Item> oldItems, List<Item> newItems) {
+        store.restoreAll(newItems);
+        for (int i = 0; i < newItems.size(); i++) {
+            publish(oldItems.get(i), newItems.get(i));
+        }
+        oldItems.clear();
+        newItems.clear();
+    }
+
+    public void applyReplicatedClear() {
+        clearLocal();
+    }
+
+    private void clearLocal() {
+        lockAll();
+        try {
+            store.clear();
+            modCount.incrementAndGet();
+            for (ItemChangeListener listener : listeners) {
+                listener.onClear();
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private List<Item> findPageFromIndex(ItemSort sort, ItemSearchCond cond, Item after, int limit) {
+        if (indexes == null) {
+            return null;
+        }
+        switch (sort) {
+            case PRICE, QUANTITY -> {
+                IntValueIndex index = sort == ItemSort.PRICE ? indexes.price() : indexes.quantity();
+                Integer min = sort == ItemSort.PRICE ? cond.getMinPrice() : cond.getMinQuantity();
+                Integer max = sort == ItemSort.PRICE ? cond.getMaxPrice() : cond.getMaxQuantity();
+                Integer afterValue = after == null ? null : (sort == ItemSort.PRICE ? after.getPrice() : after.getQuantity());
+                // ! 값이 null인 상품은 인덱스에 없으니 범위 조건이 없을 때는 정렬 순서를 보장하려고 전체 스캔으로 돌린다.
+                if ((min == null && max == null && index.hasNullValues()) || (after != null && afterValue == null)) {
+                    return null;
+                }
+                NavigableSet<IntValueIndex.Entry> entries = index.range(min, max);
+                if (cond.isDesc()) {
+                    entries = entries.descendingSet();
+                }
+                if (after != null) {
+                    entries = entries.tailSet(new IntValueIndex.Entry(afterValue, after.getId()), false);
+                }
+                return collect(entries, IntValueIndex.Entry::id, (entry, item) -> cond.matches(item)
+                        && Objects.equals(sort == ItemSort.PRICE ? item.getPrice() : item.getQuantity(), entry.value()), limit);
+            }
+            case NAME -> {
+                if (indexes.name().hasNullValues() || (after != null && after.getItemName() == null)) {
+                    return null;
+                }
+                NavigableSet<NamePrefixIndex.Entry> entries = indexes.name().all();
+                if (cond.isDesc()) {
+                    entries = entries.descendingSet();
+                }
+                if (after != null) {
+                    entries = entries.tailSet(new NamePrefixIndex.Entry(after.getItemName(), after.getId()), false);
+                }
+                return collect(entries, NamePrefixIndex.Entry::id,
+                        (entry, item) -> cond.matches(item) && entry.name().equals(item.getItemName()), limit);
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 인덱스 순서대로 상품을 꺼낸다. 인덱스를 읽는 도중 수정된 상품은 현재 값과 엔트리가 다르므로 건너뛴다.
+     */
+    private <E> List<Item> collect(Iterable<E> entries, ToLongFunction<E> idOf, BiPredicate<E, Item> accept, int limit) {
+        List<Item> items = new ArrayList<>(Math.min(limit, 64));
+        for (E entry : entries) {
+            Item item = store.findById(idOf.applyAsLong(entry));
+            if (item != null && accept.test(entry, item)) {
+                items.add(item);
+                if (items.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return items;
+    }
+
+    private Integer scanPrice(BinaryOperator<Integer> pick) {
+        List<? extends ItemStore> partitions = store.partitions();
+        if (partitions.size() == 1) {
+            return scanPrice(store, pick);
+        }
+        // 저장소가 샤드로 나뉘어 있으면 샤드마다 동시에 구한 뒤 합친다.
+        return partitions.parallelStream()
+                .map(partition -> scanPrice(partition, pick))
+                .filter(Objects::nonNull)
+                .reduce(pick)
+                .orElse(null);
+    }
+
+    /**
+     * 비어 있거나 형식이 맞지 않는 커서(다른 정렬의 커서, 손으로 고친 주소 등)는 첫 페이지로 본다.
+     */
+    private static Item parseCursor(ItemSort sort, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return sort.parseCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Integer scanPrice(ItemStore partition, BinaryOperator<Integer> pick) {
+        Integer[] result = new Integer[1];
+        partition.forEach(item -> {
+            if (item.getPrice() != null) {
+                result[0] = result[0] == null ? item.getPrice() : pick.apply(result[0], item.getPrice());
+            }
+        });
+        return result[0];
+    }
+
+    /**
+     * 조건에 맞는 상품을 comparator 순으로 최대 limit개 고른다.
+     * 저장소가 샤드로 나뉘어 있으면 공용 fork-join 풀에서 샤드마다 앞쪽 limit개를 동시에 고르고(scatter),
+     * 정렬된 샤드별 목록을 병합해 앞쪽 limit개만 남긴다(gather).
+     */
+    private List<Item> scan(Predicate<Item> filter, Comparator<Item> comparator, int limit) {
+        List<? extends ItemStore> partitions = store.partitions();
+        if (partitions.size() == 1) {
+            return scan(store, filter, comparator, limit);
+        }
+        List<List<Item>> parts = partitions.parallelStream()
+                .map(partition -> scan(partition, filter, comparator, limit))
+                .toList();
+        return merge(parts, comparator, limit);
+    }
+
+    private static List<Item> scan(ItemStore partition, Predicate<Item> filter, Comparator<Item> comparator, int limit) {
+        // 가장 뒤쪽 상품이 루트에 오도록 역순 힙을 사용한다.
+        PriorityQueue<Item> heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, comparator.reversed());
+        partition.forEach(item -> {
+            if (!filter.test(item)) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.add(item);
+            } else if (comparator.compare(item, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(item);
+            }
+        });
+        List<Item> items = new ArrayList<>(heap);
+        items.sort(comparator);
+        return items;
+    }
+
+    /**
+     * 각각 정렬된 목록들을 k-way 병합해서 앞쪽 limit개를 반환한다.
+     */
+    private static List<Item> merge(List<List<Item>> parts, Comparator<Item> comparator, int limit) {
+        // 목록마다 다음에 볼 위치를 두고, 그 위치의 상품이 가장 앞선 목록부터 꺼낸다.
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(parts.size(),
+                (a, b) -> comparator.compare(parts.get(a[0]).get(a[1]), parts.get(b[0]).get(b[1])));
+        for (int i = 0; i < parts.size(); i++) {
+            if (!parts.get(i).isEmpty()) {
+                cursors.add(new int[]{i, 0});
+            }
+        }
+        List<Item> items = new ArrayList<>(Math.min(limit, 1024));
+        while (items.size() < limit && !cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            List<Item> part = parts.get(cursor[0]);
+            items.add(part.get(cursor[1]++));
+            if (cursor[1] < part.size()) {
+                cursors.add(cursor);
+            }
+        }
+        return items;
+    }
+
+    private void publish(Item oldItem, Item newItem) {
+        modCount.incrementAndGet();
+        for (ItemChangeListener listener : listeners) {
+            listener.onChange(oldItem, newItem);
+        }
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(long id) {
+        return locks[stripeOf(id)];
+    }
+
+    private static int stripeOf(long id) {
+        return (int) (id ^ (id >>> 32)) & (LOCK_STRIPES - 1);
+    }
+
+    private record Snapshot(long modCount, List<Item> items) {
     }
 }
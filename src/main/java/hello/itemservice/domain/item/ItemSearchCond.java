@@ -0,0 +1,42 @@
+package hello.itemservice.domain.item;
+
+import lombok.Data;
+
+/**
+ * 목록 조회 조건. 커서(keyset) 방식이라 cursor에는 이전 페이지의 nextCursor를 그대로 넘기면 된다.
+ */
+@Data
+public class ItemSearchCond {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 1000;
+
+    private int size = DEFAULT_SIZE;
+    private ItemSort sort = ItemSort.ID;
+    private boolean desc;
+    private String cursor;
+
+    private Integer minPrice;
+    private Integer maxPrice;
+    private Integer minQuantity;
+    private Integer maxQuantity;
+
+    public int pageSize() {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public boolean matches(Item item) {
+        return inRange(item.getPrice(), minPrice, maxPrice)
+                && inRange(item.getQuantity(), minQuantity, maxQuantity);
+    }
+
+    private static boolean inRange(Integer value, Integer min, Integer max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        if (value == null) {
+            return false;
+        }
+        return (min == null || value >= min) && (max == null || value <= max);
+    }
+}
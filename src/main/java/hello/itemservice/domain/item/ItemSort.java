@@ -0,0 +1,74 @@
+package hello.itemservice.domain.item;
+
+import java.util.Comparator;
+
+/**
+ * 목록 정렬 기준. 값이 같으면 항상 id로 한 번 더 정렬해서 커서 위치가 유일하게 정해지도록 한다.
+ */
+public enum ItemSort {
+
+    ID(Comparator.comparing(Item::getId)),
+    PRICE(Comparator.comparing(Item::getPrice, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()))
+            .thenComparing(Item::getId)),
+    QUANTITY(Comparator.comparing(Item::getQuantity, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()))
+            .thenComparing(Item::getId)),
+    NAME(Comparator.comparing(Item::getItemName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Item::getId));
+
+    // NAME 커서에서 상품명 앞에 붙여서 null(정렬값 없음)과 빈 상품명("~")을 구분한다.
+    private static final String NAME_PREFIX = "~";
+
+    private final Comparator<Item> comparator;
+
+    ItemSort(Comparator<Item> comparator) {
+        this.comparator = comparator;
+    }
+
+    public Comparator<Item> comparator(boolean desc) {
+        return desc ? comparator.reversed() : comparator;
+    }
+
+    /**
+     * 마지막으로 내려준 상품의 위치를 "정렬값:id" 형태의 커서 문자열로 만든다. 정렬값이 null이면 비워 둔다.
+     */
+    public String cursorOf(Item item) {
+        return switch (this) {
+            case ID -> String.valueOf(item.getId());
+            case PRICE -> text(item.getPrice()) + ":" + item.getId();
+            case QUANTITY -> text(item.getQuantity()) + ":" + item.getId();
+            case NAME -> (item.getItemName() == null ? "" : NAME_PREFIX + item.getItemName()) + ":" + item.getId();
+        };
+    }
+
+    /**
+     * 커서 문자열을 비교용 상품으로 되돌린다. 형식이 맞지 않으면 IllegalArgumentException.
+     */
+    public Item parseCursor(String cursor) {
+        int separator = cursor.lastIndexOf(':');
+        long id = Long.parseLong(cursor.substring(separator + 1));
+        if (this == ID || separator < 0) {
+            return new Item(id, null, null, null, null);
+        }
+        String value = cursor.substring(0, separator);
+        Integer number = this == NAME || value.isEmpty() ? null : Integer.valueOf(value);
+        return switch (this) {
+            case PRICE -> new Item(id, null, number, null, null);
+            case QUANTITY -> new Item(id, null, null, number, null);
+            default -> new Item(id, parseName(value), null, null, null);
+        };
+    }
+
+    private static String parseName(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (!value.startsWith(NAME_PREFIX)) {
+            throw new IllegalArgumentException("invalid name cursor: " + value);
+        }
+        return value.substring(NAME_PREFIX.length());
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
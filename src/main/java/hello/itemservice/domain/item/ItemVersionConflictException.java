@@ -0,0 +1,21 @@
+package hello.itemservice.domain.item;
+
+import lombok.Getter;
+
+/**
+ * 수정하려던 상품의 버전이 기대한 버전과 달라서(그 사이에 다른 수정이 먼저 반영되어서) 수정하지 않은 경우.
+ */
+@Getter
+public class ItemVersionConflictException extends RuntimeException {
+
+    private final long itemId;
+    private final long expectedVersion;
+    private final long currentVersion;
+
+    public ItemVersionConflictException(long itemId, long expectedVersion, long currentVersion) {
+        super("item " + itemId + " is at version " + currentVersion + ", expected " + expectedVersion);
+        this.itemId = itemId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+}
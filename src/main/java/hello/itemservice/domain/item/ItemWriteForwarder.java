@@ -0,0 +1,26 @@
+package hello.itemservice.domain.item;
+
+import java.util.List;
+
+/**
+ * 쓰기를 이 노드에서 처리하지 않고 다른 노드(복제 리더)로 넘긴다.
+ * ItemRepository에 붙이면 모든 쓰기가 여기로 오고, 저장소에는 attach로 받은 ItemRepository.applyReplicated로만 반영된다.
+ * 각 메서드는 결과가 이 노드의 저장소에 반영된 뒤에 반환해야 한다. (저장 후 상세 화면으로 리다이렉트하면 바로 보여야 한다)
+ */
+public interface ItemWriteForwarder {
+
+    void attach(ItemRepository itemRepository);
+
+    Item save(Item item);
+
+    List<Item> saveAll(List<Item> items);
+
+    /**
+     * @throws ItemVersionConflictException 리더에서 버전이 expectedVersion과 달랐던 경우
+     */
+    Item update(long itemId, Item updateParam, Long expectedVersion);
+
+    List<Item> updateAll(List<Item> updateParams);
+
+    void clear();
+}
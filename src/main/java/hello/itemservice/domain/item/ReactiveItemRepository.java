@@ -0,0 +1,97 @@
+package hello.itemservice.domain.item;
+
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ItemRepository를 Mono/Flux로 감싼 논블로킹 파사드.
+ * <p>
+ * 조회는 메모리(스냅샷, 인덱스)에서 바로 끝나므로 구독한 스레드에서 그대로 처리한다.
+ * 쓰기는 저장소에 따라 WAL fsync나 매핑 파일 쓰기에서 막힐 수 있으므로 boundedElastic 스케줄러로 넘긴다.
+ * 전체를 훑는 findAll도 받는 쪽을 기다리며 멈추므로 같은 스케줄러에서 돈다.
+ * 모든 메서드는 구독할 때 실행된다. (호출만 하고 구독하지 않으면 아무 일도 일어나지 않는다)
+ */
+@Repository
+public class ReactiveItemRepository {
+
+    private static final long DEMAND_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ItemRepository itemRepository;
+    private final Scheduler writeScheduler;
+
+    public ReactiveItemRepository(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+        this.writeScheduler = Schedulers.boundedElastic();
+    }
+
+    /**
+     * @return 상품이 없으면 빈 Mono
+     */
+    public Mono<Item> findById(long id) {
+        return Mono.fromSupplier(() -> itemRepository.findById(id));
+    }
+
+    public Mono<ItemPage> findPage(ItemSearchCond cond) {
+        return Mono.fromSupplier(() -> itemRepository.findPage(cond));
+    }
+
+    /**
+     * 저장소를 목록으로 만들지 않고 forEach로 훑으면서 한 건씩 흘려보낸다. 순회 중에 들어온 변경은 보일 수도, 안 보일 수도 있다.
+     * 순회는 boundedElastic 스레드에서 하고, 받는 쪽이 요청한 만큼만 내보낸 뒤 다음 요청이 올 때까지 멈추므로
+     * 느린 클라이언트에게도 쌓아 두는 상품은 한 요청분을 넘지 않는다. 구독을 취소하면 순회를 그만둔다.
+     */
+    public Flux<Item> findAll() {
+        return Flux.<Item>create(sink -> {
+            Thread producer = Thread.currentThread();
+            sink.onRequest(n -> LockSupport.unpark(producer));
+            sink.onCancel(() -> LockSupport.unpark(producer));
+            try {
+                itemRepository.forEach(item -> {
+                    while (sink.requestedFromDownstream() == 0) {
+                        if (sink.isCancelled()) {
+                            throw new CancellationException();
+                        }
+                        // unpark를 놓쳐도 다시 확인하도록 시간을 둔다.
+                        LockSupport.parkNanos(DEMAND_POLL_NANOS);
+                    }
+                    sink.next(item);
+                });
+                sink.complete();
+            } catch (CancellationException e) {
+                // 받는 쪽이 떠났다.
+            } catch (RuntimeException e) {
+                sink.error(e);
+            }
+        }).subscribeOn(writeScheduler);
+    }
+
+    public Mono<Item> save(Item item) {
+        return Mono.fromCallable(() -> itemRepository.save(item))
+                .subscribeOn(writeScheduler);
+    }
+
+    /**
+     * 저장소의 배치 쓰기 한 번으로 저장하고, 저장된 상품을 items와 같은 순서로 흘려보낸다.
+     */
+    public Flux<Item> saveAll(List<Item> items) {
+        return Mono.fromCallable(() -> itemRepository.saveAll(items))
+                .subscribeOn(writeScheduler)
+                .flatMapIterable(savedItems -> savedItems);
+    }
+
+    /**
+     * @return 상품이 없으면 빈 Mono. 버전이 다르면 ItemVersionConflictException으로 끝난다.
+     */
+    public Mono<Item> update(long id, Item updateParam, Long expectedVersion) {
+        return Mono.fromCallable(() -> itemRepository.update(id, updateParam, expectedVersion))
+                .subscribeOn(writeScheduler);
+    }
+}
@@ -0,0 +1,24 @@
+package hello.itemservice.domain.item.feed;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class ItemChangeBatch {
+
+    // 이 묶음을 읽은 피드의 epoch. 다음에 읽을 때 nextOffset과 같이 넘긴다.
+    private final long epoch;
+    private final List<ItemChangeEvent> events;
+    // 다음에 읽을 때 from으로 넘길 값
+    private final long nextOffset;
+    // 요청한 from이 이미 링 버퍼에서 밀려났거나 다른 epoch의 것이다. events는 남아 있는 것 중 가장 오래된 것부터이고, 받는 쪽은 전체 목록을 다시 읽어야 한다.
+    private final boolean truncated;
+
+    public ItemChangeBatch(long epoch, List<ItemChangeEvent> events, long nextOffset, boolean truncated) {
+        this.epoch = epoch;
+        this.events = events;
+        this.nextOffset = nextOffset;
+        this.truncated = truncated;
+    }
+}
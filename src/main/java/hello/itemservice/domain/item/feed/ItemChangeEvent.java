@@ -0,0 +1,22 @@
+package hello.itemservice.domain.item.feed;
+
+import hello.itemservice.domain.item.Item;
+
+/**
+ * 변경 피드의 이벤트 하나. offset은 피드 안에서 0부터 1씩 늘어나는 순번이다.
+ * INSERT면 old 값이 null이고, CLEAR면 상품 관련 값이 모두 null이다.
+ */
+public record ItemChangeEvent(long offset, long timestamp, ItemChangeType type, Long itemId, Long version,
+                              Integer oldPrice, Integer newPrice, Integer oldQuantity, Integer newQuantity) {
+
+    static ItemChangeEvent of(long offset, long timestamp, Item oldItem, Item newItem) {
+        return new ItemChangeEvent(offset, timestamp, oldItem == null ? ItemChangeType.INSERT : ItemChangeType.UPDATE,
+                newItem.getId(), newItem.getVersion(),
+                oldItem == null ? null : oldItem.getPrice(), newItem.getPrice(),
+                oldItem == null ? null : oldItem.getQuantity(), newItem.getQuantity());
+    }
+
+    static ItemChangeEvent cleared(long offset, long timestamp) {
+        return new ItemChangeEvent(offset, timestamp, ItemChangeType.CLEAR, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,171 @@
+package hello.itemservice.domain.item.feed;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemChangeListener;
+import hello.itemservice.domain.item.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * ItemRepository의 등록/수정을 순번(offset)이 붙은 이벤트로 쌓아 두는 링 버퍼.
+ * 캐시나 검색 인덱스처럼 목록을 따라가야 하는 쪽은 전체 목록을 다시 읽지 않고 마지막으로 읽은 다음 offset부터 이어 읽으면 된다.
+ * <p>
+ * 최근 capacity개만 남기므로 메모리는 고정이다. 그보다 뒤처진 소비자는 truncated를 받고 전체 목록부터 다시 맞춰야 한다.
+ * offset은 서버가 뜰 때마다 0부터 다시 시작하므로 뜰 때마다 새로 정하는 epoch를 함께 준다. 소비자는 offset과 epoch를 같이 기억한다.
+ * 같은 상품의 변경은 ItemRepository가 락 스트라이프 안에서 순서대로 알려 주므로 피드에도 그 순서대로 들어간다.
+ * 쓰기는 락 하나로 순번을 매기고, 읽기는 락 없이 슬롯의 offset으로 덮어써졌는지 확인한다.
+ */
+@Component
+public class ItemChangeFeed implements ItemChangeListener {
+
+    // 이번에 뜬 피드를 구분한다. 0은 "모름"으로 쓰므로 0이 아닌 값으로 정하고, JSON 숫자로 JavaScript에서도 그대로 읽히게 53비트 안에 둔다.
+    private final long epoch = new SecureRandom().nextLong() & ((1L << 53) - 1) | 1;
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<ItemChangeEvent> events;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // 다음 이벤트가 받을 offset. 슬롯을 채운 다음에 올리므로 이보다 작은 offset은 읽어도 된다.
+    private volatile long head;
+    private final Set<Runnable> waiters = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param capacity 남겨 둘 이벤트 수. 2의 거듭제곱으로 올림한다.
+     */
+    public ItemChangeFeed(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = this.capacity - 1;
+        this.events = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    @Autowired
+    public ItemChangeFeed(ItemRepository itemRepository, @Value("${item.feed.capacity:65536}") int capacity) {
+        this(capacity);
+        itemRepository.addListener(this);
+    }
+
+    @Override
+    public void onChange(Item oldItem, Item newItem) {
+        append(offset -> ItemChangeEvent.of(offset, System.currentTimeMillis(), oldItem, newItem));
+    }
+
+    @Override
+    public void onClear() {
+        append(offset -> ItemChangeEvent.cleared(offset, System.currentTimeMillis()));
+    }
+
+    /**
+     * 이번에 뜬 피드의 from부터 최대 limit개를 읽는다.
+     */
+    public ItemChangeBatch read(long from, int limit) {
+        return read(epoch, from, limit);
+    }
+
+    /**
+     * from부터 최대 limit개를 읽는다. 아직 쌓인 게 없으면 빈 목록과 nextOffset=from을 돌려준다.
+     * from이 이미 밀려났거나, from을 받은 epoch가 지금과 다르면(서버가 다시 떠서 순번이 처음부터 시작된 경우) truncated다.
+     * epoch를 모르면(0) offset만 보고, 아직 나오지 않은 offset이면 truncated로 본다.
+     */
+    public ItemChangeBatch read(long epoch, long from, int limit) {
+        while (true) {
+            long end = head;
+            long oldest = Math.max(0, end - capacity);
+            boolean truncated = (epoch != 0 && epoch != this.epoch) || from < oldest || from > end;
+            long start = truncated ? oldest : from;
+            int size = (int) Math.min(Math.max(limit, 1), end - start);
+
+            List<ItemChangeEvent> batch = new ArrayList<>(size);
+            boolean overwritten = false;
+            for (long offset = start; offset < start + size; offset++) {
+                ItemChangeEvent event = events.get(slot(offset));
+                if (event.offset() != offset) {
+                    overwritten = true;
+                    break;
+                }
+                batch.add(event);
+            }
+            // ! 읽는 도중에 쓰기가 한 바퀴를 돌아 슬롯을 덮어썼다. 그 사이 from도 밀려났으니 다시 읽으면 truncated로 나온다.
+            if (!overwritten) {
+                return new ItemChangeBatch(this.epoch, batch, start + size, truncated);
+            }
+        }
+    }
+
+    /**
+     * from 이상의 이벤트가 생기면 callback을 한 번 부른다. 이미 있으면 바로 부른다.
+     * callback은 이벤트를 쓴 스레드(상품을 저장한 요청 스레드)에서 불리므로 오래 걸리는 일은 다른 스레드로 넘겨야 한다.
+     *
+     * @return 아직 불리지 않은 callback을 취소한다.
+     */
+    public Runnable whenAvailable(long from, Runnable callback) {
+        waiters.add(callback);
+        // 등록하기 전에 쓰기가 끝났을 수 있으니 등록한 뒤에 한 번 더 본다.
+        if (head != from && waiters.remove(callback)) {
+            callback.run();
+        }
+        return () -> waiters.remove(callback);
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public long head() {
+        return head;
+    }
+
+    /**
+     * 이벤트를 기다리는 callback 수. 끊긴 구독자가 남아 있지 않은지 확인할 때 쓴다.
+     */
+    public int waiterCount() {
+        return waiters.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private void append(LongFunction<ItemChangeEvent> eventAt) {
+        appendLock.lock();
+        try {
+            long offset = head;
+            events.set(slot(offset), eventAt.apply(offset));
+            head = offset + 1;
+        } finally {
+            appendLock.unlock();
+        }
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        for (Runnable waiter : waiters) {
+            // 여러 쓰기가 동시에 깨워도 remove에 성공한 한 곳에서만 부른다.
+            if (waiters.remove(waiter)) {
+                waiter.run();
+            }
+        }
+    }
+
+    private int slot(long offset) {
+        return (int) offset & mask;
+    }
+}
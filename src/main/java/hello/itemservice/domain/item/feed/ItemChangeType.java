@@ -0,0 +1,9 @@
+package hello.itemservice.domain.item.feed;
+
+public enum ItemChangeType {
+    INSERT, UPDATE,
+    /**
+     * 저장소 전체가 비워졌다. 받은 쪽은 가지고 있던 상품을 모두 지워야 한다.
+     */
+    CLEAR
+}
@@ -0,0 +1,72 @@
+package hello.itemservice.domain.item.index;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * (값, id) 쌍을 정렬해서 들고 있는 정수 필드 인덱스. 범위 조회는 O(log n + k).
+ */
+public class IntValueIndex {
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(
+            Comparator.comparingInt(Entry::value).thenComparingLong(Entry::id));
+    private final AtomicLong nullCount = new AtomicLong();
+
+    public record Entry(int value, long id) {
+    }
+
+    public void add(Integer value, long id) {
+        if (value == null) {
+            nullCount.incrementAndGet();
+        } else {
+            entries.add(new Entry(value, id));
+        }
+    }
+
+    public void remove(Integer value, long id) {
+        if (value == null) {
+            nullCount.decrementAndGet();
+        } else {
+            entries.remove(new Entry(value, id));
+        }
+    }
+
+    /**
+     * min, max 모두 포함. null이면 그쪽으로는 열려 있다.
+     */
+    public NavigableSet<Entry> range(Integer min, Integer max) {
+        Entry from = new Entry(min == null ? Integer.MIN_VALUE : min, Long.MIN_VALUE);
+        Entry to = new Entry(max == null ? Integer.MAX_VALUE : max, Long.MAX_VALUE);
+        return entries.subSet(from, true, to, true);
+    }
+
+    /**
+     * @return 가장 작은 값. 비어 있으면 null
+     */
+    public Integer min() {
+        Entry first = entries.ceiling(new Entry(Integer.MIN_VALUE, Long.MIN_VALUE));
+        return first == null ? null : first.value();
+    }
+
+    /**
+     * @return 가장 큰 값. 비어 있으면 null
+     */
+    public Integer max() {
+        Entry last = entries.floor(new Entry(Integer.MAX_VALUE, Long.MAX_VALUE));
+        return last == null ? null : last.value();
+    }
+
+    /**
+     * 값이 없는(null) 상품이 있으면 인덱스만으로는 전체 정렬 순서를 만들 수 없다.
+     */
+    public boolean hasNullValues() {
+        return nullCount.get() > 0;
+    }
+
+    public void clear() {
+        entries.clear();
+        nullCount.set(0);
+    }
+}
@@ -0,0 +1,67 @@
+package hello.itemservice.domain.item.index;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemChangeListener;
+
+import java.util.Objects;
+
+/**
+ * 가격, 수량, 상품명 보조 인덱스와 상품명 검색용 역색인 묶음. ItemRepository의 쓰기마다 onChange로 갱신된다.
+ */
+public class ItemIndexes implements ItemChangeListener {
+
+    private final IntValueIndex price = new IntValueIndex();
+    private final IntValueIndex quantity = new IntValueIndex();
+    private final NamePrefixIndex name = new NamePrefixIndex();
+    private final ItemTextIndex text = new ItemTextIndex();
+
+    @Override
+    public void onChange(Item oldItem, Item newItem) {
+        long id = newItem.getId();
+        if (oldItem == null) {
+            price.add(newItem.getPrice(), id);
+            quantity.add(newItem.getQuantity(), id);
+            name.add(newItem.getItemName(), id);
+            text.add(newItem.getItemName(), id);
+            return;
+        }
+        if (!Objects.equals(oldItem.getPrice(), newItem.getPrice())) {
+            price.remove(oldItem.getPrice(), id);
+            price.add(newItem.getPrice(), id);
+        }
+        if (!Objects.equals(oldItem.getQuantity(), newItem.getQuantity())) {
+            quantity.remove(oldItem.getQuantity(), id);
+            quantity.add(newItem.getQuantity(), id);
+        }
+        if (!Objects.equals(oldItem.getItemName(), newItem.getItemName())) {
+            name.remove(oldItem.getItemName(), id);
+            name.add(newItem.getItemName(), id);
+            text.remove(oldItem.getItemName(), id);
+            text.add(newItem.getItemName(), id);
+        }
+    }
+
+    @Override
+    public void onClear() {
+        price.clear();
+        quantity.clear();
+        name.clear();
+        text.clear();
+    }
+
+    public IntValueIndex price() {
+        return price;
+    }
+
+    public IntValueIndex quantity() {
+        return quantity;
+    }
+
+    public NamePrefixIndex name() {
+        return name;
+    }
+
+    public ItemTextIndex text() {
+        return text;
+    }
+}
@@ -0,0 +1,297 @@
+package hello.itemservice.domain.item.index;
+
+import hello.itemservice.domain.item.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+
+/**
+ * 상품명 전문 검색용 역색인. 색인어(ItemTextQuery.terms)마다 그 색인어를 가진 상품 ID 목록(posting)을 둔다.
+ * <p>
+ * posting은 상품명 길이별 칸으로 나뉘고 칸 안에서는 ID 순으로 정렬된 long 배열이다.
+ * 같은 점수 안에서의 순위가 (상품명 길이, ID) 순이므로 점수별로 짧은 칸부터 교집합을 구하다가 limit개가 차면 바로 멈춘다.
+ * 그래서 "item"처럼 거의 모든 상품에 맞는 검색어도 앞쪽 몇 칸만 보고 끝난다.
+ * 새 상품은 ID가 가장 크므로 배열 끝에 붙는다. 가운데 끼우거나 빼는 것은 상품명이 바뀔 때뿐이다.
+ * <p>
+ * 쓰기는 색인어 몇 개를 배열에 붙이는 짧은 작업이라 읽기/쓰기 락 하나로 전체를 보호한다.
+ * 검색은 락 안에서 후보 ID만 조금씩 모으고, 상품을 읽어 다시 확인하는 것은 락을 놓은 뒤에 한다.
+ * 쓰기는 저장소의 스트라이프 락을 잡은 채로 이 락을 기다리므로, 검색이 락을 오래 잡으면 모든 쓰기가 멈춘다.
+ */
+public class ItemTextIndex {
+
+    // 0~62자는 길이별로 한 칸씩, 63자 이상은 마지막 칸에 모은다.
+    static final int LENGTH_BUCKETS = 64;
+
+    // 검색이 락을 한 번 잡을 때 모으는 후보 ID 수
+    private static final int MIN_CANDIDATE_BATCH = 16;
+    private static final int MAX_CANDIDATE_BATCH = 1024;
+    private static final long[] EMPTY_IDS = new long[0];
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(String itemName, long id) {
+        if (itemName == null) {
+            return;
+        }
+        String normalized = ItemTextQuery.normalize(itemName);
+        int bucket = bucket(normalized.length());
+        lock.writeLock().lock();
+        try {
+            for (String term : terms(normalized)) {
+                postings.computeIfAbsent(term, t -> new Postings()).add(bucket, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String itemName, long id) {
+        if (itemName == null) {
+            return;
+        }
+        String normalized = ItemTextQuery.normalize(itemName);
+        int bucket = bucket(normalized.length());
+        lock.writeLock().lock();
+        try {
+            for (String term : terms(normalized)) {
+                Postings termPostings = postings.get(term);
+                if (termPostings != null && termPostings.remove(bucket, id)) {
+                    postings.remove(term);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 점수가 높은 것부터 최대 limit개를 ItemTextQuery의 순위대로 돌려준다.
+     *
+     * @param loader 후보 ID로 지금 상품을 읽는다. 색인어는 후보를 좁히는 데만 쓰고 실제로 맞는지는 상품명으로 다시 확인한다.
+     *               락을 놓은 뒤에 부르므로 느려도(캐시 미스, 매핑 파일 읽기) 쓰기를 막지 않는다.
+     */
+    public List<Item> search(ItemTextQuery query, int limit, LongFunction<Item> loader) {
+        List<Item> result = new ArrayList<>(Math.min(limit, 64));
+        if (query.isEmpty() || limit <= 0) {
+            return result;
+        }
+        for (int tier = ItemTextQuery.EXACT; tier >= ItemTextQuery.INFIX; tier--) {
+            Set<String> terms = query.termsFor(tier);
+            if (!containsTerms(terms)) {
+                continue;
+            }
+            for (int bucket = 0; bucket < LENGTH_BUCKETS; bucket++) {
+                if (collect(terms, bucket, query, tier, loader, result, limit)) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 한 칸의 후보를 조금씩 락 안에서 모으고, 락 밖에서 상품을 읽어 확인한다.
+     * 모으는 사이에 쓰기가 끼어도 칸이 ID 순이므로 마지막으로 본 ID 다음부터 이어 모으면 된다.
+     *
+     * @return limit개가 찼으면 true
+     */
+    private boolean collect(Set<String> terms, int bucket, ItemTextQuery query, int tier, LongFunction<Item> loader,
+                            List<Item> result, int limit) {
+        boolean overflow = bucket == LENGTH_BUCKETS - 1;
+        List<Item> overflowItems = overflow ? new ArrayList<>() : null;
+        long afterId = 0;
+        while (true) {
+            int batch = overflow ? MAX_CANDIDATE_BATCH
+                    : Math.min(Math.max(limit - result.size(), MIN_CANDIDATE_BATCH), MAX_CANDIDATE_BATCH);
+            long[] ids = candidates(terms, bucket, afterId, batch);
+            for (long id : ids) {
+                Item item = loader.apply(id);
+                if (item == null || query.match(item.getItemName()) != tier) {
+                    continue;
+                }
+                if (overflow) {
+                    overflowItems.add(item);
+                    continue;
+                }
+                result.add(item);
+                if (result.size() == limit) {
+                    return true;
+                }
+            }
+            if (ids.length < batch) {
+                break;
+            }
+            afterId = ids[ids.length - 1];
+        }
+        if (overflow) {
+            // 마지막 칸은 길이가 섞여 있으므로 모아서 정렬한다.
+            overflowItems.sort(Comparator.comparingInt((Item item) -> ItemTextQuery.length(item.getItemName()))
+                    .thenComparing(Item::getId));
+            for (Item item : overflowItems) {
+                result.add(item);
+                if (result.size() == limit) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean containsTerms(Set<String> terms) {
+        lock.readLock().lock();
+        try {
+            return lookup(terms) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * bucket 칸에서 모든 색인어를 가진 ID 중 afterId보다 큰 것을 ID 순으로 최대 max개 모은다.
+     * 가장 짧은 목록을 훑으면서 나머지 목록에 있는지 이진 탐색으로 확인한다. 모두 ID 순이라 탐색 시작 위치는 앞으로만 간다.
+     */
+    private long[] candidates(Set<String> terms, int bucket, long afterId, int max) {
+        lock.readLock().lock();
+        try {
+            Postings[] lists = lookup(terms);
+            if (lists == null) {
+                return EMPTY_IDS;
+            }
+            Postings smallest = lists[0];
+            for (Postings list : lists) {
+                if (list.sizes[bucket] == 0) {
+                    return EMPTY_IDS;
+                }
+                if (list.sizes[bucket] < smallest.sizes[bucket]) {
+                    smallest = list;
+                }
+            }
+            long[] ids = smallest.ids[bucket];
+            int n = smallest.sizes[bucket];
+            int start = Arrays.binarySearch(ids, 0, n, afterId);
+            start = start >= 0 ? start + 1 : -start - 1;
+            long[] found = new long[Math.min(max, n - start)];
+            int count = 0;
+            int[] from = new int[lists.length];
+            for (int i = start; i < n && count < found.length; i++) {
+                if (containsAll(lists, smallest, bucket, ids[i], from)) {
+                    found[count++] = ids[i];
+                }
+            }
+            return count == found.length ? found : Arrays.copyOf(found, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean containsAll(Postings[] lists, Postings smallest, int bucket, long id, int[] from) {
+        for (int j = 0; j < lists.length; j++) {
+            Postings list = lists[j];
+            if (list == smallest) {
+                continue;
+            }
+            int pos = Arrays.binarySearch(list.ids[bucket], from[j], list.sizes[bucket], id);
+            if (pos < 0) {
+                from[j] = -pos - 1;
+                return false;
+            }
+            from[j] = pos + 1;
+        }
+        return true;
+    }
+
+    /**
+     * @return 색인어 중 하나라도 가진 상품이 없으면 null
+     */
+    private Postings[] lookup(Set<String> terms) {
+        Postings[] lists = new Postings[terms.size()];
+        int i = 0;
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return null;
+            }
+            lists[i++] = list;
+        }
+        return lists;
+    }
+
+    private static Set<String> terms(String normalized) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : ItemTextQuery.words(normalized)) {
+            ItemTextQuery.terms(word, terms);
+        }
+        return terms;
+    }
+
+    private static int bucket(int length) {
+        return Math.min(length, LENGTH_BUCKETS - 1);
+    }
+
+    /**
+     * 색인어 하나의 posting. 길이 칸마다 ID 순으로 정렬된 배열과 쓰인 개수.
+     */
+    private static final class Postings {
+
+        final long[][] ids = new long[LENGTH_BUCKETS][];
+        final int[] sizes = new int[LENGTH_BUCKETS];
+        int total;
+
+        void add(int bucket, long id) {
+            long[] bucketIds = ids[bucket];
+            int size = sizes[bucket];
+            if (bucketIds == null) {
+                bucketIds = ids[bucket] = new long[4];
+            } else if (size == bucketIds.length) {
+                bucketIds = ids[bucket] = Arrays.copyOf(bucketIds, size * 2);
+            }
+            if (size == 0 || bucketIds[size - 1] < id) {
+                bucketIds[size] = id;
+            } else {
+                int pos = Arrays.binarySearch(bucketIds, 0, size, id);
+                if (pos >= 0) {
+                    return;
+                }
+                pos = -pos - 1;
+                System.arraycopy(bucketIds, pos, bucketIds, pos + 1, size - pos);
+                bucketIds[pos] = id;
+            }
+            sizes[bucket]++;
+            total++;
+        }
+
+        /**
+         * @return 마지막 ID를 빼서 비었으면 true
+         */
+        boolean remove(int bucket, long id) {
+            long[] bucketIds = ids[bucket];
+            int size = sizes[bucket];
+            int pos = bucketIds == null ? -1 : Arrays.binarySearch(bucketIds, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(bucketIds, pos + 1, bucketIds, pos, size - pos - 1);
+            sizes[bucket]--;
+            total--;
+            return total == 0;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package hello.itemservice.domain.item.index;
+
+import hello.itemservice.domain.item.Item;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 상품명 검색어. 상품명과 검색어는 같은 규칙으로 정규화해서 단어로 나눈다.
+ * NFKC로 전각/반각을 맞추고 소문자로 바꾼 뒤 글자나 숫자가 아닌 문자에서 자른다. 한글 음절도 글자라서 "무선 마우스"는 [무선, 마우스]다.
+ * <p>
+ * 검색어의 단어가 모두 상품명 어딘가에 들어 있어야 맞는 것으로 본다.
+ * 단어마다 상품명 단어와 같으면 EXACT, 상품명 단어로 시작하면 PREFIX, 상품명 단어 가운데에 있으면 INFIX이고,
+ * 상품의 점수는 검색어 단어들 중 가장 낮은 값이다. 한 글자 단어는 가운데 일치를 보지 않는다. (어느 상품명에나 들어 있을 만한 검색이 되므로)
+ * 순위는 점수가 높은 순, 같으면 상품명이 짧은 순, 그다음 ID 순이다.
+ */
+public final class ItemTextQuery {
+
+    public static final int NONE = 0;
+    public static final int INFIX = 1;
+    public static final int PREFIX = 2;
+    public static final int EXACT = 3;
+
+    private final List<String> words;
+
+    private ItemTextQuery(List<String> words) {
+        this.words = words;
+    }
+
+    public static ItemTextQuery parse(String query) {
+        return new ItemTextQuery(query == null ? List.of() : List.copyOf(new LinkedHashSet<>(words(normalize(query)))));
+    }
+
+    public List<String> words() {
+        return words;
+    }
+
+    public boolean isEmpty() {
+        return words.isEmpty();
+    }
+
+    /**
+     * @return 이 검색어에 대한 상품명의 점수. 맞지 않으면 NONE
+     */
+    public int match(String itemName) {
+        if (itemName == null || words.isEmpty()) {
+            return NONE;
+        }
+        List<String> nameWords = words(normalize(itemName));
+        int score = EXACT;
+        for (String word : words) {
+            int best = NONE;
+            for (String nameWord : nameWords) {
+                best = Math.max(best, match(nameWord, word));
+                if (best == EXACT) {
+                    break;
+                }
+            }
+            if (best == NONE) {
+                return NONE;
+            }
+            score = Math.min(score, best);
+        }
+        return score;
+    }
+
+    /**
+     * 점수 높은 순, 상품명 짧은 순, ID 순. 비교할 때마다 점수를 다시 구하므로 인덱스 없이 훑을 때만 쓴다.
+     */
+    public Comparator<Item> ranking() {
+        return Comparator.comparingInt((Item item) -> -match(item.getItemName()))
+                .thenComparingInt(item -> length(item.getItemName()))
+                .thenComparing(Item::getId);
+    }
+
+    private static int match(String nameWord, String word) {
+        if (nameWord.equals(word)) {
+            return EXACT;
+        }
+        if (nameWord.startsWith(word)) {
+            return PREFIX;
+        }
+        if (word.length() > 1 && nameWord.contains(word)) {
+            return INFIX;
+        }
+        return NONE;
+    }
+
+    /**
+     * 순위를 매길 때 쓰는 상품명 길이. 정규화한 뒤의 글자 수다.
+     */
+    static int length(String itemName) {
+        return itemName == null ? Integer.MAX_VALUE : normalize(itemName).length();
+    }
+
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> words(String normalized) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            words.add(normalized.substring(start));
+        }
+        return words;
+    }
+
+    /**
+     * 단어 하나에서 나오는 색인어. 단어 전체(=), 첫 글자(^), 이어진 두 글자(bigram)와 세 글자(trigram)를 모두 넣는다.
+     * 두 글자 검색어("무선")는 bigram으로 찾고, 세 글자 이상은 훨씬 드문 trigram으로 후보를 좁힌다.
+     * = 와 ^ 는 글자가 아니어서 n-gram과 겹치지 않는다.
+     */
+    static void terms(String word, Set<String> terms) {
+        terms.add(exactTerm(word));
+        terms.add(firstCharTerm(word));
+        for (int i = 0; i + 2 <= word.length(); i++) {
+            terms.add(word.substring(i, i + 2));
+            if (i + 3 <= word.length()) {
+                terms.add(word.substring(i, i + 3));
+            }
+        }
+    }
+
+    /**
+     * 점수가 tier 이상인 상품이 반드시 가지고 있는 색인어. 후보는 이 색인어들의 교집합이고 정확한 점수는 match로 다시 확인한다.
+     */
+    Set<String> termsFor(int tier) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : words) {
+            if (tier == EXACT) {
+                terms.add(exactTerm(word));
+                continue;
+            }
+            if (tier == PREFIX || word.length() == 1) {
+                terms.add(firstCharTerm(word));
+            }
+            int gram = word.length() >= 3 ? 3 : 2;
+            for (int i = 0; i + gram <= word.length(); i++) {
+                terms.add(word.substring(i, i + gram));
+            }
+        }
+        return terms;
+    }
+
+    private static String exactTerm(String word) {
+        return "=" + word;
+    }
+
+    private static String firstCharTerm(String word) {
+        return "^" + word.charAt(0);
+    }
+}
@@ -0,0 +1,53 @@
+package hello.itemservice.domain.item.index;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상품명을 사전순으로 정렬해 둔 인덱스. 접두사 조회는 prefix 이상, prefix + Character.MAX_VALUE 미만 구간 조회로 O(log n + k)에 끝난다.
+ */
+public class NamePrefixIndex {
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(
+            Comparator.comparing(Entry::name).thenComparingLong(Entry::id));
+    private final AtomicLong nullCount = new AtomicLong();
+
+    public record Entry(String name, long id) {
+    }
+
+    public void add(String name, long id) {
+        if (name == null) {
+            nullCount.incrementAndGet();
+        } else {
+            entries.add(new Entry(name, id));
+        }
+    }
+
+    public void remove(String name, long id) {
+        if (name == null) {
+            nullCount.decrementAndGet();
+        } else {
+            entries.remove(new Entry(name, id));
+        }
+    }
+
+    public NavigableSet<Entry> prefix(String prefix) {
+        return entries.subSet(new Entry(prefix, Long.MIN_VALUE), true,
+                new Entry(prefix + Character.MAX_VALUE, Long.MIN_VALUE), false);
+    }
+
+    public NavigableSet<Entry> all() {
+        return entries;
+    }
+
+    public boolean hasNullValues() {
+        return nullCount.get() > 0;
+    }
+
+    public void clear() {
+        entries.clear();
+        nullCount.set(0);
+    }
+}
@@ -0,0 +1,547 @@
+package hello.itemservice.domain.item.replication;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemVersionConflictException;
+import hello.itemservice.domain.item.ItemWriteForwarder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static hello.itemservice.domain.item.replication.ReplicationProtocol.*;
+
+/**
+ * 복제 팔로워. 리더에 연결해서 받은 스냅샷과 로그를 이 노드의 ItemRepository에 반영하고, 읽기는 이 노드에서 처리한다.
+ * <p>
+ * ItemRepository에 쓰기 전달자로 붙으므로 이 노드로 온 쓰기는 모두 리더로 넘어간다.
+ * 리더의 응답에는 그 쓰기의 lsn이 있고, 그 lsn까지 이 노드에 반영된 뒤에 반환하므로 저장 후 리다이렉트한 상세 화면에서 바로 보인다.
+ * <p>
+ * 연결이 끊기면 잠시 뒤 다시 연결하면서 마지막으로 반영한 lsn을 알려 준다. 그 사이 결과를 받지 못한 쓰기는
+ * 리더에 반영되었는지 알 수 없으므로 예외로 끝낸다.
+ * <p>
+ * 저장소가 WAL이면 반영한 위치를 positionFile에 남겨서, 다시 떠도 리더가 그대로라면 스냅샷 없이 로그부터 이어 받는다.
+ * 위치를 읽은 뒤 저장소를 sync해서 그 위치까지의 상품이 디스크에 있는 것을 확인하고 나서 파일에 쓰므로,
+ * fsync 정책이 never이거나 write-behind가 밀려 있어도 저장소가 디스크에 쓴 것보다 앞선 위치가 남지 않는다.
+ * 위치가 뒤처진 것은 괜찮다. 이미 가진 버전보다 오래된 상품은 무시하므로 같은 로그를 다시 받아도 결과가 같다.
+ */
+@Slf4j
+public class ItemReplicationFollower implements ItemWriteForwarder, ItemReplicationNode, Closeable {
+
+    private static final long MAX_BACKOFF_MILLIS = 1000;
+    // 스냅샷을 받으면서 한 번에 반영하는 상품 수
+    private static final int SNAPSHOT_BATCH_SIZE = 1000;
+
+    private final String host;
+    private final int port;
+    private final byte[] secret;
+    private final Duration timeout;
+    private final Path positionFile;
+    private final Duration checkpointInterval;
+    private final AtomicLong requestIds = new AtomicLong();
+    private final Map<Long, CompletableFuture<Reply>> pending = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> lastWrite = ThreadLocal.withInitial(() -> new long[2]);
+
+    // 반영 위치나 연결 상태가 바뀌면 changed로 기다리는 스레드를 깨운다.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private volatile long epoch;
+    private volatile long appliedLsn;
+    private volatile Connection connection;
+
+    private volatile ItemRepository itemRepository;
+    private volatile Thread thread;
+    private volatile boolean running = true;
+
+    // positionFile에 쓴 위치. checkpoint 스레드만 쓴다.
+    private ScheduledExecutorService checkpointer;
+    private ItemReplicationPosition saved;
+
+    /**
+     * @param secret 리더와 같은 공유 비밀
+     * @param timeout 리더의 응답과 그 쓰기의 반영을 기다리는 최대 시간. 리더에 연결되기를 기다리는 시간도 같다.
+     */
+    public ItemReplicationFollower(String host, int port, String secret, Duration timeout) {
+        this(host, port, secret, timeout, null, null);
+    }
+
+    /**
+     * @param positionFile 반영한 위치를 남길 파일. 다시 떠도 상품이 남아 있는 저장소(WAL)일 때만 준다. null이면 남기지 않는다.
+     * @param checkpointInterval 위치를 파일에 쓰는 주기. 쓸 때마다 저장소를 sync한다.
+     */
+    public ItemReplicationFollower(String host, int port, String secret, Duration timeout,
+                                   Path positionFile, Duration checkpointInterval) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("replication secret must not be empty");
+        }
+        this.host = host;
+        this.port = port;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.timeout = timeout;
+        this.positionFile = positionFile;
+        this.checkpointInterval = checkpointInterval;
+        ItemReplicationPosition position = positionFile == null ? null : readPosition(positionFile);
+        if (position != null) {
+            this.epoch = position.epoch();
+            this.appliedLsn = position.lsn();
+            this.saved = position;
+            log.info("복제 위치 복구 position={}", position.format());
+        }
+    }
+
+    /**
+     * 저장소가 준비되면 리더에 연결하기 시작한다.
+     */
+    @Override
+    public void attach(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+        Thread thread = new Thread(this::run, "item-replication-follower");
+        thread.setDaemon(true);
+        this.thread = thread;
+        thread.start();
+        if (positionFile != null) {
+            checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread checkpoint = new Thread(r, "item-replication-checkpoint");
+                checkpoint.setDaemon(true);
+                return checkpoint;
+            });
+            long interval = checkpointInterval.toMillis();
+            checkpointer.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Item save(Item item) {
+        return call(OP_SAVE, out -> writeItem(out, item)).get(0);
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return call(OP_SAVE_ALL, out -> writeItems(out, items));
+    }
+
+    @Override
+    public Item update(long itemId, Item updateParam, Long expectedVersion) {
+        return call(OP_UPDATE, out -> {
+            out.writeLong(itemId);
+            writeItem(out, updateParam);
+            out.writeBoolean(expectedVersion != null);
+            if (expectedVersion != null) {
+                out.writeLong(expectedVersion);
+            }
+        }).get(0);
+    }
+
+    @Override
+    public List<Item> updateAll(List<Item> updateParams) {
+        return call(OP_UPDATE_ALL, out -> writeItems(out, updateParams));
+    }
+
+    @Override
+    public void clear() {
+        call(OP_CLEAR, out -> {
+        });
+    }
+
+    @Override
+    public ItemReplicationPosition applied() {
+        return new ItemReplicationPosition(epoch, appliedLsn);
+    }
+
+    /**
+     * 처음 스냅샷을 받기 전이라 epoch를 모르면 받을 때까지 기다린다.
+     */
+    @Override
+    public boolean awaitApplied(ItemReplicationPosition position, Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (epoch == 0 || (epoch == position.epoch() && appliedLsn < position.lsn())) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = changed.awaitNanos(remaining);
+            }
+            return epoch == position.epoch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ItemReplicationPosition lastWrite() {
+        long[] write = lastWrite.get();
+        return write[1] == 0 ? null : new ItemReplicationPosition(write[0], write[1]);
+    }
+
+    @Override
+    public void resetLastWrite() {
+        lastWrite.get()[1] = 0;
+    }
+
+    public boolean isConnected() {
+        return connection != null;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Connection connection = this.connection;
+        if (connection != null) {
+            connection.close();
+        }
+        Thread thread = this.thread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+        }
+    }
+
+    private List<Item> call(byte op, RequestBody body) {
+        Connection connection = awaitConnection();
+        long requestId = requestIds.incrementAndGet();
+        CompletableFuture<Reply> future = new CompletableFuture<>();
+        pending.put(requestId, future);
+        Reply reply;
+        try {
+            connection.send(requestId, op, body);
+            reply = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (IOException | ExecutionException e) {
+            throw new IllegalStateException("복제 리더에 쓰기를 전달하지 못했습니다. 반영 여부를 알 수 없습니다.", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("복제 리더가 " + timeout + " 안에 응답하지 않았습니다. 반영 여부를 알 수 없습니다.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            pending.remove(requestId);
+        }
+
+        if (reply.status() == STATUS_CONFLICT) {
+            ItemVersionConflictException conflict = reply.conflict();
+            throw new ItemVersionConflictException(conflict.getItemId(), conflict.getExpectedVersion(), conflict.getCurrentVersion());
+        }
+        if (reply.status() != STATUS_OK) {
+            throw new IllegalStateException("복제 리더에서 쓰기가 실패했습니다: " + reply.message());
+        }
+        if (reply.lsn() > 0) {
+            ItemReplicationPosition position = new ItemReplicationPosition(connection.epoch, reply.lsn());
+            try {
+                if (!awaitApplied(position, timeout)) {
+                    log.warn("리더에 반영된 쓰기가 {} 안에 이 노드에 반영되지 않았습니다 position={}", timeout, position.format());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long[] write = lastWrite.get();
+            write[0] = position.epoch();
+            write[1] = position.lsn();
+        }
+        return reply.items();
+    }
+
+    private Connection awaitConnection() {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (connection == null) {
+                if (remaining <= 0) {
+                    throw new IllegalStateException("복제 리더(" + host + ":" + port + ")에 연결되어 있지 않습니다.");
+                }
+                remaining = changed.awaitNanos(remaining);
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        long backoff = 50;
+        while (running) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), (int) timeout.toMillis());
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                backoff = 50;
+                follow(socket);
+            } catch (IOException e) {
+                if (running) {
+                    log.info("복제 리더 연결 실패 leader={}:{} cause={}", host, port, e.toString());
+                }
+            } finally {
+                disconnected();
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private void follow(Socket socket) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+        if (in.readByte() != CHALLENGE) {
+            throw new IOException("expected CHALLENGE");
+        }
+        byte[] challenge = new byte[CHALLENGE_SIZE];
+        in.readFully(challenge);
+        out.writeByte(HELLO);
+        out.write(helloMac(secret, challenge));
+        out.writeLong(epoch);
+        out.writeLong(appliedLsn);
+        out.flush();
+
+        while (running) {
+            byte frame = in.readByte();
+            switch (frame) {
+                case SNAPSHOT -> readSnapshot(in, socket, out);
+                case RESUME -> {
+                    long leaderEpoch = in.readLong();
+                    log.info("복제 로그 이어 받기 lsn={}", in.readLong());
+                    connected(new Connection(socket, out, leaderEpoch));
+                }
+                case ENTRY -> {
+                    long lsn = in.readLong();
+                    Item item = readItem(in);
+                    if (item == null) {
+                        itemRepository.applyReplicatedClear();
+                    } else {
+                        itemRepository.applyReplicated(item);
+                    }
+                    advance(epoch, lsn);
+                }
+                case REPLY -> readReply(in);
+                default -> throw new IOException("unknown frame " + frame);
+            }
+        }
+    }
+
+    /**
+     * 스냅샷은 받는 대로 SNAPSHOT_BATCH_SIZE개씩 반영하고, 받은 상품 ID만 모아 두었다가 끝에서 스냅샷에 없는 상품을 정리한다.
+     * 받는 동안의 읽기는 상품마다 이전 것이나 스냅샷의 것 중 하나를 본다.
+     * 스냅샷이나 RESUME을 받은 뒤에 연결을 쓰기에 열어 준다. (그 전에는 응답의 lsn이 어느 epoch의 것인지 모른다)
+     */
+    private void readSnapshot(DataInputStream in, Socket socket, DataOutputStream out) throws IOException {
+        long leaderEpoch = in.readLong();
+        long lsn = in.readLong();
+        long started = System.nanoTime();
+        List<Item> batch = new ArrayList<>(SNAPSHOT_BATCH_SIZE);
+        long[] ids = new long[SNAPSHOT_BATCH_SIZE];
+        int count = 0;
+        for (Item item = readItem(in); item != null; item = readItem(in)) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[count++] = item.getId();
+            batch.add(item);
+            if (batch.size() == SNAPSHOT_BATCH_SIZE) {
+                itemRepository.applyReplicatedSnapshotBatch(batch);
+                batch.clear();
+            }
+        }
+        itemRepository.applyReplicatedSnapshotBatch(batch);
+        ids = Arrays.copyOf(ids, count);
+        Arrays.sort(ids);
+        itemRepository.finishReplicatedSnapshot(ids);
+        log.info("복제 스냅샷 반영 items={} lsn={} elapsed={}ms", count, lsn,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        advance(leaderEpoch, lsn);
+        connected(new Connection(socket, out, leaderEpoch));
+    }
+
+    private void readReply(DataInputStream in) throws IOException {
+        long requestId = in.readLong();
+        long lsn = in.readLong();
+        byte status = in.readByte();
+        Reply reply = switch (status) {
+            case STATUS_OK -> new Reply(lsn, status, readItems(in), null, null);
+            case STATUS_CONFLICT -> new Reply(lsn, status, null,
+                    new ItemVersionConflictException(in.readLong(), in.readLong(), in.readLong()), null);
+            default -> new Reply(lsn, status, null, null, in.readUTF());
+        };
+        CompletableFuture<Reply> future = pending.get(requestId);
+        if (future != null) {
+            future.complete(reply);
+        }
+    }
+
+    private void advance(long epoch, long lsn) {
+        lock.lock();
+        try {
+            this.epoch = epoch;
+            this.appliedLsn = lsn;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 지금 위치를 읽고, 저장소를 sync해서 그 위치까지 반영한 상품이 디스크에 있는 것을 확인한 뒤 파일에 쓴다.
+     * ! 위치를 sync보다 먼저 읽어야 한다. 위치는 상품을 저장소에 반영한 뒤에 올라가므로 읽은 위치까지는 sync에 포함된다.
+     */
+    private void checkpoint() {
+        ItemReplicationPosition position;
+        lock.lock();
+        try {
+            position = new ItemReplicationPosition(epoch, appliedLsn);
+        } finally {
+            lock.unlock();
+        }
+        if (position.epoch() == 0 || position.equals(saved)) {
+            return;
+        }
+        try {
+            itemRepository.sync();
+            writePosition(positionFile, position);
+            saved = position;
+        } catch (IOException | RuntimeException e) {
+            // 저장소를 내리지 못했으면 예전 위치를 그대로 둔다. 다시 떴을 때 같은 로그를 다시 받을 뿐이다.
+            log.warn("복제 위치를 남기지 못했습니다 file={}", positionFile, e);
+        }
+    }
+
+    /**
+     * 임시 파일을 fsync한 뒤 바꿔 끼우고 디렉터리도 fsync한다. 죽어도 예전 위치나 새 위치 중 하나가 온전히 남는다.
+     */
+    private static void writePosition(Path positionFile, ItemReplicationPosition position) throws IOException {
+        Path temp = positionFile.resolveSibling(positionFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(position.format().getBytes(StandardCharsets.US_ASCII));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, positionFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel dir = FileChannel.open(positionFile.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // 디렉터리 fsync를 지원하지 않는 OS도 있다.
+        }
+    }
+
+    /**
+     * @return 파일이 없거나 형식이 맞지 않으면 null. 그러면 스냅샷부터 받는다.
+     */
+    private static ItemReplicationPosition readPosition(Path positionFile) {
+        if (!Files.exists(positionFile)) {
+            return null;
+        }
+        try {
+            return ItemReplicationPosition.parse(Files.readString(positionFile, StandardCharsets.US_ASCII).trim());
+        } catch (IOException e) {
+            log.warn("복제 위치를 읽지 못했습니다 file={}", positionFile, e);
+            return null;
+        }
+    }
+
+    private void connected(Connection connection) {
+        lock.lock();
+        try {
+            this.connection = connection;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void disconnected() {
+        lock.lock();
+        try {
+            connection = null;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        IOException closed = new IOException("복제 리더와 연결이 끊어졌습니다.");
+        for (CompletableFuture<Reply> future : pending.values()) {
+            future.completeExceptionally(closed);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RequestBody {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private record Reply(long lsn, byte status, List<Item> items, ItemVersionConflictException conflict, String message) {
+    }
+
+    /**
+     * 스냅샷을 받은 연결. 여러 요청 스레드가 같이 쓰므로 프레임 하나를 통째로 쓰고 내보낸다.
+     */
+    private static final class Connection {
+
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final long epoch;
+        // 소켓에 쓰는 동안 잡는다. synchronized와 달리 가상 스레드가 캐리어 스레드를 붙잡지 않는다.
+        private final ReentrantLock sendLock = new ReentrantLock();
+
+        Connection(Socket socket, DataOutputStream out, long epoch) {
+            this.socket = socket;
+            this.out = out;
+            this.epoch = epoch;
+        }
+
+        void send(long requestId, byte op, RequestBody body) throws IOException {
+            sendLock.lock();
+            try {
+                out.writeByte(REQUEST);
+                out.writeLong(requestId);
+                out.writeByte(op);
+                body.writeTo(out);
+                out.flush();
+            } finally {
+                sendLock.unlock();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 이미 끊긴 연결이다.
+            }
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package hello.itemservice.domain.item.replication;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemChangeListener;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemVersionConflictException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static hello.itemservice.domain.item.replication.ReplicationProtocol.*;
+
+/**
+ * 복제 리더. 이 노드의 ItemRepository에 일어난 변경에 순서대로 lsn을 매겨 로그에 남기고 연결된 팔로워들에게 보낸다.
+ * <p>
+ * 로그는 최근 logCapacity건만 메모리에 남긴다. 팔로워가 연결하면서 알려준 마지막 lsn이 로그 안에 있으면 그 뒤만 보내고,
+ * 아니면(처음 연결했거나 너무 뒤처졌거나 리더가 다시 떴으면) 전체 스냅샷을 보낸 뒤 로그를 이어서 보낸다.
+ * 스냅샷은 쓰기를 멈추지 않고 저장소를 훑어서 만든다. 훑기 전에 팔로워를 등록해서 그 뒤의 변경을 모두 받게 하고,
+ * 로그 항목은 상품의 전체 상태라서 스냅샷과 겹쳐도 다시 반영하면 같은 결과가 된다. (WalItemStore의 스냅샷과 같은 방식)
+ * <p>
+ * 팔로워가 넘긴 쓰기는 이 노드의 ItemRepository로 처리하므로 버전 비교(compare-and-set)와 ID 발급은 리더 한 곳에서 한다.
+ * <p>
+ * 연결한 쪽은 저장소를 비우는 것까지 할 수 있으므로, 연결마다 보낸 challenge에 공유 비밀로 만든 HMAC을 HELLO에 담아
+ * 답해야 팔로워로 등록하고 요청을 받는다. 포트는 bindAddress에만 연다. 연결 내용은 암호화하지 않는다. (ReplicationProtocol 참고)
+ */
+@Slf4j
+public class ItemReplicationLeader implements ItemChangeListener, ItemReplicationNode, Closeable {
+
+    // 연결하고 이 시간 안에 HELLO를 보내지 않으면 끊는다.
+    private static final int HELLO_TIMEOUT_MILLIS = 10_000;
+    // 팔로워 쓰기를 처리하는 스레드 수와 밀린 요청 수. 넘치면 요청을 읽은 세션 스레드가 직접 처리해서 그 팔로워의 읽기를 늦춘다.
+    private static final int REQUEST_THREADS = 16;
+    private static final int REQUEST_QUEUE_CAPACITY = 1024;
+
+    private final ItemRepository itemRepository;
+    private final SecureRandom random = new SecureRandom();
+    private final long epoch = random.nextLong() & Long.MAX_VALUE | 1;
+    private final int logCapacity;
+    private final byte[] secret;
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final ExecutorService requestExecutor;
+    private final ThreadLocal<long[]> lastWrite = ThreadLocal.withInitial(() -> new long[1]);
+
+    // 아래는 lock을 잡고 바꾼다. head는 락 없이도 읽는다.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Entry> backlog = new ArrayDeque<>();
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private volatile long head;
+    private volatile boolean running = true;
+
+    /**
+     * @param bindAddress 팔로워 연결을 받을 주소
+     * @param port 팔로워 연결을 받을 포트. 0이면 빈 포트를 고른다. (port()로 확인)
+     * @param secret 팔로워가 HELLO의 HMAC을 만들 때 쓰는 공유 비밀
+     */
+    public ItemReplicationLeader(ItemRepository itemRepository, InetAddress bindAddress, int port, int logCapacity,
+                                 String secret) throws IOException {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("replication secret must not be empty");
+        }
+        this.itemRepository = itemRepository;
+        this.logCapacity = logCapacity;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(bindAddress, port));
+        this.requestExecutor = new ThreadPoolExecutor(REQUEST_THREADS, REQUEST_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(REQUEST_QUEUE_CAPACITY), daemon("item-replication-request"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        itemRepository.addListener(this);
+
+        acceptor = daemon("item-replication-acceptor").newThread(this::accept);
+        acceptor.start();
+        log.info("복제 리더 시작 address={} epoch={}", serverSocket.getLocalSocketAddress(), Long.toHexString(epoch));
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int followerCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public void onChange(Item oldItem, Item newItem) {
+        append(newItem);
+    }
+
+    @Override
+    public void onClear() {
+        append(null);
+    }
+
+    @Override
+    public ItemReplicationPosition applied() {
+        return new ItemReplicationPosition(epoch, head);
+    }
+
+    /**
+     * 모든 쓰기가 리더에서 일어나므로 이 리더의 위치라면 항상 이미 반영되어 있다.
+     */
+    @Override
+    public boolean awaitApplied(ItemReplicationPosition position, Duration timeout) {
+        return position.epoch() == epoch && position.lsn() <= head;
+    }
+
+    @Override
+    public ItemReplicationPosition lastWrite() {
+        long lsn = lastWrite.get()[0];
+        return lsn == 0 ? null : new ItemReplicationPosition(epoch, lsn);
+    }
+
+    @Override
+    public void resetLastWrite() {
+        lastWrite.get()[0] = 0;
+    }
+
+    /**
+     * 변경 하나에 lsn을 매긴다. ItemRepository가 상품별 락을 잡은 채로 부르므로 같은 상품의 변경은 lsn 순서와 반영 순서가 같다.
+     *
+     * @param item 바뀐 뒤의 상품. 전체 삭제면 null
+     */
+    private void append(Item item) {
+        long lsn;
+        lock.lock();
+        try {
+            lsn = head + 1;
+            Entry entry = new Entry(lsn, item);
+            backlog.addLast(entry);
+            if (backlog.size() > logCapacity) {
+                backlog.removeFirst();
+            }
+            head = lsn;
+            for (Session session : sessions) {
+                if (!session.queue.offer(entry)) {
+                    // 못 따라오는 팔로워는 끊는다. 다시 연결하면 로그나 스냅샷으로 따라잡는다.
+                    log.warn("복제 팔로워가 뒤처져서 연결을 끊습니다 follower={}", session.remote);
+                    sessions.remove(session);
+                    session.close();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        lastWrite.get()[0] = lsn;
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                Session session = new Session(socket);
+                daemon("item-replication-reader").newThread(session::read).start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("복제 연결을 받지 못했습니다", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 팔로워를 등록하고 무엇부터 보낼지 정한다. 로그로 이어 줄 수 있으면 빠진 항목을 큐에 먼저 넣는다.
+     *
+     * @return 스냅샷을 보내야 하면 스냅샷 시점의 lsn, 로그로 이어 주면 -1
+     */
+    private long register(Session session, long followerEpoch, long followerLsn) {
+        lock.lock();
+        try {
+            long oldest = backlog.isEmpty() ? head + 1 : backlog.getFirst().lsn();
+            long snapshotLsn = -1;
+            if (followerEpoch == epoch && followerLsn >= oldest - 1 && followerLsn <= head) {
+                for (Entry entry : backlog) {
+                    if (entry.lsn() > followerLsn) {
+                        session.queue.add(entry);
+                    }
+                }
+            } else {
+                snapshotLsn = head;
+            }
+            sessions.add(session);
+            return snapshotLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Session session : sessions) {
+            session.close();
+        }
+        sessions.clear();
+        requestExecutor.shutdownNow();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 팔로워에게 보낼 프레임. 로그 항목과 쓰기 응답이 같은 큐를 거쳐 한 스레드에서 나간다.
+     */
+    private interface Frame {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private record Entry(long lsn, Item item) implements Frame {
+        @Override
+        public void writeTo(DataOutputStream out) throws IOException {
+            out.writeByte(ENTRY);
+            out.writeLong(lsn);
+            writeItem(out, item);
+        }
+    }
+
+    private record Reply(long requestId, long lsn, byte status, List<Item> items,
+                         ItemVersionConflictException conflict, String message) implements Frame {
+        @Override
+        public void writeTo(DataOutputStream out) throws IOException {
+            out.writeByte(REPLY);
+            out.writeLong(requestId);
+            out.writeLong(lsn);
+            out.writeByte(status);
+            switch (status) {
+                case STATUS_OK -> writeItems(out, items);
+                case STATUS_CONFLICT -> {
+                    out.writeLong(conflict.getItemId());
+                    out.writeLong(conflict.getExpectedVersion());
+                    out.writeLong(conflict.getCurrentVersion());
+                }
+                default -> out.writeUTF(message == null ? "" : message);
+            }
+        }
+    }
+
+    /**
+     * 팔로워 연결 하나. 읽는 스레드는 HELLO와 쓰기 요청을 받고, 보내는 스레드는 스냅샷과 큐에 쌓인 프레임을 보낸다.
+     */
+    private class Session {
+
+        private final Socket socket;
+        private final String remote;
+        // 로그를 모두 담을 수 있어야 로그로 이어 줄 때 넘치지 않는다. 그 위에 새 변경과 응답이 쌓일 자리를 둔다.
+        private final BlockingQueue<Frame> queue = new LinkedBlockingQueue<>(logCapacity * 2);
+        private volatile Thread sender;
+
+        Session(Socket socket) {
+            this.socket = socket;
+            this.remote = String.valueOf(socket.getRemoteSocketAddress());
+        }
+
+        void read() {
+            try (socket) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+                socket.setSoTimeout(HELLO_TIMEOUT_MILLIS);
+                byte[] challenge = new byte[CHALLENGE_SIZE];
+                random.nextBytes(challenge);
+                // 보내는 스레드를 띄우기 전이라 이 스레드가 소켓에 직접 쓴다.
+                byte[] challengeFrame = new byte[1 + CHALLENGE_SIZE];
+                challengeFrame[0] = CHALLENGE;
+                System.arraycopy(challenge, 0, challengeFrame, 1, CHALLENGE_SIZE);
+                socket.getOutputStream().write(challengeFrame);
+                socket.getOutputStream().flush();
+                if (in.readByte() != HELLO) {
+                    throw new IOException("expected HELLO");
+                }
+                byte[] followerMac = new byte[HELLO_MAC_SIZE];
+                in.readFully(followerMac);
+                long followerEpoch = in.readLong();
+                long followerLsn = in.readLong();
+                if (!MessageDigest.isEqual(helloMac(secret, challenge), followerMac)) {
+                    log.warn("복제 비밀이 맞지 않아 연결을 끊습니다 remote={}", remote);
+                    return;
+                }
+                socket.setSoTimeout(0);
+                long snapshotLsn = register(this, followerEpoch, followerLsn);
+                log.info("복제 팔로워 연결 follower={} from={} {}", remote, followerLsn,
+                        snapshotLsn < 0 ? "log" : "snapshot@" + snapshotLsn);
+                sender = daemon("item-replication-sender").newThread(() -> send(snapshotLsn, followerLsn));
+                sender.start();
+
+                while (true) {
+                    if (in.readByte() != REQUEST) {
+                        throw new IOException("expected REQUEST");
+                    }
+                    long requestId = in.readLong();
+                    byte op = in.readByte();
+                    Item item = null;
+                    List<Item> items = null;
+                    long itemId = 0;
+                    Long expectedVersion = null;
+                    switch (op) {
+                        case OP_SAVE -> item = readItem(in);
+                        case OP_SAVE_ALL, OP_UPDATE_ALL -> items = readItems(in);
+                        case OP_UPDATE -> {
+                            itemId = in.readLong();
+                            item = readItem(in);
+                            expectedVersion = in.readBoolean() ? in.readLong() : null;
+                        }
+                        case OP_CLEAR -> {
+                        }
+                        default -> throw new IOException("unknown op " + op);
+                    }
+                    Request request = new Request(requestId, op, item, items, itemId, expectedVersion);
+                    requestExecutor.execute(() -> execute(request));
+                }
+            } catch (IOException e) {
+                if (running && sessions.contains(this)) {
+                    log.info("복제 팔로워 연결 종료 follower={} cause={}", remote, e.toString());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private void execute(Request request) {
+            resetLastWrite();
+            Reply reply;
+            try {
+                List<Item> result = switch (request.op()) {
+                    case OP_SAVE -> Collections.singletonList(itemRepository.save(request.item()));
+                    case OP_SAVE_ALL -> itemRepository.saveAll(request.items());
+                    case OP_UPDATE -> Collections.singletonList(
+                            itemRepository.update(request.itemId(), request.item(), request.expectedVersion()));
+                    case OP_UPDATE_ALL -> itemRepository.updateAll(request.items());
+                    default -> {
+                        itemRepository.clearStore();
+                        yield List.of();
+                    }
+                };
+                reply = new Reply(request.requestId(), lastWrite.get()[0], STATUS_OK, result, null, null);
+            } catch (ItemVersionConflictException e) {
+                reply = new Reply(request.requestId(), 0, STATUS_CONFLICT, null, e, null);
+            } catch (RuntimeException e) {
+                log.warn("복제 팔로워의 쓰기 요청 실패 follower={}", remote, e);
+                reply = new Reply(request.requestId(), 0, STATUS_ERROR, null, null, e.toString());
+            }
+            if (!queue.offer(reply)) {
+                close();
+            }
+        }
+
+        private void send(long snapshotLsn, long followerLsn) {
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+                if (snapshotLsn >= 0) {
+                    sendSnapshot(out, snapshotLsn);
+                } else {
+                    out.writeByte(RESUME);
+                    out.writeLong(epoch);
+                    out.writeLong(followerLsn);
+                }
+                while (true) {
+                    Frame frame = queue.take();
+                    do {
+                        frame.writeTo(out);
+                        frame = queue.poll();
+                    } while (frame != null);
+                    out.flush();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+            }
+        }
+
+        private void sendSnapshot(DataOutputStream out, long snapshotLsn) throws IOException {
+            out.writeByte(SNAPSHOT);
+            out.writeLong(epoch);
+            out.writeLong(snapshotLsn);
+            itemRepository.forEach(item -> {
+                try {
+                    writeItem(out, item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writeItem(out, null);
+            out.flush();
+        }
+
+        void close() {
+            sessions.remove(this);
+            Thread sender = this.sender;
+            if (sender != null) {
+                sender.interrupt();
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 이미 끊긴 연결이다.
+            }
+        }
+    }
+
+    private record Request(long requestId, byte op, Item item, List<Item> items, long itemId, Long expectedVersion) {
+    }
+}
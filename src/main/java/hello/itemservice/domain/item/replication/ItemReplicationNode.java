@@ -0,0 +1,28 @@
+package hello.itemservice.domain.item.replication;
+
+import java.time.Duration;
+
+/**
+ * 리더와 팔로워가 공통으로 제공하는 복제 위치. 다른 노드에 한 쓰기를 이 노드에서 읽을 수 있는지(read-your-writes) 확인할 때 쓴다.
+ */
+public interface ItemReplicationNode {
+
+    /**
+     * 이 노드의 저장소에 반영된 위치. 팔로워가 아직 리더에게 처음 스냅샷을 받기 전이면 epoch가 0이다.
+     */
+    ItemReplicationPosition applied();
+
+    /**
+     * position까지 이 노드에 반영될 때까지 최대 timeout만큼 기다린다.
+     *
+     * @return 반영되었으면 true. 다른 epoch의 위치거나 시간 안에 반영되지 않았으면 false
+     */
+    boolean awaitApplied(ItemReplicationPosition position, Duration timeout) throws InterruptedException;
+
+    /**
+     * 지금 스레드가 resetLastWrite 이후에 한 쓰기 중 마지막 것의 위치. 쓰기가 없었으면 null
+     */
+    ItemReplicationPosition lastWrite();
+
+    void resetLastWrite();
+}
@@ -0,0 +1,32 @@
+package hello.itemservice.domain.item.replication;
+
+/**
+ * 복제 로그의 한 위치. lsn은 리더가 변경마다 1씩 올려 매기는 번호이고, epoch는 리더가 뜰 때마다 새로 정하는 값이다.
+ * 리더가 다시 뜨면 lsn이 처음부터 다시 시작하므로 epoch가 다른 위치끼리는 비교할 수 없다.
+ * 쿠키에 담을 수 있게 "epoch-lsn" (epoch는 16진수) 문자열로 바꾼다.
+ */
+public record ItemReplicationPosition(long epoch, long lsn) {
+
+    public String format() {
+        return Long.toHexString(epoch) + "-" + lsn;
+    }
+
+    /**
+     * @return 형식이 맞지 않으면 null
+     */
+    public static ItemReplicationPosition parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        int dash = value.indexOf('-');
+        if (dash <= 0) {
+            return null;
+        }
+        try {
+            return new ItemReplicationPosition(Long.parseUnsignedLong(value.substring(0, dash), 16),
+                    Long.parseLong(value.substring(dash + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package hello.itemservice.domain.item.replication;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.store.ItemRecordCodec;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 리더와 팔로워가 TCP 연결 하나로 주고받는 프레임. 프레임은 종류(byte) 다음에 내용이 온다.
+ * <pre>
+ * 팔로워 -> 리더
+ *   HELLO     HMAC-SHA256(공유 비밀, challenge)(32바이트) | epoch(long) | 마지막으로 반영한 lsn(long)
+ *   REQUEST   requestId(long) | op(byte) | 내용
+ * 리더 -> 팔로워
+ *   CHALLENGE 연결마다 새로 만든 임의의 값(32바이트)
+ *   SNAPSHOT epoch(long) | 스냅샷 시작 시점의 lsn(long) | 상품* | 끝(상품 없음)
+ *   RESUME   epoch(long) | 이어서 보낼 로그의 바로 앞 lsn(long)
+ *   ENTRY    lsn(long) | 바뀐 뒤의 상품 (없으면 전체 삭제)
+ *   REPLY    requestId(long) | 쓰기가 반영된 lsn(long) | status(byte) | 내용
+ * </pre>
+ * 연결하면 리더가 먼저 CHALLENGE를 보내고, 팔로워는 공유 비밀로 만든 HMAC을 HELLO에 담는다. 비밀 자체는 오가지 않고
+ * 연결마다 challenge가 달라서 엿본 HELLO를 다시 보내도 통하지 않는다. HMAC이 맞지 않으면 리더는 더 보내지 않고 연결을 끊는다.
+ * 그 뒤로 리더는 SNAPSHOT이나 RESUME을 먼저 보내고 ENTRY와 REPLY를 섞어 보낸다.
+ * 상품과 쓰기 요청은 암호화하지 않고 보내므로 복제 연결은 믿을 수 있는 내부망이나 TLS 터널(stunnel 등) 안에 둔다.
+ * 상품은 WAL과 같은 ItemRecordCodec 형식이다.
+ */
+final class ReplicationProtocol {
+
+    static final byte CHALLENGE = 'N';
+    static final byte HELLO = 'H';
+    static final byte REQUEST = 'R';
+    static final byte SNAPSHOT = 'S';
+    static final byte RESUME = 'C';
+    static final byte ENTRY = 'E';
+    static final byte REPLY = 'A';
+
+    static final byte OP_SAVE = 1;
+    static final byte OP_SAVE_ALL = 2;
+    static final byte OP_UPDATE = 3;
+    static final byte OP_UPDATE_ALL = 4;
+    static final byte OP_CLEAR = 5;
+
+    // OK: 결과 상품 목록 | CONFLICT: itemId, 기대한 버전, 지금 버전 | ERROR: 메시지
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_CONFLICT = 1;
+    static final byte STATUS_ERROR = 2;
+
+    private static final int PRESENT = 1;
+    private static final int HAS_ID = 1 << 1;
+    private static final int HAS_VERSION = 1 << 2;
+
+    static final int CHALLENGE_SIZE = 32;
+    static final int HELLO_MAC_SIZE = 32;
+
+    private ReplicationProtocol() {
+    }
+
+    /**
+     * HELLO에 담을 값. 공유 비밀을 키로 challenge의 HMAC-SHA256을 만든다.
+     */
+    static byte[] helloMac(byte[] secret, byte[] challenge) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return mac.doFinal(challenge);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * null이 올 수 있는 상품 하나. 쓰기 요청의 상품은 ID나 버전이 없을 수 있다.
+     * ItemRecordCodec은 ID가 반드시 있고 버전이 없으면 1로 읽으므로, 없음은 앞의 flag로 따로 보낸다.
+     */
+    static void writeItem(DataOutput out, Item item) throws IOException {
+        if (item == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(PRESENT | (item.getId() == null ? 0 : HAS_ID) | (item.getVersion() == null ? 0 : HAS_VERSION));
+        ItemRecordCodec.write(out, item.getId() == null
+                ? new Item(0L, item.getItemName(), item.getPrice(), item.getQuantity(), item.getVersion())
+                : item);
+    }
+
+    static Item readItem(DataInput in) throws IOException {
+        int flags = in.readByte();
+        if ((flags & PRESENT) == 0) {
+            return null;
+        }
+        Item item = ItemRecordCodec.read(in);
+        if ((flags & (HAS_ID | HAS_VERSION)) == (HAS_ID | HAS_VERSION)) {
+            return item;
+        }
+        return new Item((flags & HAS_ID) == 0 ? null : item.getId(), item.getItemName(), item.getPrice(), item.getQuantity(),
+                (flags & HAS_VERSION) == 0 ? null : item.getVersion());
+    }
+
+    static void writeItems(DataOutput out, List<Item> items) throws IOException {
+        out.writeInt(items.size());
+        for (Item item : items) {
+            writeItem(out, item);
+        }
+    }
+
+    static List<Item> readItems(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(readItem(in));
+        }
+        return items;
+    }
+}
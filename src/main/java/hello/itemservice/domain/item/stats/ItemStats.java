@@ -0,0 +1,131 @@
+package hello.itemservice.domain.item.stats;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemChangeListener;
+import hello.itemservice.domain.item.ItemRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 카탈로그 집계(상품 수, 가격 합계, 재고 금액 등)를 쓰기마다 더하고 빼서 유지한다. 조회할 때 전체를 훑지 않는다.
+ * <p>
+ * 여러 요청 스레드가 동시에 쓰므로 합계는 LongAdder로 스레드마다 나눠서 더한다.
+ * 조회는 각 합계를 따로 읽으므로 그 순간 진행 중인 쓰기는 일부 합계에만 반영되어 보일 수 있다. 쓰기가 멈추면 정확하다.
+ * 최저/최고 가격은 더하고 빼서는 유지할 수 없으므로 ItemRepository의 가격 인덱스로 구한다.
+ */
+@Component
+public class ItemStats implements ItemChangeListener {
+
+    // 가격 히스토그램 경계. 1-2-5 간격으로 1원부터 10억 원까지, 그 밖은 양 끝 칸에 모은다.
+    static final long[] PRICE_BOUNDS = priceBounds();
+
+    private final ItemRepository itemRepository;
+    private final LongAdder count = new LongAdder();
+    // 가격이 있는 상품 수와 그 가격 합계
+    private final LongAdder pricedCount = new LongAdder();
+    private final LongAdder priceSum = new LongAdder();
+    private final LongAdder quantitySum = new LongAdder();
+    // 가격 * 수량 합계. 둘 다 있는 상품만 더한다.
+    private final LongAdder inventoryValue = new LongAdder();
+    private final LongAdder[] priceHistogram = new LongAdder[PRICE_BOUNDS.length + 1];
+
+    public ItemStats(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+        for (int i = 0; i < priceHistogram.length; i++) {
+            priceHistogram[i] = new LongAdder();
+        }
+        // 저장소가 파일에서 읽어 들인 상품부터 더해 두고 그 뒤의 쓰기를 따라간다.
+        // 팔로워는 이때 이미 복제를 받고 있을 수 있으므로 쓰기를 막은 채로 더하고 등록한다.
+        itemRepository.addListenerWithExisting(this);
+    }
+
+    @Override
+    public void onChange(Item oldItem, Item newItem) {
+        if (oldItem == null) {
+            count.increment();
+        } else {
+            accumulate(oldItem, -1);
+        }
+        accumulate(newItem, 1);
+    }
+
+    @Override
+    public void onClear() {
+        count.reset();
+        pricedCount.reset();
+        priceSum.reset();
+        quantitySum.reset();
+        inventoryValue.reset();
+        for (LongAdder bucket : priceHistogram) {
+            bucket.reset();
+        }
+    }
+
+    public ItemStatsSnapshot snapshot() {
+        long priced = pricedCount.sum();
+        long prices = priceSum.sum();
+        List<ItemStatsSnapshot.Bucket> histogram = new ArrayList<>();
+        for (int i = 0; i < priceHistogram.length; i++) {
+            long bucketCount = priceHistogram[i].sum();
+            if (bucketCount > 0) {
+                histogram.add(new ItemStatsSnapshot.Bucket(
+                        i == 0 ? null : PRICE_BOUNDS[i - 1],
+                        i == PRICE_BOUNDS.length ? null : PRICE_BOUNDS[i],
+                        bucketCount));
+            }
+        }
+        return new ItemStatsSnapshot(count.sum(), priced, prices, priced == 0 ? null : (double) prices / priced,
+                quantitySum.sum(), inventoryValue.sum(),
+                itemRepository.findMinPrice(), itemRepository.findMaxPrice(), histogram);
+    }
+
+    /**
+     * @param sign 새 값이면 1, 바뀌기 전 값을 빼면 -1
+     */
+    private void accumulate(Item item, int sign) {
+        Integer price = item.getPrice();
+        Integer quantity = item.getQuantity();
+        if (price != null) {
+            pricedCount.add(sign);
+            priceSum.add((long) sign * price);
+            priceHistogram[bucketOf(price)].add(sign);
+        }
+        if (quantity != null) {
+            quantitySum.add((long) sign * quantity);
+        }
+        if (price != null && quantity != null) {
+            // ItemValidator의 totalPriceMin과 같은 가격 * 수량. int로 곱하면 넘칠 수 있어서 long으로 곱한다.
+            inventoryValue.add((long) sign * price * quantity);
+        }
+    }
+
+    static int bucketOf(long price) {
+        int low = 0;
+        int high = PRICE_BOUNDS.length;
+        // price보다 큰 첫 경계의 위치가 칸 번호다.
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (PRICE_BOUNDS[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long[] priceBounds() {
+        List<Long> bounds = new ArrayList<>();
+        for (long scale = 1; scale <= 1_000_000_000L; scale *= 10) {
+            bounds.add(scale);
+            if (scale < 1_000_000_000L) {
+                bounds.add(scale * 2);
+                bounds.add(scale * 5);
+            }
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+}
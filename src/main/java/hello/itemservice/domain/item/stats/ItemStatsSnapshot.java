@@ -0,0 +1,19 @@
+package hello.itemservice.domain.item.stats;
+
+import java.util.List;
+
+/**
+ * 조회 시점의 카탈로그 집계.
+ *
+ * @param pricedCount    가격이 있는 상품 수. averagePrice는 이 수로 나눈 값이다.
+ * @param inventoryValue 가격 * 수량 합계 (둘 다 있는 상품만)
+ * @param minPrice       가격이 있는 상품이 없으면 null
+ * @param priceHistogram 상품이 있는 가격 구간만. from 이상 to 미만이고 양 끝 칸은 한쪽이 null이다.
+ */
+public record ItemStatsSnapshot(long count, long pricedCount, long priceSum, Double averagePrice,
+                                long quantitySum, long inventoryValue, Integer minPrice, Integer maxPrice,
+                                List<Bucket> priceHistogram) {
+
+    public record Bucket(Long from, Long to, long count) {
+    }
+}
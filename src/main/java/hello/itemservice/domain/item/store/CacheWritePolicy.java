@@ -0,0 +1,15 @@
+package hello.itemservice.domain.item.store;
+
+/**
+ * CachingItemStore가 수정을 뒤쪽 저장소에 언제 쓰는지
+ */
+public enum CacheWritePolicy {
+    /**
+     * 수정할 때마다 바로 뒤쪽 저장소에 쓰고 캐시를 갱신한다.
+     */
+    THROUGH,
+    /**
+     * 캐시만 갱신하고 뒤쪽 저장소에는 모아 두었다가 주기적으로 쓴다. 그 사이에 프로세스가 죽으면 그만큼의 수정을 잃는다.
+     */
+    BEHIND
+}
@@ -0,0 +1,307 @@
+package hello.itemservice.domain.item.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hello.itemservice.domain.item.Item;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 느린 저장소(디스크의 mapped 저장소 등) 앞에서 findById를 Caffeine 캐시로 받아 주는 ItemStore.
+ * <p>
+ * 캐시는 상품 하나의 대략적인 메모리 크기를 무게로 삼아 maxWeight 바이트를 넘지 않게 하고, 넘으면 Caffeine의 W-TinyLFU가
+ * 자주 읽히지 않는 상품부터 내보낸다. 캐시에 없는 ID를 여러 요청이 동시에 읽으면 뒤쪽 저장소에는 한 번만 읽으러 가고
+ * 나머지는 그 결과를 기다린다. (없는 ID는 캐시하지 않는다)
+ * <p>
+ * 저장은 ID를 뒤쪽 저장소가 발급하므로 항상 바로 쓴다. 수정은 writePolicy에 따라 바로 쓰거나(THROUGH),
+ * 캐시만 갱신하고 writeBehindDelay마다 ID별 마지막 값만 모아서 restoreAll로 쓴다(BEHIND).
+ * BEHIND일 때 아직 쓰지 않은 수정은 캐시에서 밀려나도 따로 들고 있다가 읽을 때 내주고, 전체 순회 전에는 먼저 써서 맞춘다.
+ * <p>
+ * 전체 순회(forEach, partitions)는 캐시를 거치지 않는다. 한 번 훑는 조회가 자주 읽히는 상품을 밀어내지 않게 하기 위해서다.
+ */
+@Slf4j
+public class CachingItemStore implements ItemStore, Closeable {
+
+    // 상품 객체, 문자열 헤더, 캐시 항목과 Long 키를 합친 대략적인 바이트 수
+    private static final int ITEM_OVERHEAD = 160;
+
+    private final ItemStore backend;
+    private final CacheWritePolicy writePolicy;
+    private final Cache<Long, Item> cache;
+    // BEHIND일 때 아직 뒤쪽 저장소에 쓰지 않은 상품. ID마다 마지막 값만 남는다.
+    private final Map<Long, Item> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+    private final Timer loadTimer;
+
+    public CachingItemStore(ItemStore backend, long maxWeight, CacheWritePolicy writePolicy, Duration writeBehindDelay,
+                            MeterRegistry registry) {
+        this.backend = backend;
+        this.writePolicy = writePolicy;
+        Caffeine<Long, Item> builder = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Long id, Item item) -> weigh(item));
+        if (registry != null) {
+            builder.recordStats();
+        }
+        this.cache = builder.build();
+
+        if (registry != null) {
+            // cache.gets(result=hit|miss)로 적중률을, item.cache.load로 놓쳤을 때 뒤쪽 저장소에서 읽는 시간을 본다.
+            CaffeineCacheMetrics.monitor(registry, cache, "item");
+            this.loadTimer = Timer.builder("item.cache.load")
+                    .description("Latency of item reads that missed the cache")
+                    .tag("type", backend.getClass().getSimpleName())
+                    .register(registry);
+            Gauge.builder("item.cache.pending", pending, Map::size)
+                    .description("Updates not yet written behind to the item store")
+                    .register(registry);
+        } else {
+            this.loadTimer = null;
+        }
+
+        if (writePolicy == CacheWritePolicy.BEHIND) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "item-cache-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long delay = writeBehindDelay.toMillis();
+            flusher.scheduleWithFixedDelay(this::flushQuietly, delay, delay, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    @Override
+    public Item save(Item item) {
+        Item savedItem = backend.save(item);
+        // 저장 후에는 대개 바로 상세 화면으로 리다이렉트되므로 캐시에 넣어 둔다.
+        cache.put(savedItem.getId(), savedItem);
+        return savedItem;
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<Item> savedItems = backend.saveAll(items);
+        for (Item savedItem : savedItems) {
+            cache.put(savedItem.getId(), savedItem);
+        }
+        return savedItems;
+    }
+
+    @Override
+    public long reserveId() {
+        return backend.reserveId();
+    }
+
+    @Override
+    public Item saveReserved(long id, Item item) {
+        Item savedItem = backend.saveReserved(id, item);
+        cache.put(savedItem.getId(), savedItem);
+        return savedItem;
+    }
+
+    @Override
+    public List<Item> saveAllReserved(long[] ids, List<Item> items) {
+        List<Item> savedItems = backend.saveAllReserved(ids, items);
+        for (Item savedItem : savedItems) {
+            cache.put(savedItem.getId(), savedItem);
+        }
+        return savedItems;
+    }
+
+    @Override
+    public Item findById(long id) {
+        Item dirty = pending.get(id);
+        if (dirty != null) {
+            return dirty;
+        }
+        return cache.get(id, this::load);
+    }
+
+    @Override
+    public Item update(long id, Item updateParam) {
+        if (writePolicy == CacheWritePolicy.THROUGH) {
+            Item updatedItem = backend.update(id, updateParam);
+            // ! 뒤쪽 저장소에 쓴 다음에 캐시를 바꾼다. 그 사이에 읽어 간 예전 값은 이 put이 덮어쓴다.
+            if (updatedItem == null) {
+                cache.invalidate(id);
+            } else {
+                cache.put(id, updatedItem);
+            }
+            return updatedItem;
+        }
+        // 버전 계산은 같은 ID의 수정끼리 겹치지 않는다는 전제에서만 맞는다. (ItemRepository가 ID별 락을 잡고 부른다)
+        Item current = findById(id);
+        if (current == null) {
+            return null;
+        }
+        Item updatedItem = updateParam.withIdentity(id, current.getVersion() + 1);
+        writeBehind(updatedItem);
+        return updatedItem;
+    }
+
+    @Override
+    public List<Item> updateAll(List<Item> updateParams) {
+        if (writePolicy == CacheWritePolicy.BEHIND) {
+            return ItemStore.super.updateAll(updateParams);
+        }
+        List<Item> updatedItems = backend.updateAll(updateParams);
+        for (int i = 0; i < updatedItems.size(); i++) {
+            Item updatedItem = updatedItems.get(i);
+            if (updatedItem == null) {
+                cache.invalidate(updateParams.get(i).getId());
+            } else {
+                cache.put(updatedItem.getId(), updatedItem);
+            }
+        }
+        return updatedItems;
+    }
+
+    @Override
+    public void restore(Item item) {
+        if (writePolicy == CacheWritePolicy.BEHIND) {
+            writeBehind(item);
+            return;
+        }
+        backend.restore(item);
+        cache.put(item.getId(), item);
+    }
+
+    @Override
+    public void restoreAll(List<Item> items) {
+        if (writePolicy == CacheWritePolicy.BEHIND) {
+            items.forEach(this::writeBehind);
+            return;
+        }
+        backend.restoreAll(items);
+        for (Item item : items) {
+            cache.put(item.getId(), item);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Item> action) {
+        flush();
+        backend.forEach(action);
+    }
+
+    @Override
+    public List<? extends ItemStore> partitions() {
+        flush();
+        return backend.partitions();
+    }
+
+    @Override
+    public long size() {
+        return backend.size();
+    }
+
+    @Override
+    public void clear() {
+        flushLock.lock();
+        try {
+            pending.clear();
+            backend.clear();
+            cache.invalidateAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 아직 쓰지 않은 수정을 뒤쪽 저장소에 쓴다. 쓰는 동안 같은 ID가 다시 수정되면 그 값은 남겨 두었다가 다음에 쓴다.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<Item> items = new ArrayList<>(pending.values());
+            if (items.isEmpty()) {
+                return;
+            }
+            backend.restoreAll(items);
+            for (Item item : items) {
+                pending.remove(item.getId(), item);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 남은 write-behind 수정을 뒤쪽 저장소에 쓰고 뒤쪽 저장소를 내린다.
+     */
+    @Override
+    public void sync() {
+        flush();
+        backend.sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flush();
+        }
+        if (backend instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    long weightedSize() {
+        cache.cleanUp();
+        return cache.policy().eviction().orElseThrow().weightedSize().orElse(0);
+    }
+
+    private Item load(Long id) {
+        if (loadTimer == null) {
+            return backend.findById(id);
+        }
+        long start = System.nanoTime();
+        try {
+            return backend.findById(id);
+        } finally {
+            loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeBehind(Item item) {
+        // ! pending을 먼저 채워야 캐시에서 곧바로 밀려나더라도 읽는 쪽이 예전 값을 다시 읽어 오지 않는다.
+        pending.put(item.getId(), item);
+        cache.put(item.getId(), item);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // 남은 수정은 pending에 그대로 있으므로 다음 주기에 다시 쓴다.
+            log.warn("item cache write-behind failed pending={}", pending.size(), e);
+        }
+    }
+
+    private static int weigh(Item item) {
+        String name = item.getItemName();
+        return ITEM_OVERHEAD + (name == null ? 0 : name.length() * 2);
+    }
+}
@@ -0,0 +1,193 @@
+package hello.itemservice.domain.item.store;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * long 키를 박싱하지 않는 lock-striped 해시 맵.
+ * 쓰기는 키가 속한 세그먼트 하나만 잠그고, 읽기는 락 없이 volatile 테이블을 그대로 읽는다.
+ * 키 0은 빈 슬롯 표시로 쓰기 때문에 저장할 수 없다. (상품 ID는 1부터 시작한다)
+ */
+public final class ConcurrentLongMap<V> {
+
+    private static final long EMPTY = 0L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Segment<V>[] segments;
+    private final int segmentMask;
+
+    public ConcurrentLongMap() {
+        this(64);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongMap(int concurrencyLevel) {
+        int size = 1;
+        while (size < concurrencyLevel) {
+            size <<= 1;
+        }
+        segments = new Segment[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment<>();
+        }
+        segmentMask = size - 1;
+    }
+
+    public V get(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    public V put(long key, V value) {
+        checkKey(key);
+        int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value);
+    }
+
+    /**
+     * 키가 있을 때만 세그먼트 락 안에서 값을 바꾼다. 바뀐 값을 반환하고, 키가 없으면 null.
+     */
+    public V computeIfPresent(long key, UnaryOperator<V> remapping) {
+        int hash = hash(key);
+        return segmentFor(hash).computeIfPresent(key, hash, remapping);
+    }
+
+    public void forEach(Consumer<? super V> action) {
+        for (Segment<V> segment : segments) {
+            segment.forEach(action);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment<V> segmentFor(int hash) {
+        return segments[(hash >>> 24) & segmentMask];
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("key 0 is reserved");
+        }
+    }
+
+    private static final class Table<V> {
+        final AtomicLongArray keys;
+        final AtomicReferenceArray<V> values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+    }
+
+    private static final class Segment<V> {
+
+        private volatile Table<V> table = new Table<>(INITIAL_CAPACITY);
+        private volatile int size;
+
+        V get(long key, int hash) {
+            Table<V> t = table;
+            int i = hash & t.mask;
+            while (true) {
+                long k = t.keys.get(i);
+                if (k == key) {
+                    return t.values.get(i);
+                }
+                if (k == EMPTY) {
+                    return null;
+                }
+                i = (i + 1) & t.mask;
+            }
+        }
+
+        synchronized V put(long key, int hash, V value) {
+            Table<V> t = table;
+            int i = indexOf(t, key, hash);
+            if (t.keys.get(i) == key) {
+                return t.values.getAndSet(i, value);
+            }
+            if ((size + 1) * 2 > t.mask + 1) {
+                t = resize(t);
+                i = indexOf(t, key, hash);
+            }
+            // ! 값을 먼저 쓰고 키를 나중에 써야 락 없이 읽는 쪽이 키만 보이고 값은 null인 슬롯을 만나지 않는다.
+            t.values.set(i, value);
+            t.keys.set(i, key);
+            size++;
+            return null;
+        }
+
+        synchronized V computeIfPresent(long key, int hash, UnaryOperator<V> remapping) {
+            Table<V> t = table;
+            int i = indexOf(t, key, hash);
+            if (t.keys.get(i) != key) {
+                return null;
+            }
+            V newValue = remapping.apply(t.values.get(i));
+            t.values.set(i, newValue);
+            return newValue;
+        }
+
+        void forEach(Consumer<? super V> action) {
+            Table<V> t = table;
+            for (int i = 0; i <= t.mask; i++) {
+                V value = t.values.get(i);
+                if (value != null) {
+                    action.accept(value);
+                }
+            }
+        }
+
+        synchronized void clear() {
+            table = new Table<>(INITIAL_CAPACITY);
+            size = 0;
+        }
+
+        private int indexOf(Table<V> t, long key, int hash) {
+            int i = hash & t.mask;
+            while (true) {
+                long k = t.keys.get(i);
+                if (k == key || k == EMPTY) {
+                    return i;
+                }
+                i = (i + 1) & t.mask;
+            }
+        }
+
+        private Table<V> resize(Table<V> old) {
+            Table<V> resized = new Table<>((old.mask + 1) * 2);
+            for (int i = 0; i <= old.mask; i++) {
+                long k = old.keys.get(i);
+                if (k != EMPTY) {
+                    int j = indexOf(resized, k, hash(k));
+                    resized.values.set(j, old.values.get(i));
+                    resized.keys.set(j, k);
+                }
+            }
+            // ! 새 테이블을 다 채운 뒤에 한 번에 교체하므로 읽는 쪽은 항상 완성된 테이블만 본다.
+            table = resized;
+            return resized;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package hello.itemservice.domain.item.store;
+
+/**
+ * 로그를 디스크에 강제로 내리는(fsync) 시점.
+ */
+public enum FsyncPolicy {
+
+    /**
+     * 한 번에 모인 쓰기 묶음마다 fsync 후에 응답한다. 응답한 쓰기는 전원이 나가도 남는다.
+     */
+    ALWAYS,
+
+    /**
+     * 파일에 쓰기만 하고 응답하고, fsync는 일정 주기마다 한다. 장애 시 마지막 주기만큼 잃을 수 있다.
+     */
+    INTERVAL,
+
+    /**
+     * fsync를 OS에 맡긴다. 종료할 때만 fsync한다.
+     */
+    NEVER
+}
@@ -0,0 +1,57 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 로그와 스냅샷, 복제 스트림이 같이 쓰는 상품 한 건의 바이너리 형식.
+ * id(long) | 플래그(byte) | price(int) | quantity(int) | 상품명 길이(int) | 상품명(UTF-8) | version(long, HAS_VERSION일 때만)
+ * 버전이 생기기 전에 쓰인 레코드는 버전 1로 읽는다.
+ */
+public final class ItemRecordCodec {
+
+    private static final int NULL_NAME = 1;
+    private static final int NULL_PRICE = 1 << 1;
+    private static final int NULL_QUANTITY = 1 << 2;
+    private static final int HAS_VERSION = 1 << 3;
+
+    private ItemRecordCodec() {
+    }
+
+    public static void write(DataOutput out, Item item) throws IOException {
+        int flags = (item.getItemName() == null ? NULL_NAME : 0)
+                | (item.getPrice() == null ? NULL_PRICE : 0)
+                | (item.getQuantity() == null ? NULL_QUANTITY : 0)
+                | (item.getVersion() == null ? 0 : HAS_VERSION);
+        out.writeLong(item.getId());
+        out.writeByte(flags);
+        out.writeInt(item.getPrice() == null ? 0 : item.getPrice());
+        out.writeInt(item.getQuantity() == null ? 0 : item.getQuantity());
+        byte[] name = item.getItemName() == null ? new byte[0] : item.getItemName().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(name.length);
+        out.write(name);
+        if (item.getVersion() != null) {
+            out.writeLong(item.getVersion());
+        }
+    }
+
+    public static Item read(DataInput in) throws IOException {
+        long id = in.readLong();
+        int flags = in.readByte();
+        int price = in.readInt();
+        int quantity = in.readInt();
+        byte[] name = new byte[in.readInt()];
+        in.readFully(name);
+        long version = (flags & HAS_VERSION) != 0 ? in.readLong() : 1L;
+
+        return new Item(id,
+                (flags & NULL_NAME) != 0 ? null : new String(name, StandardCharsets.UTF_8),
+                (flags & NULL_PRICE) != 0 ? null : price,
+                (flags & NULL_QUANTITY) != 0 ? null : quantity,
+                version);
+    }
+}
@@ -0,0 +1,113 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * ItemRepository 뒤에서 실제로 상품을 보관하는 저장 엔진.
+ * 모든 구현체는 여러 요청 스레드에서 동시에 호출되어도 안전해야 한다.
+ */
+public interface ItemStore {
+
+    /**
+     * 새 ID와 버전 1을 매긴 상품을 저장하고 반환한다. 넘겨받은 item은 바뀌지 않는다.
+     */
+    Item save(Item item);
+
+    Item findById(long id);
+
+    /**
+     * 상품명, 가격, 수량을 교체하고 버전을 1 올린 새 인스턴스로 바꿔 끼운다. 없는 ID면 null을 반환한다.
+     * updateParam의 버전은 보지 않는다. (버전 비교는 ItemRepository가 한다)
+     */
+    Item update(long id, Item updateParam);
+
+    /**
+     * 여러 건을 한 번에 저장한다. 영속 저장소는 이 묶음을 한 번의 쓰기로 처리할 수 있다.
+     */
+    default List<Item> saveAll(List<Item> items) {
+        List<Item> savedItems = new ArrayList<>(items.size());
+        for (Item item : items) {
+            savedItems.add(save(item));
+        }
+        return savedItems;
+    }
+
+    /**
+     * updateParams 각각의 id에 해당하는 상품을 수정한다. 없는 ID 자리에는 null이 들어간다.
+     */
+    default List<Item> updateAll(List<Item> updateParams) {
+        List<Item> updatedItems = new ArrayList<>(updateParams.size());
+        for (Item updateParam : updateParams) {
+            updatedItems.add(update(updateParam.getId(), updateParam));
+        }
+        return updatedItems;
+    }
+
+    /**
+     * 새 상품에 쓸 ID를 미리 발급한다. 그 ID로 {@link #saveReserved}를 부르기 전까지 상품은 보이지 않는다.
+     * ItemRepository가 새 ID의 락을 잡은 채로 저장하고 변경을 알리려고 쓴다. 발급만 하고 쓰지 않은 ID는 빈 번호로 남는다.
+     *
+     * @return 발급한 ID. 미리 발급할 수 없는 저장소(ID가 행 번호인 MappedItemStore)는 -1
+     */
+    default long reserveId() {
+        return -1;
+    }
+
+    /**
+     * reserveId로 받은 ID와 버전 1로 새 상품을 저장한다.
+     */
+    default Item saveReserved(long id, Item item) {
+        Item savedItem = item.withIdentity(id, 1);
+        restore(savedItem);
+        return savedItem;
+    }
+
+    /**
+     * reserveId로 받은 ids[i]로 items.get(i)를 저장한다.
+     */
+    default List<Item> saveAllReserved(long[] ids, List<Item> items) {
+        List<Item> savedItems = new ArrayList<>(items.size());
+        for (int i = 0; i < ids.length; i++) {
+            savedItems.add(items.get(i).withIdentity(ids[i], 1));
+        }
+        restoreAll(savedItems);
+        return savedItems;
+    }
+
+    /**
+     * 이미 ID와 버전이 정해진 상품을 그대로 넣거나 교체한다.
+     * 복제 팔로워가 리더에게 받은 상품을 반영할 때, ShardedItemStore가 직접 발급한 ID로 샤드에 넣을 때 쓴다.
+     */
+    void restore(Item item);
+
+    default void restoreAll(List<Item> items) {
+        for (Item item : items) {
+            restore(item);
+        }
+    }
+
+    /**
+     * 동시에 나눠 훑을 수 있는 조각들. 조각들의 forEach를 합치면 이 저장소의 forEach와 같다.
+     * 나뉘지 않은 저장소는 자기 자신 하나다.
+     */
+    default List<? extends ItemStore> partitions() {
+        return List.of(this);
+    }
+
+    void forEach(Consumer<? super Item> action);
+
+    long size();
+
+    void clear();
+
+    /**
+     * 지금까지 반환한 쓰기를 디스크까지 내린다. 돌아온 뒤에 죽어도 그 쓰기는 남는다.
+     * fsync 정책이나 write-behind 주기와 상관없이 바로 내리며, 내리지 못하면 예외로 끝난다. 영속하지 않는 저장소는 아무것도 하지 않는다.
+     */
+    default void sync() {
+    }
+}
@@ -0,0 +1,361 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 상품을 힙 객체 대신 memory-mapped 파일의 컬럼으로 보관하는 저장소.
+ *
+ * <pre>
+ * price.col     int  x N          (null이면 Integer.MIN_VALUE)
+ * quantity.col  int  x N
+ * version.col   long x N          (0이면 버전 컬럼이 생기기 전에 쓰인 행이고 버전 1로 본다)
+ * name.idx      16바이트 x N      상품명 오프셋(long) | 길이(int, null이면 -1, 빈 문자열이면 0이고 오프셋도 0) | seqlock(int)
+ * name.dat      UTF-8 상품명을 뒤에 이어 붙이는 영역
+ * items.meta    magic | 포맷 버전 | 상품 수 | name.dat 끝 위치
+ * </pre>
+ *
+ * <p>ID는 1부터 빈틈없이 발급되므로 id - 1이 곧 행 번호이고, findById는 오프셋 계산 한 번으로 끝난다.
+ * 시작할 때는 파일을 매핑하고 name.idx의 seqlock만 훑을 뿐 상품을 읽어 들이지 않는다.
+ *
+ * <p>쓰기는 writeLock으로 한 번에 하나씩 하고, 읽기는 락 없이 행마다 둔 seqlock 값으로 쓰는 도중인 행을 걸러낸다.
+ * (writeLock은 force처럼 디스크를 기다리는 동안 가상 스레드가 캐리어를 붙잡지 않도록 synchronized가 아닌 ReentrantLock이다)
+ * seqlock도 파일에 있으므로 쓰는 도중에 죽으면 홀수로 남는다. 그대로 두면 그 행을 읽는 쪽이 끝없이 기다리므로
+ * 시작할 때 짝수로 되돌리고, 쓸 때도 홀수 값에서 시작하지 않도록 짝수로 맞춘 뒤 올린다.
+ * 읽는 쪽은 seqlock이 바뀌었을 때만 다시 읽는다. seqlock이 그대로인데 상품명 범위가 틀린 행은 깨진 행으로 보고
+ * 상품명 없이 돌려준다.
+ * 수정할 때 상품명은 항상 뒤에 새로 붙이므로 예전 상품명 바이트는 버려진다.
+ */
+@Slf4j
+public class MappedItemStore implements ItemStore, Closeable {
+
+    private static final int MAGIC = 0x49544d43;
+    private static final int FORMAT_VERSION = 1;
+    private static final int CHUNK_SHIFT = 26;
+    private static final int META_CHUNK_SHIFT = 12;
+    private static final int INDEX_ROW = 16;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int MAX_NAME_BYTES = 1 << 20;
+    private static final byte[] EMPTY_NAME = new byte[0];
+
+    private static final long META_MAGIC = 0;
+    private static final long META_COUNT = 8;
+    private static final long META_NAME_TAIL = 16;
+
+    private final MappedRegion meta;
+    private final MappedRegion prices;
+    private final MappedRegion quantities;
+    private final MappedRegion versions;
+    private final MappedRegion nameIndex;
+    private final MappedRegion names;
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong nameTail = new AtomicLong();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public MappedItemStore(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        meta = new MappedRegion(dir.resolve("items.meta"), META_CHUNK_SHIFT);
+        prices = new MappedRegion(dir.resolve("price.col"), CHUNK_SHIFT);
+        quantities = new MappedRegion(dir.resolve("quantity.col"), CHUNK_SHIFT);
+        versions = new MappedRegion(dir.resolve("version.col"), CHUNK_SHIFT);
+        nameIndex = new MappedRegion(dir.resolve("name.idx"), CHUNK_SHIFT);
+        names = new MappedRegion(dir.resolve("name.dat"), CHUNK_SHIFT);
+
+        meta.ensureCapacity(META_NAME_TAIL + 8);
+        int magic = meta.getInt(META_MAGIC);
+        if (magic == 0) {
+            meta.putInt(META_MAGIC, MAGIC);
+            meta.putInt(META_MAGIC + 4, FORMAT_VERSION);
+        } else if (magic != MAGIC || meta.getInt(META_MAGIC + 4) != FORMAT_VERSION) {
+            throw new IllegalStateException("not a mapped item store: " + dir);
+        }
+        count.set(meta.getLong(META_COUNT));
+        // version.col이 없던 저장소를 열면 기존 행 수만큼 0으로 채워진 컬럼을 만든다.
+        versions.ensureCapacity(count.get() * 8);
+        nameTail.set(meta.getLong(META_NAME_TAIL));
+        int repaired = repairRows();
+        if (repaired > 0) {
+            log.warn("mapped item store had rows left mid-write or corrupt dir={} rows={}", dir, repaired);
+        }
+        log.info("mapped item store opened dir={} items={}", dir, count.get());
+    }
+
+    @Override
+    public Item save(Item item) {
+        writeLock.lock();
+        try {
+            long id = count.get() + 1;
+            long row = id - 1;
+            try {
+                prices.ensureCapacity((row + 1) * 4);
+                quantities.ensureCapacity((row + 1) * 4);
+                versions.ensureCapacity((row + 1) * 8);
+                nameIndex.ensureCapacity((row + 1) * INDEX_ROW);
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to grow mapped item store", e);
+            }
+            writeRow(row, item, 1);
+            meta.putLong(META_COUNT, id);
+            // ! 행을 다 쓴 다음에 count를 올려야 읽는 쪽이 덜 쓰인 행을 보지 않는다.
+            count.set(id);
+            return item.withIdentity(id, 1);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Item findById(long id) {
+        if (id < 1 || id > count.get()) {
+            return null;
+        }
+        long row = id - 1;
+        long indexPosition = row * INDEX_ROW;
+        while (true) {
+            int seq = nameIndex.getIntVolatile(indexPosition + 12);
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long nameOffset = nameIndex.getLong(indexPosition);
+            int nameLength = nameIndex.getInt(indexPosition + 8);
+            int price = prices.getInt(row * 4);
+            int quantity = quantities.getInt(row * 4);
+            long version = versions.getLong(row * 8);
+            byte[] name = null;
+            // 쓰는 도중에 읽은 값이면 엉뚱한 길이일 수 있으니 범위를 먼저 확인한다.
+            boolean validName = isValidName(nameOffset, nameLength);
+            if (validName && nameLength > 0) {
+                name = new byte[nameLength];
+                try {
+                    names.get(nameOffset, name);
+                } catch (IndexOutOfBoundsException e) {
+                    // 찢어진 오프셋이 청크 경계를 넘거나 아직 없는 청크를 가리킨 경우다.
+                    validName = false;
+                    name = null;
+                }
+            } else if (validName && nameLength == 0) {
+                name = EMPTY_NAME;
+            }
+            VarHandle.loadLoadFence();
+            if (nameIndex.getIntVolatile(indexPosition + 12) != seq) {
+                // 읽는 사이에 쓰기가 지나갔으니 처음부터 다시 읽는다.
+                Thread.onSpinWait();
+                continue;
+            }
+            if (validName) {
+                return toItem(id, name, price, quantity, version);
+            }
+            // seqlock이 그대로인데 상품명이 틀렸으면 쓰는 도중이 아니라 clear와 겹쳤거나 행이 깨진 것이다.
+            // 다시 읽어도 같은 값이므로 기다리지 않는다.
+            if (id > count.get()) {
+                return null;
+            }
+            log.warn("mapped item store row has a corrupt name id={} offset={} length={}", id, nameOffset, nameLength);
+            return toItem(id, null, price, quantity, version);
+        }
+    }
+
+    @Override
+    public Item update(long id, Item updateParam) {
+        writeLock.lock();
+        try {
+            if (id < 1 || id > count.get()) {
+                return null;
+            }
+            long version = Math.max(versions.getLong((id - 1) * 8), 1) + 1;
+            writeRow(id - 1, updateParam, version);
+            return toItem(id, updateParam.getItemName() == null ? null : updateParam.getItemName().getBytes(StandardCharsets.UTF_8),
+                    toInt(updateParam.getPrice()), toInt(updateParam.getQuantity()), version);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 이미 있는 행을 주어진 버전 그대로 덮어쓴다. ID가 빈틈없이 이어져야 하므로 새 행은 save로만 만든다.
+     */
+    @Override
+    public void restore(Item item) {
+        writeLock.lock();
+        try {
+            long id = item.getId();
+            if (id < 1 || id > count.get()) {
+                throw new IllegalArgumentException("mapped item store can only restore existing rows: " + id);
+            }
+            writeRow(id - 1, item, item.getVersion());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Item> action) {
+        long size = count.get();
+        for (long id = 1; id <= size; id++) {
+            Item item = findById(id);
+            // 도중에 clear가 지나가면 null이 나온다.
+            if (item != null) {
+                action.accept(item);
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return count.get();
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            count.set(0);
+            nameTail.set(0);
+            meta.putLong(META_COUNT, 0);
+            meta.putLong(META_NAME_TAIL, 0);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 매핑된 내용을 디스크에 내린다.
+     */
+    public void force() {
+        writeLock.lock();
+        try {
+            names.force();
+            nameIndex.force();
+            prices.force();
+            quantities.force();
+            versions.force();
+            meta.force();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void sync() {
+        force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            names.close();
+            nameIndex.close();
+            prices.close();
+            quantities.close();
+            versions.close();
+            meta.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeRow(long row, Item item, long version) {
+        long nameOffset = -1;
+        int nameLength = -1;
+        if (item.getItemName() != null) {
+            byte[] name = item.getItemName().getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_NAME_BYTES) {
+                throw new IllegalArgumentException("item name is too long: " + name.length + " bytes");
+            }
+            // 빈 상품명은 name.dat에 쓸 것이 없다. (빈 저장소나 청크 끝에서 붙이면 없는 청크를 건드린다)
+            nameOffset = name.length == 0 ? 0 : appendName(name);
+            nameLength = name.length;
+        }
+
+        long indexPosition = row * INDEX_ROW;
+        int seq = nameIndex.getInt(indexPosition + 12) & ~1;
+        nameIndex.putIntVolatile(indexPosition + 12, seq + 1);
+        VarHandle.storeStoreFence();
+        prices.putInt(row * 4, toInt(item.getPrice()));
+        quantities.putInt(row * 4, toInt(item.getQuantity()));
+        versions.putLong(row * 8, version);
+        nameIndex.putLong(indexPosition, nameOffset);
+        nameIndex.putInt(indexPosition + 8, nameLength);
+        nameIndex.putIntVolatile(indexPosition + 12, seq + 2);
+    }
+
+    /**
+     * 쓰다가 죽어서 홀수로 남은 seqlock을 짝수로 되돌리고, 상품명 범위가 맞지 않는 행은 상품명을 null로 바꾼다.
+     * 가격/수량은 쓰다 만 값일 수 있지만 상품명 오프셋/길이가 틀리면 읽을 방법이 없기 때문이다.
+     */
+    private int repairRows() {
+        int repaired = 0;
+        long size = count.get();
+        for (long row = 0; row < size; row++) {
+            long indexPosition = row * INDEX_ROW;
+            int seq = nameIndex.getInt(indexPosition + 12);
+            boolean broken = (seq & 1) != 0;
+            if (!isValidName(nameIndex.getLong(indexPosition), nameIndex.getInt(indexPosition + 8))) {
+                nameIndex.putLong(indexPosition, -1);
+                nameIndex.putInt(indexPosition + 8, -1);
+                broken = true;
+            }
+            if ((seq & 1) != 0) {
+                nameIndex.putInt(indexPosition + 12, seq + 1);
+            }
+            if (broken) {
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    /**
+     * name.idx에 적힌 오프셋/길이가 name.dat에서 읽을 수 있는 범위인지 본다. 상품명은 청크 경계에 걸치지 않는다.
+     */
+    private boolean isValidName(long nameOffset, int nameLength) {
+        if (nameLength < 0) {
+            return nameLength == -1;
+        }
+        if (nameLength == 0) {
+            return true;
+        }
+        return nameLength <= MAX_NAME_BYTES && nameOffset >= 0 && nameOffset + nameLength <= nameTail.get()
+                && (nameOffset & (names.chunkSize() - 1)) + nameLength <= names.chunkSize();
+    }
+
+    private long appendName(byte[] name) {
+        long offset = nameTail.get();
+        // 상품명 하나가 청크 경계에 걸치지 않도록 남은 공간이 부족하면 다음 청크로 넘어간다.
+        long remainingInChunk = names.chunkSize() - (offset & (names.chunkSize() - 1));
+        if (remainingInChunk < name.length) {
+            offset += remainingInChunk;
+        }
+        try {
+            names.ensureCapacity(offset + name.length);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to grow mapped item store", e);
+        }
+        names.put(offset, name);
+        nameTail.set(offset + name.length);
+        meta.putLong(META_NAME_TAIL, offset + name.length);
+        return offset;
+    }
+
+    private static Item toItem(long id, byte[] name, int price, int quantity, long version) {
+        return new Item(id, name == null ? null : new String(name, StandardCharsets.UTF_8),
+                price == NULL_INT ? null : price, quantity == NULL_INT ? null : quantity, Math.max(version, 1));
+    }
+
+    private static int toInt(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+}
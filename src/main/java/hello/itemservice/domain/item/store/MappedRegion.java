@@ -0,0 +1,107 @@
+package hello.itemservice.domain.item.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 파일 하나를 고정 크기 청크로 나눠서 memory-map 해 두고 long 오프셋으로 읽고 쓰는 영역.
+ * MappedByteBuffer 하나는 2GB를 넘을 수 없어서 청크 단위로 매핑하고, 필요할 때 뒤에 청크를 더 붙인다.
+ * 청크 경계를 넘는 읽기/쓰기는 지원하지 않으므로 호출하는 쪽에서 정렬을 맞춰야 한다.
+ */
+final class MappedRegion implements Closeable {
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel channel;
+    private final int chunkShift;
+    private final long chunkSize;
+    private volatile MappedByteBuffer[] chunks;
+
+    MappedRegion(Path path, int chunkShift) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.chunkShift = chunkShift;
+        this.chunkSize = 1L << chunkShift;
+        this.chunks = new MappedByteBuffer[0];
+        ensureCapacity(channel.size());
+    }
+
+    long chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * end 바로 앞 바이트까지 매핑되어 있도록 청크를 늘린다. 쓰는 쪽 한 스레드만 호출한다.
+     */
+    void ensureCapacity(long end) throws IOException {
+        int needed = (int) ((end + chunkSize - 1) >>> chunkShift);
+        MappedByteBuffer[] current = chunks;
+        if (needed <= current.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(current, needed);
+        for (int i = current.length; i < needed; i++) {
+            grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << chunkShift, chunkSize);
+        }
+        chunks = grown;
+    }
+
+    int getInt(long position) {
+        return chunk(position).getInt(offset(position));
+    }
+
+    void putInt(long position, int value) {
+        chunk(position).putInt(offset(position), value);
+    }
+
+    int getIntVolatile(long position) {
+        return (int) INT.getVolatile(chunk(position), offset(position));
+    }
+
+    void putIntVolatile(long position, int value) {
+        INT.setVolatile(chunk(position), offset(position), value);
+    }
+
+    long getLong(long position) {
+        return chunk(position).getLong(offset(position));
+    }
+
+    void putLong(long position, long value) {
+        chunk(position).putLong(offset(position), value);
+    }
+
+    void get(long position, byte[] dst) {
+        chunk(position).get(offset(position), dst);
+    }
+
+    void put(long position, byte[] src) {
+        chunk(position).put(offset(position), src);
+    }
+
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private MappedByteBuffer chunk(long position) {
+        return chunks[(int) (position >>> chunkShift)];
+    }
+
+    private int offset(long position) {
+        return (int) (position & (chunkSize - 1));
+    }
+}
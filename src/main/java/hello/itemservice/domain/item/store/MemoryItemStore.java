@@ -0,0 +1,62 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 기본 메모리 저장소. ID는 AtomicLong으로 발급하고, 상품은 ConcurrentLongMap에 보관한다.
+ */
+public class MemoryItemStore implements ItemStore {
+
+    private final ConcurrentLongMap<Item> store = new ConcurrentLongMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public Item save(Item item) {
+        Item savedItem = item.withIdentity(sequence.incrementAndGet(), 1);
+        store.put(savedItem.getId(), savedItem);
+        return savedItem;
+    }
+
+    @Override
+    public long reserveId() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * 복구할 때 이미 ID가 있는 상품을 그대로 넣는다. 이후 발급되는 ID는 지금까지 본 가장 큰 ID 다음부터 시작한다.
+     */
+    @Override
+    public void restore(Item item) {
+        store.put(item.getId(), item);
+        sequence.accumulateAndGet(item.getId(), Math::max);
+    }
+
+    @Override
+    public Item findById(long id) {
+        return store.get(id);
+    }
+
+    @Override
+    public Item update(long id, Item updateParam) {
+        // ! Item은 바뀌지 않는 값이므로 새 인스턴스로 통째로 교체한다. 읽는 쪽은 수정 전이나 후 중 하나만 본다.
+        return store.computeIfPresent(id, item -> updateParam.withIdentity(item.getId(), item.getVersion() + 1));
+    }
+
+    @Override
+    public void forEach(Consumer<? super Item> action) {
+        store.forEach(action);
+    }
+
+    @Override
+    public long size() {
+        return store.size();
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+    }
+}
@@ -0,0 +1,246 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * 상품을 ID로 N개의 독립된 저장소(샤드)에 나눠 담는다.
+ * <p>
+ * ID는 샤드마다 따로 발급한다. 샤드 s의 k번째 ID는 (k - 1) * N + s + 1이므로 샤드끼리 맞출 일 없이 겹치지 않고,
+ * ID만 보고 (id - 1) % N으로 샤드를 찾는다. 새 상품은 아무 샤드에나 넣어도 되므로 스레드마다 임의로 골라서
+ * 쓰기가 샤드들에 고르게 퍼지고, 같은 샤드의 락이나 WAL 쓰기 스레드를 두고 다투지 않는다.
+ * 샤드가 다른 프로세스에 있어도 그대로 쓸 수 있는 방식이다.
+ * <p>
+ * 대신 ID는 샤드 안에서만 저장 순서대로 커지고 전체로는 조금씩 앞뒤가 바뀐다. 검색 인덱스는 순서가 어긋난 ID를
+ * 이진 탐색으로 끼워 넣으므로 결과는 같고, 맨 뒤에 붙일 때보다 조금 느릴 뿐이다.
+ * <p>
+ * 각 샤드는 restore를 지원해야 한다. (MemoryItemStore, WalItemStore)
+ * 샤드 수를 바꾸면 기존 ID가 다른 샤드를 가리키므로 시작할 때 확인해서 거부한다. 약수로 줄이면 ID만으로는
+ * 알 수 없으므로 WAL 샤드는 ItemStoreConfig가 디렉터리에 적어 둔 샤드 수로도 확인한다.
+ */
+public class ShardedItemStore implements ItemStore, Closeable {
+
+    private final List<ItemStore> shards;
+    private final AtomicLong[] sequences;
+
+    public ShardedItemStore(List<? extends ItemStore> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("shards must not be empty");
+        }
+        this.shards = List.copyOf(shards);
+        this.sequences = new AtomicLong[shards.size()];
+        for (int shard = 0; shard < sequences.length; shard++) {
+            sequences[shard] = new AtomicLong(recoverSequence(shard));
+        }
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id - 1, (long) shards.size());
+    }
+
+    @Override
+    public Item save(Item item) {
+        int shard = ThreadLocalRandom.current().nextInt(shards.size());
+        Item savedItem = item.withIdentity(nextId(shard), 1);
+        shards.get(shard).restore(savedItem);
+        return savedItem;
+    }
+
+    /**
+     * 한 번에 들어온 상품들은 샤드를 돌아가며 나눠 주고, 샤드마다 한 번씩 동시에 넣는다.
+     */
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<Item> savedItems = new ArrayList<>(items.size());
+        List<List<Item>> groups = groups();
+        int next = ThreadLocalRandom.current().nextInt(shards.size());
+        for (Item item : items) {
+            Item savedItem = item.withIdentity(nextId(next), 1);
+            savedItems.add(savedItem);
+            groups.get(next).add(savedItem);
+            next = (next + 1) % shards.size();
+        }
+        forEachShard(groups, (shard, group) -> shards.get(shard).restoreAll(group));
+        return savedItems;
+    }
+
+    /**
+     * 발급한 ID로 저장하는 것(saveReserved, saveAllReserved)은 restore, restoreAll과 같다.
+     */
+    @Override
+    public long reserveId() {
+        return nextId(ThreadLocalRandom.current().nextInt(shards.size()));
+    }
+
+    @Override
+    public Item findById(long id) {
+        if (id < 1) {
+            return null;
+        }
+        return shards.get(shardOf(id)).findById(id);
+    }
+
+    @Override
+    public Item update(long id, Item updateParam) {
+        if (id < 1) {
+            return null;
+        }
+        return shards.get(shardOf(id)).update(id, updateParam);
+    }
+
+    @Override
+    public List<Item> updateAll(List<Item> updateParams) {
+        // 샤드별로 나누되 입력에서의 자리를 같이 기억해서 결과를 입력 순서대로 돌려준다.
+        List<List<Item>> groups = groups();
+        List<List<Integer>> positions = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            positions.add(new ArrayList<>());
+        }
+        Item[] results = new Item[updateParams.size()];
+        for (int i = 0; i < updateParams.size(); i++) {
+            Item param = updateParams.get(i);
+            if (param.getId() == null || param.getId() < 1) {
+                continue;
+            }
+            int shard = shardOf(param.getId());
+            groups.get(shard).add(param);
+            positions.get(shard).add(i);
+        }
+        forEachShard(groups, (shard, group) -> {
+            List<Item> updated = shards.get(shard).updateAll(group);
+            List<Integer> at = positions.get(shard);
+            for (int i = 0; i < updated.size(); i++) {
+                results[at.get(i)] = updated.get(i);
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public void restore(Item item) {
+        int shard = shardOf(item.getId());
+        shards.get(shard).restore(item);
+        sequences[shard].accumulateAndGet(localId(item.getId()), Math::max);
+    }
+
+    @Override
+    public void restoreAll(List<Item> items) {
+        List<List<Item>> groups = groups();
+        for (Item item : items) {
+            int shard = shardOf(item.getId());
+            groups.get(shard).add(item);
+            sequences[shard].accumulateAndGet(localId(item.getId()), Math::max);
+        }
+        forEachShard(groups, (shard, group) -> shards.get(shard).restoreAll(group));
+    }
+
+    @Override
+    public void forEach(Consumer<? super Item> action) {
+        for (ItemStore shard : shards) {
+            shard.forEach(action);
+        }
+    }
+
+    @Override
+    public List<? extends ItemStore> partitions() {
+        return shards;
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (ItemStore shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        shards.parallelStream().forEach(ItemStore::clear);
+    }
+
+    @Override
+    public void sync() {
+        shards.parallelStream().forEach(ItemStore::sync);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (ItemStore shard : shards) {
+            if (shard instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private long nextId(int shard) {
+        return (sequences[shard].incrementAndGet() - 1) * shards.size() + shard + 1;
+    }
+
+    private long localId(long id) {
+        return (id - 1) / shards.size() + 1;
+    }
+
+    private long recoverSequence(int shard) {
+        long[] max = new long[1];
+        shards.get(shard).forEach(item -> {
+            if (shardOf(item.getId()) != shard) {
+                throw new IllegalStateException("샤드 " + shard + "에 다른 샤드의 상품 " + item.getId()
+                        + "이 있습니다. item.store.shards를 바꾸려면 데이터를 다시 나눠 담아야 합니다.");
+            }
+            max[0] = Math.max(max[0], localId(item.getId()));
+        });
+        return max[0];
+    }
+
+    private List<List<Item>> groups() {
+        List<List<Item>> groups = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            groups.add(new ArrayList<>());
+        }
+        return groups;
+    }
+
+    /**
+     * 비어 있지 않은 샤드별 묶음을 공용 fork-join 풀에서 동시에 처리한다. 묶음이 하나뿐이면 호출한 스레드에서 바로 처리한다.
+     */
+    private void forEachShard(List<List<Item>> groups, ShardTask task) {
+        int[] targets = IntStream.range(0, shards.size()).filter(shard -> !groups.get(shard).isEmpty()).toArray();
+        if (targets.length == 1) {
+            task.run(targets[0], groups.get(targets[0]));
+            return;
+        }
+        Arrays.stream(targets).parallel().forEach(shard -> task.run(shard, groups.get(shard)));
+    }
+
+    @FunctionalInterface
+    private interface ShardTask {
+        void run(int shard, List<Item> group);
+    }
+}
@@ -0,0 +1,160 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 저장 엔진 호출 시간을 item.store (op, type) 타이머로 남기는 ItemStore.
+ * <p>
+ * findById는 요청마다 여러 번 불리고 메모리 저장소에서는 수십 ns라서, 시간을 재면 재는 비용이 더 크다.
+ * 그래서 조회는 item.store.reads 카운터로 횟수만 센다. 쓰기와 전체 순회(forEach)는 시간을 잰다.
+ */
+public class TimedItemStore implements ItemStore, Closeable {
+
+    private final ItemStore delegate;
+    private final Counter reads;
+    private final Timer saveTimer;
+    private final Timer saveAllTimer;
+    private final Timer updateTimer;
+    private final Timer updateAllTimer;
+    private final Timer forEachTimer;
+    private final Timer clearTimer;
+
+    public TimedItemStore(ItemStore delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        String type = delegate.getClass().getSimpleName();
+        this.reads = Counter.builder("item.store.reads")
+                .description("findById calls on the item store")
+                .tag("type", type)
+                .register(registry);
+        this.saveTimer = timer(registry, type, "save");
+        this.saveAllTimer = timer(registry, type, "saveAll");
+        this.updateTimer = timer(registry, type, "update");
+        this.updateAllTimer = timer(registry, type, "updateAll");
+        this.forEachTimer = timer(registry, type, "forEach");
+        this.clearTimer = timer(registry, type, "clear");
+    }
+
+    private static Timer timer(MeterRegistry registry, String type, String op) {
+        return Timer.builder("item.store")
+                .description("Latency of item store operations")
+                .tag("type", type)
+                .tag("op", op)
+                .register(registry);
+    }
+
+    @Override
+    public Item save(Item item) {
+        return time(saveTimer, () -> delegate.save(item));
+    }
+
+    @Override
+    public long reserveId() {
+        return delegate.reserveId();
+    }
+
+    // 발급한 ID로 저장하는 것도 save, saveAll 타이머로 잰다.
+    @Override
+    public Item saveReserved(long id, Item item) {
+        return time(saveTimer, () -> delegate.saveReserved(id, item));
+    }
+
+    @Override
+    public List<Item> saveAllReserved(long[] ids, List<Item> items) {
+        return time(saveAllTimer, () -> delegate.saveAllReserved(ids, items));
+    }
+
+    @Override
+    public Item findById(long id) {
+        reads.increment();
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Item update(long id, Item updateParam) {
+        return time(updateTimer, () -> delegate.update(id, updateParam));
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return time(saveAllTimer, () -> delegate.saveAll(items));
+    }
+
+    @Override
+    public List<Item> updateAll(List<Item> updateParams) {
+        return time(updateAllTimer, () -> delegate.updateAll(updateParams));
+    }
+
+    @Override
+    public void restore(Item item) {
+        delegate.restore(item);
+    }
+
+    @Override
+    public void restoreAll(List<Item> items) {
+        delegate.restoreAll(items);
+    }
+
+    /**
+     * 조각을 나눠 훑는 쪽(ItemRepository의 scatter-gather)은 forEach 타이머를 거치지 않는다.
+     */
+    @Override
+    public List<? extends ItemStore> partitions() {
+        return delegate.partitions();
+    }
+
+    @Override
+    public void forEach(Consumer<? super Item> action) {
+        long start = System.nanoTime();
+        try {
+            delegate.forEach(action);
+        } finally {
+            forEachTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void clear() {
+        long start = System.nanoTime();
+        try {
+            delegate.clear();
+        } finally {
+            clearTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void sync() {
+        delegate.sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static <T> T time(Timer timer, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,877 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 메모리 저장소 앞에 write-ahead log와 주기적인 스냅샷을 붙인 영속 저장소.
+ *
+ * <p>쓰기는 바뀐 상품을 먼저 로그 큐에 넣고, 전용 writer 스레드가 큐에 쌓인 것을 한 번에 써서(group commit)
+ * {@link FsyncPolicy}에 따라 fsync한 다음 호출한 스레드를 깨운다. 메모리에는 로그 쓰기가 끝난 뒤에 반영하므로,
+ * 로그 쓰기가 실패하면 메모리도 그대로이고 예외가 호출한 쪽으로 올라간다. 로그 레코드는 항상 상품의 전체 상태라서
+ * 여러 번 재생해도 결과가 같다.
+ *
+ * <p>묶음을 쓰다가(fsync가 ALWAYS면 fsync까지) 실패하면 로그를 묶음 앞 위치로 잘라서 되돌린다. 그래야 찢어진 레코드 뒤에
+ * 다음 묶음이 붙지 않고, 실패를 받은 쓰기가 재시작 뒤에 살아나지도 않는다. 되돌리지 못하거나, INTERVAL에서 이미 응답한
+ * 레코드의 fsync가 실패하거나, 로그를 넘기다 실패하거나, writer에서 예상하지 못한 예외가 나면 로그를 믿을 수 없으므로
+ * 그 뒤의 쓰기는 모두 거절한다(fail closed).
+ *
+ * <p>한 번에 묶는 레코드 수는 maxBatch까지다. fsync가 ALWAYS이고 commitDelay가 있으면, 큐에서 꺼낸 레코드가 이미 둘 이상일 때
+ * (동시에 쓰는 스레드가 있을 때) commitDelay만큼 더 모은 뒤 fsync한다. 쓰기마다 조금 늦어지는 대신 fsync 횟수가 줄어든다.
+ * 혼자 쓰는 스레드는 기다리지 않는다.
+ *
+ * <p>스냅샷은 로그를 다음 세대 파일로 넘긴 뒤 쓰기를 멈추지 않고 메모리를 그대로 훑어서 만든다.
+ * 스냅샷은 넘기기 전 세대까지를 포함하므로, 시작할 때는 스냅샷을 읽고 그 이후 세대 로그만 재생하면 된다.
+ * 쓰기는 로그에 넣고 메모리에 반영할 때까지 appendLock의 읽기 락을 잡고, 로그를 넘길 때는 쓰기 락을 잡는다.
+ * 그래서 넘기기 전 세대에 들어간 레코드는 스냅샷이 메모리를 훑기 전에 모두 메모리에 반영되어 있다.
+ *
+ * <p>같은 상품에 대한 쓰기는 호출하는 쪽(ItemRepository)에서 순서를 보장해 줘야 로그 순서와 메모리 순서가 같아진다.
+ */
+@Slf4j
+public class WalItemStore implements ItemStore, Closeable {
+
+    private static final String LOG_PREFIX = "items-";
+    private static final String LOG_SUFFIX = ".wal";
+    private static final String SNAPSHOT = "items.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x49544d53;
+    private static final int HEADER_SIZE = 8;
+    // CLEAR 표시 레코드의 헤더. 길이 자리에 음수를 두므로 상품 레코드와 겹치지 않는다.
+    private static final int CLEAR_LENGTH = -1;
+    private static final int CLEAR_CHECKSUM = 0x434c5252;
+    private static final int DEFAULT_MAX_BATCH = 1024;
+
+    private final MemoryItemStore memory = new MemoryItemStore();
+    private final Path dir;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final long snapshotMinRecords;
+    private final int maxBatch;
+    private final long commitDelayNanos;
+    private final LogOpener logOpener;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong recordsSinceSnapshot = new AtomicLong();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final ReadWriteLock appendLock = new ReentrantReadWriteLock();
+    private final Thread writer;
+    private final ScheduledExecutorService snapshotScheduler;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    // writer 스레드만 건드린다.
+    private FileChannel logChannel;
+    private long generation;
+    private boolean dirty;
+    private long lastFsyncNanos = System.nanoTime();
+    private volatile long commits;
+
+    public WalItemStore(Path dir, FsyncPolicy fsyncPolicy, Duration fsyncInterval,
+                        Duration snapshotInterval, long snapshotMinRecords) throws IOException {
+        this(dir, fsyncPolicy, fsyncInterval, snapshotInterval, snapshotMinRecords, DEFAULT_MAX_BATCH, Duration.ZERO);
+    }
+
+    public WalItemStore(Path dir, FsyncPolicy fsyncPolicy, Duration fsyncInterval,
+                        Duration snapshotInterval, long snapshotMinRecords,
+                        int maxBatch, Duration commitDelay) throws IOException {
+        this(dir, fsyncPolicy, fsyncInterval, snapshotInterval, snapshotMinRecords, maxBatch, commitDelay,
+                path -> FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    /**
+     * 로그 파일을 여는 방법을 바꿔 끼울 수 있다. 테스트에서 쓰기나 fsync 실패를 흉내 낼 때 쓴다.
+     */
+    WalItemStore(Path dir, FsyncPolicy fsyncPolicy, Duration fsyncInterval,
+                 Duration snapshotInterval, long snapshotMinRecords,
+                 int maxBatch, Duration commitDelay, LogOpener logOpener) throws IOException {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be positive: " + maxBatch);
+        }
+        // writer가 이 간격으로 큐를 기다리므로 0이면 쉬지 않고 돈다.
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && (fsyncInterval.isZero() || fsyncInterval.isNegative())) {
+            throw new IllegalArgumentException("fsyncInterval must be positive: " + fsyncInterval);
+        }
+        this.dir = dir;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.snapshotMinRecords = snapshotMinRecords;
+        this.maxBatch = maxBatch;
+        this.commitDelayNanos = commitDelay.toNanos();
+        this.logOpener = logOpener;
+
+        Files.createDirectories(dir);
+        long started = System.nanoTime();
+        recover();
+        log.info("item store recovered items={} generation={} elapsed={}ms",
+                memory.size(), generation, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        this.logChannel = openLog(generation);
+
+        writer = new Thread(this::runWriter, "item-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "item-wal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long delay = snapshotInterval.toMillis();
+        snapshotScheduler.scheduleWithFixedDelay(this::snapshotIfNeeded, delay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Item save(Item item) {
+        appendLock.readLock().lock();
+        try {
+            Item savedItem = item.withIdentity(memory.reserveId(), 1);
+            append(savedItem);
+            memory.restore(savedItem);
+            return savedItem;
+        } finally {
+            appendLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 발급한 ID로 저장하는 것(saveReserved)은 restore와 같다.
+     */
+    @Override
+    public long reserveId() {
+        return memory.reserveId();
+    }
+
+    @Override
+    public Item findById(long id) {
+        return memory.findById(id);
+    }
+
+    @Override
+    public void restore(Item item) {
+        appendLock.readLock().lock();
+        try {
+            append(item);
+            memory.restore(item);
+        } finally {
+            appendLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void restoreAll(List<Item> items) {
+        appendLock.readLock().lock();
+        try {
+            appendAll(items);
+            restoreInMemory(items);
+        } finally {
+            appendLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Item update(long id, Item updateParam) {
+        appendLock.readLock().lock();
+        try {
+            Item updatedItem = updated(id, updateParam);
+            if (updatedItem != null) {
+                append(updatedItem);
+                memory.restore(updatedItem);
+            }
+            return updatedItem;
+        } finally {
+            appendLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        appendLock.readLock().lock();
+        try {
+            List<Item> savedItems = new ArrayList<>(items.size());
+            for (Item item : items) {
+                savedItems.add(item.withIdentity(memory.reserveId(), 1));
+            }
+            appendAll(savedItems);
+            restoreInMemory(savedItems);
+            return savedItems;
+        } finally {
+            appendLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Item> updateAll(List<Item> updateParams) {
+        appendLock.readLock().lock();
+        try {
+            List<Item> updatedItems = new ArrayList<>(updateParams.size());
+            for (Item updateParam : updateParams) {
+                updatedItems.add(updated(updateParam.getId(), updateParam));
+            }
+            appendAll(updatedItems);
+            restoreInMemory(updatedItems);
+            return updatedItems;
+        } finally {
+            appendLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 수정한 결과. 메모리에는 아직 반영하지 않는다. 같은 상품을 동시에 수정하지 않는 것은 ItemRepository가 보장한다.
+     */
+    private Item updated(long id, Item updateParam) {
+        Item item = memory.findById(id);
+        return item == null ? null : updateParam.withIdentity(id, item.getVersion() + 1);
+    }
+
+    private void restoreInMemory(List<Item> items) {
+        for (Item item : items) {
+            if (item != null) {
+                memory.restore(item);
+            }
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Item> action) {
+        memory.forEach(action);
+    }
+
+    @Override
+    public long size() {
+        return memory.size();
+    }
+
+    @Override
+    public void clear() {
+        snapshotLock.lock();
+        try {
+            appendLock.writeLock().lock();
+            try {
+                submit(Kind.CLEAR, null).join();
+                memory.clear();
+                recordsSinceSnapshot.set(0);
+            } finally {
+                appendLock.writeLock().unlock();
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * fsync 정책과 상관없이 지금까지 로그에 쓴 레코드를 fsync한다. writer가 큐 순서대로 처리하므로 먼저 반환한 쓰기는 모두 포함된다.
+     */
+    @Override
+    public void sync() {
+        appendLock.readLock().lock();
+        try {
+            submit(Kind.SYNC, null).join();
+        } finally {
+            appendLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 지금까지의 상태로 스냅샷을 만들고, 스냅샷에 포함된 로그 파일을 지운다.
+     */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long records;
+            long coveredGeneration;
+            appendLock.writeLock().lock();
+            try {
+                records = recordsSinceSnapshot.getAndSet(0);
+                coveredGeneration = submit(Kind.ROTATE, null).join();
+            } finally {
+                appendLock.writeLock().unlock();
+            }
+            long started = System.nanoTime();
+
+            Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+            CRC32 crc = new CRC32();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new CheckedOutputStream(new ChannelOutputStream(channel), crc), 1 << 16));
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(coveredGeneration);
+                try {
+                    memory.forEach(item -> {
+                        try {
+                            out.writeByte(1);
+                            ItemRecordCodec.write(out, item);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                out.writeByte(0);
+                out.flush();
+                out.writeInt((int) crc.getValue());
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+
+            for (long oldGeneration : generations()) {
+                if (oldGeneration <= coveredGeneration) {
+                    Files.deleteIfExists(logPath(oldGeneration));
+                }
+            }
+            log.info("item snapshot written generation={} items={} records={} elapsed={}ms", coveredGeneration,
+                    memory.size(), records, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        snapshotScheduler.shutdownNow();
+        snapshotLock.lock();
+        try {
+            // submit과 같은 락 안에서 닫으므로 STOP 뒤에 들어오는 레코드는 없다.
+            appendLock.writeLock().lock();
+            try {
+                if (!running) {
+                    return;
+                }
+                running = false;
+                queue.add(new Pending(Kind.STOP, null, new CompletableFuture<>()));
+            } finally {
+                appendLock.writeLock().unlock();
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void snapshotIfNeeded() {
+        if (recordsSinceSnapshot.get() < snapshotMinRecords) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.error("item snapshot failed", e);
+        }
+    }
+
+    private void append(Item item) {
+        recordsSinceSnapshot.incrementAndGet();
+        submit(Kind.RECORD, encode(item)).join();
+    }
+
+    /**
+     * 큐에 한꺼번에 넣어서 writer가 같은 묶음으로 쓰게 하고, 전부 끝날 때까지 기다린다.
+     */
+    private void appendAll(List<Item> items) {
+        List<CompletableFuture<Long>> pending = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (item != null) {
+                recordsSinceSnapshot.incrementAndGet();
+                pending.add(submit(Kind.RECORD, encode(item)));
+            }
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * appendLock(읽기나 쓰기)을 잡은 채로 불러야 한다.
+     */
+    private CompletableFuture<Long> submit(Kind kind, ByteBuffer record) {
+        if (!running) {
+            throw new IllegalStateException("item store is closed");
+        }
+        checkNotFailed();
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        queue.add(new Pending(kind, record, done));
+        return done;
+    }
+
+    private void checkNotFailed() {
+        IOException cause = failure;
+        if (cause != null) {
+            throw new IllegalStateException("item log is broken, writes are rejected", cause);
+        }
+    }
+
+    /**
+     * 로그를 더는 믿을 수 없을 때 부른다. 이후의 쓰기는 submit에서, 이미 큐에 있는 것은 writer에서 거절한다.
+     */
+    private void fail(IOException cause) {
+        if (failure == null) {
+            log.error("item log is broken, rejecting further writes", cause);
+            failure = cause;
+        }
+    }
+
+    private void runWriter() {
+        long pollNanos = fsyncPolicy == FsyncPolicy.INTERVAL ? fsyncIntervalNanos : TimeUnit.SECONDS.toNanos(1);
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                Pending first = queue.poll(pollNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    syncIfDue();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                if (batch.size() > 1 && fsyncPolicy == FsyncPolicy.ALWAYS && commitDelayNanos > 0) {
+                    collectMore(batch);
+                }
+                if (process(batch)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failRemaining(batch);
+                return;
+            } catch (IOException e) {
+                log.error("item log write failed", e);
+                if (!(e instanceof RolledBackException)) {
+                    fail(e);
+                }
+                for (Pending pending : batch) {
+                    pending.done.completeExceptionally(e);
+                }
+            } catch (RuntimeException | Error e) {
+                // 로그가 어디까지 쓰였는지 알 수 없으므로 닫는다. writer는 남아서 큐에 들어오는 요청을 거절하고 STOP을 기다린다.
+                IOException cause = new IOException("item log writer failed", e);
+                fail(cause);
+                for (Pending pending : batch) {
+                    pending.done.completeExceptionally(cause);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * commitDelay가 지나거나 maxBatch가 찰 때까지 큐에 들어오는 레코드를 더 모은다.
+     */
+    private void collectMore(List<Pending> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + commitDelayNanos;
+        while (batch.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatch - batch.size());
+        }
+    }
+
+    /**
+     * @return STOP을 만나서 writer를 끝내야 하면 true
+     */
+    private boolean process(List<Pending> batch) throws IOException {
+        if (failure != null) {
+            return rejectAll(batch);
+        }
+        List<Pending> written = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            switch (pending.kind) {
+                case RECORD -> written.add(pending);
+                case ROTATE -> {
+                    commit(written);
+                    long coveredGeneration = generation;
+                    logChannel.force(false);
+                    logChannel.close();
+                    logChannel = openLog(++generation);
+                    pending.done.complete(coveredGeneration);
+                }
+                case SYNC -> {
+                    commit(written);
+                    if (dirty) {
+                        fsync();
+                    }
+                    pending.done.complete(generation);
+                }
+                case CLEAR -> {
+                    commit(written);
+                    logChannel.close();
+                    // ! 옛 파일을 지우기 전에 새 세대의 첫 레코드로 CLEAR 표시를 써서 내린다.
+                    // 지우는 도중에 죽어도 재생이 이 표시에서 앞의 상품을 모두 버리므로 비운 상품이 되살아나지 않는다.
+                    logChannel = openLog(++generation);
+                    writeClearMarker();
+                    syncDirectory();
+                    Files.deleteIfExists(dir.resolve(SNAPSHOT));
+                    for (long oldGeneration : generations()) {
+                        if (oldGeneration < generation) {
+                            Files.deleteIfExists(logPath(oldGeneration));
+                        }
+                    }
+                    syncDirectory();
+                    pending.done.complete(generation);
+                }
+                case STOP -> {
+                    commit(written);
+                    logChannel.force(true);
+                    logChannel.close();
+                    pending.done.complete(generation);
+                    failRemaining(batch.subList(i + 1, batch.size()));
+                    return true;
+                }
+            }
+        }
+        commit(written);
+        return false;
+    }
+
+    /**
+     * 로그가 깨진 뒤에 큐에 남아 있던 요청을 거절한다. STOP은 채널만 닫고 writer를 끝낸다.
+     */
+    private boolean rejectAll(List<Pending> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            if (pending.kind == Kind.STOP) {
+                try {
+                    logChannel.close();
+                } catch (IOException e) {
+                    log.warn("item log close failed", e);
+                }
+                pending.done.complete(generation);
+                failRemaining(batch.subList(i + 1, batch.size()));
+                return true;
+            }
+            pending.done.completeExceptionally(new IllegalStateException("item log is broken, writes are rejected", failure));
+        }
+        return false;
+    }
+
+    /**
+     * writer가 끝난 뒤에는 아무도 처리하지 않으므로, 남은 요청을 실패로 끝내서 기다리는 스레드를 깨운다.
+     */
+    private void failRemaining(List<Pending> remaining) {
+        List<Pending> leftovers = new ArrayList<>(remaining);
+        queue.drainTo(leftovers);
+        for (Pending pending : leftovers) {
+            pending.done.completeExceptionally(new IllegalStateException("item store is closed"));
+        }
+    }
+
+    private void commit(List<Pending> written) throws IOException {
+        if (written.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[written.size()];
+        long remaining = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = written.get(i).record;
+            remaining += buffers[i].remaining();
+        }
+        long start = logChannel.position();
+        try {
+            while (remaining > 0) {
+                remaining -= logChannel.write(buffers);
+            }
+            dirty = true;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                fsync();
+            }
+        } catch (IOException e) {
+            if (rollback(start, e)) {
+                throw new RolledBackException(e);
+            }
+            throw e;
+        }
+        commits++;
+        if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+            syncIfDue();
+        }
+        for (Pending pending : written) {
+            pending.done.complete(generation);
+        }
+        written.clear();
+    }
+
+    /**
+     * 실패한 묶음을 로그에서 잘라낸다. 잘라내지 못하면 찢어진 레코드가 남을 수 있으므로 로그를 닫는다(fail closed).
+     */
+    private boolean rollback(long start, IOException cause) {
+        try {
+            logChannel.truncate(start);
+            logChannel.force(false);
+            return true;
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            fail(cause);
+            return false;
+        }
+    }
+
+    /**
+     * 지금까지 로그에 묶어 쓴 횟수. 쓴 레코드 수와 비교하면 group commit이 얼마나 묶였는지 알 수 있다.
+     */
+    public long commitCount() {
+        return commits;
+    }
+
+    private void syncIfDue() {
+        if (fsyncPolicy != FsyncPolicy.INTERVAL || !dirty || System.nanoTime() - lastFsyncNanos < fsyncIntervalNanos) {
+            return;
+        }
+        try {
+            fsync();
+        } catch (IOException e) {
+            // 이미 응답한 레코드가 디스크에 남았는지 알 수 없다.
+            fail(e);
+        }
+    }
+
+    private void writeClearMarker() throws IOException {
+        ByteBuffer marker = ByteBuffer.allocate(HEADER_SIZE).putInt(CLEAR_LENGTH).putInt(CLEAR_CHECKSUM).flip();
+        while (marker.hasRemaining()) {
+            logChannel.write(marker);
+        }
+        logChannel.force(false);
+    }
+
+    private void fsync() throws IOException {
+        logChannel.force(false);
+        dirty = false;
+        lastFsyncNanos = System.nanoTime();
+    }
+
+    private void recover() throws IOException {
+        long snapshotGeneration = -1;
+        Path snapshot = dir.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            snapshotGeneration = readSnapshot(snapshot);
+        }
+
+        long replayed = 0;
+        long lastGeneration = snapshotGeneration;
+        for (long logGeneration : generations()) {
+            if (logGeneration <= snapshotGeneration) {
+                // 스냅샷을 만든 뒤 지우지 못하고 죽은 경우
+                Files.deleteIfExists(logPath(logGeneration));
+                continue;
+            }
+            replayed += replay(logPath(logGeneration));
+            lastGeneration = logGeneration;
+        }
+        generation = lastGeneration + 1;
+        recordsSinceSnapshot.set(replayed);
+    }
+
+    private long readSnapshot(Path snapshot) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream file = Files.newInputStream(snapshot)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(file, 1 << 16), crc));
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IllegalStateException("not an item snapshot: " + snapshot);
+            }
+            long coveredGeneration = in.readLong();
+            while (in.readByte() != 0) {
+                memory.restore(ItemRecordCodec.read(in));
+            }
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                throw new IllegalStateException("item snapshot checksum mismatch: " + snapshot);
+            }
+            return coveredGeneration;
+        }
+    }
+
+    /**
+     * 로그를 앞에서부터 재생한다. 쓰다가 죽어서 잘리거나 깨진 꼬리를 만나면 거기서 멈추고 잘라낸다.
+     * CLEAR 표시를 만나면 그때까지 읽은 상품(스냅샷 포함)을 모두 버린다.
+     */
+    private long replay(Path path) throws IOException {
+        long size = Files.size(path);
+        long position = 0;
+        long records = 0;
+        try (InputStream file = Files.newInputStream(path)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16));
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length == CLEAR_LENGTH && checksum == CLEAR_CHECKSUM) {
+                        memory.clear();
+                        position += HEADER_SIZE;
+                        continue;
+                    }
+                    // 찢어지거나 깨진 헤더의 길이를 그대로 믿고 배열을 만들면 시작하다가 OOM이 난다.
+                    // 파일에 남은 바이트보다 길면 깨진 꼬리로 본다.
+                    if (length <= 0 || length > size - position - HEADER_SIZE) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                memory.restore(ItemRecordCodec.read(new DataInputStream(new ByteArrayInputStream(payload))));
+                position += HEADER_SIZE + length;
+                records++;
+            }
+        }
+        if (position < size) {
+            log.warn("truncating torn item log tail path={} from={} to={}", path, size, position);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(position);
+                channel.force(true);
+            }
+        }
+        return records;
+    }
+
+    private static ByteBuffer encode(Item item) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(0L);
+            ItemRecordCodec.write(out, item);
+            ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), HEADER_SIZE, record.limit() - HEADER_SIZE);
+            record.putInt(0, record.limit() - HEADER_SIZE);
+            record.putInt(4, (int) crc.getValue());
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private FileChannel openLog(long logGeneration) throws IOException {
+        return logOpener.open(logPath(logGeneration));
+    }
+
+    private Path logPath(long logGeneration) {
+        return dir.resolve(LOG_PREFIX + String.format("%016d", logGeneration) + LOG_SUFFIX);
+    }
+
+    private List<Long> generations() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 디렉터리 fsync를 지원하지 않는 OS도 있다.
+        }
+    }
+
+    private enum Kind {
+        RECORD, ROTATE, SYNC, CLEAR, STOP
+    }
+
+    /**
+     * 묶음을 로그에서 잘라내고 되돌린 실패. 로그는 묶음 앞 상태 그대로라서 다음 쓰기를 받아도 된다.
+     */
+    private static final class RolledBackException extends IOException {
+
+        RolledBackException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 로그 파일을 쓰기(APPEND)로 연다.
+     */
+    @FunctionalInterface
+    interface LogOpener {
+        FileChannel open(Path path) throws IOException;
+    }
+
+    private record Pending(Kind kind, ByteBuffer record, CompletableFuture<Long> done) {
+    }
+
+    /**
+     * Channels.newOutputStream과 달리 close 해도 채널을 닫지 않아서, 채널에 직접 force를 걸 수 있다.
+     */
+    private static final class ChannelOutputStream extends OutputStream {
+
+        private final FileChannel channel;
+
+        ChannelOutputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
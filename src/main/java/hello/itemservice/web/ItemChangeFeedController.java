@@ -0,0 +1,145 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.item.feed.ItemChangeBatch;
+import hello.itemservice.domain.item.feed.ItemChangeFeed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 상품 변경 피드. 목록을 따라가야 하는 쪽은 epoch와 nextOffset을 기억해 두고 다음 요청의 epoch와 from으로 넘기면 된다.
+ * truncated를 받으면 그 사이 변경이 링 버퍼에서 밀려났거나 서버가 다시 뜬 것이므로 전체 목록을 다시 읽은 뒤 받은 epoch와 nextOffset부터 이어 간다.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/items/changes")
+@RequiredArgsConstructor
+public class ItemChangeFeedController {
+
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final long MAX_WAIT_MILLIS = 60_000;
+    // 이 시간이 지나면 SSE 연결을 닫는다. EventSource는 Last-Event-ID를 붙여 다시 연결하므로 이어서 받는다.
+    private static final long SSE_TIMEOUT_MILLIS = 5 * 60_000;
+    // 연결이 끝났다는 표시. 이 뒤에 등록되는 대기는 바로 취소한다.
+    private static final Runnable CLOSED = () -> {
+    };
+
+    private final ItemChangeFeed itemChangeFeed;
+    private final TaskExecutor taskExecutor;
+
+    /**
+     * 롱 폴링. from 이후의 이벤트가 있으면 바로, 없으면 생길 때까지 최대 waitMillis만큼 기다렸다가 한 묶음을 돌려준다.
+     * 기다리는 동안 요청 스레드는 반납된다.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<ItemChangeBatch> changes(@RequestParam(defaultValue = "0") long epoch,
+                                                   @RequestParam(defaultValue = "0") long from,
+                                                   @RequestParam(defaultValue = "1000") int limit,
+                                                   @RequestParam(defaultValue = "30000") long waitMillis) {
+        int batchSize = batchSize(limit);
+        // 다른 epoch의 offset이면 기다릴 것 없이 바로 truncated를 돌려준다.
+        if (waitMillis <= 0 || (epoch != 0 && epoch != itemChangeFeed.epoch())) {
+            DeferredResult<ItemChangeBatch> result = new DeferredResult<>();
+            result.setResult(itemChangeFeed.read(epoch, from, batchSize));
+            return result;
+        }
+
+        DeferredResult<ItemChangeBatch> result = new DeferredResult<>(Math.min(waitMillis, MAX_WAIT_MILLIS),
+                () -> itemChangeFeed.read(epoch, from, batchSize));
+        Runnable cancel = itemChangeFeed.whenAvailable(from,
+                () -> result.setResult(itemChangeFeed.read(epoch, from, batchSize)));
+        result.onCompletion(cancel);
+        return result;
+    }
+
+    /**
+     * SSE. 이벤트 하나에 한 묶음(ItemChangeBatch)을 담고 id는 "epoch:nextOffset"이다.
+     * 다시 연결할 때 Last-Event-ID의 epoch가 지금과 다르면(서버가 다시 떴으면) 첫 묶음이 truncated로 간다.
+     * 변경이 몰리면 보내는 사이에 쌓인 것을 한 번에 최대 limit개씩 묶어서 보낸다.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(defaultValue = "0") long from,
+                             @RequestParam(defaultValue = "1000") int limit,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MILLIS);
+        AtomicReference<Runnable> cancel = new AtomicReference<>();
+        // 클라이언트가 끊거나 시간이 다 되면 다음 쓰기를 기다리지 않고 바로 대기를 푼다.
+        Runnable close = () -> {
+            Runnable waiting = cancel.getAndSet(CLOSED);
+            if (waiting != null) {
+                waiting.run();
+            }
+        };
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        emitter.onError(e -> close.run());
+        long epoch = 0;
+        long start = from;
+        if (lastEventId != null) {
+            int separator = lastEventId.indexOf(':');
+            try {
+                epoch = Long.parseLong(lastEventId.substring(0, separator));
+                start = Long.parseLong(lastEventId.substring(separator + 1));
+            } catch (RuntimeException e) {
+                // epoch가 없는 예전 형식이거나 알 수 없는 id는 다른 epoch로 보고 처음부터 다시 맞추게 한다.
+                epoch = -1;
+                start = 0;
+            }
+        }
+        long startEpoch = epoch;
+        long startOffset = start;
+        taskExecutor.execute(() -> send(emitter, startEpoch, startOffset, batchSize(limit), cancel));
+        return emitter;
+    }
+
+    // 보내기는 느린 클라이언트에서 막힐 수 있으므로 상품을 저장한 스레드가 아니라 taskExecutor에서 한다.
+    private void send(SseEmitter emitter, long epoch, long from, int limit, AtomicReference<Runnable> cancel) {
+        if (cancel.get() == CLOSED) {
+            return;
+        }
+        long next = from;
+        while (true) {
+            ItemChangeBatch batch = itemChangeFeed.read(epoch, next, limit);
+            if (!batch.getEvents().isEmpty() || batch.isTruncated()) {
+                try {
+                    emitter.send(SseEmitter.event()
+                            .id(batch.getEpoch() + ":" + batch.getNextOffset())
+                            .data(batch, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    // 클라이언트가 끊었거나 이미 닫힌 연결
+                    log.debug("변경 피드 SSE 전송 실패 from={}", next, e);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+            epoch = batch.getEpoch();
+            next = batch.getNextOffset();
+            if (next == itemChangeFeed.head()) {
+                break;
+            }
+        }
+        long waitEpoch = epoch;
+        long waitFrom = next;
+        Runnable waiting = itemChangeFeed.whenAvailable(waitFrom,
+                () -> taskExecutor.execute(() -> send(emitter, waitEpoch, waitFrom, limit, cancel)));
+        // 보내는 사이에 연결이 끝났으면 방금 등록한 대기를 남겨 두지 않는다.
+        if (cancel.getAndUpdate(current -> current == CLOSED ? CLOSED : waiting) == CLOSED) {
+            waiting.run();
+        }
+    }
+
+    private static int batchSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_BATCH_SIZE));
+    }
+}
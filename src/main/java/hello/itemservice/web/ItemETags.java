@@ -0,0 +1,125 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * 상품 목록/상세 화면의 ETag.
+ * <p>
+ * 화면은 요청 주소(쿼리 파라미터 포함), 로케일, 보여주는 상품들의 ID와 버전으로만 정해지므로 이 값들의 해시를 ETag로 쓴다.
+ * 템플릿은 배포할 때만 바뀌므로 서버가 뜰 때마다 달라지는 값을 섞어서 재배포 전의 ETag는 맞지 않게 한다.
+ * If-None-Match가 맞으면 상품을 조회만 하고 렌더링 없이 304로 응답한다.
+ * <p>
+ * API는 상품 하나의 버전을 그대로 강한 ETag로 쓰고, 수정 요청의 If-Match를 그 버전으로 읽는다.
+ */
+public final class ItemETags {
+
+    private static final String BOOT_ID = UUID.randomUUID().toString();
+
+    private ItemETags() {
+    }
+
+    /**
+     * @return true면 304 응답이 준비된 것이므로 컨트롤러는 null을 반환하면 된다.
+     */
+    public static boolean checkNotModified(ServletWebRequest webRequest, Locale locale, ItemPage page) {
+        return checkNotModified(webRequest, locale, page.getItems(), page.getNextCursor());
+    }
+
+    public static boolean checkNotModified(ServletWebRequest webRequest, Locale locale, Item item) {
+        return checkNotModified(webRequest, locale, item == null ? List.of() : List.of(item), null);
+    }
+
+    /**
+     * API 응답의 상품 하나에 붙이는 강한 ETag. 값은 상품 버전이다.
+     */
+    public static String versionTag(Item item) {
+        return "\"" + item.getVersion() + "\"";
+    }
+
+    /**
+     * If-Match 헤더에서 기대하는 상품 버전을 꺼낸다. 헤더가 없거나 *이면 null(버전을 보지 않음)이다.
+     *
+     * @throws IllegalArgumentException 버전 ETag 하나가 아닌 경우
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 2 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new IllegalArgumentException("If-Match must be a single item version tag: " + ifMatch);
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must be a single item version tag: " + ifMatch);
+        }
+    }
+
+    private static boolean checkNotModified(ServletWebRequest webRequest, Locale locale, List<Item> items, String nextCursor) {
+        HttpServletRequest request = webRequest.getRequest();
+        Hasher hasher = new Hasher()
+                .add(BOOT_ID)
+                .add(request.getRequestURI())
+                .add(request.getQueryString())
+                .add(locale.toLanguageTag())
+                .add(nextCursor);
+        for (Item item : items) {
+            hasher.add(String.valueOf(item.getId())).add(String.valueOf(item.getVersion()));
+        }
+
+        HttpServletResponse response = webRequest.getResponse();
+        if (response != null) {
+            // 화면 글자가 Accept-Language에 따라 달라지고, 캐시된 화면도 매번 서버에 확인하게 한다.
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        return webRequest.checkNotModified("W/\"" + hasher.hex() + "\"");
+    }
+
+    private static final class Hasher {
+
+        private final MessageDigest digest;
+
+        Hasher() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * 길이를 앞에 붙여서 ("ab", "c")와 ("a", "bc"), null과 "null"이 같은 해시가 되지 않게 한다.
+         */
+        Hasher add(String value) {
+            byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+            int length = bytes == null ? -1 : bytes.length;
+            digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+            if (bytes != null) {
+                digest.update(bytes);
+            }
+            return this;
+        }
+
+        String hex() {
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        }
+    }
+}
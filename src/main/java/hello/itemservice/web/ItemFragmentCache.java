@@ -0,0 +1,139 @@
+package hello.itemservice.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemChangeListener;
+import hello.itemservice.domain.item.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.spring6.naming.SpringContextVariableNames;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 상품 목록의 한 줄, 상품 상세의 본문처럼 상품 하나로만 정해지는 템플릿 조각을 렌더링한 HTML을 캐시한다.
+ * <p>
+ * 템플릿에서 {@code th:utext="${@itemFragmentCache.render(#ctx, 'row', item)}"}처럼 부르면
+ * 지금 렌더링 중인 템플릿의 {@code th:fragment="row"} 조각을 그 상품 하나로 렌더링한다.
+ * 키는 (템플릿, 조각, 상품 ID, 버전, 로케일)이고, 최대 maxSize개를 넘으면 Caffeine이 덜 쓰이는 항목부터 내보낸다.
+ * <p>
+ * 버전이 키에 들어 있으므로 수정된 상품은 자연히 새 키로 렌더링된다. 상품이 바뀌면 ItemChangeListener로 예전 버전의 항목을
+ * 바로 지워서 자리를 비운다. 렌더링과 수정이 엇갈려 예전 버전이 다시 들어가더라도 다시 쓰이지 않고 밀려난다.
+ */
+@Component
+public class ItemFragmentCache implements ItemChangeListener {
+
+    // ThymeleafView가 넣어 두는 변수 중 조각을 따로 렌더링할 때도 있어야 하는 것 (빈 참조, 변환 서비스, RequestDataValueProcessor)
+    private static final String[] SHARED_VARIABLES = {
+            ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+            SpringContextVariableNames.THYMELEAF_REQUEST_CONTEXT
+    };
+
+    private final ITemplateEngine templateEngine;
+    private final Cache<Key, String> cache;
+    // 상품이 바뀌었을 때 지울 키를 만들려고 지금까지 캐시된 (템플릿, 조각, 로케일) 조합을 기억해 둔다.
+    private final Set<Variant> variants = ConcurrentHashMap.newKeySet();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ItemFragmentCache(ITemplateEngine templateEngine, long maxSize) {
+        this.templateEngine = templateEngine;
+        this.cache = maxSize > 0 ? Caffeine.newBuilder().maximumSize(maxSize).build() : null;
+    }
+
+    @Autowired
+    public ItemFragmentCache(ITemplateEngine templateEngine, ItemRepository itemRepository,
+                             @Value("${item.fragment-cache.max-size:10000}") long maxSize) {
+        this(templateEngine, maxSize);
+        itemRepository.addListener(this);
+    }
+
+    /**
+     * @param ctx      지금 렌더링 중인 템플릿의 컨텍스트 (템플릿에서는 #ctx)
+     * @param fragment 같은 템플릿 안의 th:fragment 이름. 조각 안에서는 item 변수만 쓸 수 있다.
+     */
+    public String render(ITemplateContext ctx, String fragment, Item item) {
+        String template = ctx.getTemplateData().getTemplate();
+        // 저장되지 않은 상품(버전 없음)은 값이 언제든 바뀔 수 있으니 캐시하지 않는다.
+        if (cache == null || item == null || item.getId() == null || item.getVersion() == null) {
+            return process(ctx, template, fragment, item);
+        }
+
+        Key key = new Key(template, fragment, item.getId(), item.getVersion(), ctx.getLocale());
+        String html = cache.getIfPresent(key);
+        if (html != null) {
+            hits.increment();
+            return html;
+        }
+        misses.increment();
+        variants.add(new Variant(template, fragment, ctx.getLocale()));
+        html = process(ctx, template, fragment, item);
+        cache.put(key, html);
+        return html;
+    }
+
+    @Override
+    public void onChange(Item oldItem, Item newItem) {
+        if (cache == null || oldItem == null || oldItem.getVersion() == null) {
+            return;
+        }
+        for (Variant variant : variants) {
+            cache.invalidate(new Key(variant.template(), variant.fragment(), oldItem.getId(), oldItem.getVersion(), variant.locale()));
+        }
+    }
+
+    @Override
+    public void onClear() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getCacheSize() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    private String process(ITemplateContext ctx, String template, String fragment, Item item) {
+        Map<String, Object> variables = new HashMap<>(4);
+        variables.put("item", item);
+        for (String name : SHARED_VARIABLES) {
+            Object value = ctx.getVariable(name);
+            if (value != null) {
+                variables.put(name, value);
+            }
+        }
+        // 링크(@{...})에 컨텍스트 경로를 붙이려면 요청이 필요하다.
+        IContext context = ctx instanceof IWebContext webContext
+                ? new WebContext(webContext.getExchange(), ctx.getLocale(), variables)
+                : new Context(ctx.getLocale(), variables);
+        return templateEngine.process(template, Set.of(fragment), context);
+    }
+
+    private record Key(String template, String fragment, long id, long version, Locale locale) {
+    }
+
+    private record Variant(String template, String fragment, Locale locale) {
+    }
+}
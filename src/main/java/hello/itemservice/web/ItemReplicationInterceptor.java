@@ -0,0 +1,74 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.item.replication.ItemReplicationNode;
+import hello.itemservice.domain.item.replication.ItemReplicationPosition;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.time.Duration;
+
+/**
+ * 복제 노드 사이의 read-your-writes.
+ * <p>
+ * 쓰기를 한 요청의 응답에 그 쓰기의 복제 위치를 쿠키로 남기고, 쿠키가 있는 요청은 이 노드가 그 위치까지 반영할 때까지 기다렸다가 처리한다.
+ * 저장 후 리다이렉트를 로드 밸런서가 다른 노드로 보내도 방금 저장한 상품이 보인다.
+ * 쿠키는 응답을 쓰기 전에 붙여야 하므로 postHandle에서 붙인다. 화면 컨트롤러의 리다이렉트와 뷰는 여기서 붙고,
+ * 본문을 바로 쓰는 API 응답에는 붙지 않는다. (API는 응답의 버전과 ETag로 확인한다)
+ */
+@Slf4j
+public class ItemReplicationInterceptor implements HandlerInterceptor {
+
+    static final String COOKIE = "ITEM_REPLICATION";
+    // 팔로워가 이보다 오래 뒤처져 있을 일은 없으므로 그 뒤로는 쿠키를 보낼 필요가 없다.
+    private static final int COOKIE_MAX_AGE_SECONDS = 60;
+
+    private final ItemReplicationNode node;
+    private final Duration timeout;
+
+    public ItemReplicationInterceptor(ItemReplicationNode node, Duration timeout) {
+        this.node = node;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        node.resetLastWrite();
+        ItemReplicationPosition position = readCookie(request);
+        if (position != null && !node.awaitApplied(position, timeout)) {
+            // 리더가 다시 떠서 epoch가 달라졌거나 늦어지는 경우. 기다리지 않고 지금 가진 것으로 처리한다.
+            log.debug("복제 위치까지 반영되지 않은 채로 처리합니다 position={} applied={}",
+                    position.format(), node.applied().format());
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        ItemReplicationPosition lastWrite = node.lastWrite();
+        if (lastWrite == null || response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE, lastWrite.format());
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(COOKIE_MAX_AGE_SECONDS);
+        response.addCookie(cookie);
+    }
+
+    private static ItemReplicationPosition readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                return ItemReplicationPosition.parse(cookie.getValue());
+            }
+        }
+        return null;
+    }
+}
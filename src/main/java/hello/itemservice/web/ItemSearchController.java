@@ -0,0 +1,29 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemSearchCond;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 상품명 검색. /api/items/search?q=무선 마우스&limit=20
+ * 검색어의 단어가 모두 들어 있는 상품을 단어 일치, 단어 앞부분 일치, 단어 가운데 일치 순으로, 같으면 상품명이 짧은 순으로 돌려준다.
+ */
+@RestController
+@RequestMapping("/api/items/search")
+@RequiredArgsConstructor
+public class ItemSearchController {
+
+    private final ItemRepository itemRepository;
+
+    @GetMapping
+    public List<Item> search(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        return itemRepository.search(q, Math.max(1, Math.min(limit, ItemSearchCond.MAX_SIZE)));
+    }
+}
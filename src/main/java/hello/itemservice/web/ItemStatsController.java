@@ -0,0 +1,24 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.item.stats.ItemStats;
+import hello.itemservice.domain.item.stats.ItemStatsSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 카탈로그 집계. 쓰기마다 유지해 둔 값을 읽기만 하므로 상품 수와 상관없이 바로 끝난다.
+ */
+@RestController
+@RequestMapping("/api/items/stats")
+@RequiredArgsConstructor
+public class ItemStatsController {
+
+    private final ItemStats itemStats;
+
+    @GetMapping
+    public ItemStatsSnapshot stats() {
+        return itemStats.snapshot();
+    }
+}
@@ -1,8 +1,11 @@
 package hello.itemservice.web.basic;
 
 import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
 import hello.itemservice.domain.item.ItemRepository;
-import jakarta.annotation.PostConstruct;
+import hello.itemservice.domain.item.ItemSearchCond;
+import hello.itemservice.web.ItemETags;
+import hello.itemservice.web.basic.form.ItemForm;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,10 +13,10 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -26,22 +29,29 @@ public class BasicItemController {
     private final ItemRepository itemRepository;
 
     @GetMapping
-    public String items(Model model) {
-        List<Item> items = itemRepository.findAll();
-        model.addAttribute("items", items);
+    public String items(@ModelAttribute("cond") ItemSearchCond cond, Model model, ServletWebRequest webRequest, Locale locale) {
+        ItemPage page = itemRepository.findPage(cond);
+        if (ItemETags.checkNotModified(webRequest, locale, page)) {
+            return null;
+        }
+        model.addAttribute("items", page.getItems());
+        model.addAttribute("page", page);
         return "basic/items";
     }
 
     @GetMapping("/{itemId}")
-    public String item(@PathVariable long itemId, Model model) {
+    public String item(@PathVariable long itemId, Model model, ServletWebRequest webRequest, Locale locale) {
         Item item = itemRepository.findById(itemId);
+        if (ItemETags.checkNotModified(webRequest, locale, item)) {
+            return null;
+        }
         model.addAttribute("item",item);
         return "basic/item";
     }
 
     @GetMapping("/add")
     public String addForm(Model model) {
-        model.addAttribute(new Item());
+        model.addAttribute("item", new ItemForm());
         return "basic/addForm";
     }
 
@@ -50,34 +60,29 @@ public class BasicItemController {
                        @RequestParam int price,
                        @RequestParam int quantity,
                        Model model) {
-        Item item = new Item();
-        item.setItemName(itemName);
-        item.setPrice(price);
-        item.setQuantity(quantity);
-
-        itemRepository.save(item);
+        Item item = itemRepository.save(new Item(itemName, price, quantity));
         model.addAttribute("item", item);
 
         return "basic/item";
     }
 
     //@PostMapping("/add")
-    public String saveV1(@ModelAttribute Item item, Model model) {
+    public String saveV1(@ModelAttribute("item") ItemForm item, Model model) {
 
-        itemRepository.save(item);
-        model.addAttribute("item", item);
+        Item savedItem = itemRepository.save(item.toItem());
+        model.addAttribute("item", savedItem);
         return "basic/item";
     }
 
     //@PostMapping("/add")
-    public String saveV2(@ModelAttribute("item") Item item) {
+    public String saveV2(@ModelAttribute("item") ItemForm item) {
 
-        itemRepository.save(item);
+        item.setId(itemRepository.save(item.toItem()).getId());
         return "basic/item";
     }
 
     @PostMapping("/add")
-    public String saveV3(@ModelAttribute Item item, RedirectAttributes redirectAttributes, Model model) {
+    public String saveV3(@ModelAttribute("item") ItemForm item, RedirectAttributes redirectAttributes, Model model) {
 
         // 검증 오류 결과를 보관
         Map<String, String> errors = new HashMap<>();
@@ -105,7 +110,7 @@ public class BasicItemController {
             return "basic/addForm";
         }
 
-        Item savedItem = itemRepository.save(item);
+        Item savedItem = itemRepository.save(item.toItem());
         redirectAttributes.addAttribute("itemId", savedItem.getId());
         // {}로 데이터를 넣은게 아니라면 queryParameter로 나머지 attribute가 들어간다.
         // ex) localhost:8080/basic/items/3?status=true
@@ -114,8 +119,8 @@ public class BasicItemController {
     }
 
     //@PostMapping("/add")
-    public String saveV4(Item item) {
-        itemRepository.save(item);
+    public String saveV4(@ModelAttribute("item") ItemForm item) {
+        item.setId(itemRepository.save(item.toItem()).getId());
         return "basic/item";
     }
 
@@ -127,16 +132,9 @@ public class BasicItemController {
     }
 
     @PostMapping("/{itemId}/edit")
-    public String edit(@PathVariable Long itemId, @ModelAttribute Item item, RedirectAttributes redirectAttributes) {
-        itemRepository.update(itemId, item);
+    public String edit(@PathVariable Long itemId, @ModelAttribute("item") ItemForm item, RedirectAttributes redirectAttributes) {
+        itemRepository.update(itemId, item.toItem());
         redirectAttributes.addAttribute("itemId", itemId);
         return "redirect:/basic/items/{itemId}";
     }
-
-
-    @PostConstruct
-    public void init() {
-        itemRepository.save(new Item("item1", 100, 10));
-        itemRepository.save(new Item("item2", 2000, 45));
-    }
 }
@@ -0,0 +1,120 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import hello.itemservice.web.basic.form.ItemUpdateForm;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MessageCodesResolver;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 배치로 들어온 폼을 한 건씩 검증하고, 통과한 것만 모아서 ItemRepository에 한 번에 저장한다.
+ * 검증 규칙은 단건 API와 같다. (폼의 Bean Validation + totalPriceMin)
+ * null 원소는 검증할 폼이 없으므로 묶음 전체를 IllegalArgumentException(400)으로 거절한다.
+ */
+@Component
+public class ItemBatchProcessor {
+
+    private final ItemRepository itemRepository;
+    private final SpringValidatorAdapter validator;
+    private final MessageCodesResolver messageCodesResolver;
+
+    public ItemBatchProcessor(ItemRepository itemRepository, jakarta.validation.Validator validator,
+                              MessageCodesResolver messageCodesResolver) {
+        this.itemRepository = itemRepository;
+        this.validator = new SpringValidatorAdapter(validator);
+        this.messageCodesResolver = messageCodesResolver;
+    }
+
+    /**
+     * @param firstIndex forms의 첫 번째 원소가 전체 요청에서 몇 번째인지
+     */
+    public void save(List<ItemSaveForm> forms, int firstIndex, ItemBatchResult result) {
+        requireNoNulls(forms, firstIndex);
+        List<Item> items = new ArrayList<>(forms.size());
+        List<Integer> indexes = new ArrayList<>(forms.size());
+        for (int i = 0; i < forms.size(); i++) {
+            ItemSaveForm form = forms.get(i);
+            BindingResult bindingResult = validate(form);
+            if (bindingResult.hasErrors()) {
+                result.addErrors(firstIndex + i, bindingResult.getAllErrors());
+                continue;
+            }
+            items.add(new Item(form.getItemName(), form.getPrice(), form.getQuantity()));
+            indexes.add(firstIndex + i);
+        }
+
+        List<Item> savedItems = itemRepository.saveAll(items);
+        for (int i = 0; i < savedItems.size(); i++) {
+            result.addSaved(indexes.get(i), savedItems.get(i).getId());
+        }
+    }
+
+    public void update(List<ItemUpdateForm> forms, int firstIndex, ItemBatchResult result) {
+        requireNoNulls(forms, firstIndex);
+        List<Item> updateParams = new ArrayList<>(forms.size());
+        List<Integer> indexes = new ArrayList<>(forms.size());
+        for (int i = 0; i < forms.size(); i++) {
+            ItemUpdateForm form = forms.get(i);
+            BindingResult bindingResult = validate(form, "itemUpdateForm", form.getPrice(), form.getQuantity());
+            if (bindingResult.hasErrors()) {
+                result.addErrors(firstIndex + i, bindingResult.getAllErrors());
+                continue;
+            }
+            updateParams.add(new Item(form.getId(), form.getItemName(), form.getPrice(), form.getQuantity(), form.getVersion()));
+            indexes.add(firstIndex + i);
+        }
+
+        List<Item> updatedItems = itemRepository.updateAll(updateParams);
+        for (int i = 0; i < updatedItems.size(); i++) {
+            Item updatedItem = updatedItems.get(i);
+            if (updatedItem == null) {
+                result.addErrors(indexes.get(i), List.of(notUpdated(updateParams.get(i))));
+            } else {
+                result.addSaved(indexes.get(i), updatedItem.getId());
+            }
+        }
+    }
+
+    private static void requireNoNulls(List<?> forms, int firstIndex) {
+        int nullIndex = forms.indexOf(null);
+        if (nullIndex >= 0) {
+            throw new IllegalArgumentException("batch element must not be null: " + (firstIndex + nullIndex));
+        }
+    }
+
+    /**
+     * 수정되지 않은 이유가 없는 상품인지 버전 충돌인지 구분해서 알려준다.
+     */
+    private ObjectError notUpdated(Item updateParam) {
+        Item current = itemRepository.findById(updateParam.getId());
+        if (current == null) {
+            return new ObjectError("itemUpdateForm", new String[]{"notFound.itemUpdateForm", "notFound"},
+                    new Object[]{updateParam.getId()}, "상품을 찾을 수 없습니다.");
+        }
+        return new ObjectError("itemUpdateForm", new String[]{"conflict.itemUpdateForm", "conflict"},
+                new Object[]{updateParam.getId(), current.getVersion()}, "다른 사용자가 먼저 수정했습니다.");
+    }
+
+    /**
+     * 단건 등록 폼 하나를 같은 규칙으로 검증한다. 리액티브 API가 폼마다 따로 검증할 때 쓴다.
+     */
+    BindingResult validate(ItemSaveForm form) {
+        return validate(form, "itemSaveForm", form.getPrice(), form.getQuantity());
+    }
+
+    private BindingResult validate(Object form, String objectName, Integer price, Integer quantity) {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(form, objectName);
+        bindingResult.setMessageCodesResolver(messageCodesResolver);
+        validator.validate(form, bindingResult);
+        TotalPriceCheck.check(price, quantity, bindingResult);
+        return bindingResult;
+    }
+}
@@ -0,0 +1,37 @@
+package hello.itemservice.web.basic;
+
+import lombok.Getter;
+import org.springframework.validation.ObjectError;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 배치 요청 결과. 요청 배열의 인덱스를 키로 성공한 상품 ID와 검증 오류를 따로 담는다.
+ */
+@Getter
+public class ItemBatchResult {
+
+    private int total;
+    private final Map<Integer, Long> saved = new TreeMap<>();
+    private final Map<Integer, List<ObjectError>> errors = new TreeMap<>();
+
+    public int getSucceeded() {
+        return saved.size();
+    }
+
+    public int getFailed() {
+        return errors.size();
+    }
+
+    void addSaved(int index, Long itemId) {
+        total++;
+        saved.put(index, itemId);
+    }
+
+    void addErrors(int index, List<ObjectError> objectErrors) {
+        total++;
+        errors.put(index, objectErrors);
+    }
+}
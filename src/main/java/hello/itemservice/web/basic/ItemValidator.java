@@ -1,6 +1,6 @@
 package hello.itemservice.web.basic;
 
-import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.basic.form.ItemForm;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.Errors;
@@ -10,12 +10,12 @@ import org.springframework.validation.Validator;
 public class ItemValidator implements Validator {
     @Override
     public boolean supports(Class<?> clazz) {
-        return Item.class.isAssignableFrom(clazz);
+        return ItemForm.class.isAssignableFrom(clazz);
     }
 
     @Override
     public void validate(Object target, Errors errors) {
-        Item item = (Item) target;
+        ItemForm item = (ItemForm) target;
 
         if (!StringUtils.hasText(item.getItemName())) {
             errors.rejectValue("itemName", "required");
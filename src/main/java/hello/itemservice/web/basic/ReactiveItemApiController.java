@@ -0,0 +1,131 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
+import hello.itemservice.domain.item.ItemSearchCond;
+import hello.itemservice.domain.item.ReactiveItemRepository;
+import hello.itemservice.web.ItemETags;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ValidationItemApiController와 같은 일을 Mono/Flux로 하는 API.
+ * 요청 스레드는 Mono/Flux를 돌려주고 바로 반납되며, 검증은 parallel, 저장은 boundedElastic 스케줄러에서 이어서 처리된다.
+ * 서버는 서블릿 MVC 그대로라서 응답은 비동기 요청(AsyncContext)으로 나간다.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/reactive/api/items")
+@RequiredArgsConstructor
+public class ReactiveItemApiController {
+
+    private static final Duration EXPORT_IDLE_TIMEOUT = Duration.ofMinutes(1);
+
+    private final ReactiveItemRepository itemRepository;
+    private final ReactiveItemValidator itemValidator;
+
+    @GetMapping
+    public Mono<ItemPage> items(@ModelAttribute ItemSearchCond cond) {
+        return itemRepository.findPage(cond);
+    }
+
+    @GetMapping("/{itemId}")
+    public Mono<ResponseEntity<Item>> item(@PathVariable long itemId) {
+        return itemRepository.findById(itemId)
+                .map(item -> ResponseEntity.ok().eTag(ItemETags.versionTag(item)).body(item))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 검증을 통과하면 저장하고 201과 함께 저장된 상품을 돌려준다. 실패하면 400과 검증 오류를 돌려준다.
+     */
+    @PostMapping("/add")
+    public Mono<ResponseEntity<Object>> addItem(@RequestBody ItemSaveForm form) {
+        return itemValidator.validate(form)
+                .flatMap(bindingResult -> {
+                    if (bindingResult.hasErrors()) {
+                        log.info("검증 오류 발생 error = {}", bindingResult.getAllErrors());
+                        return Mono.just(ResponseEntity.badRequest().<Object>body(bindingResult.getAllErrors()));
+                    }
+                    return itemRepository.save(new Item(form.getItemName(), form.getPrice(), form.getQuantity()))
+                            .map(savedItem -> ResponseEntity.created(URI.create("/reactive/api/items/" + savedItem.getId()))
+                                    .eTag(ItemETags.versionTag(savedItem))
+                                    .<Object>body(savedItem));
+                });
+    }
+
+    /**
+     * 폼마다 따로 검증을 띄워서 여러 코어에서 동시에 검증하고, 통과한 것만 한 번의 배치 쓰기로 저장한다.
+     * 결과 형식은 /validation/api/items/batch와 같다. 배열에 null 원소가 있으면 400이다.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ItemBatchResult> addItems(@RequestBody List<ItemSaveForm> forms) {
+        // Flux는 null 원소를 받지 않으므로 흘려보내기 전에 거른다.
+        int nullIndex = forms.indexOf(null);
+        if (nullIndex >= 0) {
+            throw new IllegalArgumentException("batch element must not be null: " + nullIndex);
+        }
+        return Flux.fromIterable(forms)
+                // ! 순서를 지켜야 인덱스를 붙일 수 있으므로 flatMap이 아니라 flatMapSequential
+                .flatMapSequential(itemValidator::validate)
+                .collectList()
+                .flatMap(bindingResults -> {
+                    ItemBatchResult result = new ItemBatchResult();
+                    List<Item> items = new ArrayList<>(forms.size());
+                    List<Integer> indexes = new ArrayList<>(forms.size());
+                    for (int i = 0; i < bindingResults.size(); i++) {
+                        BindingResult bindingResult = bindingResults.get(i);
+                        if (bindingResult.hasErrors()) {
+                            result.addErrors(i, bindingResult.getAllErrors());
+                            continue;
+                        }
+                        ItemSaveForm form = forms.get(i);
+                        items.add(new Item(form.getItemName(), form.getPrice(), form.getQuantity()));
+                        indexes.add(i);
+                    }
+                    return itemRepository.saveAll(items)
+                            .index()
+                            .doOnNext(saved -> result.addSaved(indexes.get(saved.getT1().intValue()), saved.getT2().getId()))
+                            .then(Mono.fromSupplier(() -> {
+                                log.info("배치 등록 total={} failed={}", result.getTotal(), result.getFailed());
+                                return result;
+                            }));
+                });
+    }
+
+    /**
+     * 전체 카탈로그를 Accept에 따라 NDJSON(한 줄에 상품 하나) 또는 SSE(이벤트 하나에 상품 하나)로 흘려보낸다.
+     * 목록을 만들지 않고 저장소를 훑으면서 클라이언트가 받는 속도에 맞춰 상품마다 써서 내보내므로 큰 카탈로그도 첫 상품이 바로 도착한다.
+     * 스트리밍 응답이라 spring.mvc.async.request-timeout으로 전체 시간을 자르지 않는다. (Spring MVC가 제한 없이 연다)
+     * 대신 EXPORT_IDLE_TIMEOUT 동안 다음 상품을 내보내지 못하면(클라이언트가 받지 않으면) 끊고 순회를 멈춘다.
+     */
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Item> export() {
+        return itemRepository.findAll().timeout(EXPORT_IDLE_TIMEOUT);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+    }
+}
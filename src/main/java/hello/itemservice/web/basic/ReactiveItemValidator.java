@@ -0,0 +1,24 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindingResult;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * ItemSaveForm 검증을 parallel 스케줄러에서 돌려서 Mono로 돌려준다. 규칙은 ItemBatchProcessor와 같다.
+ * 검증은 CPU만 쓰는 작업이라 코어 수만큼의 스레드로 충분하고, 배치에서는 폼 여러 개가 여러 코어에서 동시에 검증된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveItemValidator {
+
+    private final ItemBatchProcessor itemBatchProcessor;
+
+    public Mono<BindingResult> validate(ItemSaveForm form) {
+        return Mono.fromCallable(() -> itemBatchProcessor.validate(form))
+                .subscribeOn(Schedulers.parallel());
+    }
+}
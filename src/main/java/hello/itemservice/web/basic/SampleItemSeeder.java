@@ -0,0 +1,28 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 화면에서 바로 볼 수 있도록 시작할 때 예제 상품을 넣는다. 저장소가 비어 있을 때만 넣는다. (ItemRepository.seedIfEmpty)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SampleItemSeeder {
+
+    private final ItemRepository itemRepository;
+
+    @PostConstruct
+    public void init() {
+        if (itemRepository.seedIfEmpty(List.of(new Item("item1", 100, 10), new Item("item2", 2000, 45)))) {
+            log.info("예제 상품을 넣었습니다.");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.web.metrics.ItemRequestMetrics;
+import org.springframework.validation.Errors;
+
+/**
+ * 가격 * 수량이 10000원 이상이어야 한다는 복합 룰. 특정 필드가 아니라서 Bean Validation 대신 컨트롤러가 직접 검사한다.
+ * 걸린 시간은 item.request.stage의 total_price 단계로 잰다.
+ */
+final class TotalPriceCheck {
+
+    static final int MIN_TOTAL_PRICE = 10000;
+
+    private TotalPriceCheck() {
+    }
+
+    static void check(Integer price, Integer quantity, Errors errors) {
+        long start = System.nanoTime();
+        if (price != null && quantity != null) {
+            int resultPrice = price * quantity;
+            if (resultPrice < MIN_TOTAL_PRICE) {
+                errors.reject("totalPriceMin", new Object[]{MIN_TOTAL_PRICE, resultPrice}, null);
+            }
+        }
+        ItemRequestMetrics.record(ItemRequestMetrics.Stage.TOTAL_PRICE, start);
+    }
+}
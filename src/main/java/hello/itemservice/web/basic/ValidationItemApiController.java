@@ -1,19 +1,68 @@
 package hello.itemservice.web.basic;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemVersionConflictException;
+import hello.itemservice.web.ItemETags;
+import hello.itemservice.web.basic.exporter.ItemExportFormat;
+import hello.itemservice.web.basic.exporter.ItemExporter;
 import hello.itemservice.web.basic.form.ItemSaveForm;
+import hello.itemservice.web.basic.form.ItemUpdateForm;
+import hello.itemservice.web.basic.importer.ItemImportFormat;
+import hello.itemservice.web.basic.importer.ItemImportReport;
+import hello.itemservice.web.basic.importer.ItemImporter;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.ObjectError;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
+
 @Slf4j
 @RestController
 @RequestMapping("/validation/api/items")
+@RequiredArgsConstructor
 public class ValidationItemApiController {
 
+    // NDJSON은 끝까지 다 읽지 않고 이만큼씩 끊어서 검증하고 저장한다.
+    private static final int NDJSON_CHUNK_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final ItemBatchProcessor itemBatchProcessor;
+    private final ObjectMapper objectMapper;
+    private final ItemImporter itemImporter;
+    private final ItemExporter itemExporter;
+
     /**
      * 검증의 경우 3가지 케이스가 있다.
      * 1. 검증에 성공해서 로직이 잘 처리된 경우
@@ -37,4 +86,219 @@ public class ValidationItemApiController {
         log.info("성공 로직 실행");
         return form;
     }
+
+    /**
+     * 상품 하나를 버전 ETag와 함께 돌려준다. 수정할 때 이 ETag를 If-Match로 보내면 그 사이에 다른 수정이 있었던 경우 409를 받는다.
+     */
+    @GetMapping("/{itemId}")
+    public ResponseEntity<Item> item(@PathVariable long itemId) {
+        Item item = itemRepository.findById(itemId);
+        if (item == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(ItemETags.versionTag(item)).body(item);
+    }
+
+    /**
+     * 상품 하나를 수정한다. 기대하는 버전은 If-Match 헤더나 본문의 version으로 받고, 둘 다 없으면 버전을 보지 않는다.
+     * 버전이 다르면 수정하지 않고 409와 지금 버전을 돌려준다.
+     */
+    @PostMapping("/{itemId}/edit")
+    public ResponseEntity<Object> editItem(@PathVariable long itemId, @Validated @RequestBody ItemUpdateForm form, BindingResult bindingResult,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (form.getId() != null && form.getId() != itemId) {
+            throw new IllegalArgumentException("id in body does not match the path: " + form.getId());
+        }
+        TotalPriceCheck.check(form.getPrice(), form.getQuantity(), bindingResult);
+        if (bindingResult.hasErrors()) {
+            log.info("검증 오류 발생 error = {}", bindingResult.getAllErrors());
+            return ResponseEntity.badRequest().body(bindingResult.getAllErrors());
+        }
+
+        Item updateParam = new Item(form.getItemName(), form.getPrice(), form.getQuantity());
+        Long expectedVersion = ifMatch != null ? ItemETags.parseIfMatch(ifMatch) : form.getVersion();
+        Item updatedItem = itemRepository.update(itemId, updateParam, expectedVersion);
+        if (updatedItem == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(ItemETags.versionTag(updatedItem)).body(updatedItem);
+    }
+
+    /**
+     * 여러 상품을 한 번에 등록한다. 각 원소는 addItem과 같은 규칙으로 검증하고, 통과한 것만 한 번의 배치 쓰기로 저장한다.
+     * 결과는 요청 배열의 인덱스별로 저장된 ID(saved)와 검증 오류(errors)로 돌려준다.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ItemBatchResult addItems(@RequestBody List<ItemSaveForm> forms) {
+        ItemBatchResult result = new ItemBatchResult();
+        itemBatchProcessor.save(forms, 0, result);
+        log.info("배치 등록 total={} failed={}", result.getTotal(), result.getFailed());
+        return result;
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ItemBatchResult addItemsNdjson(InputStream body) throws IOException {
+        ItemBatchResult result = new ItemBatchResult();
+        readNdjson(body, ItemSaveForm.class, "itemSaveForm", result,
+                (chunk, firstIndex) -> itemBatchProcessor.save(chunk, firstIndex, result));
+        log.info("배치 등록(NDJSON) total={} failed={}", result.getTotal(), result.getFailed());
+        return result;
+    }
+
+    @PostMapping(value = "/batch/edit", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ItemBatchResult editItems(@RequestBody List<ItemUpdateForm> forms) {
+        ItemBatchResult result = new ItemBatchResult();
+        itemBatchProcessor.update(forms, 0, result);
+        log.info("배치 수정 total={} failed={}", result.getTotal(), result.getFailed());
+        return result;
+    }
+
+    @PostMapping(value = "/batch/edit", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ItemBatchResult editItemsNdjson(InputStream body) throws IOException {
+        ItemBatchResult result = new ItemBatchResult();
+        readNdjson(body, ItemUpdateForm.class, "itemUpdateForm", result,
+                (chunk, firstIndex) -> itemBatchProcessor.update(chunk, firstIndex, result));
+        log.info("배치 수정(NDJSON) total={} failed={}", result.getTotal(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * 카탈로그 파일을 목록으로 모으지 않고 스트리밍으로 가져온다. 결과로 처리량과 거절된 행 수, 앞쪽 오류 메시지를 돌려준다.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ItemImportReport importNdjson(InputStream body, Locale locale) throws IOException {
+        return itemImporter.importItems(body, ItemImportFormat.NDJSON, locale);
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ItemImportReport importCsv(InputStream body, Locale locale) throws IOException {
+        return itemImporter.importItems(body, ItemImportFormat.CSV, locale);
+    }
+
+    /**
+     * 전체 카탈로그를 json(배열), ndjson, csv 중 하나로 내려준다.
+     * 저장소를 순회하면서 바로 응답에 쓰고 Content-Length 없이 chunked로 나가며, 클라이언트가 받을 수 있으면 gzip으로 압축한다.
+     * ! 요청 스레드에서 끝까지 쓴다. StreamingResponseBody는 비동기 요청이 되어 spring.mvc.async.request-timeout
+     * (기본은 컨테이너의 30초)이 지나면 큰 카탈로그나 느린 클라이언트의 응답이 중간에 끊긴다.
+     */
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "json") String format,
+                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                       HttpServletResponse response) throws IOException {
+        ItemExportFormat exportFormat = ItemExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("items." + exportFormat.getExtension()).build().toString());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+            itemExporter.export(gzipOut, exportFormat);
+            gzipOut.finish();
+        } else {
+            itemExporter.export(out, exportFormat);
+        }
+        out.flush();
+    }
+
+    /**
+     * Accept-Encoding에서 gzip의 q 값을 본다. gzip이 없으면 *의 q 값을 따른다. q=0은 거절이다.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals("gzip") && !coding.equals("x-gzip") && !coding.equals("*")) {
+                continue;
+            }
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        // 읽을 수 없는 q 값이면 압축하지 않는 쪽으로 본다.
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("*")) {
+                anyQuality = quality;
+            } else {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : anyQuality;
+        return quality != null && quality > 0;
+    }
+
+    // CSV 헤더가 잘못된 경우처럼 파일 자체를 읽을 수 없는 경우, 지원하지 않는 내보내기 형식, 잘못된 If-Match
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+    }
+
+    @ExceptionHandler(ItemVersionConflictException.class)
+    public ResponseEntity<Map<String, Object>> conflict(ItemVersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .eTag("\"" + e.getCurrentVersion() + "\"")
+                .body(Map.of("message", e.getMessage(), "currentVersion", e.getCurrentVersion()));
+    }
+
+    /**
+     * 빈 줄을 빼고 한 줄을 원소 하나로 읽는다. 읽을 수 없는 줄은 묶음 전체를 거절하지 않고 그 인덱스에 invalidRow 오류로 남긴다.
+     * 앞쪽 묶음은 이미 저장되었으므로 여기서 예외로 끝내면 클라이언트는 무엇이 저장됐는지 알 수 없다.
+     */
+    private <T> void readNdjson(InputStream body, Class<T> type, String objectName, ItemBatchResult result,
+                                BiConsumer<List<T>, Integer> chunkHandler) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(type);
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<T> chunk = new ArrayList<>(NDJSON_CHUNK_SIZE);
+            int firstIndex = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                T form = null;
+                String invalidReason = "JSON 객체가 아닙니다.";
+                try {
+                    form = reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    invalidReason = e.getOriginalMessage();
+                }
+                if (form == null) {
+                    // 인덱스가 이어지도록 모아 둔 묶음을 먼저 처리한다.
+                    if (!chunk.isEmpty()) {
+                        chunkHandler.accept(chunk, firstIndex);
+                        firstIndex += chunk.size();
+                        chunk = new ArrayList<>(NDJSON_CHUNK_SIZE);
+                    }
+                    result.addErrors(firstIndex, List.of(new ObjectError(objectName,
+                            new String[]{"invalidRow." + objectName, "invalidRow"}, new Object[]{invalidReason},
+                            "읽을 수 없는 행입니다.")));
+                    firstIndex++;
+                    continue;
+                }
+                chunk.add(form);
+                if (chunk.size() == NDJSON_CHUNK_SIZE) {
+                    chunkHandler.accept(chunk, firstIndex);
+                    firstIndex += chunk.size();
+                    chunk = new ArrayList<>(NDJSON_CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunkHandler.accept(chunk, firstIndex);
+            }
+        }
+    }
 }
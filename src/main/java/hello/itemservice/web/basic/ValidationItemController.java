@@ -1,7 +1,11 @@
 package hello.itemservice.web.basic;
 
 import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
 import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemSearchCond;
+import hello.itemservice.web.ItemETags;
+import hello.itemservice.web.basic.form.ItemForm;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,9 +18,10 @@ import org.springframework.validation.ObjectError;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
+import java.util.Locale;
 
 @Slf4j
 @Controller
@@ -30,28 +35,36 @@ public class ValidationItemController {
     // ! Spring이 제공하는 Validator 인터페이스를 사용해서 만든 Validator를 적용하는 방식은
     // ! 이렇게 특정 컨트롤러에서 InitBinder를 만들어주면 된다. 그럼 이 컨트롤러 안에서는 어떤 Mapping이 호출되든 이 녀석이 먼저 실행되서
     // ! validate할 준비를 한다.
-    @InitBinder
+    // ! 목록 조회 조건(cond) 같은 다른 모델 객체에는 붙으면 안 되기 때문에 "item"으로 대상을 한정한다.
+    @InitBinder("item")
     public void init(WebDataBinder dataBinder) {
         dataBinder.addValidators(itemValidator);
     }
 
     @GetMapping
-    public String items(Model model) {
-        List<Item> items = itemRepository.findAll();
-        model.addAttribute("items", items);
+    public String items(@ModelAttribute("cond") ItemSearchCond cond, Model model, ServletWebRequest webRequest, Locale locale) {
+        ItemPage page = itemRepository.findPage(cond);
+        if (ItemETags.checkNotModified(webRequest, locale, page)) {
+            return null;
+        }
+        model.addAttribute("items", page.getItems());
+        model.addAttribute("page", page);
         return "validation/items";
     }
 
     @GetMapping("/{itemId}")
-    public String item(@PathVariable long itemId, Model model) {
+    public String item(@PathVariable long itemId, Model model, ServletWebRequest webRequest, Locale locale) {
         Item item = itemRepository.findById(itemId);
+        if (ItemETags.checkNotModified(webRequest, locale, item)) {
+            return null;
+        }
         model.addAttribute("item", item);
         return "validation/item";
     }
 
     @GetMapping("/add")
     public String addForm(Model model) {
-        model.addAttribute(new Item());
+        model.addAttribute("item", new ItemForm());
         return "validation/addForm";
     }
 
@@ -60,29 +73,24 @@ public class ValidationItemController {
                        @RequestParam int price,
                        @RequestParam int quantity,
                        Model model) {
-        Item item = new Item();
-        item.setItemName(itemName);
-        item.setPrice(price);
-        item.setQuantity(quantity);
-
-        itemRepository.save(item);
+        Item item = itemRepository.save(new Item(itemName, price, quantity));
         model.addAttribute("item", item);
 
         return "validation/item";
     }
 
     //@PostMapping("/add")
-    public String saveV1(@ModelAttribute Item item, Model model) {
+    public String saveV1(@ModelAttribute("item") ItemForm item, Model model) {
 
-        itemRepository.save(item);
-        model.addAttribute("item", item);
+        Item savedItem = itemRepository.save(item.toItem());
+        model.addAttribute("item", savedItem);
         return "validation/item";
     }
 
     //@PostMapping("/add")
-    public String saveV2(@ModelAttribute("item") Item item) {
+    public String saveV2(@ModelAttribute("item") ItemForm item) {
 
-        itemRepository.save(item);
+        item.setId(itemRepository.save(item.toItem()).getId());
         return "validation/item";
     }
 
@@ -90,7 +98,7 @@ public class ValidationItemController {
     // ! BindingResult는 어떤 에러가 있으면, 사용하고 있는 모델의 정보를 받고 그 모델의 필드를 받아서 에러 메시지를 담아준다.
     // ! BindingResult는 타입을 잘못 입력해서 넣어도 (int값을 String으로 넣는것과 같은) 그것을 에러로 처리해준다.
     //@PostMapping("/add")
-    public String saveV3(@ModelAttribute Item item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
+    public String saveV3(@ModelAttribute("item") ItemForm item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
 
         if (!StringUtils.hasText(item.getItemName())) {
             bindingResult.addError(new FieldError("item", "itemName", "상품 이름은 필수입니다."));
@@ -115,7 +123,7 @@ public class ValidationItemController {
             return "validation/addForm";
         }
 
-        Item savedItem = itemRepository.save(item);
+        Item savedItem = itemRepository.save(item.toItem());
         redirectAttributes.addAttribute("itemId", savedItem.getId());
         // {}로 데이터를 넣은게 아니라면 queryParameter로 나머지 attribute가 들어간다.
         // ex) localhost:8080/validation/items/3?status=true
@@ -124,7 +132,7 @@ public class ValidationItemController {
     }
 
 //    @PostMapping("/add")
-    public String saveV4(@ModelAttribute Item item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
+    public String saveV4(@ModelAttribute("item") ItemForm item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
 
         if (!StringUtils.hasText(item.getItemName())) {
             bindingResult.addError(
@@ -173,7 +181,7 @@ public class ValidationItemController {
             return "validation/addForm";
         }
 
-        Item savedItem = itemRepository.save(item);
+        Item savedItem = itemRepository.save(item.toItem());
         redirectAttributes.addAttribute("itemId", savedItem.getId());
         // {}로 데이터를 넣은게 아니라면 queryParameter로 나머지 attribute가 들어간다.
         // ex) localhost:8080/validation/items/3?status=true
@@ -182,7 +190,7 @@ public class ValidationItemController {
     }
 
     //@PostMapping("/add")
-    public String saveV5(@ModelAttribute Item item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
+    public String saveV5(@ModelAttribute("item") ItemForm item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
 
         if (!StringUtils.hasText(item.getItemName())) {
             bindingResult.addError(
@@ -232,7 +240,7 @@ public class ValidationItemController {
             return "validation/addForm";
         }
 
-        Item savedItem = itemRepository.save(item);
+        Item savedItem = itemRepository.save(item.toItem());
         redirectAttributes.addAttribute("itemId", savedItem.getId());
         // {}로 데이터를 넣은게 아니라면 queryParameter로 나머지 attribute가 들어간다.
         // ex) localhost:8080/validation/items/3?status=true
@@ -241,7 +249,7 @@ public class ValidationItemController {
     }
 
     //@PostMapping("/add")
-    public String saveV6(@ModelAttribute Item item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
+    public String saveV6(@ModelAttribute("item") ItemForm item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
 
         // ! BindingResult는, 자기보다 바로 앞에 어떤 녀석을 검증할건지를 반드시 강제하기 때문에 사실 BindingResult는 이미 본인이 누굴 검증할지 알고 있는 상태다.
         // ! 그래서 objectName 이런걸 넣을 필요가 없고 아래처럼 깔끔하게 줄일 수 있다.
@@ -266,19 +274,14 @@ public class ValidationItemController {
         }
 
         // 특정 필드가 아닌 복합 룰 검증
-        if (item.getPrice() != null && item.getQuantity() != null) {
-            int resultPrice = item.getPrice() * item.getQuantity();
-            if (resultPrice < 10000) {
-                bindingResult.reject("totalPriceMin", new Object[]{10000, resultPrice}, null);
-            }
-        }
+        TotalPriceCheck.check(item.getPrice(), item.getQuantity(), bindingResult);
         // 검증에 실패하면 다시 입력 폼으로
         if (bindingResult.hasErrors()) {
             log.info("errors ={}", bindingResult);
             return "validation/addForm";
         }
 
-        Item savedItem = itemRepository.save(item);
+        Item savedItem = itemRepository.save(item.toItem());
         redirectAttributes.addAttribute("itemId", savedItem.getId());
         // {}로 데이터를 넣은게 아니라면 queryParameter로 나머지 attribute가 들어간다.
         // ex) localhost:8080/validation/items/3?status=true
@@ -287,7 +290,7 @@ public class ValidationItemController {
     }
 
     //@PostMapping("/add")
-    public String saveV7(@ModelAttribute Item item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
+    public String saveV7(@ModelAttribute("item") ItemForm item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
 
         itemValidator.validate(item, bindingResult);
 
@@ -297,7 +300,7 @@ public class ValidationItemController {
             return "validation/addForm";
         }
 
-        Item savedItem = itemRepository.save(item);
+        Item savedItem = itemRepository.save(item.toItem());
         redirectAttributes.addAttribute("itemId", savedItem.getId());
         // {}로 데이터를 넣은게 아니라면 queryParameter로 나머지 attribute가 들어간다.
         // ex) localhost:8080/validation/items/3?status=true
@@ -306,7 +309,7 @@ public class ValidationItemController {
     }
 
     //@PostMapping("/add")
-    public String saveV8(@Validated @ModelAttribute Item item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
+    public String saveV8(@Validated @ModelAttribute("item") ItemForm item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
         // ! 이렇게 @Validated를 파라미터로 받고 그 다음에 검증할 오브젝트를 받으면,
         // ! 바인딩한 밸리데이터가 여러개 있을 땐 support를 통해서 현재 이 오브젝트를 처리할 수 있는 밸리데이터가 누구인지 찾고
         // ! 찾으면 그 밸리데이터의 validate을 호출한다.
@@ -316,7 +319,7 @@ public class ValidationItemController {
             return "validation/addForm";
         }
 
-        Item savedItem = itemRepository.save(item);
+        Item savedItem = itemRepository.save(item.toItem());
         redirectAttributes.addAttribute("itemId", savedItem.getId());
         // {}로 데이터를 넣은게 아니라면 queryParameter로 나머지 attribute가 들어간다.
         // ex) localhost:8080/validation/items/3?status=true
@@ -325,8 +328,8 @@ public class ValidationItemController {
     }
 
     //@PostMapping("/add")
-    public String saveV456(Item item) {
-        itemRepository.save(item);
+    public String saveV456(@ModelAttribute("item") ItemForm item) {
+        item.setId(itemRepository.save(item.toItem()).getId());
         return "validation/item";
     }
 
@@ -338,8 +341,8 @@ public class ValidationItemController {
     }
 
     @PostMapping("/{itemId}/edit")
-    public String edit(@PathVariable Long itemId, @ModelAttribute Item item, RedirectAttributes redirectAttributes) {
-        itemRepository.update(itemId, item);
+    public String edit(@PathVariable Long itemId, @ModelAttribute("item") ItemForm item, RedirectAttributes redirectAttributes) {
+        itemRepository.update(itemId, item.toItem());
         redirectAttributes.addAttribute("itemId", itemId);
         return "redirect:/validation/items/{itemId}";
     }
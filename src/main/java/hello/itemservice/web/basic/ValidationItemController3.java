@@ -1,22 +1,28 @@
 package hello.itemservice.web.basic;
 
 import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
 import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemSearchCond;
+import hello.itemservice.domain.item.ItemVersionConflictException;
 import hello.itemservice.domain.item.SaveCheck;
 import hello.itemservice.domain.item.UpdateCheck;
+import hello.itemservice.web.ItemETags;
 import hello.itemservice.web.basic.form.ItemSaveForm;
 import hello.itemservice.web.basic.form.ItemUpdateForm;
-import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
+import java.util.Locale;
 
 @Slf4j
 @Controller
@@ -27,22 +33,29 @@ public class ValidationItemController3 {
     private final ItemRepository itemRepository;
 
     @GetMapping
-    public String items(Model model) {
-        List<Item> items = itemRepository.findAll();
-        model.addAttribute("items", items);
+    public String items(@ModelAttribute("cond") ItemSearchCond cond, Model model, ServletWebRequest webRequest, Locale locale) {
+        ItemPage page = itemRepository.findPage(cond);
+        if (ItemETags.checkNotModified(webRequest, locale, page)) {
+            return null;
+        }
+        model.addAttribute("items", page.getItems());
+        model.addAttribute("page", page);
         return "validation/v3/items";
     }
 
     @GetMapping("/{itemId}")
-    public String item(@PathVariable long itemId, Model model) {
+    public String item(@PathVariable long itemId, Model model, ServletWebRequest webRequest, Locale locale) {
         Item item = itemRepository.findById(itemId);
+        if (ItemETags.checkNotModified(webRequest, locale, item)) {
+            return null;
+        }
         model.addAttribute("item", item);
         return "validation/v3/item";
     }
 
     @GetMapping("/add")
     public String addForm(Model model) {
-        model.addAttribute(new Item());
+        model.addAttribute("item", new ItemSaveForm());
         return "validation/v3/addForm";
     }
 
@@ -53,12 +66,7 @@ public class ValidationItemController3 {
         // ! 그 코드가 있으면 우선순위가 높은 순으로 에러 메시지를 FieldError에 담는 방식으로 구현된다.
 
         // ! 근데 ObjectError는 Bean Validation으로 처리하기는 좀 애매하기 때문에 이렇게 그냥 자바 코드로 처리하는게 제일 깔끔하다.
-        if (form.getPrice() != null && form.getQuantity() != null) {
-            int resultPrice = form.getPrice() * form.getQuantity();
-            if (resultPrice < 10000) {
-                bindingResult.reject("totalPriceMin", new Object[]{10000, resultPrice}, null);
-            }
-        }
+        TotalPriceCheck.check(form.getPrice(), form.getQuantity(), bindingResult);
 
         // 검증에 실패하면 다시 입력 폼으로
         if (bindingResult.hasErrors()) {
@@ -66,12 +74,7 @@ public class ValidationItemController3 {
             return "validation/v3/addForm";
         }
 
-        Item item = new Item();
-        item.setItemName(form.getItemName());
-        item.setPrice(form.getPrice());
-        item.setQuantity(form.getQuantity());
-
-        Item savedItem = itemRepository.save(item);
+        Item savedItem = itemRepository.save(new Item(form.getItemName(), form.getPrice(), form.getQuantity()));
         redirectAttributes.addAttribute("itemId", savedItem.getId());
         // {}로 데이터를 넣은게 아니라면 queryParameter로 나머지 attribute가 들어간다.
         // ex) localhost:8080/validation/items/3?status=true
@@ -87,15 +90,13 @@ public class ValidationItemController3 {
     }
 
     // ! 이렇게 ModelAttribute에서 item을 넣어주지 않고 디폴트 규칙을 사용하면 Spring 규칙에 따라 model에 넣는 키가 itemUpdateForm으로 되기 때문에 저렇게 item이라고 명시해줘야한다.
+    // 수정 폼을 연 뒤 다른 사람이 먼저 수정했으면(폼의 version이나 If-Match와 지금 버전이 다르면) 409와 함께 폼을 다시 보여준다.
     @PostMapping("/{itemId}/edit")
-    public String edit(@PathVariable Long itemId, @Validated @ModelAttribute("item") ItemUpdateForm form, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
+    public String edit(@PathVariable Long itemId, @Validated @ModelAttribute("item") ItemUpdateForm form, BindingResult bindingResult,
+                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                       HttpServletResponse response, RedirectAttributes redirectAttributes) {
 
-        if (form.getPrice() != null && form.getQuantity() != null) {
-            int resultPrice = form.getPrice() * form.getQuantity();
-            if (resultPrice < 10000) {
-                bindingResult.reject("totalPriceMin", new Object[]{10000, resultPrice}, null);
-            }
-        }
+        TotalPriceCheck.check(form.getPrice(), form.getQuantity(), bindingResult);
 
         // 검증에 실패하면 다시 입력 폼으로
         if (bindingResult.hasErrors()) {
@@ -103,20 +104,20 @@ public class ValidationItemController3 {
             return "validation/v3/editForm";
         }
 
-        Item itemParam = new Item();
-        itemParam.setItemName(form.getItemName());
-        itemParam.setPrice(form.getPrice());
-        itemParam.setQuantity(form.getQuantity());
-
-        itemRepository.update(itemId, itemParam);
+        Item itemParam = new Item(form.getItemName(), form.getPrice(), form.getQuantity());
+
+        Long expectedVersion = ifMatch != null ? ItemETags.parseIfMatch(ifMatch) : form.getVersion();
+        try {
+            itemRepository.update(itemId, itemParam, expectedVersion);
+        } catch (ItemVersionConflictException e) {
+            log.info("수정 충돌 itemId={} expected={} current={}", itemId, e.getExpectedVersion(), e.getCurrentVersion());
+            bindingResult.reject("conflict", new Object[]{itemId, e.getCurrentVersion()}, null);
+            // 충돌을 확인하고 다시 저장하면 덮어쓰도록 지금 버전을 담아 둔다.
+            form.setVersion(e.getCurrentVersion());
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            return "validation/v3/editForm";
+        }
         redirectAttributes.addAttribute("itemId", itemId);
         return "redirect:/validation/v3/items/{itemId}";
     }
-
-
-    @PostConstruct
-    public void init() {
-        itemRepository.save(new Item("item1", 100, 10));
-        itemRepository.save(new Item("item2", 2000, 45));
-    }
 }
@@ -0,0 +1,117 @@
+package hello.itemservice.web.basic.exporter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 저장소를 순회하면서 상품을 한 건씩 바로 출력 스트림에 쓴다. findAll()처럼 전체 목록을 만들지 않으므로
+ * 상품 수와 상관없이 메모리는 출력 버퍼만큼만 쓴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemExporter {
+
+    private final ItemRepository itemRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 출력 스트림은 flush만 하고 닫지 않는다.
+     */
+    public void export(OutputStream out, ItemExportFormat format) throws IOException {
+        try {
+            switch (format) {
+                case JSON -> writeJson(out, false);
+                case NDJSON -> writeJson(out, true);
+                case CSV -> writeCsv(out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeJson(OutputStream out, boolean lineDelimited) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // NDJSON은 배열 없이 객체마다 줄을 바꾼다. 최상위 값 사이에 기본으로 들어가는 공백은 뺀다.
+        generator.setRootValueSeparator(null);
+        if (!lineDelimited) {
+            generator.writeStartArray();
+        }
+        itemRepository.forEach(item -> {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("id", item.getId());
+                generator.writeStringField("itemName", item.getItemName());
+                writeNumberField(generator, "price", item.getPrice());
+                writeNumberField(generator, "quantity", item.getQuantity());
+                generator.writeEndObject();
+                if (lineDelimited) {
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        if (!lineDelimited) {
+            generator.writeEndArray();
+        }
+        generator.close();
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String name, Integer value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    /**
+     * 가져오기(ItemImporter)가 그대로 다시 읽을 수 있는 형식으로 쓴다.
+     */
+    private void writeCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write("id,itemName,price,quantity\n");
+        itemRepository.forEach(item -> {
+            try {
+                writer.write(String.valueOf(item.getId()));
+                writer.write(',');
+                writeCsvText(writer, item.getItemName());
+                writer.write(',');
+                writer.write(item.getPrice() == null ? "" : item.getPrice().toString());
+                writer.write(',');
+                writer.write(item.getQuantity() == null ? "" : item.getQuantity().toString());
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private static void writeCsvText(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
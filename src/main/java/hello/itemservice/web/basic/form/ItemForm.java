@@ -0,0 +1,20 @@
+package hello.itemservice.web.basic.form;
+
+import hello.itemservice.domain.item.Item;
+import lombok.Data;
+
+/**
+ * 등록/수정 화면의 입력을 그대로 받는 폼. Item은 바뀌지 않는 값이라 바인딩은 이 폼에 하고 저장할 때 Item으로 옮긴다.
+ */
+@Data
+public class ItemForm {
+
+    private Long id;
+    private String itemName;
+    private Integer price;
+    private Integer quantity;
+
+    public Item toItem() {
+        return new Item(itemName, price, quantity);
+    }
+}
@@ -20,4 +20,7 @@ public class ItemUpdateForm {
     private Integer price;
 
     private Integer quantity;
+
+    // 수정 화면을 열 때 본 버전. 있으면 그 버전일 때만 수정한다.
+    private Long version;
 }
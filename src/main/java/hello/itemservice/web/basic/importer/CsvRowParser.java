@@ -0,0 +1,118 @@
+package hello.itemservice.web.basic.importer;
+
+import hello.itemservice.web.basic.form.ItemForm;
+import org.springframework.validation.BindingResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 첫 줄의 헤더(itemName,price,quantity 순서는 자유)로 컬럼 위치를 정하고 나머지 줄을 읽는다.
+ * 큰따옴표로 감싼 값과 "" 이스케이프를 지원한다. 따옴표 안의 줄바꿈은 ItemImporter가 줄을 이어 붙여서 한 행으로 넘겨준다.
+ * (CR LF도 LF 하나로 읽는다)
+ */
+class CsvRowParser implements ItemRowParser {
+
+    // 따옴표가 닫히지 않은 채로 파일 끝까지 이어 붙이지 않도록 한 행의 길이를 제한한다.
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final int itemNameColumn;
+    private final int priceColumn;
+    private final int quantityColumn;
+
+    private CsvRowParser(int itemNameColumn, int priceColumn, int quantityColumn) {
+        this.itemNameColumn = itemNameColumn;
+        this.priceColumn = priceColumn;
+        this.quantityColumn = quantityColumn;
+    }
+
+    static CsvRowParser fromHeader(String header) {
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> columns = split(header);
+        List<String> names = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            names.add(column.trim());
+        }
+        return new CsvRowParser(columnOf(names, "itemName"), columnOf(names, "price"), columnOf(names, "quantity"));
+    }
+
+    @Override
+    public void parse(String line, ItemForm item, BindingResult bindingResult) {
+        List<String> values = split(line);
+        String itemName = valueAt(values, itemNameColumn);
+        item.setItemName(itemName);
+        item.setPrice(intValue(valueAt(values, priceColumn), "price", bindingResult));
+        item.setQuantity(intValue(valueAt(values, quantityColumn), "quantity", bindingResult));
+    }
+
+    private static int columnOf(List<String> names, String name) {
+        int column = names.indexOf(name);
+        if (column < 0) {
+            throw new IllegalArgumentException("CSV 헤더에 " + name + " 컬럼이 없습니다: " + names);
+        }
+        return column;
+    }
+
+    private static String valueAt(List<String> values, int column) {
+        if (column >= values.size()) {
+            return null;
+        }
+        String value = values.get(column);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer intValue(String value, String field, BindingResult bindingResult) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            ItemRowParser.rejectTypeMismatch(bindingResult, field, value);
+            return null;
+        }
+    }
+
+    /**
+     * 따옴표가 열린 채로 줄이 끝났는지. "" 이스케이프는 따옴표 두 개라서 개수가 홀수일 때만 열려 있다.
+     */
+    static boolean isOpenQuoted(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return (quotes & 1) == 1;
+    }
+
+    static List<String> split(String line) {
+        List<String> values = new ArrayList<>(4);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,10 @@
+package hello.itemservice.web.basic.importer;
+
+import java.util.List;
+
+/**
+ * @param line     파일에서의 줄 번호 (1부터)
+ * @param messages errors.properties로 풀어낸 오류 메시지
+ */
+public record ItemImportError(long line, List<String> messages) {
+}
@@ -0,0 +1,24 @@
+package hello.itemservice.web.basic.importer;
+
+import java.util.Locale;
+
+public enum ItemImportFormat {
+    NDJSON, CSV;
+
+    /**
+     * 파일 확장자로 형식을 고른다. .gz로 압축된 파일은 압축 전 확장자를 본다.
+     */
+    public static ItemImportFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("지원하지 않는 파일 형식입니다: " + fileName);
+    }
+}
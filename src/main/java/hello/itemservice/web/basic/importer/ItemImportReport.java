@@ -0,0 +1,53 @@
+package hello.itemservice.web.basic.importer;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 가져오기 결과. 파일이 아무리 커도 오류는 앞에서부터 MAX_REPORTED_ERRORS 건만 담는다.
+ */
+@Getter
+public class ItemImportReport {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ItemImportFormat format;
+    private long totalRows;
+    private long importedRows;
+    private long rejectedRows;
+    private long elapsedMillis;
+    private final List<ItemImportError> errors = new ArrayList<>();
+
+    ItemImportReport(ItemImportFormat format) {
+        this.format = format;
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? totalRows * 1000 : totalRows * 1000 / elapsedMillis;
+    }
+
+    /**
+     * 담지 못하고 버린 오류가 있는지
+     */
+    public boolean isErrorsTruncated() {
+        return rejectedRows > errors.size();
+    }
+
+    void addChunk(int imported, int rejected, List<ItemImportError> chunkErrors) {
+        totalRows += imported + rejected;
+        importedRows += imported;
+        rejectedRows += rejected;
+        for (ItemImportError error : chunkErrors) {
+            if (errors.size() >= MAX_REPORTED_ERRORS) {
+                break;
+            }
+            errors.add(error);
+        }
+    }
+
+    void finish(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
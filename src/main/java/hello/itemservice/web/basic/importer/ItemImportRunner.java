@@ -0,0 +1,59 @@
+package hello.itemservice.web.basic.importer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 애플리케이션을 띄울 때 파일 하나를 가져온다.
+ * ex) java -jar item-service.jar --item.import.file=catalog.csv.gz
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("item.import.file")
+@RequiredArgsConstructor
+public class ItemImportRunner implements ApplicationRunner {
+
+    private final ItemImporter itemImporter;
+
+    @Value("${item.import.file}")
+    private Path file;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ItemImportFormat format = ItemImportFormat.fromFileName(file.getFileName().toString());
+        log.info("상품 가져오기 시작 file={} format={}", file, format);
+
+        ItemImportReport report;
+        try (InputStream in = open(file)) {
+            report = itemImporter.importItems(in, format, Locale.getDefault());
+        }
+
+        log.info("상품 가져오기 결과 total={} imported={} rejected={} rowsPerSecond={}",
+                report.getTotalRows(), report.getImportedRows(), report.getRejectedRows(), report.getRowsPerSecond());
+        for (ItemImportError error : report.getErrors()) {
+            log.info("line {}: {}", error.line(), error.messages());
+        }
+        if (report.isErrorsTruncated()) {
+            log.info("오류 {}건 중 {}건만 표시했습니다.", report.getRejectedRows(), report.getErrors().size());
+        }
+    }
+
+    private static InputStream open(Path file) throws Exception {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+        return in;
+    }
+}
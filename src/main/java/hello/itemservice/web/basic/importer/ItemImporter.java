@@ -0,0 +1,220 @@
+package hello.itemservice.web.basic.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.basic.ItemValidator;
+import hello.itemservice.web.basic.form.ItemForm;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.MessageCodesResolver;
+import org.springframework.validation.ObjectError;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NDJSON/CSV 파일을 한 줄씩 읽어서 ItemRepository에 넣는다.
+ * <p>
+ * 읽기 스레드는 줄을 chunkSize 개씩 묶어서 넘기기만 하고, 파싱과 ItemValidator 검증은 검증 스레드들이 청크 단위로 나눠서 한다.
+ * 저장은 청크 순서대로 saveAll 한 번씩이다. 아직 저장되지 않은 청크가 maxInFlightChunks 개를 넘으면 읽기를 멈추므로
+ * 파일 크기와 상관없이 메모리에 올라가는 줄은 chunkSize * maxInFlightChunks 개를 넘지 않는다.
+ */
+@Slf4j
+@Component
+public class ItemImporter {
+
+    private final ItemRepository itemRepository;
+    private final ItemValidator itemValidator;
+    private final MessageSource messageSource;
+    private final MessageCodesResolver messageCodesResolver;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxInFlightChunks;
+    private final ExecutorService executor;
+
+    public ItemImporter(ItemRepository itemRepository, ItemValidator itemValidator, MessageSource messageSource,
+                        MessageCodesResolver messageCodesResolver, ObjectMapper objectMapper,
+                        @Value("${item.import.chunk-size:1000}") int chunkSize,
+                        @Value("${item.import.parallelism:0}") int parallelism) {
+        this.itemRepository = itemRepository;
+        this.itemValidator = itemValidator;
+        this.messageSource = messageSource;
+        this.messageCodesResolver = messageCodesResolver;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxInFlightChunks = threads * 2;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "item-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 입력 스트림은 닫지 않는다. 저장 중 예외가 나면 그때까지 저장된 상품은 그대로 두고 예외를 던진다.
+     */
+    public ItemImportReport importItems(InputStream in, ItemImportFormat format, Locale locale) throws IOException {
+        long start = System.nanoTime();
+        ItemImportReport report = new ItemImportReport(format);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+
+        long lineNumber = 0;
+        ItemRowParser parser;
+        if (format == ItemImportFormat.CSV) {
+            String header;
+            do {
+                header = reader.readLine();
+                lineNumber++;
+            } while (header != null && !StringUtils.hasText(header));
+            if (header == null) {
+                report.finish(0);
+                return report;
+            }
+            parser = CsvRowParser.fromHeader(header);
+        } else {
+            parser = new NdjsonRowParser(objectMapper);
+        }
+
+        Semaphore inFlight = new Semaphore(maxInFlightChunks);
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        List<String> lines = new ArrayList<>(chunkSize);
+        long[] lineNumbers = new long[chunkSize];
+        String line;
+        while (!written.isCompletedExceptionally() && (line = reader.readLine()) != null) {
+            lineNumber++;
+            lineNumbers[lines.size()] = lineNumber;
+            if (format == ItemImportFormat.CSV) {
+                // 따옴표 안의 줄바꿈(내보내기가 상품명을 그렇게 쓴다)은 따옴표가 닫힐 때까지 다음 줄을 이어 붙여 한 행으로 읽는다.
+                String next;
+                while (CsvRowParser.isOpenQuoted(line) && line.length() < CsvRowParser.MAX_RECORD_LENGTH
+                        && (next = reader.readLine()) != null) {
+                    lineNumber++;
+                    line = line + "\n" + next;
+                }
+            }
+            lines.add(line);
+            if (lines.size() == chunkSize) {
+                written = submit(new Chunk(lineNumbers, lines), parser, locale, report, written, inFlight);
+                lines = new ArrayList<>(chunkSize);
+                lineNumbers = new long[chunkSize];
+            }
+        }
+        if (!lines.isEmpty()) {
+            written = submit(new Chunk(lineNumbers, lines), parser, locale, report, written, inFlight);
+        }
+
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        report.finish((System.nanoTime() - start) / 1_000_000);
+        log.info("상품 가져오기 완료 format={} total={} imported={} rejected={} elapsed={}ms",
+                format, report.getTotalRows(), report.getImportedRows(), report.getRejectedRows(), report.getElapsedMillis());
+        return report;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 검증은 바로 검증 스레드에 넘기고, 저장은 앞 청크의 저장이 끝난 뒤에 이어 붙인다.
+     */
+    private CompletableFuture<Void> submit(Chunk chunk, ItemRowParser parser, Locale locale, ItemImportReport report,
+                                           CompletableFuture<Void> written, Semaphore inFlight) throws IOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("상품 가져오기가 중단되었습니다.");
+        }
+        CompletableFuture<ValidatedChunk> validated = CompletableFuture.supplyAsync(() -> validate(chunk, parser, locale), executor);
+        return written.thenAcceptBoth(validated, (ignored, result) -> {
+                    List<Item> savedItems = itemRepository.saveAll(result.items());
+                    report.addChunk(savedItems.size(), result.rejected(), result.errors());
+                })
+                .whenComplete((ignored, e) -> inFlight.release());
+    }
+
+    private ValidatedChunk validate(Chunk chunk, ItemRowParser parser, Locale locale) {
+        List<Item> items = new ArrayList<>(chunk.lines().size());
+        List<ItemImportError> errors = new ArrayList<>();
+        int rejected = 0;
+        for (int i = 0; i < chunk.lines().size(); i++) {
+            String line = chunk.lines().get(i);
+            if (!StringUtils.hasText(line)) {
+                continue;
+            }
+            ItemForm form = new ItemForm();
+            BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(form, "item");
+            bindingResult.setMessageCodesResolver(messageCodesResolver);
+            parser.parse(line, form, bindingResult);
+            // 읽지도 못한 값에 대해 범위 오류까지 겹쳐서 보여주지 않는다.
+            if (!bindingResult.hasErrors()) {
+                itemValidator.validate(form, bindingResult);
+            }
+            if (!bindingResult.hasErrors()) {
+                items.add(form.toItem());
+                continue;
+            }
+            rejected++;
+            if (errors.size() < ItemImportReport.MAX_REPORTED_ERRORS) {
+                errors.add(new ItemImportError(chunk.lineNumbers()[i], resolveMessages(bindingResult, locale)));
+            }
+        }
+        return new ValidatedChunk(items, rejected, errors);
+    }
+
+    private List<String> resolveMessages(BindingResult bindingResult, Locale locale) {
+        List<String> messages = new ArrayList<>(bindingResult.getErrorCount());
+        for (ObjectError error : bindingResult.getAllErrors()) {
+            String message;
+            try {
+                message = messageSource.getMessage(error, locale);
+            } catch (NoSuchMessageException e) {
+                message = error.getCode();
+            }
+            messages.add(error instanceof FieldError fieldError ? fieldError.getField() + ": " + message : message);
+        }
+        return messages;
+    }
+
+    /**
+     * @param lineNumbers 행마다 파일에서 시작하는 줄 번호. 여러 줄에 걸친 CSV 행이 있으면 줄 번호와 행 번호가 다르다.
+     */
+    private record Chunk(long[] lineNumbers, List<String> lines) {
+    }
+
+    private record ValidatedChunk(List<Item> items, int rejected, List<ItemImportError> errors) {
+    }
+}
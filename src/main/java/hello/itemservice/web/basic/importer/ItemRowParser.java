@@ -0,0 +1,24 @@
+package hello.itemservice.web.basic.importer;
+
+import hello.itemservice.web.basic.form.ItemForm;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+
+/**
+ * 가져오기 파일의 한 줄을 ItemForm으로 옮긴다. 여러 검증 스레드가 동시에 부르므로 상태를 가지면 안 된다.
+ */
+interface ItemRowParser {
+
+    /**
+     * 읽을 수 없는 값은 예외 대신 bindingResult에 오류로 남긴다.
+     */
+    void parse(String line, ItemForm item, BindingResult bindingResult);
+
+    /**
+     * MVC 바인딩 실패와 같은 typeMismatch 코드를 써서 errors.properties 메시지를 그대로 쓴다.
+     */
+    static void rejectTypeMismatch(BindingResult bindingResult, String field, Object rejectedValue) {
+        bindingResult.addError(new FieldError(bindingResult.getObjectName(), field, rejectedValue, true,
+                bindingResult.resolveMessageCodes("typeMismatch", field), null, null));
+    }
+}
@@ -0,0 +1,58 @@
+package hello.itemservice.web.basic.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.web.basic.form.ItemForm;
+import org.springframework.validation.BindingResult;
+
+/**
+ * {"itemName":"A","price":10000,"quantity":10} 형태의 JSON 한 줄을 읽는다. id는 무시한다.
+ */
+class NdjsonRowParser implements ItemRowParser {
+
+    private final ObjectMapper objectMapper;
+
+    NdjsonRowParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void parse(String line, ItemForm item, BindingResult bindingResult) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            bindingResult.reject("invalidRow", new Object[]{e.getOriginalMessage()}, null);
+            return;
+        }
+        if (!node.isObject()) {
+            bindingResult.reject("invalidRow", new Object[]{"JSON 객체가 아닙니다."}, null);
+            return;
+        }
+
+        JsonNode itemName = node.get("itemName");
+        item.setItemName(itemName == null || itemName.isNull() ? null : itemName.asText());
+        item.setPrice(intValue(node, "price", bindingResult));
+        item.setQuantity(intValue(node, "quantity", bindingResult));
+    }
+
+    private static Integer intValue(JsonNode node, String field, BindingResult bindingResult) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (value.isIntegralNumber() && value.canConvertToInt()) {
+            return value.intValue();
+        }
+        if (value.isTextual()) {
+            try {
+                return Integer.valueOf(value.textValue().trim());
+            } catch (NumberFormatException ignored) {
+                // 아래에서 typeMismatch로 남긴다.
+            }
+        }
+        ItemRowParser.rejectTypeMismatch(bindingResult, field, value.isTextual() ? value.textValue() : value.toString());
+        return null;
+    }
+}
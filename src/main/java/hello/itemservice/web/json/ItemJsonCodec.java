@@ -0,0 +1,428 @@
+package hello.itemservice.web.json;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import hello.itemservice.web.basic.form.ItemUpdateForm;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Item, ItemSaveForm, ItemUpdateForm 전용 JSON 읽기/쓰기. 바이트 배열 위에서 바로 읽고 쓰며 중간 객체(파서 상태, 토큰, 필드명 문자열)를 만들지 않는다.
+ * <p>
+ * 출력은 기본 ObjectMapper와 같다. (필드 선언 순서, null 필드 포함, 같은 이스케이프)
+ * 입력은 흔한 모양만 직접 읽는다. 이스케이프가 든 문자열, 소수나 지수, 따옴표로 감싼 숫자, 모르는 필드처럼 Jackson이 따로 처리하는 입력을
+ * 만나면 {@link #UNSUPPORTED}를 던지고, 변환기가 같은 바이트를 Jackson으로 다시 읽는다. 그래서 받아들이는 입력과 오류는 Jackson과 같다.
+ */
+final class ItemJsonCodec {
+
+    /**
+     * 직접 처리하지 않는 입력. 스택 트레이스를 만들지 않는 인스턴스 하나를 계속 던진다.
+     */
+    static final RuntimeException UNSUPPORTED = new RuntimeException("unsupported json shape", null, false, false) {
+    };
+
+    private static final byte[] ID = ascii("id");
+    private static final byte[] ITEM_NAME = ascii("itemName");
+    private static final byte[] PRICE = ascii("price");
+    private static final byte[] QUANTITY = ascii("quantity");
+    private static final byte[] VERSION = ascii("version");
+    private static final byte[] NULL = ascii("null");
+
+    private static final byte[][] SAVE_FIELDS = {ITEM_NAME, PRICE, QUANTITY};
+    private static final byte[][] UPDATE_FIELDS = {ID, ITEM_NAME, PRICE, QUANTITY, VERSION};
+
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    private ItemJsonCodec() {
+    }
+
+    // ---- 쓰기
+
+    static void write(Object value, JsonBuffer out) {
+        if (value instanceof Item item) {
+            write(item, out);
+        } else if (value instanceof ItemSaveForm form) {
+            write(form, out);
+        } else if (value instanceof ItemUpdateForm form) {
+            write(form, out);
+        } else {
+            throw UNSUPPORTED;
+        }
+    }
+
+    static void write(Item item, JsonBuffer out) {
+        out.put((byte) '{');
+        writeField(out, ID, true);
+        writeLong(out, item.getId());
+        writeField(out, ITEM_NAME, false);
+        writeString(out, item.getItemName());
+        writeField(out, PRICE, false);
+        writeInt(out, item.getPrice());
+        writeField(out, QUANTITY, false);
+        writeInt(out, item.getQuantity());
+        writeField(out, VERSION, false);
+        writeLong(out, item.getVersion());
+        out.put((byte) '}');
+    }
+
+    static void write(ItemSaveForm form, JsonBuffer out) {
+        out.put((byte) '{');
+        writeField(out, ITEM_NAME, true);
+        writeString(out, form.getItemName());
+        writeField(out, PRICE, false);
+        writeInt(out, form.getPrice());
+        writeField(out, QUANTITY, false);
+        writeInt(out, form.getQuantity());
+        out.put((byte) '}');
+    }
+
+    static void write(ItemUpdateForm form, JsonBuffer out) {
+        out.put((byte) '{');
+        writeField(out, ID, true);
+        writeLong(out, form.getId());
+        writeField(out, ITEM_NAME, false);
+        writeString(out, form.getItemName());
+        writeField(out, PRICE, false);
+        writeInt(out, form.getPrice());
+        writeField(out, QUANTITY, false);
+        writeInt(out, form.getQuantity());
+        writeField(out, VERSION, false);
+        writeLong(out, form.getVersion());
+        out.put((byte) '}');
+    }
+
+    private static void writeField(JsonBuffer out, byte[] name, boolean first) {
+        out.ensure(name.length + 4);
+        if (!first) {
+            out.bytes[out.length++] = ',';
+        }
+        out.bytes[out.length++] = '"';
+        System.arraycopy(name, 0, out.bytes, out.length, name.length);
+        out.length += name.length;
+        out.bytes[out.length++] = '"';
+        out.bytes[out.length++] = ':';
+    }
+
+    private static void writeInt(JsonBuffer out, Integer value) {
+        if (value == null) {
+            out.put(NULL);
+        } else {
+            writeLong(out, value.longValue());
+        }
+    }
+
+    private static void writeLong(JsonBuffer out, Long value) {
+        if (value == null) {
+            out.put(NULL);
+        } else {
+            writeLong(out, value.longValue());
+        }
+    }
+
+    private static void writeLong(JsonBuffer out, long value) {
+        out.ensure(20);
+        if (value < 0) {
+            out.bytes[out.length++] = '-';
+        } else {
+            // 음수 쪽이 범위가 하나 더 넓으므로 음수로 바꿔서 자릿수를 뽑는다. (Long.MIN_VALUE)
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int end = out.length + digits;
+        for (int i = end - 1; i >= out.length; i--) {
+            out.bytes[i] = (byte) ('0' - (int) (value % 10));
+            value /= 10;
+        }
+        out.length = end;
+    }
+
+    private static void writeString(JsonBuffer out, String value) {
+        if (value == null) {
+            out.put(NULL);
+            return;
+        }
+        int length = value.length();
+        // 한 글자가 UTF-8로 최대 3바이트이고, 이스케이프는 최대 6바이트(\\u00XX)다.
+        out.ensure(length * 6 + 2);
+        byte[] bytes = out.bytes;
+        int position = out.length;
+        bytes[position++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    bytes[position++] = (byte) c;
+                } else {
+                    position = writeEscape(bytes, position, c);
+                }
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 짝이 맞지 않는 서로게이트는 Jackson이 정한 대로 처리하게 넘긴다.
+                if (!Character.isHighSurrogate(c) || i + 1 == length || !Character.isLowSurrogate(value.charAt(i + 1))) {
+                    throw UNSUPPORTED;
+                }
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                bytes[position++] = (byte) (0xE0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        bytes[position++] = '"';
+        out.length = position;
+    }
+
+    private static int writeEscape(byte[] bytes, int position, char c) {
+        bytes[position++] = '\\';
+        switch (c) {
+            case '"' -> bytes[position++] = '"';
+            case '\\' -> bytes[position++] = '\\';
+            case '\b' -> bytes[position++] = 'b';
+            case '\t' -> bytes[position++] = 't';
+            case '\n' -> bytes[position++] = 'n';
+            case '\f' -> bytes[position++] = 'f';
+            case '\r' -> bytes[position++] = 'r';
+            default -> {
+                bytes[position++] = 'u';
+                bytes[position++] = '0';
+                bytes[position++] = '0';
+                bytes[position++] = HEX[c >> 4];
+                bytes[position++] = HEX[c & 0xF];
+            }
+        }
+        return position;
+    }
+
+    // ---- 읽기
+
+    static ItemSaveForm readSaveForm(JsonBuffer in) {
+        ItemSaveForm form = new ItemSaveForm();
+        in.position = 0;
+        if (startObject(in)) {
+            do {
+                switch (readFieldName(in, SAVE_FIELDS)) {
+                    case 0 -> form.setItemName(readString(in));
+                    case 1 -> form.setPrice(readInt(in));
+                    default -> form.setQuantity(readInt(in));
+                }
+            } while (nextField(in));
+        }
+        endDocument(in);
+        return form;
+    }
+
+    static ItemUpdateForm readUpdateForm(JsonBuffer in) {
+        ItemUpdateForm form = new ItemUpdateForm();
+        in.position = 0;
+        if (startObject(in)) {
+            do {
+                switch (readFieldName(in, UPDATE_FIELDS)) {
+                    case 0 -> form.setId(readLong(in));
+                    case 1 -> form.setItemName(readString(in));
+                    case 2 -> form.setPrice(readInt(in));
+                    case 3 -> form.setQuantity(readInt(in));
+                    default -> form.setVersion(readLong(in));
+                }
+            } while (nextField(in));
+        }
+        endDocument(in);
+        return form;
+    }
+
+    /**
+     * @return 필드가 하나라도 있으면 true, 빈 객체면 닫는 괄호까지 읽고 false
+     */
+    private static boolean startObject(JsonBuffer in) {
+        expect(in, '{');
+        if (peek(in) == '}') {
+            in.position++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 값 다음의 쉼표나 닫는 괄호를 읽는다.
+     *
+     * @return 다음 필드가 있으면 true
+     */
+    private static boolean nextField(JsonBuffer in) {
+        int next = peek(in);
+        in.position++;
+        if (next == ',') {
+            return true;
+        }
+        if (next == '}') {
+            return false;
+        }
+        throw UNSUPPORTED;
+    }
+
+    private static void endDocument(JsonBuffer in) {
+        if (peek(in) != -1) {
+            throw UNSUPPORTED;
+        }
+    }
+
+    /**
+     * 필드명을 읽고 콜론까지 넘긴다. 필드명 문자열은 만들지 않고 바이트로 비교한다.
+     *
+     * @return fields에서의 위치
+     */
+    private static int readFieldName(JsonBuffer in, byte[][] fields) {
+        expect(in, '"');
+        byte[] bytes = in.bytes;
+        int start = in.position;
+        int end = start;
+        while (end < in.length && bytes[end] != '"') {
+            if (bytes[end] == '\\') {
+                throw UNSUPPORTED;
+            }
+            end++;
+        }
+        if (end == in.length) {
+            throw UNSUPPORTED;
+        }
+        in.position = end + 1;
+        expect(in, ':');
+        for (int i = 0; i < fields.length; i++) {
+            if (Arrays.equals(bytes, start, end, fields[i], 0, fields[i].length)) {
+                return i;
+            }
+        }
+        throw UNSUPPORTED;
+    }
+
+    private static String readString(JsonBuffer in) {
+        int first = peek(in);
+        if (first == 'n') {
+            readNull(in);
+            return null;
+        }
+        if (first != '"') {
+            throw UNSUPPORTED;
+        }
+        byte[] bytes = in.bytes;
+        int start = ++in.position;
+        boolean ascii = true;
+        int end = start;
+        while (true) {
+            if (end == in.length) {
+                throw UNSUPPORTED;
+            }
+            byte b = bytes[end];
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\' || (b >= 0 && b < 0x20)) {
+                throw UNSUPPORTED;
+            }
+            ascii &= b >= 0;
+            end++;
+        }
+        in.position = end + 1;
+        if (ascii) {
+            return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+        String value = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        // 잘못된 UTF-8이면 대체 문자가 들어간다. 그런 입력을 어떻게 다룰지는 Jackson에 맡긴다.
+        if (value.indexOf('\uFFFD') >= 0) {
+            throw UNSUPPORTED;
+        }
+        return value;
+    }
+
+    private static Integer readInt(JsonBuffer in) {
+        if (peek(in) == 'n') {
+            readNull(in);
+            return null;
+        }
+        long value = readNumber(in, 10);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw UNSUPPORTED;
+        }
+        return (int) value;
+    }
+
+    private static Long readLong(JsonBuffer in) {
+        if (peek(in) == 'n') {
+            readNull(in);
+            return null;
+        }
+        return readNumber(in, 18);
+    }
+
+    /**
+     * 부호와 숫자로만 된 정수를 읽는다. 소수점, 지수, 앞자리 0, maxDigits보다 긴 숫자는 Jackson에 넘긴다.
+     */
+    private static long readNumber(JsonBuffer in, int maxDigits) {
+        byte[] bytes = in.bytes;
+        int position = in.position;
+        boolean negative = position < in.length && bytes[position] == '-';
+        if (negative) {
+            position++;
+        }
+        int start = position;
+        long value = 0;
+        while (position < in.length && bytes[position] >= '0' && bytes[position] <= '9') {
+            value = value * 10 + (bytes[position] - '0');
+            position++;
+        }
+        int digits = position - start;
+        if (digits == 0 || digits > maxDigits || (digits > 1 && bytes[start] == '0')) {
+            throw UNSUPPORTED;
+        }
+        if (position < in.length && (bytes[position] == '.' || bytes[position] == 'e' || bytes[position] == 'E')) {
+            throw UNSUPPORTED;
+        }
+        in.position = position;
+        return negative ? -value : value;
+    }
+
+    private static void readNull(JsonBuffer in) {
+        if (in.position + NULL.length > in.length
+                || !Arrays.equals(in.bytes, in.position, in.position + NULL.length, NULL, 0, NULL.length)) {
+            throw UNSUPPORTED;
+        }
+        in.position += NULL.length;
+    }
+
+    private static void expect(JsonBuffer in, char c) {
+        if (peek(in) != c) {
+            throw UNSUPPORTED;
+        }
+        in.position++;
+    }
+
+    /**
+     * 공백을 건너뛰고 다음 바이트를 읽지 않은 채로 돌려준다. 끝이면 -1
+     */
+    private static int peek(JsonBuffer in) {
+        byte[] bytes = in.bytes;
+        int position = in.position;
+        while (position < in.length) {
+            byte b = bytes[position];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                in.position = position;
+                return b & 0xFF;
+            }
+            position++;
+        }
+        in.position = position;
+        return -1;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,129 @@
+package hello.itemservice.web.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import hello.itemservice.web.basic.form.ItemUpdateForm;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 상품 API의 Item(응답), ItemSaveForm, ItemUpdateForm(요청과 응답)을 {@link ItemJsonCodec}으로 읽고 쓰는 변환기.
+ * <p>
+ * 본문은 풀에서 빌린 버퍼에 한 번에 읽되 MAX_BODY_SIZE까지만 받고, 응답도 버퍼에 다 쓴 뒤 Content-Length와 함께 한 번에 내보낸다.
+ * 코덱이 직접 다루지 않는 입력이나 UTF-8이 아닌 요청은 같은 바이트를 ObjectMapper로 처리하므로, 결과와 오류 응답은 Jackson 변환기와 같다.
+ * 목록(List&lt;ItemSaveForm&gt;)이나 오류 목록 같은 다른 타입은 맡지 않고 Jackson 변환기로 넘어간다.
+ */
+public class ItemJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private static final int POOL_SIZE = 256;
+    // 상품 하나의 요청 본문으로는 충분히 크다. 넘으면 끝까지 읽지 않고 400으로 거절한다.
+    static final int MAX_BODY_SIZE = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final JsonBufferPool pool = new JsonBufferPool(POOL_SIZE);
+
+    public ItemJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == Item.class || clazz == ItemSaveForm.class || clazz == ItemUpdateForm.class;
+    }
+
+    /**
+     * Item은 요청 본문으로 받지 않는다. (Jackson으로도 만들 수 없는 타입이다)
+     */
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz != Item.class && super.canRead(clazz, mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        JsonBuffer buffer = pool.acquire();
+        try {
+            long contentLength = inputMessage.getHeaders().getContentLength();
+            if (contentLength > MAX_BODY_SIZE || !buffer.readFrom(inputMessage.getBody(), MAX_BODY_SIZE)) {
+                throw new HttpMessageNotReadableException("request body exceeds " + MAX_BODY_SIZE + " bytes", inputMessage);
+            }
+            Charset charset = charsetOf(inputMessage.getHeaders().getContentType());
+            if (charset == StandardCharsets.UTF_8) {
+                try {
+                    return clazz == ItemSaveForm.class ? ItemJsonCodec.readSaveForm(buffer) : ItemJsonCodec.readUpdateForm(buffer);
+                } catch (RuntimeException e) {
+                    if (e != ItemJsonCodec.UNSUPPORTED) {
+                        throw e;
+                    }
+                }
+            }
+            return readWithJackson(clazz, buffer, charset, inputMessage);
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        JsonBuffer buffer = pool.acquire();
+        try {
+            try {
+                ItemJsonCodec.write(value, buffer);
+            } catch (RuntimeException e) {
+                if (e != ItemJsonCodec.UNSUPPORTED) {
+                    throw e;
+                }
+                buffer.clear();
+                buffer.put(writeWithJackson(value));
+            }
+            outputMessage.getHeaders().setContentLength(buffer.length);
+            outputMessage.getBody().write(buffer.bytes, 0, buffer.length);
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    private Object readWithJackson(Class<?> clazz, JsonBuffer buffer, Charset charset, HttpInputMessage inputMessage) throws IOException {
+        try {
+            if (charset == StandardCharsets.UTF_8) {
+                return objectMapper.readValue(buffer.bytes, 0, buffer.length, clazz);
+            }
+            return objectMapper.readValue(new InputStreamReader(new ByteArrayInputStream(buffer.bytes, 0, buffer.length), charset), clazz);
+        } catch (InvalidDefinitionException e) {
+            throw new HttpMessageConversionException("Type definition error: " + e.getType(), e);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    private byte[] writeWithJackson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Could not write JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static Charset charsetOf(MediaType contentType) {
+        if (contentType == null || contentType.getCharset() == null) {
+            return StandardCharsets.UTF_8;
+        }
+        Charset charset = contentType.getCharset();
+        return charset.equals(StandardCharsets.UTF_8) ? StandardCharsets.UTF_8 : charset;
+    }
+}
@@ -0,0 +1,64 @@
+package hello.itemservice.web.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * JSON을 읽고 쓸 때 쓰는 늘어나는 바이트 버퍼. 요청마다 새로 만들지 않고 {@link JsonBufferPool}에서 빌려 쓴다.
+ * 읽을 때는 position이 지금 읽는 위치이고, 쓸 때는 length 뒤에 이어 붙인다.
+ */
+final class JsonBuffer {
+
+    byte[] bytes;
+    int length;
+    int position;
+
+    JsonBuffer(int capacity) {
+        bytes = new byte[capacity];
+    }
+
+    void clear() {
+        length = 0;
+        position = 0;
+    }
+
+    /**
+     * 스트림 끝까지 읽어서 버퍼를 채운다. 스트림은 닫지 않는다.
+     *
+     * @return 본문이 maxLength바이트를 넘으면 더 읽지 않고 false
+     */
+    boolean readFrom(InputStream in, int maxLength) throws IOException {
+        clear();
+        while (true) {
+            if (length == bytes.length) {
+                if (length > maxLength) {
+                    return false;
+                }
+                bytes = Arrays.copyOf(bytes, (int) Math.min(bytes.length * 2L, maxLength + 1L));
+            }
+            int read = in.read(bytes, length, bytes.length - length);
+            if (read < 0) {
+                return length <= maxLength;
+            }
+            length += read;
+        }
+    }
+
+    void ensure(int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+    }
+
+    void put(byte b) {
+        ensure(1);
+        bytes[length++] = b;
+    }
+
+    void put(byte[] src) {
+        ensure(src.length);
+        System.arraycopy(src, 0, bytes, length, src.length);
+        length += src.length;
+    }
+}
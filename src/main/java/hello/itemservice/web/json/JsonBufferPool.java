@@ -0,0 +1,35 @@
+package hello.itemservice.web.json;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * JsonBuffer 풀. 가상 스레드에서는 요청마다 스레드가 새로 생기므로 ThreadLocal 대신 공용 큐에 담아 둔다.
+ * ArrayBlockingQueue는 넣고 꺼낼 때 노드를 만들지 않는다. 풀이 비어 있으면 새로 만들고, 너무 커진 버퍼는 돌려받지 않는다.
+ */
+final class JsonBufferPool {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final BlockingQueue<JsonBuffer> buffers;
+
+    JsonBufferPool(int size) {
+        this.buffers = new ArrayBlockingQueue<>(size);
+    }
+
+    JsonBuffer acquire() {
+        JsonBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new JsonBuffer(INITIAL_CAPACITY);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    void release(JsonBuffer buffer) {
+        if (buffer.bytes.length <= MAX_RETAINED_CAPACITY) {
+            buffers.offer(buffer);
+        }
+    }
+}
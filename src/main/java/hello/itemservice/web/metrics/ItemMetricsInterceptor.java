@@ -0,0 +1,67 @@
+package hello.itemservice.web.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.validation.DataBinder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 컨트롤러 호출(handler)과 뷰 렌더링(render) 시간을 재고, 요청이 끝나면 남아 있는 검증 오류를 센다.
+ * binding, validation 단계는 TimedRequestMappingHandlerAdapter가 재고, total_price 단계는 컨트롤러가 ItemRequestMetrics.record로 잰다.
+ */
+public class ItemMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String HANDLER_START = ItemMetricsInterceptor.class.getName() + ".handlerStart";
+    private static final String RENDER_START = ItemMetricsInterceptor.class.getName() + ".renderStart";
+
+    private final ItemRequestMetrics metrics;
+
+    public ItemMetricsInterceptor(ItemRequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(ItemRequestMetrics.ATTRIBUTE, metrics);
+        request.setAttribute(HANDLER_START, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        long now = System.nanoTime();
+        record(request, ItemRequestMetrics.Stage.HANDLER, HANDLER_START, now);
+        request.setAttribute(RENDER_START, now);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // 컨트롤러에서 예외가 나면 postHandle이 불리지 않으므로 렌더링 시작 시각이 없다.
+        record(request, ItemRequestMetrics.Stage.RENDER, RENDER_START, System.nanoTime());
+
+        @SuppressWarnings("unchecked")
+        List<DataBinder> binders = (List<DataBinder>) request.getAttribute(TimedRequestMappingHandlerAdapter.BINDERS_ATTRIBUTE);
+        if (binders != null) {
+            for (DataBinder binder : binders) {
+                if (binder.getBindingResult().hasErrors()) {
+                    metrics.countErrors(request, binder.getBindingResult().getAllErrors());
+                }
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, ItemRequestMetrics.Stage stage, String startAttribute, long end) {
+        if (!(request.getAttribute(startAttribute) instanceof Long start)) {
+            return;
+        }
+        Timer timer = metrics.timer(request, stage);
+        if (timer != null) {
+            timer.record(end - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
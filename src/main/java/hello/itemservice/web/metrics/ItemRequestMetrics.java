@@ -0,0 +1,140 @@
+package hello.itemservice.web.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 단계별 타이머와 검증 오류 카운터.
+ * <p>
+ * item.request.stage (version, handler, stage): 컨트롤러 메서드마다 단계별 시간. 단계는 겹쳐 있다.
+ * handler(컨트롤러 호출 전체) 안에 binding(@ModelAttribute, @RequestBody 인자 만들기)이 있고 그 안에 validation이 있다.
+ * total_price는 handler 안에서 컨트롤러가 직접 하는 totalPriceMin 검사이고, {@link #record}로 잰다.
+ * render는 컨트롤러가 돌려준 뷰를 Thymeleaf로 그리는 시간이다.
+ * <p>
+ * item.validation.errors (version, code): 요청이 끝났을 때 BindingResult에 남아 있는 오류 수.
+ * code는 가장 구체적인 메시지 코드(NotBlank.item.itemName, totalPriceMin.item)다.
+ * 컨트롤러에서 직접 넣는 totalPriceMin도 같은 BindingResult에 들어가므로 함께 센다.
+ * <p>
+ * 요청마다 레지스트리에서 미터를 찾지 않도록 컨트롤러 메서드별로 만들어 둔 타이머를 다시 쓴다.
+ */
+public class ItemRequestMetrics {
+
+    public enum Stage {
+        HANDLER, BINDING, VALIDATION, TOTAL_PRICE, RENDER;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    static final String ATTRIBUTE = ItemRequestMetrics.class.getName();
+
+    private final MeterRegistry registry;
+    private final Map<Method, Timer[]> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    public ItemRequestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 지금 요청을 처리하는 컨트롤러 메서드의 타이머. 컨트롤러가 정해지기 전이면(정적 리소스 등) null
+     */
+    public Timer timer(HttpServletRequest request, Stage stage) {
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler)) {
+            return null;
+        }
+        Timer[] stageTimers = timers.get(handler.getMethod());
+        if (stageTimers == null) {
+            stageTimers = timers.computeIfAbsent(handler.getMethod(), method -> register(request, handler));
+        }
+        return stageTimers[stage.ordinal()];
+    }
+
+    /**
+     * 컨트롤러 안에서 직접 하는 단계를 잰다. ItemMetricsInterceptor가 요청에 넣어 둔 인스턴스를 쓰므로,
+     * 지표를 끈 경우나 요청 스레드가 아닌 곳(배치, 리액티브 스케줄러)에서는 아무것도 하지 않는다.
+     */
+    public static void record(Stage stage, long startNanos) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(ATTRIBUTE) instanceof ItemRequestMetrics metrics) {
+            Timer timer = metrics.timer(request, stage);
+            if (timer != null) {
+                timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    public void countErrors(HttpServletRequest request, List<ObjectError> errors) {
+        String version = versionOf(request);
+        for (ObjectError error : errors) {
+            String[] codes = error.getCodes();
+            String code = codes == null || codes.length == 0 ? "unknown" : codes[0];
+            errorCounters.computeIfAbsent(version + '|' + code, key -> Counter.builder("item.validation.errors")
+                    .description("Validation errors left in BindingResult when the request completed")
+                    .tag("version", version)
+                    .tag("code", code)
+                    .register(registry)).increment();
+        }
+    }
+
+    private Timer[] register(HttpServletRequest request, HandlerMethod handler) {
+        String version = versionOf(request);
+        String handlerName = handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+        Timer[] stageTimers = new Timer[Stage.values().length];
+        for (Stage stage : Stage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder("item.request.stage")
+                    .description("Time spent in each stage of a controller request")
+                    .tag("version", version)
+                    .tag("handler", handlerName)
+                    .tag("stage", stage.tag)
+                    .register(registry);
+        }
+        return stageTimers;
+    }
+
+    /**
+     * 매핑된 URL 패턴으로 컨트롤러 버전을 나눈다. (/basic/items/{itemId} -> basic, /validation/v3/items -> v3)
+     */
+    static String versionOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "none" : versionOf(pattern.toString());
+    }
+
+    static String versionOf(String pattern) {
+        if (pattern.startsWith("/basic/")) {
+            return "basic";
+        }
+        if (pattern.startsWith("/validation/items")) {
+            return "v1";
+        }
+        if (pattern.startsWith("/validation/v2/")) {
+            return "v2";
+        }
+        if (pattern.startsWith("/validation/v3/")) {
+            return "v3";
+        }
+        if (pattern.startsWith("/validation/api/")) {
+            return "api";
+        }
+        if (pattern.startsWith("/reactive/")) {
+            return "reactive";
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,140 @@
+package hello.itemservice.web.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.ServletRequestDataBinder;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.annotation.ModelAttributeMethodProcessor;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.InvocableHandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ExtendedServletRequestDataBinder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestResponseBodyMethodProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataBinderFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * binding, validation 단계를 재는 RequestMappingHandlerAdapter.
+ * <p>
+ * binding: @ModelAttribute, @RequestBody 인자를 만드는 시간. 요청 파라미터/JSON을 객체로 옮기고 검증까지 한다.
+ * validation: DataBinder.validate 시간. 글로벌 Validator와 컨트롤러가 @InitBinder로 붙인 Validator(ItemValidator)를 모두 포함한다.
+ * 만든 DataBinder는 요청 속성에 모아 두고, ItemMetricsInterceptor가 요청이 끝날 때 남은 오류를 센다.
+ */
+public class TimedRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+    static final String BINDERS_ATTRIBUTE = TimedRequestMappingHandlerAdapter.class.getName() + ".binders";
+
+    private final ItemRequestMetrics metrics;
+
+    public TimedRequestMappingHandlerAdapter(ItemRequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        List<HandlerMethodArgumentResolver> resolvers = new ArrayList<>();
+        for (HandlerMethodArgumentResolver resolver : getArgumentResolvers()) {
+            // 경로 변수 같은 단순한 인자는 재는 비용이 더 크므로 객체를 만드는 두 가지만 감싼다.
+            boolean binding = resolver instanceof ModelAttributeMethodProcessor || resolver instanceof RequestResponseBodyMethodProcessor;
+            resolvers.add(binding ? new TimedArgumentResolver(resolver) : resolver);
+        }
+        setArgumentResolvers(resolvers);
+    }
+
+    @Override
+    protected ServletRequestDataBinderFactory createDataBinderFactory(List<InvocableHandlerMethod> binderMethods) {
+        return new ServletRequestDataBinderFactory(binderMethods, getWebBindingInitializer()) {
+            @Override
+            protected ServletRequestDataBinder createBinderInstance(@Nullable Object target, String objectName, NativeWebRequest request) {
+                TimedDataBinder binder = new TimedDataBinder(target, objectName, request.getNativeRequest(HttpServletRequest.class));
+                if (target != null) {
+                    binders(request).add(binder);
+                }
+                return binder;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<WebDataBinder> binders(NativeWebRequest request) {
+        List<WebDataBinder> binders = (List<WebDataBinder>) request.getAttribute(BINDERS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (binders == null) {
+            binders = new ArrayList<>(2);
+            request.setAttribute(BINDERS_ATTRIBUTE, binders, RequestAttributes.SCOPE_REQUEST);
+        }
+        return binders;
+    }
+
+    private void record(HttpServletRequest request, ItemRequestMetrics.Stage stage, long start) {
+        long elapsed = System.nanoTime() - start;
+        Timer timer = request == null ? null : metrics.timer(request, stage);
+        if (timer != null) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private class TimedArgumentResolver implements HandlerMethodArgumentResolver {
+
+        private final HandlerMethodArgumentResolver delegate;
+
+        TimedArgumentResolver(HandlerMethodArgumentResolver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean supportsParameter(MethodParameter parameter) {
+            return delegate.supportsParameter(parameter);
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                      NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+            long start = System.nanoTime();
+            try {
+                return delegate.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
+            } finally {
+                record(webRequest.getNativeRequest(HttpServletRequest.class), ItemRequestMetrics.Stage.BINDING, start);
+            }
+        }
+    }
+
+    private class TimedDataBinder extends ExtendedServletRequestDataBinder {
+
+        private final HttpServletRequest request;
+
+        TimedDataBinder(@Nullable Object target, String objectName, HttpServletRequest request) {
+            super(target, objectName);
+            this.request = request;
+        }
+
+        @Override
+        public void validate() {
+            long start = System.nanoTime();
+            try {
+                super.validate();
+            } finally {
+                record(request, ItemRequestMetrics.Stage.VALIDATION, start);
+            }
+        }
+
+        @Override
+        public void validate(Object... validationHints) {
+            long start = System.nanoTime();
+            try {
+                super.validate(validationHints);
+            } finally {
+                record(request, ItemRequestMetrics.Stage.VALIDATION, start);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package hello.itemservice.web.validation;
+
+import org.springframework.validation.DefaultMessageCodesResolver;
+import org.springframework.validation.MessageCodesResolver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * (에러 코드, 오브젝트 이름, 필드, 필드 타입)마다 한 번만 메시지 코드를 만들어 두고 재사용한다.
+ * ex) range, item, price, Integer -> [range.item.price, range.price, range.java.lang.Integer, range]
+ */
+public class CachingMessageCodesResolver implements MessageCodesResolver {
+
+    // items[123].price 같은 필드 이름이 계속 새로 들어와도 캐시가 한없이 커지지 않게 한다.
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final MessageCodesResolver delegate;
+    private final Map<Key, String[]> cache = new ConcurrentHashMap<>();
+
+    public CachingMessageCodesResolver() {
+        this(new DefaultMessageCodesResolver());
+    }
+
+    public CachingMessageCodesResolver(MessageCodesResolver delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String[] resolveMessageCodes(String errorCode, String objectName) {
+        Key key = new Key(errorCode, objectName, null, null);
+        String[] codes = cache.get(key);
+        if (codes == null) {
+            codes = put(key, delegate.resolveMessageCodes(errorCode, objectName));
+        }
+        return codes.clone();
+    }
+
+    @Override
+    public String[] resolveMessageCodes(String errorCode, String objectName, String field, Class<?> fieldType) {
+        Key key = new Key(errorCode, objectName, field, fieldType);
+        String[] codes = cache.get(key);
+        if (codes == null) {
+            codes = put(key, delegate.resolveMessageCodes(errorCode, objectName, field, fieldType));
+        }
+        return codes.clone();
+    }
+
+    private String[] put(Key key, String[] codes) {
+        if (cache.size() >= MAX_ENTRIES) {
+            cache.clear();
+        }
+        cache.put(key, codes);
+        return codes;
+    }
+
+    private record Key(String errorCode, String objectName, String field, Class<?> fieldType) {
+    }
+}
@@ -0,0 +1,270 @@
+package hello.itemservice.web.validation;
+
+import org.springframework.context.HierarchicalMessageSource;
+import org.springframework.context.MessageSource;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 메시지 코드 목록과 로케일마다 "어떤 메시지가 선택되는지"를 캐시하는 MessageSource.
+ * <p>
+ * 검증 오류 하나는 [range.item.price, range.price, range.java.lang.Integer, range] 같은 코드 목록을 앞에서부터
+ * basename(messages, errors)과 로케일 후보 파일마다 찾아본다. 한 번 찾은 결과(메시지 원문과 파싱된 MessageFormat, 또는 "없음")를
+ * 기억해 두고 다음부터는 인자만 채운다. 선택 규칙은 ReloadableResourceBundleMessageSource와 같다.
+ * <p>
+ * 파일 다시 읽기: cacheMillis가 0 이상이면 캐시 항목도 그 시간이 지나면 다시 찾는다. clearCache()를 부르면 바로 비운다.
+ */
+public class CachingMessageSource implements HierarchicalMessageSource {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Bundles bundles = new Bundles();
+    private final Map<Key, Template> templates = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long cacheMillis = -1;
+
+    public void setBasenames(String... basenames) {
+        bundles.setBasenames(basenames);
+        templates.clear();
+    }
+
+    public void setDefaultEncoding(String defaultEncoding) {
+        bundles.setDefaultEncoding(defaultEncoding);
+    }
+
+    public void setFallbackToSystemLocale(boolean fallbackToSystemLocale) {
+        bundles.setFallbackToSystemLocale(fallbackToSystemLocale);
+    }
+
+    public void setAlwaysUseMessageFormat(boolean alwaysUseMessageFormat) {
+        bundles.setAlwaysUseMessageFormat(alwaysUseMessageFormat);
+    }
+
+    public void setUseCodeAsDefaultMessage(boolean useCodeAsDefaultMessage) {
+        bundles.setUseCodeAsDefaultMessage(useCodeAsDefaultMessage);
+    }
+
+    /**
+     * -1이면 파일을 다시 읽지 않는다.
+     */
+    public void setCacheMillis(long cacheMillis) {
+        bundles.setCacheMillis(cacheMillis);
+        this.cacheMillis = cacheMillis;
+    }
+
+    @Override
+    public void setParentMessageSource(MessageSource parent) {
+        bundles.setParentMessageSource(parent);
+    }
+
+    @Override
+    public MessageSource getParentMessageSource() {
+        return bundles.getParentMessageSource();
+    }
+
+    /**
+     * 프로퍼티 파일과 메시지 캐시를 모두 비워서 다음 요청부터 파일을 다시 읽게 한다.
+     */
+    public void clearCache() {
+        bundles.clearCache();
+        templates.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int getCacheSize() {
+        return templates.size();
+    }
+
+    @Override
+    public String getMessage(String code, Object[] args, String defaultMessage, Locale locale) {
+        if (!cacheable() || code == null) {
+            return bundles.getMessage(code, args, defaultMessage, locale);
+        }
+        Locale localeToUse = locale == null ? Locale.getDefault() : locale;
+        Template template = template(new String[]{code}, localeToUse);
+        if (template.message() == null) {
+            return bundles.getMessage(code, args, defaultMessage, locale);
+        }
+        return format(template, args, localeToUse);
+    }
+
+    @Override
+    public String getMessage(String code, Object[] args, Locale locale) throws NoSuchMessageException {
+        if (!cacheable() || code == null) {
+            return bundles.getMessage(code, args, locale);
+        }
+        Locale localeToUse = locale == null ? Locale.getDefault() : locale;
+        Template template = template(new String[]{code}, localeToUse);
+        if (template.message() == null) {
+            return bundles.getMessage(code, args, locale);
+        }
+        return format(template, args, localeToUse);
+    }
+
+    @Override
+    public String getMessage(MessageSourceResolvable resolvable, Locale locale) throws NoSuchMessageException {
+        String[] codes = resolvable.getCodes();
+        if (!cacheable() || codes == null || codes.length == 0) {
+            return bundles.getMessage(resolvable, locale);
+        }
+        Locale localeToUse = locale == null ? Locale.getDefault() : locale;
+        Template template = template(codes, localeToUse);
+        if (template.message() != null) {
+            return format(template, resolvable.getArguments(), localeToUse);
+        }
+
+        // 어느 코드로도 못 찾은 경우. Bean Validation 기본 메시지처럼 자주 타는 길이라 코드를 다시 찾지 않고 기본 메시지로 간다.
+        String defaultMessage = bundles.defaultMessage(resolvable, localeToUse);
+        if (defaultMessage != null) {
+            return defaultMessage;
+        }
+        throw new NoSuchMessageException(codes[codes.length - 1], localeToUse);
+    }
+
+    /**
+     * 부모 MessageSource가 있으면 코드마다 부모까지 찾아야 하므로 캐시하지 않는다.
+     */
+    private boolean cacheable() {
+        return bundles.getParentMessageSource() == null;
+    }
+
+    private Template template(String[] codes, Locale locale) {
+        Key key = new Key(codes, locale);
+        Template template = templates.get(key);
+        if (template != null && !template.isExpired(cacheMillis)) {
+            hits.increment();
+            return template;
+        }
+        misses.increment();
+        template = lookup(codes, locale);
+        if (templates.size() >= MAX_ENTRIES) {
+            templates.clear();
+        }
+        templates.put(key, template);
+        return template;
+    }
+
+    private Template lookup(String[] codes, Locale locale) {
+        for (String code : codes) {
+            String message = bundles.rawMessage(code, locale);
+            if (message != null) {
+                return new Template(message, System.nanoTime());
+            }
+        }
+        return new Template(null, System.nanoTime());
+    }
+
+    private String format(Template template, Object[] args, Locale locale) {
+        if (!bundles.isAlwaysUseMessageFormat() && (args == null || args.length == 0)) {
+            return template.message();
+        }
+        MessageFormat messageFormat = template.messageFormat(bundles, locale);
+        Object[] resolvedArgs = resolveArguments(args, locale);
+        // MessageFormat은 스레드 안전하지 않다.
+        synchronized (messageFormat) {
+            return messageFormat.format(resolvedArgs);
+        }
+    }
+
+    /**
+     * 인자 중 MessageSourceResolvable(필드 이름 등)도 이 캐시를 거쳐서 푼다.
+     */
+    private Object[] resolveArguments(Object[] args, Locale locale) {
+        if (args == null || args.length == 0) {
+            return new Object[0];
+        }
+        Object[] resolved = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            resolved[i] = args[i] instanceof MessageSourceResolvable resolvable ? getMessage(resolvable, locale) : args[i];
+        }
+        return resolved;
+    }
+
+    private record Key(String[] codes, Locale locale) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && locale.equals(key.locale) && Arrays.equals(codes, key.codes);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(codes) + locale.hashCode();
+        }
+    }
+
+    /**
+     * @param message null이면 어느 코드로도 메시지를 찾지 못한 것
+     */
+    private static final class Template {
+
+        private final String message;
+        private final long loadedAt;
+        private volatile MessageFormat messageFormat;
+
+        Template(String message, long loadedAt) {
+            this.message = message;
+            this.loadedAt = loadedAt;
+        }
+
+        String message() {
+            return message;
+        }
+
+        boolean isExpired(long cacheMillis) {
+            return cacheMillis >= 0 && System.nanoTime() - loadedAt >= cacheMillis * 1_000_000;
+        }
+
+        /**
+         * 인자 없이만 쓰이는 메시지는 MessageFormat 문법이 아닐 수도 있으므로 처음 인자와 함께 쓰일 때 파싱한다.
+         */
+        MessageFormat messageFormat(Bundles bundles, Locale locale) {
+            MessageFormat format = messageFormat;
+            if (format == null) {
+                format = bundles.createMessageFormat(message, locale);
+                messageFormat = format;
+            }
+            return format;
+        }
+    }
+
+    /**
+     * 프로퍼티 파일을 읽고 고르는 일은 ReloadableResourceBundleMessageSource에 맡기고, 필요한 protected 메서드만 열어 둔다.
+     */
+    private static final class Bundles extends ReloadableResourceBundleMessageSource {
+
+        String rawMessage(String code, Locale locale) {
+            return resolveCodeWithoutArguments(code, locale);
+        }
+
+        String defaultMessage(MessageSourceResolvable resolvable, Locale locale) {
+            return getDefaultMessage(resolvable, locale);
+        }
+
+        @Override
+        protected MessageFormat createMessageFormat(String msg, Locale locale) {
+            return super.createMessageFormat(msg, locale);
+        }
+
+        @Override
+        protected boolean isAlwaysUseMessageFormat() {
+            return super.isAlwaysUseMessageFormat();
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package hello.itemservice.web.validation;
+
+import jakarta.validation.GroupSequence;
+import jakarta.validation.MessageInterpolator;
+import jakarta.validation.ValidationException;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.groups.Default;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.metadata.ConstraintDescriptor;
+import jakarta.validation.metadata.PropertyDescriptor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.validator.constraints.Range;
+import org.hibernate.validator.group.GroupSequenceProvider;
+import org.springframework.beans.BeanUtils;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bean Validation 애노테이션을 클래스마다 한 번만 읽어서 "getter 호출 -> 비교" 코드로 바꿔 두고 검증하는 Validator.
+ * <p>
+ * 매 요청마다 Hibernate Validator가 메타데이터를 따라가며 리플렉션으로 값을 꺼내는 대신, 미리 만든 getter 람다와 비교식만 실행한다.
+ * 에러 코드, 인자, 거절된 값, 기본 메시지는 SpringValidatorAdapter가 만드는 것과 같다.
+ * 지원하지 않는 애노테이션(@Valid, 클래스 레벨 제약, EL 메시지 등)이 하나라도 있는 클래스는 통째로 Hibernate Validator에 넘긴다.
+ */
+@Slf4j
+public class CompiledBeanValidator extends SpringValidatorAdapter {
+
+    private static final Set<String> INTERNAL_ATTRIBUTES = Set.of("message", "groups", "payload");
+    private static final Class<?>[] DEFAULT_GROUPS = {Default.class};
+    private static final PropertyCheck[] NOT_COMPILED = new PropertyCheck[0];
+
+    private final jakarta.validation.Validator targetValidator;
+    private final MessageInterpolator messageInterpolator;
+    private final Map<Class<?>, PropertyCheck[]> plans = new ConcurrentHashMap<>();
+
+    public CompiledBeanValidator(ValidatorFactory validatorFactory) {
+        this(validatorFactory.getValidator(), validatorFactory.getMessageInterpolator());
+    }
+
+    public CompiledBeanValidator(jakarta.validation.Validator targetValidator, MessageInterpolator messageInterpolator) {
+        super(targetValidator);
+        this.targetValidator = targetValidator;
+        this.messageInterpolator = messageInterpolator;
+    }
+
+    /**
+     * 첫 요청에서 컴파일 비용을 내지 않도록 미리 컴파일해 둔다.
+     */
+    public void compile(Class<?>... types) {
+        for (Class<?> type : types) {
+            plan(type);
+        }
+    }
+
+    /**
+     * 컴파일된 검증을 쓰는 클래스인지 (false면 Hibernate Validator로 검증한다)
+     */
+    public boolean isCompiled(Class<?> type) {
+        return plan(type) != NOT_COMPILED;
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        validate(target, errors, DEFAULT_GROUPS);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        PropertyCheck[] checks = plan(target.getClass());
+        if (checks == NOT_COMPILED) {
+            super.validate(target, errors, validationHints);
+            return;
+        }
+        Class<?>[] groups = asGroups(validationHints);
+        for (PropertyCheck check : checks) {
+            check.validate(target, errors, groups);
+        }
+    }
+
+    private PropertyCheck[] plan(Class<?> type) {
+        PropertyCheck[] checks = plans.get(type);
+        if (checks == null) {
+            checks = plans.computeIfAbsent(type, this::compileType);
+        }
+        return checks;
+    }
+
+    private static Class<?>[] asGroups(Object[] validationHints) {
+        List<Class<?>> groups = new ArrayList<>(validationHints.length);
+        for (Object hint : validationHints) {
+            if (hint instanceof Class<?> group) {
+                groups.add(group);
+            }
+        }
+        return groups.isEmpty() ? DEFAULT_GROUPS : groups.toArray(new Class<?>[0]);
+    }
+
+    private PropertyCheck[] compileType(Class<?> type) {
+        try {
+            PropertyCheck[] checks = doCompile(type);
+            if (checks == null) {
+                log.info("검증 컴파일 불가, Hibernate Validator 사용 type={}", type.getName());
+                return NOT_COMPILED;
+            }
+            return checks;
+        } catch (RuntimeException | LinkageError e) {
+            log.warn("검증 컴파일 실패, Hibernate Validator 사용 type={}", type.getName(), e);
+            return NOT_COMPILED;
+        }
+    }
+
+    /**
+     * @return 컴파일할 수 없는 제약이 있으면 null
+     */
+    private PropertyCheck[] doCompile(Class<?> type) {
+        if (type.isAnnotationPresent(GroupSequence.class) || type.isAnnotationPresent(GroupSequenceProvider.class)) {
+            return null;
+        }
+        BeanDescriptor bean = targetValidator.getConstraintsForClass(type);
+        if (!bean.getConstraintDescriptors().isEmpty()) {
+            return null;
+        }
+
+        List<PropertyCheck> checks = new ArrayList<>();
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            if (property.isCascaded() || !property.getConstrainedContainerElementTypes().isEmpty()) {
+                return null;
+            }
+            java.beans.PropertyDescriptor beanProperty = BeanUtils.getPropertyDescriptor(type, property.getPropertyName());
+            if (beanProperty == null || beanProperty.getReadMethod() == null) {
+                return null;
+            }
+            Method getter = beanProperty.getReadMethod();
+
+            List<Constraint> constraints = new ArrayList<>();
+            for (ConstraintDescriptor<?> descriptor : property.getConstraintDescriptors()) {
+                ValueCheck valueCheck = compileConstraint(descriptor, getter.getReturnType());
+                Object[] attributeArguments = attributeArguments(descriptor);
+                // EL(${...})을 쓰는 메시지는 Hibernate Validator 내부 컨텍스트가 있어야 만들 수 있다.
+                if (valueCheck == null || attributeArguments == null || descriptor.getMessageTemplate().contains("$")) {
+                    return null;
+                }
+                constraints.add(new Constraint(valueCheck, descriptor.getGroups().toArray(new Class<?>[0]),
+                        determineErrorCode(descriptor), attributeArguments, descriptor));
+            }
+            checks.add(new PropertyCheck(property.getPropertyName(), getterFunction(getter),
+                    constraints.toArray(new Constraint[0])));
+        }
+        return checks.toArray(new PropertyCheck[0]);
+    }
+
+    private static ValueCheck compileConstraint(ConstraintDescriptor<?> descriptor, Class<?> valueType) {
+        Annotation annotation = descriptor.getAnnotation();
+        boolean integral = valueType == Integer.class || valueType == Long.class
+                || valueType == Short.class || valueType == Byte.class;
+
+        if (annotation instanceof NotNull) {
+            return value -> value != null;
+        }
+        if (annotation instanceof NotBlank && CharSequence.class.isAssignableFrom(valueType)) {
+            return value -> value != null && !value.toString().trim().isEmpty();
+        }
+        if (annotation instanceof Range range && integral) {
+            long min = range.min();
+            long max = range.max();
+            return value -> value == null || (((Number) value).longValue() >= min && ((Number) value).longValue() <= max);
+        }
+        if (annotation instanceof Max maxConstraint && integral) {
+            long max = maxConstraint.value();
+            return value -> value == null || ((Number) value).longValue() <= max;
+        }
+        if (annotation instanceof Min minConstraint && integral) {
+            long min = minConstraint.value();
+            return value -> value == null || ((Number) value).longValue() >= min;
+        }
+        return null;
+    }
+
+    /**
+     * SpringValidatorAdapter.getArgumentsForConstraint()에서 필드 이름 인자를 뺀 나머지. 애노테이션 속성을 이름순으로 둔다.
+     * 문자열 속성은 SpringValidatorAdapter가 내부 타입으로 감싸서 같은 결과를 만들 수 없으므로 null을 반환한다.
+     */
+    private static Object[] attributeArguments(ConstraintDescriptor<?> descriptor) {
+        Map<String, Object> attributes = new TreeMap<>();
+        descriptor.getAttributes().forEach((name, value) -> {
+            if (!INTERNAL_ATTRIBUTES.contains(name)) {
+                attributes.put(name, value);
+            }
+        });
+        for (Object value : attributes.values()) {
+            if (value instanceof String) {
+                return null;
+            }
+        }
+        return attributes.values().toArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getterFunction(Method getter) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(getter);
+            return (Function<Object, Object>) LambdaMetafactory.metafactory(lookup, "apply",
+                            MethodType.methodType(Function.class),
+                            MethodType.methodType(Object.class, Object.class),
+                            handle, handle.type().wrap())
+                    .getTarget()
+                    .invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("getter를 만들 수 없습니다: " + getter, e);
+        }
+    }
+
+    private String interpolate(Constraint constraint, Object value) {
+        try {
+            return messageInterpolator.interpolate(constraint.descriptor().getMessageTemplate(),
+                    new InterpolationContext(constraint.descriptor(), value));
+        } catch (ValidationException e) {
+            return constraint.descriptor().getMessageTemplate();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ValueCheck {
+        boolean isValid(Object value);
+    }
+
+    private record Constraint(ValueCheck check, Class<?>[] groups, String errorCode, Object[] attributeArguments,
+                              ConstraintDescriptor<?> descriptor) {
+
+        boolean appliesTo(Class<?>[] requestedGroups) {
+            for (Class<?> requested : requestedGroups) {
+                for (Class<?> group : groups) {
+                    // 요청한 그룹이 제약의 그룹을 상속하면 그 제약도 검증한다.
+                    if (group.isAssignableFrom(requested)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private final class PropertyCheck {
+
+        private final String field;
+        private final Function<Object, Object> getter;
+        private final Constraint[] constraints;
+
+        PropertyCheck(String field, Function<Object, Object> getter, Constraint[] constraints) {
+            this.field = field;
+            this.getter = getter;
+            this.constraints = constraints;
+        }
+
+        void validate(Object target, Errors errors, Class<?>[] groups) {
+            Object value = null;
+            boolean loaded = false;
+            for (Constraint constraint : constraints) {
+                if (!constraint.appliesTo(groups)) {
+                    continue;
+                }
+                if (!loaded) {
+                    value = getter.apply(target);
+                    loaded = true;
+                }
+                if (!constraint.check().isValid(value)) {
+                    reject(constraint, value, errors);
+                }
+            }
+        }
+
+        private void reject(Constraint constraint, Object value, Errors errors) {
+            // 타입 변환에 실패한 필드는 SpringValidatorAdapter처럼 검증 오류를 덧붙이지 않는다.
+            FieldError fieldError = errors.getFieldError(field);
+            if (fieldError != null && fieldError.isBindingFailure()) {
+                return;
+            }
+
+            Object[] arguments = new Object[constraint.attributeArguments().length + 1];
+            arguments[0] = getResolvableField(errors.getObjectName(), field);
+            System.arraycopy(constraint.attributeArguments(), 0, arguments, 1, constraint.attributeArguments().length);
+            String message = interpolate(constraint, value);
+
+            if (errors instanceof BindingResult bindingResult) {
+                String[] codes = bindingResult.resolveMessageCodes(constraint.errorCode(), field);
+                bindingResult.addError(new CompiledFieldError(errors.getObjectName(), field, value, codes, arguments, message));
+            } else {
+                errors.rejectValue(field, constraint.errorCode(), arguments, message);
+            }
+        }
+    }
+
+    /**
+     * SpringValidatorAdapter의 ViolationFieldError처럼 기본 메시지에 {가 있을 때만 MessageFormat으로 다시 렌더링한다.
+     */
+    private static final class CompiledFieldError extends FieldError {
+
+        CompiledFieldError(String objectName, String field, Object rejectedValue, String[] codes, Object[] arguments,
+                           String defaultMessage) {
+            super(objectName, field, rejectedValue, false, codes, arguments, defaultMessage);
+        }
+
+        @Override
+        public boolean shouldRenderDefaultMessage() {
+            return getDefaultMessage() != null && getDefaultMessage().contains("{");
+        }
+    }
+
+    private record InterpolationContext(ConstraintDescriptor<?> descriptor, Object value) implements MessageInterpolator.Context {
+
+        @Override
+        public ConstraintDescriptor<?> getConstraintDescriptor() {
+            return descriptor;
+        }
+
+        @Override
+        public Object getValidatedValue() {
+            return value;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) {
+            if (type.isInstance(this)) {
+                return type.cast(this);
+            }
+            throw new ValidationException("지원하지 않는 타입입니다: " + type.getName());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package hello.itemservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemStoreConfigTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsShardCount() throws Exception {
+        ItemStoreConfig.checkShardLayout(dir, 4);
+        ItemStoreConfig.checkShardLayout(dir, 4);
+
+        assertThat(Files.readString(dir.resolve(ItemStoreConfig.SHARDS_MARKER)).trim()).isEqualTo("4");
+        // 약수로 줄여도 ID로는 드러나지 않으므로 적어 둔 샤드 수로 거부한다.
+        assertThatThrownBy(() -> ItemStoreConfig.checkShardLayout(dir, 2)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> ItemStoreConfig.checkShardLayout(dir, 1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsLayoutWrittenBeforeTheMarker() throws Exception {
+        Path sharded = Files.createDirectories(dir.resolve("sharded"));
+        Files.createDirectories(sharded.resolve("shard-0"));
+        Files.createDirectories(sharded.resolve("shard-3"));
+        assertThatThrownBy(() -> ItemStoreConfig.checkShardLayout(sharded, 1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> ItemStoreConfig.checkShardLayout(sharded, 2)).isInstanceOf(IllegalStateException.class);
+        ItemStoreConfig.checkShardLayout(sharded, 4);
+
+        Path single = Files.createDirectories(dir.resolve("single"));
+        Files.createFile(single.resolve("items-0000000000000001.wal"));
+        assertThatThrownBy(() -> ItemStoreConfig.checkShardLayout(single, 2)).isInstanceOf(IllegalStateException.class);
+        ItemStoreConfig.checkShardLayout(single, 1);
+    }
+}
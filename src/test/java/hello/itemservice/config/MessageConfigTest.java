@@ -0,0 +1,29 @@
+package hello.itemservice.config;
+
+import hello.itemservice.web.validation.CachingMessageSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MessageConfigTest {
+
+    @Test
+    void bindsHitAndMissCounters() {
+        CachingMessageSource messageSource = new CachingMessageSource();
+        messageSource.setBasenames("classpath:messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MessageConfig.bindMetrics(messageSource, registry);
+
+        messageSource.getMessage("label.item.price", null, Locale.KOREA);
+        messageSource.getMessage("label.item.price", null, Locale.KOREA);
+        messageSource.getMessage("label.item.price", null, Locale.KOREA);
+
+        assertThat(registry.get("message.cache").tag("result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("message.cache").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("message.cache.size").gauge().value()).isEqualTo(1);
+    }
+}
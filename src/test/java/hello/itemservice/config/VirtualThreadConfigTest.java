@@ -0,0 +1,33 @@
+package hello.itemservice.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+class VirtualThreadConfigTest {
+
+    @Test
+    void runsTasksOnVirtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "가상 스레드는 JDK 21 이상");
+
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get();
+            assertThat((boolean) Thread.class.getMethod("isVirtual").invoke(thread)).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void failsFastBeforeJdk21() {
+        assumeTrue(Runtime.version().feature() < 21);
+
+        assertThatThrownBy(VirtualThreadConfig::newVirtualThreadPerTaskExecutor)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("JDK");
+    }
+}
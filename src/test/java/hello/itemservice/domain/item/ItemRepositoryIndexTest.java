@@ -0,0 +1,95 @@
+package hello.itemservice.domain.item;
+
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 인덱스를 쓰는 저장소와 전체 스캔만 하는 저장소에 같은 데이터를 넣고 조회 결과가 같은지 비교한다.
+ */
+class ItemRepositoryIndexTest {
+
+    ItemRepository indexed = new ItemRepository(new MemoryItemStore(), true);
+    ItemRepository scanOnly = new ItemRepository(new MemoryItemStore(), false);
+
+    @BeforeEach
+    void beforeEach() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            String name = "item" + random.nextInt(500);
+            int price = 1000 + random.nextInt(100) * 100;
+            int quantity = random.nextInt(50);
+            indexed.save(new Item(name, price, quantity));
+            scanOnly.save(new Item(name, price, quantity));
+        }
+        // 수정된 값도 인덱스에 반영되어야 한다.
+        for (long id = 1; id <= 2_000; id += 7) {
+            Item updateParam = new Item("updated" + id, 500, 99);
+            indexed.update(id, updateParam);
+            scanOnly.update(id, updateParam);
+        }
+    }
+
+    @Test
+    void findByPriceRange() {
+        List<Item> result = indexed.findByPriceRange(3000, 5000, Integer.MAX_VALUE);
+
+        assertThat(ids(result)).containsExactlyElementsOf(ids(scanOnly.findByPriceRange(3000, 5000, Integer.MAX_VALUE)));
+        assertThat(result).allMatch(item -> item.getPrice() >= 3000 && item.getPrice() <= 5000);
+        assertThat(indexed.findByPriceRange(500, 500, Integer.MAX_VALUE)).hasSize(286);
+    }
+
+    @Test
+    void findByQuantityRange() {
+        assertThat(ids(indexed.findByQuantityRange(null, 10, 100)))
+                .containsExactlyElementsOf(ids(scanOnly.findByQuantityRange(null, 10, 100)));
+    }
+
+    @Test
+    void findByNamePrefix() {
+        List<Item> result = indexed.findByNamePrefix("item12", Integer.MAX_VALUE);
+
+        assertThat(ids(result)).containsExactlyElementsOf(ids(scanOnly.findByNamePrefix("item12", Integer.MAX_VALUE)));
+        assertThat(result).allMatch(item -> item.getItemName().startsWith("item12"));
+        assertThat(indexed.findByNamePrefix("updated", Integer.MAX_VALUE)).hasSize(286);
+    }
+
+    @Test
+    void findPageUsesSameOrderAsScan() {
+        for (ItemSort sort : ItemSort.values()) {
+            for (boolean desc : new boolean[]{false, true}) {
+                ItemSearchCond cond = new ItemSearchCond();
+                cond.setSort(sort);
+                cond.setDesc(desc);
+                cond.setSize(37);
+                cond.setMinQuantity(5);
+
+                assertThat(ids(readAll(indexed, cond))).as("%s desc=%s", sort, desc)
+                        .containsExactlyElementsOf(ids(readAll(scanOnly, cond)));
+            }
+        }
+    }
+
+    private List<Item> readAll(ItemRepository repository, ItemSearchCond cond) {
+        cond.setCursor(null);
+        List<Item> items = new ArrayList<>();
+        ItemPage page = repository.findPage(cond);
+        items.addAll(page.getItems());
+        while (page.isHasNext()) {
+            cond.setCursor(page.getNextCursor());
+            page = repository.findPage(cond);
+            items.addAll(page.getItems());
+        }
+        return items;
+    }
+
+    private List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package hello.itemservice.domain.item;
+
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemRepositorySearchTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void ranksExactThenPrefixThenInfix(boolean indexed) {
+        ItemRepository repository = new ItemRepository(new MemoryItemStore(), indexed);
+        repository.save(new Item("블루투스 무선 마우스", 30000, 10));
+        repository.save(new Item("무선마우스", 20000, 10));
+        repository.save(new Item("마우스", 10000, 10));
+        repository.save(new Item("마우스패드", 5000, 10));
+        repository.save(new Item("키보드", 40000, 10));
+
+        assertThat(names(repository.search("마우스", 10))).containsExactly("마우스", "블루투스 무선 마우스", "마우스패드", "무선마우스");
+        assertThat(names(repository.search("무선 마우스", 10))).containsExactly("블루투스 무선 마우스", "무선마우스");
+        assertThat(names(repository.search("마우스", 2))).containsExactly("마우스", "블루투스 무선 마우스");
+        assertThat(repository.search("트랙볼", 10)).isEmpty();
+        assertThat(repository.search("  ", 10)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void normalizesCaseAndWidth(boolean indexed) {
+        ItemRepository repository = new ItemRepository(new MemoryItemStore(), indexed);
+        repository.save(new Item("USB-C Cable", 10000, 1));
+        repository.save(new Item("ｕｓｂ Hub", 10000, 1));
+
+        assertThat(names(repository.search("usb", 10))).containsExactly("ｕｓｂ Hub", "USB-C Cable");
+        assertThat(names(repository.search("CAB", 10))).containsExactly("USB-C Cable");
+        // 한 글자는 단어 앞부분으로만 찾는다.
+        assertThat(names(repository.search("h", 10))).containsExactly("ｕｓｂ Hub");
+        assertThat(repository.search("b", 10)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void followsUpdatesAndClear(boolean indexed) {
+        ItemRepository repository = new ItemRepository(new MemoryItemStore(), indexed);
+        Item item = repository.save(new Item("itemA", 10000, 1));
+
+        repository.update(item.getId(), new Item("노트북 거치대", 10000, 1));
+
+        assertThat(repository.search("itema", 10)).isEmpty();
+        assertThat(names(repository.search("거치", 10))).containsExactly("노트북 거치대");
+
+        repository.clearStore();
+        assertThat(repository.search("거치대", 10)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void findsFirstPagesAmongManyMatches(boolean indexed) {
+        ItemRepository repository = new ItemRepository(new MemoryItemStore(), indexed);
+        for (int i = 0; i < 10_000; i++) {
+            repository.save(new Item("item" + i, 10000, 1));
+        }
+        repository.save(new Item("very long name " + "x".repeat(100) + " item", 10000, 1));
+
+        List<Item> result = repository.search("item", 12);
+
+        assertThat(names(result)).containsExactly("very long name " + "x".repeat(100) + " item",
+                "item0", "item1", "item2", "item3", "item4", "item5", "item6", "item7", "item8", "item9", "item10");
+        assertThat(names(repository.search("tem99", 3))).containsExactly("item99", "item990", "item991");
+    }
+
+    @Test
+    void slowLoadDuringSearchDoesNotBlockWrites() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MemoryItemStore store = new MemoryItemStore() {
+            @Override
+            public Item findById(long id) {
+                if (Thread.currentThread().getName().equals("slow-search")) {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.findById(id);
+            }
+        };
+        ItemRepository repository = new ItemRepository(store, true);
+        repository.save(new Item("마우스", 10000, 10));
+
+        CompletableFuture<List<Item>> search = new CompletableFuture<>();
+        Thread searcher = new Thread(() -> search.complete(repository.search("마우스", 10)), "slow-search");
+        searcher.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 검색이 상품을 읽는 동안에도 쓰기는 색인 락을 기다리지 않는다.
+        CompletableFuture<Item> save = CompletableFuture.supplyAsync(() -> repository.save(new Item("마우스패드", 5000, 10)));
+        assertThat(save.get(5, TimeUnit.SECONDS).getItemName()).isEqualTo("마우스패드");
+
+        release.countDown();
+        assertThat(names(search.get(5, TimeUnit.SECONDS))).startsWith("마우스");
+        searcher.join();
+    }
+
+    private List<String> names(List<Item> items) {
+        return items.stream().map(Item::getItemName).toList();
+    }
+}
@@ -4,7 +4,16 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -21,9 +30,12 @@ class ItemRepositoryTest {
     void save() {
         Item item = new Item("itemA", 10000, 10);
         Item savedItem = itemRepository.save(item);
-        Item findItem = itemRepository.findById(item.getId());
+        Item findItem = itemRepository.findById(savedItem.getId());
 
         assertThat(findItem).isEqualTo(savedItem);
+        // 넘긴 상품은 그대로이고, ID와 버전이 매겨진 새 상품이 저장된다.
+        assertThat(item.getId()).isNull();
+        assertThat(savedItem.getVersion()).isEqualTo(1L);
     }
 
     @Test
@@ -31,13 +43,102 @@ class ItemRepositoryTest {
         Item item1 = new Item("item1", 10000, 10);
         Item item2 = new Item("item2", 20000, 20);
 
-        itemRepository.save(item1);
-        itemRepository.save(item2);
+        Item savedItem1 = itemRepository.save(item1);
+        Item savedItem2 = itemRepository.save(item2);
 
         List<Item> result = itemRepository.findAll();
 
         assertThat(result.size()).isEqualTo(2);
-        assertThat(result).contains(item1, item2);
+        assertThat(result).contains(savedItem1, savedItem2);
+    }
+
+    @Test
+    void findAllSharesSnapshotUntilWrite() {
+        Item savedItem = itemRepository.save(new Item("item1", 10000, 10));
+
+        List<Item> first = itemRepository.findAll();
+        assertThat(itemRepository.findAll()).isSameAs(first);
+        assertThatThrownBy(() -> first.add(new Item("item2", 20000, 20)))
+                .isInstanceOf(UnsupportedOperationException.class);
+
+        itemRepository.update(savedItem.getId(), new Item("item1-1", 11000, 11));
+        List<Item> second = itemRepository.findAll();
+        assertThat(second).isNotSameAs(first);
+        assertThat(second).extracting(Item::getItemName).containsExactly("item1-1");
+        // 앞서 내준 스냅샷은 바뀌지 않는다.
+        assertThat(first).extracting(Item::getItemName).containsExactly("item1");
+
+        itemRepository.clearStore();
+        assertThat(itemRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void findPage() {
+        for (int i = 1; i <= 25; i++) {
+            itemRepository.save(new Item("item" + i, i * 1000, 100 - i));
+        }
+
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setSize(10);
+        cond.setSort(ItemSort.PRICE);
+        cond.setDesc(true);
+        cond.setMinPrice(3000);
+
+        List<Item> collected = new ArrayList<>();
+        ItemPage page = itemRepository.findPage(cond);
+        collected.addAll(page.getItems());
+        while (page.isHasNext()) {
+            cond.setCursor(page.getNextCursor());
+            page = itemRepository.findPage(cond);
+            collected.addAll(page.getItems());
+        }
+
+        // 3000원 이상인 23개가 가격 역순으로 빠짐없이, 중복 없이 조회된다.
+        assertThat(collected).hasSize(23);
+        assertThat(collected).extracting(Item::getPrice).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(collected.get(0).getPrice()).isEqualTo(25000);
+        assertThat(collected.get(22).getPrice()).isEqualTo(3000);
+    }
+
+    @Test
+    void findPageByNameKeepsNullAndEmptyNamesApart() {
+        for (String name : new String[]{null, "", "a", null, "", "a", null}) {
+            itemRepository.save(new Item(name, 10000, 10));
+        }
+
+        ItemSearchCond cond = new ItemSearchCond();
+        cond.setSize(2);
+        cond.setSort(ItemSort.NAME);
+
+        List<Item> collected = new ArrayList<>();
+        ItemPage page = itemRepository.findPage(cond);
+        collected.addAll(page.getItems());
+        while (page.isHasNext()) {
+            cond.setCursor(page.getNextCursor());
+            page = itemRepository.findPage(cond);
+            collected.addAll(page.getItems());
+        }
+
+        // null 상품명이 빈 상품명으로 바뀌어 커서를 넘어가 버리면 null 상품들이 빠진다.
+        assertThat(collected).extracting(Item::getItemName).containsExactly(null, null, null, "", "", "a", "a");
+        assertThat(collected).extracting(Item::getId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void malformedCursorStartsFromFirstPage() {
+        for (int i = 1; i <= 5; i++) {
+            itemRepository.save(new Item("item" + i, i * 1000, 10));
+        }
+
+        for (String cursor : List.of("abc", "1000:", ":x", "abc:3", "99999999999999999999")) {
+            ItemSearchCond cond = new ItemSearchCond();
+            cond.setSize(2);
+            cond.setSort(ItemSort.PRICE);
+            cond.setCursor(cursor);
+
+            assertThat(itemRepository.findPage(cond).getItems()).as(cursor)
+                    .extracting(Item::getPrice).containsExactly(1000, 2000);
+        }
     }
 
     @Test
@@ -55,4 +156,135 @@ class ItemRepositoryTest {
         assertThat(findItem.getPrice()).isEqualTo(updateItem.getPrice());
         assertThat(findItem.getQuantity()).isEqualTo(updateItem.getQuantity());
     }
-}
\ No newline at end of file
+
+    @Test
+    void saveAllAndUpdateAll() {
+        List<Item> savedItems = itemRepository.saveAll(List.of(new Item("item1", 10000, 10), new Item("item2", 20000, 20)));
+        Long itemId = savedItems.get(0).getId();
+
+        Item first = new Item(itemId, "item1-1", 30000, 30, null);
+        Item missing = new Item(9999L, "none", 1000, 1, null);
+        Item second = new Item(itemId, "item1-2", 40000, 40, null);
+
+        List<Item> updatedItems = itemRepository.updateAll(List.of(first, missing, second));
+
+        assertThat(updatedItems).hasSize(3);
+        assertThat(updatedItems.get(1)).isNull();
+        assertThat(itemRepository.findById(itemId).getItemName()).isEqualTo("item1-2");
+        // 인덱스에도 마지막 수정만 남아 있어야 한다.
+        assertThat(itemRepository.findByPriceRange(0, 100000, 10))
+                .extracting(Item::getPrice)
+                .containsExactly(20000, 40000);
+    }
+
+    @Test
+    void seedIfEmpty() {
+        assertThat(itemRepository.seedIfEmpty(List.of(new Item("item1", 100, 10), new Item("item2", 2000, 45)))).isTrue();
+        // 다시 떠서 또 부르더라도 이미 상품이 있으면 넣지 않는다.
+        assertThat(itemRepository.seedIfEmpty(List.of(new Item("item1", 100, 10)))).isFalse();
+
+        assertThat(itemRepository.findAll()).extracting(Item::getItemName).containsExactlyInAnyOrder("item1", "item2");
+    }
+
+    @Test
+    void compareAndSetUpdate() {
+        Item savedItem = itemRepository.save(new Item("item1", 10000, 10));
+        Long itemId = savedItem.getId();
+        assertThat(savedItem.getVersion()).isEqualTo(1L);
+
+        Item updatedItem = itemRepository.update(itemId, new Item("item2", 20000, 20), 1L);
+        assertThat(updatedItem.getVersion()).isEqualTo(2L);
+
+        // 버전 1을 보고 수정하려던 두 번째 요청은 반영되지 않는다.
+        assertThatThrownBy(() -> itemRepository.update(itemId, new Item("item3", 30000, 30), 1L))
+                .isInstanceOfSatisfying(ItemVersionConflictException.class,
+                        e -> assertThat(e.getCurrentVersion()).isEqualTo(2L));
+        assertThat(itemRepository.findById(itemId).getItemName()).isEqualTo("item2");
+        assertThat(itemRepository.update(9999L, new Item("none", 1000, 1), 1L)).isNull();
+
+        Item stale = new Item(itemId, "stale", 1000, 1, 1L);
+        Item current = new Item(itemId, "item4", 40000, 40, 2L);
+        Item next = new Item(itemId, "item5", 50000, 50, 3L);
+        assertThat(itemRepository.updateAll(List.of(stale, current, next)))
+                .extracting(item -> item == null ? null : item.getVersion())
+                .containsExactly(null, 3L, 4L);
+        assertThat(itemRepository.findById(itemId).getItemName()).isEqualTo("item5");
+    }
+
+    @Test
+    void concurrentCompareAndSetUpdatesAreNotLost() throws Exception {
+        Long itemId = itemRepository.save(new Item("counter", 1000, 0)).getId();
+        int threadCount = 8;
+        int incrementsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < incrementsPerThread; i++) {
+                    // 읽고, 읽은 버전으로 수정하고, 충돌하면 다시 읽는다.
+                    while (true) {
+                        Item item = itemRepository.findById(itemId);
+                        try {
+                            itemRepository.update(itemId, new Item(item.getItemName(), item.getPrice(), item.getQuantity() + 1),
+                                    item.getVersion());
+                            break;
+                        } catch (ItemVersionConflictException e) {
+                            // 다시 시도
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Item item = itemRepository.findById(itemId);
+        assertThat(item.getQuantity()).isEqualTo(threadCount * incrementsPerThread);
+        assertThat(item.getVersion()).isEqualTo(1L + threadCount * incrementsPerThread);
+    }
+
+    @Test
+    void concurrentSaveAndUpdate() throws Exception {
+        int threadCount = 16;
+        int itemsPerThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int threadNo = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < itemsPerThread; i++) {
+                    Item saved = itemRepository.save(new Item("item-" + threadNo + "-" + i, 1000 + i, 10));
+                    ids.add(saved.getId());
+                    // 방금 저장한 상품을 다른 스레드들이 저장하는 동안 수정한다.
+                    itemRepository.update(saved.getId(), new Item(saved.getItemName(), saved.getPrice() + 1, 20));
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        Set<Long> allIds = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            allIds.addAll(future.get());
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        int total = threadCount * itemsPerThread;
+        // ID가 유실되거나 중복 발급되지 않아야 한다.
+        assertThat(allIds).hasSize(total);
+        assertThat(allIds).allMatch(id -> id >= 1 && id <= total);
+        assertThat(itemRepository.findAll()).hasSize(total);
+        for (Long id : allIds) {
+            Item findItem = itemRepository.findById(id);
+            assertThat(findItem.getId()).isEqualTo(id);
+            assertThat(findItem.getQuantity()).isEqualTo(20);
+        }
+    }
+}
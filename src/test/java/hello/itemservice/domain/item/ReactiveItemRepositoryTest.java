@@ -0,0 +1,97 @@
+package hello.itemservice.domain.item;
+
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReactiveItemRepositoryTest {
+
+    private static final int ITEMS = 1000;
+
+    AtomicInteger visited = new AtomicInteger();
+    ItemRepository itemRepository = new ItemRepository(new MemoryItemStore() {
+        @Override
+        public void forEach(Consumer<? super Item> action) {
+            super.forEach(item -> {
+                visited.incrementAndGet();
+                action.accept(item);
+            });
+        }
+    }, false);
+    ReactiveItemRepository reactiveItemRepository = new ReactiveItemRepository(itemRepository);
+
+    @Test
+    void findAllVisitsOnlyWhatWasRequested() throws Exception {
+        for (int i = 0; i < ITEMS; i++) {
+            itemRepository.save(new Item("item" + i, 1000 + i, i));
+        }
+        visited.set(0);
+        List<Item> received = new CopyOnWriteArrayList<>();
+        BaseSubscriber<Item> subscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(10);
+            }
+
+            @Override
+            protected void hookOnNext(Item item) {
+                received.add(item);
+            }
+        };
+
+        reactiveItemRepository.findAll().subscribe(subscriber);
+        await(received::size, 10);
+        Thread.sleep(100);
+        // 요청하지 않은 상품까지 미리 훑어 쌓아 두지 않는다.
+        assertThat(visited.get()).isLessThanOrEqualTo(11);
+
+        subscriber.request(ITEMS);
+        await(received::size, ITEMS);
+        assertThat(received).extracting(Item::getId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void findAllStopsWhenCancelled() throws Exception {
+        for (int i = 0; i < ITEMS; i++) {
+            itemRepository.save(new Item("item" + i, 1000 + i, i));
+        }
+        visited.set(0);
+        AtomicInteger received = new AtomicInteger();
+        BaseSubscriber<Item> subscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(Item item) {
+                received.incrementAndGet();
+            }
+        };
+
+        reactiveItemRepository.findAll().subscribe(subscriber);
+        await(received::get, 1);
+        subscriber.cancel();
+        Thread.sleep(300);
+
+        assertThat(visited.get()).isLessThanOrEqualTo(2);
+    }
+
+    private static void await(IntSupplier actual, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (actual.getAsInt() < expected) {
+            assertThat(System.nanoTime()).as("waiting for %d items", expected).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
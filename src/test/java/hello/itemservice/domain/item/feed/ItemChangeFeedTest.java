@@ -0,0 +1,156 @@
+package hello.itemservice.domain.item.feed;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemChangeFeedTest {
+
+    ItemRepository itemRepository = new ItemRepository();
+    ItemChangeFeed feed = new ItemChangeFeed(itemRepository, 8);
+
+    @Test
+    void publishesInsertsAndUpdatesInOrder() {
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.update(itemA.getId(), new Item("itemA", 12000, 5));
+
+        ItemChangeBatch batch = feed.read(0, 100);
+
+        assertThat(batch.isTruncated()).isFalse();
+        assertThat(batch.getNextOffset()).isEqualTo(2);
+        assertThat(batch.getEvents()).containsExactly(
+                new ItemChangeEvent(0, batch.getEvents().get(0).timestamp(), ItemChangeType.INSERT, itemA.getId(), 1L,
+                        null, 10000, null, 10),
+                new ItemChangeEvent(1, batch.getEvents().get(1).timestamp(), ItemChangeType.UPDATE, itemA.getId(), 2L,
+                        10000, 12000, 10, 5));
+    }
+
+    @Test
+    void readsInBatchesFromOffset() {
+        for (int i = 0; i < 5; i++) {
+            itemRepository.save(new Item("item" + i, 10000, 1));
+        }
+
+        ItemChangeBatch first = feed.read(0, 3);
+        ItemChangeBatch second = feed.read(first.getNextOffset(), 3);
+        ItemChangeBatch empty = feed.read(second.getNextOffset(), 3);
+
+        assertThat(first.getEvents()).extracting(ItemChangeEvent::offset).containsExactly(0L, 1L, 2L);
+        assertThat(second.getEvents()).extracting(ItemChangeEvent::offset).containsExactly(3L, 4L);
+        assertThat(empty.getEvents()).isEmpty();
+        assertThat(empty.getNextOffset()).isEqualTo(5);
+        assertThat(empty.isTruncated()).isFalse();
+    }
+
+    @Test
+    void keepsOnlyCapacityEvents() {
+        for (int i = 0; i < 20; i++) {
+            itemRepository.save(new Item("item" + i, 10000, 1));
+        }
+
+        ItemChangeBatch batch = feed.read(3, 100);
+
+        assertThat(batch.isTruncated()).isTrue();
+        assertThat(batch.getEvents()).extracting(ItemChangeEvent::offset)
+                .containsExactly(12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L);
+        assertThat(feed.read(12, 100).isTruncated()).isFalse();
+        // 서버가 다시 떠서 순번이 처음부터 시작된 경우
+        assertThat(feed.read(100, 100).isTruncated()).isTrue();
+    }
+
+    @Test
+    void offsetFromAnotherEpochIsTruncated() {
+        for (int i = 0; i < 5; i++) {
+            itemRepository.save(new Item("item" + i, 10000, 1));
+        }
+        ItemChangeFeed restarted = new ItemChangeFeed(8);
+
+        // 다시 뜬 피드에서도 offset 3은 아직 남아 있는 값이지만 epoch가 다르다.
+        ItemChangeBatch batch = feed.read(restarted.epoch(), 3, 100);
+
+        assertThat(restarted.epoch()).isNotEqualTo(feed.epoch());
+        assertThat(batch.isTruncated()).isTrue();
+        assertThat(batch.getEpoch()).isEqualTo(feed.epoch());
+        assertThat(batch.getEvents()).extracting(ItemChangeEvent::offset).containsExactly(0L, 1L, 2L, 3L, 4L);
+        assertThat(feed.read(feed.epoch(), 3, 100).isTruncated()).isFalse();
+        assertThat(feed.read(0, 3, 100).isTruncated()).isFalse();
+    }
+
+    @Test
+    void publishesClear() {
+        itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.clearStore();
+
+        List<ItemChangeEvent> events = feed.read(0, 100).getEvents();
+
+        assertThat(events).extracting(ItemChangeEvent::type).containsExactly(ItemChangeType.INSERT, ItemChangeType.CLEAR);
+    }
+
+    @Test
+    void wakesUpWaiterOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        feed.whenAvailable(0, calls::incrementAndGet);
+        assertThat(calls).hasValue(0);
+
+        itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.save(new Item("itemB", 10000, 10));
+        assertThat(calls).hasValue(1);
+
+        // 이미 쌓인 이벤트가 있으면 바로 부른다.
+        feed.whenAvailable(1, calls::incrementAndGet);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void cancelledWaiterIsNotCalled() {
+        AtomicInteger calls = new AtomicInteger();
+        Runnable cancel = feed.whenAvailable(0, calls::incrementAndGet);
+        cancel.run();
+
+        itemRepository.save(new Item("itemA", 10000, 10));
+
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void concurrentWritersGetDistinctOffsets() throws Exception {
+        ItemChangeFeed bigFeed = new ItemChangeFeed(itemRepository, 1 << 16);
+        int threads = 8;
+        int perThread = 2_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    itemRepository.save(new Item("item", 10000, 1));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        ItemChangeBatch batch = bigFeed.read(0, threads * perThread);
+        assertThat(batch.getEvents()).hasSize(threads * perThread);
+        assertThat(batch.getEvents()).extracting(ItemChangeEvent::itemId).doesNotHaveDuplicates();
+        for (int i = 0; i < batch.getEvents().size(); i++) {
+            assertThat(batch.getEvents().get(i).offset()).isEqualTo(i);
+        }
+    }
+}
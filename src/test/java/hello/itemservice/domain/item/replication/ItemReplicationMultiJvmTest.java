@@ -0,0 +1,217 @@
+package hello.itemservice.domain.item.replication;
+
+import hello.itemservice.ItemServiceApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 리더 하나와 팔로워들을 각각 다른 JVM으로 localhost에 띄우고 HTTP로 확인한다.
+ * 로드 밸런서가 저장 요청과 그 뒤의 리다이렉트를 서로 다른 노드로 보내는 경우를 흉내 낸다.
+ */
+class ItemReplicationMultiJvmTest {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(90);
+
+    @TempDir
+    static Path logDir;
+
+    private static final List<Node> nodes = new ArrayList<>();
+    private static final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private static int replicationPort;
+    private static Node leader;
+    private static Node followerA;
+    private static Node followerB;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        replicationPort = freePort();
+        leader = start("leader", "--item.replication.role=leader", "--item.replication.port=" + replicationPort);
+        followerA = start("followerA", followerArgs());
+        followerB = start("followerB", followerArgs());
+        for (Node node : nodes) {
+            node.awaitUp();
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        for (Node node : nodes) {
+            node.process.destroy();
+        }
+        for (Node node : nodes) {
+            try {
+                node.process.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    void redirectAfterSaveOnFollowerIsServedByAnotherNode() throws Exception {
+        HttpResponse<String> saved = followerA.post("/validation/v3/items/add",
+                "itemName=replicated&price=10000&quantity=10", null);
+        assertThat(saved.statusCode()).isEqualTo(302);
+        String location = path(saved.headers().firstValue("Location").orElseThrow());
+        String cookie = replicationCookie(saved);
+        assertThat(location).startsWith("/validation/v3/items/");
+        assertThat(cookie).startsWith("ITEM_REPLICATION=");
+
+        HttpResponse<String> onFollowerB = followerB.get(location, cookie);
+        assertThat(onFollowerB.statusCode()).isEqualTo(200);
+        assertThat(onFollowerB.body()).contains("replicated");
+
+        HttpResponse<String> onLeader = leader.get(location, cookie);
+        assertThat(onLeader.statusCode()).isEqualTo(200);
+        assertThat(onLeader.body()).contains("replicated");
+    }
+
+    @Test
+    void followersDoNotSeedTheirOwnItems() throws Exception {
+        // 리더에 쓴 위치를 쿠키로 넘겨서 팔로워가 그때까지 따라잡은 뒤에 비교한다.
+        String cookie = replicationCookie(leader.post("/validation/v3/items/add",
+                "itemName=marker&price=10000&quantity=1", null));
+        HttpResponse<String> onLeader = leader.get("/validation/v3/items?size=1000", cookie);
+        HttpResponse<String> onFollower = followerA.get("/validation/v3/items?size=1000", cookie);
+
+        // 예제 상품은 리더만 넣는다. 팔로워가 넣었다면 같은 이름의 상품이 여러 벌 생긴다.
+        assertThat(count(onFollower.body(), ">item1<")).isEqualTo(count(onLeader.body(), ">item1<"));
+    }
+
+    @Test
+    void lateFollowerCatchesUpFromSnapshot() throws Exception {
+        HttpResponse<String> saved = leader.post("/validation/v3/items/add",
+                "itemName=beforeLateFollower&price=20000&quantity=5", null);
+        assertThat(saved.statusCode()).isEqualTo(302);
+        String location = path(saved.headers().firstValue("Location").orElseThrow());
+
+        Node late = start("followerLate", followerArgs());
+        late.awaitUp();
+
+        HttpResponse<String> onLate = late.get(location, replicationCookie(saved));
+        assertThat(onLate.statusCode()).isEqualTo(200);
+        assertThat(onLate.body()).contains("beforeLateFollower");
+    }
+
+    private static String[] followerArgs() {
+        return new String[]{"--item.replication.role=follower", "--item.replication.leader=localhost:" + replicationPort};
+    }
+
+    private static Node start(String name, String... args) throws IOException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx256m");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ItemServiceApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--spring.main.banner-mode=off");
+        command.addAll(List.of(args));
+        Path log = logDir.resolve(name + ".log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        Node node = new Node(name, port, process, log);
+        nodes.add(node);
+        return node;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String path(String location) {
+        URI uri = URI.create(location);
+        return uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+
+    private static String replicationCookie(HttpResponse<?> response) {
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(value -> value.startsWith("ITEM_REPLICATION="))
+                .map(value -> value.split(";", 2)[0])
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private record Node(String name, int port, Process process, Path log) {
+
+        void awaitUp() throws Exception {
+            long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    fail(name + " exited:\n" + tail());
+                }
+                try {
+                    if (get("/actuator/health", null).statusCode() == 200) {
+                        return;
+                    }
+                } catch (ConnectException e) {
+                    // 아직 뜨는 중이다.
+                }
+                Thread.sleep(200);
+            }
+            fail(name + " did not start in " + STARTUP_TIMEOUT + ":\n" + tail());
+        }
+
+        HttpResponse<String> get(String path, String cookie) throws Exception {
+            return client.send(request(path, cookie).GET().build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpResponse<String> post(String path, String form, String cookie) throws Exception {
+            return client.send(request(path, cookie)
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        private HttpRequest.Builder request(String path, String cookie) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                    .timeout(Duration.ofSeconds(10));
+            if (cookie != null) {
+                builder.header("Cookie", cookie);
+            }
+            return builder;
+        }
+
+        private String tail() throws IOException {
+            try (Stream<String> lines = Files.lines(log)) {
+                List<String> all = lines.toList();
+                return String.join("\n", all.subList(Math.max(0, all.size() - 40), all.size()));
+            }
+        }
+    }
+}
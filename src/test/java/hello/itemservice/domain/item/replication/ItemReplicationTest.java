@@ -0,0 +1,338 @@
+package hello.itemservice.domain.item.replication;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemChangeListener;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemVersionConflictException;
+import hello.itemservice.domain.item.store.FsyncPolicy;
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import hello.itemservice.domain.item.store.WalItemStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemReplicationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final String SECRET = "test-secret";
+
+    private final List<AutoCloseable> nodes = new ArrayList<>();
+
+    @AfterEach
+    void closeNodes() throws Exception {
+        for (AutoCloseable node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test
+    void writesOnFollowerAreOrderedByLeaderAndReadableEverywhere() throws Exception {
+        ItemRepository leaderRepository = new ItemRepository();
+        ItemReplicationLeader leader = leader(leaderRepository, 1000);
+        ItemRepository repositoryA = new ItemRepository();
+        ItemRepository repositoryB = new ItemRepository();
+        ItemReplicationFollower followerA = follower(repositoryA, leader);
+        ItemReplicationFollower followerB = follower(repositoryB, leader);
+
+        Item saved = repositoryA.save(new Item("itemA", 10000, 10));
+
+        // 넘긴 쓰기는 이 노드에 반영된 뒤에 반환한다.
+        assertThat(repositoryA.findById(saved.getId())).isEqualTo(saved);
+        assertThat(leaderRepository.findById(saved.getId())).isEqualTo(saved);
+        assertThat(followerA.awaitApplied(followerA.lastWrite(), TIMEOUT)).isTrue();
+
+        assertThat(followerB.awaitApplied(followerA.lastWrite(), TIMEOUT)).isTrue();
+        assertThat(repositoryB.findById(saved.getId())).isEqualTo(saved);
+
+        Item itemB = leaderRepository.save(new Item("itemB", 20000, 20));
+        assertThat(followerA.awaitApplied(leader.lastWrite(), TIMEOUT)).isTrue();
+        assertThat(repositoryA.findAll()).containsExactlyInAnyOrder(saved, itemB);
+    }
+
+    @Test
+    void versionCheckHappensOnLeader() throws Exception {
+        ItemRepository leaderRepository = new ItemRepository();
+        ItemReplicationLeader leader = leader(leaderRepository, 1000);
+        ItemRepository repositoryA = new ItemRepository();
+        ItemRepository repositoryB = new ItemRepository();
+        follower(repositoryA, leader);
+        ItemReplicationFollower followerB = follower(repositoryB, leader);
+        Item item = repositoryA.save(new Item("itemA", 10000, 10));
+        followerB.awaitApplied(leader.applied(), TIMEOUT);
+
+        repositoryA.update(item.getId(), new Item("itemA", 15000, 10), 1L);
+
+        // B가 아직 버전 1을 보고 있더라도 리더에서 비교하므로 충돌한다.
+        assertThatThrownBy(() -> repositoryB.update(item.getId(), new Item("itemA", 30000, 10), 1L))
+                .isInstanceOfSatisfying(ItemVersionConflictException.class, e -> {
+                    assertThat(e.getExpectedVersion()).isEqualTo(1);
+                    assertThat(e.getCurrentVersion()).isEqualTo(2);
+                });
+        assertThat(leaderRepository.findById(item.getId()).getPrice()).isEqualTo(15000);
+
+        List<Item> updated = repositoryB.updateAll(List.of(
+                new Item(item.getId(), "itemA", 20000, 10, 2L),
+                new Item(item.getId() + 1000, "missing", 1000, 1, null)));
+        assertThat(updated.get(0).getVersion()).isEqualTo(3);
+        assertThat(updated.get(1)).isNull();
+        assertThat(repositoryB.findById(item.getId()).getPrice()).isEqualTo(20000);
+    }
+
+    @Test
+    void lateFollowerCatchesUpFromSnapshotAndKeepsIndexesInSync() throws Exception {
+        ItemRepository leaderRepository = new ItemRepository();
+        // 로그를 조금만 남겨서 늦게 붙은 팔로워는 스냅샷을 받게 한다.
+        ItemReplicationLeader leader = leader(leaderRepository, 16);
+        for (int i = 0; i < 500; i++) {
+            leaderRepository.save(new Item("item" + i, 1000 + i, i));
+        }
+
+        ItemRepository repository = new ItemRepository();
+        ItemReplicationFollower follower = follower(repository, leader);
+        assertThat(follower.awaitApplied(leader.applied(), TIMEOUT)).isTrue();
+
+        assertThat(repository.findAll()).hasSize(500);
+        assertThat(repository.findByPriceRange(1490, null, 10)).extracting(Item::getItemName)
+                .containsExactly("item490", "item491", "item492", "item493", "item494",
+                        "item495", "item496", "item497", "item498", "item499");
+        assertThat(repository.search("item42", 1)).extracting(Item::getItemName).containsExactly("item42");
+
+        repository.clearStore();
+        assertThat(repository.findAll()).isEmpty();
+        assertThat(leaderRepository.findAll()).isEmpty();
+        // 지운 뒤에도 ID는 리더에서 이어서 발급된다.
+        assertThat(repository.save(new Item("itemNew", 1000, 1)).getId()).isEqualTo(501);
+    }
+
+    @Test
+    void walFollowerResumesFromSavedPositionAfterRestart(@TempDir Path dir) throws Exception {
+        ItemRepository leaderRepository = new ItemRepository();
+        ItemReplicationLeader leader = leader(leaderRepository, 1000);
+        for (int i = 0; i < 100; i++) {
+            leaderRepository.save(new Item("item" + i, 1000 + i, i));
+        }
+        Path positionFile = dir.resolve("replication.position");
+
+        WalItemStore store = new WalItemStore(dir, FsyncPolicy.ALWAYS, Duration.ofMillis(10), Duration.ofHours(1), Long.MAX_VALUE);
+        ItemReplicationFollower follower = walFollower(new ItemRepository(store, true), leader, positionFile);
+        assertThat(follower.awaitApplied(leader.applied(), TIMEOUT)).isTrue();
+        awaitSavedPosition(positionFile, leader.applied());
+        follower.close();
+        store.close();
+
+        // 팔로워가 내려가 있는 사이의 쓰기
+        leaderRepository.save(new Item("whileDown", 5000, 5));
+
+        WalItemStore reopened = new WalItemStore(dir, FsyncPolicy.ALWAYS, Duration.ofMillis(10), Duration.ofHours(1), Long.MAX_VALUE);
+        nodes.add(reopened);
+        ItemRepository repository = new ItemRepository(reopened, true);
+        AtomicInteger clears = new AtomicInteger();
+        repository.addListener(new ItemChangeListener() {
+            @Override
+            public void onChange(Item oldItem, Item newItem) {
+            }
+
+            @Override
+            public void onClear() {
+                clears.incrementAndGet();
+            }
+        });
+        ItemReplicationFollower restarted = walFollower(repository, leader, positionFile);
+
+        assertThat(restarted.awaitApplied(leader.applied(), TIMEOUT)).isTrue();
+        assertThat(repository.findAll()).hasSize(101);
+        // 스냅샷을 받았다면 저장소를 한 번 비웠을 것이다.
+        assertThat(clears).hasValue(0);
+    }
+
+    @Test
+    void positionIsSavedOnlyAfterStoreSync(@TempDir Path dir) throws Exception {
+        ItemRepository leaderRepository = new ItemRepository();
+        ItemReplicationLeader leader = leader(leaderRepository, 1000);
+        leaderRepository.save(new Item("itemA", 10000, 10));
+        Path positionFile = dir.resolve("replication.position");
+
+        // 디스크에 내리지 못하는 저장소 (fsync가 계속 실패하거나 write-behind가 밀린 경우)
+        AtomicBoolean syncFails = new AtomicBoolean(true);
+        AtomicInteger syncs = new AtomicInteger();
+        MemoryItemStore store = new MemoryItemStore() {
+            @Override
+            public void sync() {
+                syncs.incrementAndGet();
+                if (syncFails.get()) {
+                    throw new IllegalStateException("sync failed");
+                }
+            }
+        };
+        ItemReplicationFollower follower = walFollower(new ItemRepository(store, true), leader, positionFile);
+        assertThat(follower.awaitApplied(leader.applied(), TIMEOUT)).isTrue();
+        while (syncs.get() < 3) {
+            Thread.sleep(10);
+        }
+        assertThat(positionFile).doesNotExist();
+
+        syncFails.set(false);
+        awaitSavedPosition(positionFile, leader.applied());
+    }
+
+    @Test
+    void replayedEntryIsNotPublishedAgain() {
+        ItemRepository repository = new ItemRepository();
+        List<Item> changes = new ArrayList<>();
+        repository.addListener((oldItem, newItem) -> changes.add(newItem));
+
+        Item item = new Item(1L, "itemA", 10000, 10, 2L);
+        repository.applyReplicated(item);
+        // RESUME 뒤에 같은 로그를 다시 받은 경우
+        repository.applyReplicated(item);
+        repository.applyReplicated(new Item(1L, "itemOld", 5000, 5, 1L));
+
+        assertThat(changes).containsExactly(item);
+        assertThat(repository.findById(1L)).isEqualTo(item);
+    }
+
+    @Test
+    void snapshotReplacesOnlyChangedItemsWithoutEmptyingTheCatalog() {
+        ItemRepository repository = new ItemRepository();
+        Item itemA = new Item(1L, "itemA", 10000, 10, 1L);
+        Item itemB = new Item(2L, "itemB", 20000, 20, 1L);
+        applySnapshot(repository, List.of(itemA, itemB));
+
+        List<Item> changes = new ArrayList<>();
+        AtomicInteger clears = new AtomicInteger();
+        repository.addListener(new ItemChangeListener() {
+            @Override
+            public void onChange(Item oldItem, Item newItem) {
+                changes.add(newItem);
+            }
+
+            @Override
+            public void onClear() {
+                clears.incrementAndGet();
+            }
+        });
+
+        Item itemB2 = new Item(2L, "itemB2", 25000, 20, 2L);
+        Item itemC = new Item(3L, "itemC", 30000, 30, 1L);
+        applySnapshot(repository, List.of(itemA, itemB2, itemC));
+
+        assertThat(clears).hasValue(0);
+        assertThat(changes).containsExactlyInAnyOrder(itemB2, itemC);
+        assertThat(repository.findAll()).containsExactlyInAnyOrder(itemA, itemB2, itemC);
+
+        // 리더가 그 사이 비워져서 스냅샷에 없는 상품이 있으면 비우고 받는다.
+        applySnapshot(repository, List.of(itemC));
+        assertThat(clears).hasValue(1);
+        assertThat(repository.findAll()).containsExactly(itemC);
+    }
+
+    @Test
+    void largeSnapshotIsAppliedInBatchesAndSweepsStaleItemsAtTheEnd() {
+        ItemRepository repository = new ItemRepository();
+        Item stale = new Item(1L, "stale", 100, 1, 1L);
+        repository.applyReplicated(stale);
+
+        List<Item> snapshot = new ArrayList<>();
+        for (long id = 2; id <= 2_501; id++) {
+            snapshot.add(new Item(id, "item" + id, 1000, 1, 1L));
+        }
+        for (int from = 0; from < snapshot.size(); from += 1000) {
+            repository.applyReplicatedSnapshotBatch(snapshot.subList(from, Math.min(from + 1000, snapshot.size())));
+            // 받는 동안에는 이전 상품과 받은 상품이 함께 보인다.
+            assertThat(repository.findById(1L)).isEqualTo(stale);
+        }
+        repository.finishReplicatedSnapshot(snapshot.stream().mapToLong(Item::getId).sorted().toArray());
+
+        assertThat(repository.findById(1L)).isNull();
+        assertThat(repository.findAll()).hasSize(snapshot.size());
+        assertThat(repository.findById(2_501L)).isEqualTo(snapshot.get(snapshot.size() - 1));
+    }
+
+    @Test
+    void followerFailsWritesWhileLeaderIsUnreachable() {
+        ItemRepository repository = new ItemRepository();
+        ItemReplicationFollower follower = new ItemReplicationFollower("localhost", 1, SECRET, Duration.ofMillis(200));
+        nodes.add(follower);
+        repository.setWriteForwarder(follower);
+
+        assertThat(repository.isFollower()).isTrue();
+        // 팔로워는 예제 상품을 넣지 않으므로 리더에 연결되어 있지 않아도 실패하지 않는다.
+        assertThat(repository.seedIfEmpty(List.of(new Item("item1", 100, 10)))).isFalse();
+        assertThatThrownBy(() -> repository.save(new Item("itemA", 10000, 10)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void leaderRejectsFollowerWithWrongSecret() throws Exception {
+        ItemRepository leaderRepository = new ItemRepository();
+        ItemReplicationLeader leader = leader(leaderRepository, 1000);
+        leaderRepository.save(new Item("itemA", 10000, 10));
+
+        ItemRepository repository = new ItemRepository();
+        ItemReplicationFollower follower = new ItemReplicationFollower("localhost", leader.port(), "wrong", Duration.ofMillis(500));
+        nodes.add(0, follower);
+        repository.setWriteForwarder(follower);
+
+        assertThatThrownBy(repository::clearStore).isInstanceOf(IllegalStateException.class);
+        assertThat(follower.isConnected()).isFalse();
+        assertThat(leader.followerCount()).isZero();
+        assertThat(leaderRepository.findAll()).hasSize(1);
+    }
+
+    @Test
+    void position() {
+        ItemReplicationPosition position = new ItemReplicationPosition(0xcafe_babe_1234L, 42);
+
+        assertThat(ItemReplicationPosition.parse(position.format())).isEqualTo(position);
+        assertThat(ItemReplicationPosition.parse("garbage")).isNull();
+        assertThat(ItemReplicationPosition.parse(null)).isNull();
+    }
+
+    private static void applySnapshot(ItemRepository repository, List<Item> items) {
+        repository.applyReplicatedSnapshotBatch(items);
+        repository.finishReplicatedSnapshot(items.stream().mapToLong(Item::getId).sorted().toArray());
+    }
+
+    private ItemReplicationLeader leader(ItemRepository itemRepository, int logCapacity) throws IOException {
+        ItemReplicationLeader leader = new ItemReplicationLeader(itemRepository, InetAddress.getLoopbackAddress(), 0,
+                logCapacity, SECRET);
+        nodes.add(leader);
+        return leader;
+    }
+
+    private ItemReplicationFollower walFollower(ItemRepository itemRepository, ItemReplicationLeader leader, Path positionFile) {
+        ItemReplicationFollower follower = new ItemReplicationFollower("localhost", leader.port(), SECRET, TIMEOUT,
+                positionFile, Duration.ofMillis(20));
+        nodes.add(0, follower);
+        itemRepository.setWriteForwarder(follower);
+        return follower;
+    }
+
+    private static void awaitSavedPosition(Path positionFile, ItemReplicationPosition expected) throws Exception {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!Files.exists(positionFile)
+                || !expected.equals(ItemReplicationPosition.parse(Files.readString(positionFile).trim()))) {
+            assertThat(System.nanoTime()).as("position file").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private ItemReplicationFollower follower(ItemRepository itemRepository, ItemReplicationLeader leader) {
+        ItemReplicationFollower follower = new ItemReplicationFollower("localhost", leader.port(), SECRET, TIMEOUT);
+        nodes.add(0, follower);
+        itemRepository.setWriteForwarder(follower);
+        return follower;
+    }
+}
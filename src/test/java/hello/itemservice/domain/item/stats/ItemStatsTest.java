@@ -0,0 +1,127 @@
+package hello.itemservice.domain.item.stats;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.store.MemoryItemStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemStatsTest {
+
+    @Test
+    void followsSavesUpdatesAndClear() {
+        ItemRepository itemRepository = new ItemRepository();
+        ItemStats stats = new ItemStats(itemRepository);
+
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.save(new Item("itemB", 20000, 20));
+        itemRepository.save(new Item("itemC", null, 5));
+        itemRepository.update(itemA.getId(), new Item("itemA", 15000, 2));
+
+        ItemStatsSnapshot snapshot = stats.snapshot();
+        assertThat(snapshot.count()).isEqualTo(3);
+        assertThat(snapshot.pricedCount()).isEqualTo(2);
+        assertThat(snapshot.priceSum()).isEqualTo(35000);
+        assertThat(snapshot.averagePrice()).isEqualTo(17500.0);
+        assertThat(snapshot.quantitySum()).isEqualTo(27);
+        assertThat(snapshot.inventoryValue()).isEqualTo(15000 * 2 + 20000 * 20);
+        assertThat(snapshot.minPrice()).isEqualTo(15000);
+        assertThat(snapshot.maxPrice()).isEqualTo(20000);
+        assertThat(snapshot.priceHistogram()).containsExactly(new ItemStatsSnapshot.Bucket(10000L, 20000L, 1),
+                new ItemStatsSnapshot.Bucket(20000L, 50000L, 1));
+
+        itemRepository.clearStore();
+        ItemStatsSnapshot cleared = stats.snapshot();
+        assertThat(cleared.count()).isZero();
+        assertThat(cleared.averagePrice()).isNull();
+        assertThat(cleared.minPrice()).isNull();
+        assertThat(cleared.priceHistogram()).isEmpty();
+    }
+
+    @Test
+    void countsItemsAlreadyInStore() {
+        ItemRepository itemRepository = new ItemRepository();
+        itemRepository.save(new Item("itemA", 10000, 10));
+
+        assertThat(new ItemStats(itemRepository).snapshot().inventoryValue()).isEqualTo(100000);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void matchesFullScanUnderConcurrentWrites(boolean indexed) throws Exception {
+        ItemRepository itemRepository = new ItemRepository(new MemoryItemStore(), indexed);
+        ItemStats stats = new ItemStats(itemRepository);
+        for (int i = 0; i < 1000; i++) {
+            itemRepository.save(new Item("item" + i, 1000 + i * 10, i % 50));
+        }
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            Thread writer = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 5000; i++) {
+                    long id = random.nextInt(1000) + 1;
+                    itemRepository.update(id, new Item("item" + id, random.nextInt(1_000_000) + 1, random.nextInt(9999)));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<Item> items = itemRepository.findAll();
+        ItemStatsSnapshot snapshot = stats.snapshot();
+        assertThat(snapshot.count()).isEqualTo(items.size());
+        assertThat(snapshot.priceSum()).isEqualTo(items.stream().mapToLong(Item::getPrice).sum());
+        assertThat(snapshot.inventoryValue()).isEqualTo(items.stream().mapToLong(item -> (long) item.getPrice() * item.getQuantity()).sum());
+        assertThat(snapshot.minPrice()).isEqualTo(items.stream().mapToInt(Item::getPrice).min().getAsInt());
+        assertThat(snapshot.maxPrice()).isEqualTo(items.stream().mapToInt(Item::getPrice).max().getAsInt());
+        assertThat(snapshot.priceHistogram().stream().mapToLong(ItemStatsSnapshot.Bucket::count).sum()).isEqualTo(items.size());
+    }
+
+    @Test
+    void startsWhileWritesAreRunning() throws Exception {
+        // 팔로워처럼 ItemStats가 만들어지는 동안에도 쓰기가 들어오는 경우
+        ItemRepository itemRepository = new ItemRepository();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    Item saved = itemRepository.save(new Item("item", 1000 + i, 1));
+                    itemRepository.update(saved.getId(), new Item("item", 2000 + i, 2));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        ItemStats stats = new ItemStats(itemRepository);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<Item> items = itemRepository.findAll();
+        ItemStatsSnapshot snapshot = stats.snapshot();
+        assertThat(snapshot.count()).isEqualTo(items.size());
+        assertThat(snapshot.priceSum()).isEqualTo(items.stream().mapToLong(Item::getPrice).sum());
+        assertThat(snapshot.quantitySum()).isEqualTo(items.stream().mapToLong(Item::getQuantity).sum());
+    }
+
+    @Test
+    void bucketOf() {
+        assertThat(ItemStats.bucketOf(0)).isZero();
+        assertThat(ItemStats.bucketOf(1)).isEqualTo(1);
+        assertThat(ItemStats.PRICE_BOUNDS[ItemStats.bucketOf(9999) - 1]).isEqualTo(5000);
+        assertThat(ItemStats.PRICE_BOUNDS[ItemStats.bucketOf(10000) - 1]).isEqualTo(10000);
+        assertThat(ItemStats.bucketOf(Integer.MAX_VALUE)).isEqualTo(ItemStats.PRICE_BOUNDS.length);
+    }
+}
@@ -0,0 +1,242 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CachingItemStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SlowItemStore backend = new SlowItemStore(Duration.ofMillis(20));
+    private CachingItemStore store;
+
+    @AfterEach
+    void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        store = new CachingItemStore(backend, 1 << 20, CacheWritePolicy.THROUGH, Duration.ofMillis(100), registry);
+        long id = backend.save(new Item("hot", 10000, 10)).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Item>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return store.findById(id);
+            }));
+        }
+        start.countDown();
+        for (Future<Item> future : futures) {
+            assertThat(future.get().getItemName()).isEqualTo("hot");
+        }
+        executor.shutdown();
+
+        assertThat(backend.reads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void hitRatioAndLoadLatency() {
+        store = new CachingItemStore(backend, 1 << 20, CacheWritePolicy.THROUGH, Duration.ofMillis(100), registry);
+        long id = backend.save(new Item("itemA", 10000, 10)).getId();
+
+        for (int i = 0; i < 10; i++) {
+            store.findById(id);
+        }
+        // 없는 ID는 캐시하지 않으므로 매번 뒤쪽 저장소에 간다.
+        assertThat(store.findById(999)).isNull();
+        assertThat(store.findById(999)).isNull();
+
+        assertThat(registry.get("cache.gets").tag("cache", "item").tag("result", "hit").functionCounter().count())
+                .isEqualTo(9);
+        assertThat(registry.get("cache.gets").tag("cache", "item").tag("result", "miss").functionCounter().count())
+                .isEqualTo(3);
+        assertThat(registry.get("item.cache.load").timer().count()).isEqualTo(3);
+        assertThat(backend.reads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void writeThrough() {
+        store = new CachingItemStore(backend, 1 << 20, CacheWritePolicy.THROUGH, Duration.ofMillis(100), registry);
+        Item saved = store.save(new Item("itemA", 10000, 10));
+
+        Item updated = store.update(saved.getId(), new Item("itemA2", 20000, 20));
+
+        assertThat(updated.getVersion()).isEqualTo(2);
+        assertThat(backend.delegate.findById(saved.getId())).isEqualTo(updated);
+        assertThat(store.findById(saved.getId())).isEqualTo(updated);
+        assertThat(store.update(999, new Item("missing", 1, 1))).isNull();
+        // 저장과 수정이 캐시를 채우므로 뒤쪽 저장소를 읽지 않는다.
+        assertThat(backend.reads.get()).isZero();
+    }
+
+    @Test
+    void writeBehindDefersBackendWrites() {
+        store = new CachingItemStore(backend, 1 << 20, CacheWritePolicy.BEHIND, Duration.ofHours(1), registry);
+        Item saved = store.save(new Item("itemA", 10000, 10));
+
+        long start = System.nanoTime();
+        Item updated = store.update(saved.getId(), new Item("itemA2", 20000, 20));
+        Item updatedAgain = store.update(saved.getId(), new Item("itemA3", 30000, 30));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(backend.delay);
+
+        assertThat(updated.getVersion()).isEqualTo(2);
+        assertThat(updatedAgain.getVersion()).isEqualTo(3);
+        assertThat(store.findById(saved.getId())).isEqualTo(updatedAgain);
+        assertThat(backend.delegate.findById(saved.getId())).isEqualTo(saved);
+        assertThat(registry.get("item.cache.pending").gauge().value()).isEqualTo(1);
+
+        // 전체 순회 전에는 밀린 수정을 먼저 쓴다. 같은 ID의 수정은 마지막 값 하나만 쓴다.
+        List<Item> items = new ArrayList<>();
+        store.forEach(items::add);
+        assertThat(items).containsExactly(updatedAgain);
+        assertThat(backend.delegate.findById(saved.getId())).isEqualTo(updatedAgain);
+        assertThat(backend.writes.get()).isEqualTo(2);
+        assertThat(registry.get("item.cache.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void writeBehindFlushesInBackground() throws Exception {
+        store = new CachingItemStore(backend, 1 << 20, CacheWritePolicy.BEHIND, Duration.ofMillis(10), null);
+        Item saved = store.save(new Item("itemA", 10000, 10));
+        Item updated = store.update(saved.getId(), new Item("itemA2", 20000, 20));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!updated.equals(backend.delegate.findById(saved.getId())) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(backend.delegate.findById(saved.getId())).isEqualTo(updated);
+    }
+
+    @Test
+    void boundedByWeight() {
+        long maxWeight = 64 * 1024;
+        // 밀려난 상품을 다시 읽는 일이 많으므로 느리지 않은 저장소를 쓴다.
+        store = new CachingItemStore(new MemoryItemStore(), maxWeight, CacheWritePolicy.BEHIND, Duration.ofHours(1), null);
+        List<Item> saved = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            saved.add(store.save(new Item("item" + i, 1000 + i, i)));
+        }
+        for (Item item : saved) {
+            store.update(item.getId(), new Item(item.getItemName() + "-updated", item.getPrice(), item.getQuantity()));
+        }
+
+        assertThat(store.weightedSize()).isLessThanOrEqualTo(maxWeight);
+        // 캐시에서 밀려난 상품도 아직 쓰지 않은 수정은 그대로 보인다.
+        assertThat(store.findById(saved.get(0).getId()).getItemName()).isEqualTo("item0-updated");
+    }
+
+    @Test
+    void writeBehindOverMappedStore() throws IOException {
+        Item saved;
+        try (CachingItemStore caching = new CachingItemStore(new MappedItemStore(dir), 1 << 20,
+                CacheWritePolicy.BEHIND, Duration.ofHours(1), null)) {
+            saved = caching.save(new Item("itemA", 10000, 10));
+            caching.update(saved.getId(), new Item("itemA2", 20000, 20));
+        }
+
+        // 닫을 때 밀린 수정을 쓴다.
+        try (MappedItemStore mapped = new MappedItemStore(dir)) {
+            Item item = mapped.findById(saved.getId());
+            assertThat(item.getItemName()).isEqualTo("itemA2");
+            assertThat(item.getVersion()).isEqualTo(2);
+        }
+    }
+
+    /**
+     * 디스크를 읽는 저장소 흉내. 읽기와 쓰기마다 delay만큼 걸린다.
+     */
+    static class SlowItemStore implements ItemStore {
+
+        final ItemStore delegate = new MemoryItemStore();
+        final Duration delay;
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+
+        SlowItemStore(Duration delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public Item save(Item item) {
+            writes.incrementAndGet();
+            sleep();
+            return delegate.save(item);
+        }
+
+        @Override
+        public Item findById(long id) {
+            reads.incrementAndGet();
+            sleep();
+            return delegate.findById(id);
+        }
+
+        @Override
+        public Item update(long id, Item updateParam) {
+            writes.incrementAndGet();
+            sleep();
+            return delegate.update(id, updateParam);
+        }
+
+        @Override
+        public void restore(Item item) {
+            writes.incrementAndGet();
+            sleep();
+            delegate.restore(item);
+        }
+
+        @Override
+        public void restoreAll(List<Item> items) {
+            writes.incrementAndGet();
+            sleep();
+            delegate.restoreAll(items);
+        }
+
+        @Override
+        public void forEach(Consumer<? super Item> action) {
+            delegate.forEach(action);
+        }
+
+        @Override
+        public long size() {
+            return delegate.size();
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+
+        private void sleep() {
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
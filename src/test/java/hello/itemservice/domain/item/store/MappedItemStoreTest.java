@@ -0,0 +1,185 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MappedItemStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void saveFindUpdate() throws IOException {
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            Item saved = store.save(new Item("상품A", 10000, 10));
+            store.save(new Item(null, null, null));
+
+            assertThat(saved.getId()).isEqualTo(1L);
+            assertThat(store.findById(1L).getItemName()).isEqualTo("상품A");
+            assertThat(store.findById(2L).getPrice()).isNull();
+            assertThat(store.findById(3L)).isNull();
+
+            assertThat(store.update(1L, new Item("상품B", 20000, 20)).getVersion()).isEqualTo(2L);
+            assertThat(store.findById(1L).getItemName()).isEqualTo("상품B");
+            assertThat(store.findById(1L).getQuantity()).isEqualTo(20);
+        }
+    }
+
+    @Test
+    void emptyName() throws IOException {
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            // 아직 name.dat이 비어 있는 저장소에 빈 상품명을 넣는다.
+            store.save(new Item("", 10000, 10));
+            store.save(new Item("상품A", 10000, 10));
+            store.update(2L, new Item("", 20000, 20));
+
+            assertThat(store.findById(1L).getItemName()).isEmpty();
+            assertThat(store.findById(2L).getItemName()).isEmpty();
+        }
+
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            assertThat(store.findById(1L).getItemName()).isEmpty();
+            assertThat(store.findById(2L).getVersion()).isEqualTo(2L);
+            assertThat(store.save(new Item("상품B", 1000, 1)).getItemName()).isEqualTo("상품B");
+            assertThat(store.findById(3L).getItemName()).isEqualTo("상품B");
+        }
+    }
+
+    @Test
+    void survivesReopen() throws IOException {
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            for (int i = 0; i < 10_000; i++) {
+                store.save(new Item("item" + i, 1000 + i, i));
+            }
+            store.update(5L, new Item("updated", 1, 2));
+        }
+
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            assertThat(store.size()).isEqualTo(10_000);
+            assertThat(store.findById(5L).getItemName()).isEqualTo("updated");
+            assertThat(store.findById(5L).getVersion()).isEqualTo(2L);
+            assertThat(store.findById(6L).getVersion()).isEqualTo(1L);
+            assertThat(store.findById(10_000L).getItemName()).isEqualTo("item9999");
+            assertThat(store.save(new Item("next", 1, 1)).getId()).isEqualTo(10_001L);
+        }
+    }
+
+    @Test
+    void reopensRowLeftMidWrite() throws Exception {
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            store.save(new Item("상품A", 10000, 10));
+            store.save(new Item("상품B", 20000, 20));
+        }
+        // 1번 행을 쓰다가 죽은 것처럼 seqlock을 홀수로 남긴다.
+        try (FileChannel channel = FileChannel.open(dir.resolve("name.idx"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 3), 12);
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            assertThat(executor.submit(() -> store.findById(1L)).get(5, TimeUnit.SECONDS).getItemName()).isEqualTo("상품A");
+            store.update(1L, new Item("상품C", 30000, 30));
+            assertThat(executor.submit(() -> store.findById(1L)).get(5, TimeUnit.SECONDS).getItemName()).isEqualTo("상품C");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void reopensRowWithCorruptName() throws Exception {
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            store.save(new Item("상품A", 10000, 10));
+            store.save(new Item("상품B", 20000, 20));
+        }
+        // seqlock은 짝수 그대로 두고 1번 행의 상품명 길이만 name.dat 끝을 넘게 망가뜨린다.
+        try (FileChannel channel = FileChannel.open(dir.resolve("name.idx"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 1000), 8);
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            Item item = executor.submit(() -> store.findById(1L)).get(5, TimeUnit.SECONDS);
+            assertThat(item.getItemName()).isNull();
+            assertThat(item.getPrice()).isEqualTo(10000);
+            assertThat(store.findById(2L).getItemName()).isEqualTo("상품B");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readsRowCorruptedWhileOpen() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            store.save(new Item("상품A", 10000, 10));
+            // 열려 있는 동안 상품명 오프셋이 아직 없는 청크를 가리키게 만든다.
+            try (FileChannel channel = FileChannel.open(dir.resolve("name.idx"), StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(8).putLong(0, 1L << 40), 0);
+            }
+
+            Item item = executor.submit(() -> store.findById(1L)).get(5, TimeUnit.SECONDS);
+            assertThat(item.getItemName()).isNull();
+            assertThat(item.getQuantity()).isEqualTo(10);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void findAfterClear() throws Exception {
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            store.save(new Item("상품A", 10000, 10));
+            store.clear();
+
+            assertThat(store.findById(1L)).isNull();
+            assertThat(store.save(new Item("상품B", 20000, 20)).getId()).isEqualTo(1L);
+            assertThat(store.findById(1L).getItemName()).isEqualTo("상품B");
+        }
+    }
+
+    @Test
+    void readersNeverSeeHalfWrittenRows() throws Exception {
+        try (MappedItemStore store = new MappedItemStore(dir)) {
+            store.save(new Item("a", 1, 1));
+            AtomicBoolean running = new AtomicBoolean(true);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 2; running.get(); i++) {
+                    // 세 필드가 항상 같은 값이 되도록 수정한다.
+                    store.update(1L, new Item(String.valueOf(i), i, i));
+                }
+            });
+            Future<?>[] readers = new Future<?>[3];
+            for (int r = 0; r < readers.length; r++) {
+                readers[r] = executor.submit(() -> {
+                    for (int i = 0; i < 200_000; i++) {
+                        Item item = store.findById(1L);
+                        assertThat(item.getPrice()).isEqualTo(item.getQuantity());
+                        assertThat(item.getItemName()).isEqualTo(String.valueOf(item.getPrice()));
+                    }
+                });
+            }
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+            running.set(false);
+            writer.get();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemSearchCond;
+import hello.itemservice.domain.item.ItemSort;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ShardedItemStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void idsAreUniqueAndPointToTheirShard() throws Exception {
+        ShardedItemStore store = memoryShards(4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<Item>>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                List<Item> items = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) {
+                    items.add(store.save(new Item("item" + i, 1000, 1)));
+                }
+                return items;
+            }));
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Future<List<Item>> future : futures) {
+            for (Item item : future.get()) {
+                ids.add(item.getId());
+                assertThat(store.partitions().get(store.shardOf(item.getId())).findById(item.getId())).isEqualTo(item);
+            }
+        }
+        executor.shutdown();
+
+        assertThat(ids).hasSize(8000);
+        assertThat(store.size()).isEqualTo(8000);
+        // 임의로 고르므로 모든 샤드에 고르게 들어간다.
+        for (ItemStore shard : store.partitions()) {
+            assertThat(shard.size()).isBetween(1500L, 2500L);
+        }
+    }
+
+    @Test
+    void batchesKeepInputOrder() {
+        ShardedItemStore store = memoryShards(3);
+        List<Item> saved = store.saveAll(List.of(
+                new Item("itemA", 1000, 1), new Item("itemB", 2000, 2),
+                new Item("itemC", 3000, 3), new Item("itemD", 4000, 4)));
+        assertThat(saved).extracting(Item::getItemName).containsExactly("itemA", "itemB", "itemC", "itemD");
+        assertThat(saved).extracting(item -> store.shardOf(item.getId())).doesNotHaveDuplicates().hasSize(4);
+
+        List<Item> updated = store.updateAll(List.of(
+                new Item(saved.get(3).getId(), "itemD2", 4500, 4, null),
+                new Item(999_999L, "missing", 1, 1, null),
+                new Item(saved.get(0).getId(), "itemA2", 1500, 1, null)));
+        assertThat(updated.get(0).getItemName()).isEqualTo("itemD2");
+        assertThat(updated.get(0).getVersion()).isEqualTo(2);
+        assertThat(updated.get(1)).isNull();
+        assertThat(updated.get(2).getItemName()).isEqualTo("itemA2");
+        assertThat(store.findById(saved.get(0).getId()).getPrice()).isEqualTo(1500);
+        assertThat(store.findById(0)).isNull();
+    }
+
+    @Test
+    void recoverSequencesFromWalShards() throws IOException {
+        Set<Long> before = new HashSet<>();
+        try (ShardedItemStore store = walShards(3)) {
+            for (int i = 0; i < 100; i++) {
+                before.add(store.save(new Item("item" + i, 1000 + i, i)).getId());
+            }
+        }
+
+        try (ShardedItemStore store = walShards(3)) {
+            assertThat(store.size()).isEqualTo(100);
+            for (int i = 0; i < 100; i++) {
+                Item item = store.save(new Item("new" + i, 1000, 1));
+                assertThat(before.add(item.getId())).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void rejectChangedShardCount() throws IOException {
+        try (ShardedItemStore store = walShards(2)) {
+            List<Item> items = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                items.add(new Item("item" + i, 1000, 1));
+            }
+            store.saveAll(items);
+        }
+
+        assertThatThrownBy(() -> walShards(3)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void scatterGatherMatchesFullSort() {
+        // 인덱스를 끄면 목록 조회가 샤드마다 훑어서 병합하는 길로 간다.
+        ItemRepository repository = new ItemRepository(memoryShards(4), false);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            repository.save(new Item("item" + random.nextInt(500), 1000 + random.nextInt(100) * 10, random.nextInt(50)));
+        }
+        List<Item> all = repository.findAll();
+        assertThat(all).hasSize(2000);
+
+        for (ItemSort sort : ItemSort.values()) {
+            for (boolean desc : new boolean[]{false, true}) {
+                ItemSearchCond cond = new ItemSearchCond();
+                cond.setSort(sort);
+                cond.setDesc(desc);
+                cond.setSize(37);
+                cond.setMinPrice(1200);
+                List<Item> expected = all.stream().filter(cond::matches).sorted(sort.comparator(desc)).toList();
+                assertThat(readAll(repository, cond)).isEqualTo(expected);
+            }
+        }
+        assertThat(repository.findMinPrice()).isEqualTo(all.stream().mapToInt(Item::getPrice).min().getAsInt());
+        assertThat(repository.findMaxPrice()).isEqualTo(all.stream().mapToInt(Item::getPrice).max().getAsInt());
+        assertThat(repository.findByPriceRange(1500, 1600, 50)).isEqualTo(all.stream()
+                .filter(item -> item.getPrice() >= 1500 && item.getPrice() <= 1600)
+                .sorted(ItemSort.PRICE.comparator(false)).limit(50).toList());
+    }
+
+    private static List<Item> readAll(ItemRepository repository, ItemSearchCond cond) {
+        List<Item> items = new ArrayList<>();
+        cond.setCursor(null);
+        while (true) {
+            ItemPage page = repository.findPage(cond);
+            items.addAll(page.getItems());
+            if (!page.isHasNext()) {
+                return items;
+            }
+            cond.setCursor(page.getNextCursor());
+        }
+    }
+
+    private ShardedItemStore memoryShards(int count) {
+        List<ItemStore> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            shards.add(new MemoryItemStore());
+        }
+        return new ShardedItemStore(shards);
+    }
+
+    private ShardedItemStore walShards(int count) throws IOException {
+        List<ItemStore> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            shards.add(new WalItemStore(dir.resolve("shard-" + i), FsyncPolicy.NEVER,
+                    Duration.ofMillis(10), Duration.ofHours(1), Long.MAX_VALUE));
+        }
+        return new ShardedItemStore(shards);
+    }
+}
@@ -0,0 +1,30 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TimedItemStoreTest {
+
+    @Test
+    void timesWritesAndCountsReads() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ItemRepository itemRepository = new ItemRepository(new TimedItemStore(new MemoryItemStore(), registry));
+
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.saveAll(List.of(new Item("itemB", 20000, 20), new Item("itemC", 30000, 30)));
+        itemRepository.update(itemA.getId(), new Item("itemA", 15000, 10));
+        itemRepository.findById(itemA.getId());
+
+        assertThat(registry.get("item.store").tags("type", "MemoryItemStore", "op", "save").timer().count()).isEqualTo(1);
+        assertThat(registry.get("item.store").tags("op", "saveAll").timer().count()).isEqualTo(1);
+        assertThat(registry.get("item.store").tags("op", "update").timer().count()).isEqualTo(1);
+        assertThat(registry.get("item.store.reads").counter().count()).isGreaterThanOrEqualTo(1);
+        assertThat(itemRepository.findById(itemA.getId()).getPrice()).isEqualTo(15000);
+    }
+}
@@ -0,0 +1,444 @@
+package hello.itemservice.domain.item.store;
+
+import hello.itemservice.domain.item.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WalItemStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoverFromLog() throws IOException {
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            store.save(new Item("itemA", 10000, 10));
+            store.save(new Item("itemB", 20000, 20));
+            store.update(1L, new Item("itemA2", 15000, 15));
+        }
+
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(store.findById(1L).getItemName()).isEqualTo("itemA2");
+            assertThat(store.findById(1L).getPrice()).isEqualTo(15000);
+            assertThat(store.findById(1L).getVersion()).isEqualTo(2L);
+            assertThat(store.findById(2L).getVersion()).isEqualTo(1L);
+            assertThat(store.findById(2L).getQuantity()).isEqualTo(20);
+            // 재시작 후에도 ID는 이어서 발급된다.
+            assertThat(store.save(new Item("itemC", 30000, 30)).getId()).isEqualTo(3L);
+        }
+    }
+
+    @Test
+    void recoverFromSnapshotAndNewerLog() throws IOException {
+        try (WalItemStore store = open(FsyncPolicy.INTERVAL)) {
+            for (int i = 0; i < 1000; i++) {
+                store.save(new Item("item" + i, 1000 + i, i));
+            }
+            store.snapshot();
+            store.update(1L, new Item("afterSnapshot", 5000, 5));
+            store.save(new Item("itemNew", 7000, 7));
+        }
+
+        try (WalItemStore store = open(FsyncPolicy.INTERVAL)) {
+            assertThat(store.size()).isEqualTo(1001);
+            assertThat(store.findById(1L).getItemName()).isEqualTo("afterSnapshot");
+            assertThat(store.findById(1001L).getItemName()).isEqualTo("itemNew");
+            assertThat(store.findById(500L).getPrice()).isEqualTo(1499);
+        }
+    }
+
+    @Test
+    void truncateTornTail() throws IOException {
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            store.save(new Item("itemA", 10000, 10));
+            store.save(new Item("itemB", 20000, 20));
+        }
+        // 마지막 레코드를 쓰다가 죽은 것처럼 꼬리를 잘라낸다.
+        Path log = logFiles().get(0);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(log) - 3);
+        }
+
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.findById(1L).getItemName()).isEqualTo("itemA");
+        }
+    }
+
+    @Test
+    void truncateHeaderWithImpossibleLength() throws IOException {
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            store.save(new Item("itemA", 10000, 10));
+        }
+        // 헤더가 깨져서 길이 자리에 파일보다 훨씬 긴 값이 들어간 경우
+        Path log = logFiles().get(0);
+        long intact = Files.size(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(Integer.MAX_VALUE).putInt(0).putInt(0).flip());
+        }
+
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.findById(1L).getItemName()).isEqualTo("itemA");
+        }
+        assertThat(Files.size(log)).isEqualTo(intact);
+    }
+
+    @Test
+    void clearSurvivesCrashBeforeOldFilesAreDeleted() throws IOException {
+        Path saved = Files.createDirectory(dir.resolve("saved"));
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            store.save(new Item("itemA", 10000, 10));
+            store.snapshot();
+            store.save(new Item("itemB", 20000, 20));
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    Files.copy(file, saved.resolve(file.getFileName()));
+                }
+            }
+            store.clear();
+            store.save(new Item("itemC", 30000, 30));
+        }
+        // CLEAR 표시를 쓴 뒤 옛 스냅샷과 로그를 지우기 전에 죽은 것처럼 되돌려 놓는다.
+        try (Stream<Path> files = Files.list(saved)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, dir.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.findById(1L)).isNull();
+            assertThat(store.findById(3L).getItemName()).isEqualTo("itemC");
+        }
+    }
+
+    @Test
+    void concurrentWritesAreAllDurable() throws Exception {
+        int threadCount = 8;
+        int itemsPerThread = 500;
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < itemsPerThread; i++) {
+                        store.save(new Item("item", 1000, 10));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            assertThat(store.size()).isEqualTo(threadCount * itemsPerThread);
+        }
+    }
+
+    @Test
+    void commitDelayGroupsConcurrentWrites() throws Exception {
+        int threadCount = 16;
+        int itemsPerThread = 20;
+        try (WalItemStore store = new WalItemStore(dir, FsyncPolicy.ALWAYS, Duration.ofMillis(10), Duration.ofHours(1),
+                Long.MAX_VALUE, 64, Duration.ofMillis(5))) {
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < itemsPerThread; i++) {
+                        Item saved = store.save(new Item("item", 1000, 10));
+                        store.update(saved.getId(), new Item("updated", 2000, 20));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            // 동시에 쓴 레코드들이 fsync 한 번에 여럿씩 묶인다.
+            assertThat(store.commitCount()).isLessThan(threadCount * itemsPerThread);
+        }
+
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            assertThat(store.size()).isEqualTo(threadCount * itemsPerThread);
+            store.forEach(item -> assertThat(item.getItemName()).isEqualTo("updated"));
+        }
+    }
+
+    @Test
+    void failedAppendLeavesMemoryUntouched() throws IOException {
+        WalItemStore store = open(FsyncPolicy.ALWAYS);
+        Item saved = store.save(new Item("itemA", 10000, 10));
+        store.close();
+
+        assertThatThrownBy(() -> store.save(new Item("itemB", 20000, 20))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> store.update(saved.getId(), new Item("itemA2", 15000, 15)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.findById(saved.getId())).isEqualTo(saved);
+    }
+
+    @Test
+    void rejectZeroFsyncInterval() {
+        assertThatThrownBy(() -> new WalItemStore(dir, FsyncPolicy.INTERVAL, Duration.ZERO, Duration.ofHours(1), Long.MAX_VALUE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void closeDoesNotStrandConcurrentWriters() throws Exception {
+        int threadCount = 8;
+        WalItemStore store = open(FsyncPolicy.ALWAYS);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            futures.add(executor.submit(() -> {
+                while (true) {
+                    try {
+                        store.save(new Item("item", 1000, 10));
+                    } catch (IllegalStateException | CompletionException e) {
+                        return;
+                    }
+                }
+            }));
+        }
+        Thread.sleep(50);
+        store.close();
+
+        // 닫힌 뒤 쓰기는 모두 실패로 끝나고, 기다리다 멈추는 스레드가 없다.
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        long size = store.size();
+
+        try (WalItemStore reopened = open(FsyncPolicy.ALWAYS)) {
+            assertThat(reopened.size()).isEqualTo(size);
+        }
+    }
+
+    @Test
+    void failedFsyncRollsBackTheBatch() throws Exception {
+        FaultyChannels channels = new FaultyChannels();
+        try (WalItemStore store = open(channels)) {
+            store.save(new Item("itemA", 10000, 10));
+
+            channels.failForce = 1;
+            assertThatThrownBy(() -> store.save(new Item("itemB", 20000, 20))).isInstanceOf(CompletionException.class);
+            assertThat(store.size()).isEqualTo(1);
+
+            // 로그를 묶음 앞으로 잘라냈으므로 다음 쓰기는 그대로 받는다.
+            store.save(new Item("itemC", 30000, 30));
+            assertThat(store.size()).isEqualTo(2);
+        }
+
+        try (WalItemStore store = open(FsyncPolicy.ALWAYS)) {
+            List<String> names = new ArrayList<>();
+            store.forEach(item -> names.add(item.getItemName()));
+            assertThat(names).containsExactlyInAnyOrder("itemA", "itemC");
+        }
+    }
+
+    @Test
+    void failedRollbackClosesTheLog() throws Exception {
+        FaultyChannels channels = new FaultyChannels();
+        try (WalItemStore store = open(channels)) {
+            Item saved = store.save(new Item("itemA", 10000, 10));
+
+            channels.failForce = 1;
+            channels.failTruncate = true;
+            assertThatThrownBy(() -> store.update(saved.getId(), new Item("itemA2", 20000, 20)))
+                    .isInstanceOf(CompletionException.class);
+            assertThat(store.findById(saved.getId())).isEqualTo(saved);
+
+            channels.failForce = 0;
+            channels.failTruncate = false;
+            assertThatThrownBy(() -> store.save(new Item("itemB", 20000, 20))).isInstanceOf(IllegalStateException.class);
+            assertThat(store.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void unexpectedWriterFailureReleasesWaitersAndClosesTheLog() throws Exception {
+        FaultyChannels channels = new FaultyChannels();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (WalItemStore store = open(channels)) {
+            channels.failWrite = true;
+            Future<?> save = executor.submit(() -> store.save(new Item("itemA", 10000, 10)));
+
+            // 기다리던 쓰기가 멈추지 않고 실패로 끝난다.
+            assertThatThrownBy(() -> save.get(5, TimeUnit.SECONDS)).hasRootCauseInstanceOf(IllegalStateException.class);
+            channels.failWrite = false;
+            assertThatThrownBy(() -> store.save(new Item("itemB", 20000, 20))).isInstanceOf(IllegalStateException.class);
+            assertThat(store.size()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private WalItemStore open(FsyncPolicy fsyncPolicy) throws IOException {
+        return new WalItemStore(dir, fsyncPolicy, Duration.ofMillis(10), Duration.ofHours(1), Long.MAX_VALUE);
+    }
+
+    private WalItemStore open(FaultyChannels channels) throws IOException {
+        return new WalItemStore(dir, FsyncPolicy.ALWAYS, Duration.ofMillis(10), Duration.ofHours(1), Long.MAX_VALUE,
+                64, Duration.ZERO, channels::open);
+    }
+
+    private List<Path> logFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+
+    /**
+     * 로그 채널의 force, truncate, write를 원하는 때 실패시킨다.
+     */
+    private static final class FaultyChannels {
+
+        volatile int failForce;
+        volatile boolean failTruncate;
+        volatile boolean failWrite;
+
+        FileChannel open(Path path) throws IOException {
+            return new FaultyChannel(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND));
+        }
+
+        private final class FaultyChannel extends FileChannel {
+
+            private final FileChannel delegate;
+
+            FaultyChannel(FileChannel delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                return delegate.read(dst);
+            }
+
+            @Override
+            public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+                return delegate.read(dsts, offset, length);
+            }
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                if (failWrite) {
+                    throw new IllegalStateException("injected write failure");
+                }
+                return delegate.write(src);
+            }
+
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+                if (failWrite) {
+                    throw new IllegalStateException("injected write failure");
+                }
+                return delegate.write(srcs, offset, length);
+            }
+
+            @Override
+            public long position() throws IOException {
+                return delegate.position();
+            }
+
+            @Override
+            public FileChannel position(long newPosition) throws IOException {
+                delegate.position(newPosition);
+                return this;
+            }
+
+            @Override
+            public long size() throws IOException {
+                return delegate.size();
+            }
+
+            @Override
+            public FileChannel truncate(long size) throws IOException {
+                if (failTruncate) {
+                    throw new IOException("injected truncate failure");
+                }
+                delegate.truncate(size);
+                return this;
+            }
+
+            @Override
+            public void force(boolean metaData) throws IOException {
+                if (failForce > 0) {
+                    failForce--;
+                    throw new IOException("injected fsync failure");
+                }
+                delegate.force(metaData);
+            }
+
+            @Override
+            public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+                return delegate.transferTo(position, count, target);
+            }
+
+            @Override
+            public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+                return delegate.transferFrom(src, position, count);
+            }
+
+            @Override
+            public int read(ByteBuffer dst, long position) throws IOException {
+                return delegate.read(dst, position);
+            }
+
+            @Override
+            public int write(ByteBuffer src, long position) throws IOException {
+                return delegate.write(src, position);
+            }
+
+            @Override
+            public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+                return delegate.map(mode, position, size);
+            }
+
+            @Override
+            public FileLock lock(long position, long size, boolean shared) throws IOException {
+                return delegate.lock(position, size, shared);
+            }
+
+            @Override
+            public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+                return delegate.tryLock(position, size, shared);
+            }
+
+            @Override
+            protected void implCloseChannel() throws IOException {
+                delegate.close();
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package hello.itemservice.validation;
 
-import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.basic.form.ItemSaveForm;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
@@ -16,13 +16,13 @@ public class BeanValidationTest {
         ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
         Validator validator = factory.getValidator();
 
-        Item item = new Item();
-        item.setItemName(" ");
-        item.setPrice(0);
-        item.setQuantity(10000);
+        ItemSaveForm form = new ItemSaveForm();
+        form.setItemName(" ");
+        form.setPrice(0);
+        form.setQuantity(10000);
 
-        Set<ConstraintViolation<Item>> violations = validator.validate(item);
-        for (ConstraintViolation<Item> violation : violations) {
+        Set<ConstraintViolation<ItemSaveForm>> violations = validator.validate(form);
+        for (ConstraintViolation<ItemSaveForm> violation : violations) {
             System.out.println("violation = " + violation);
             System.out.println("violation.getMessage() = " + violation.getMessage());
         }
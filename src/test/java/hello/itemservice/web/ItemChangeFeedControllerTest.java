@@ -0,0 +1,131 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.feed.ItemChangeFeed;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+class ItemChangeFeedControllerTest {
+
+    ItemRepository itemRepository = new ItemRepository();
+    ItemChangeFeed feed = new ItemChangeFeed(itemRepository, 8);
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void beforeEach() {
+        // 보내기를 요청 스레드와 저장 스레드에서 바로 하도록 해서 순서를 고정한다.
+        ItemChangeFeedController controller = new ItemChangeFeedController(feed, new SyncTaskExecutor());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void longPollReturnsExistingEvents() throws Exception {
+        itemRepository.save(new Item("itemA", 10000, 10));
+
+        MvcResult result = mockMvc.perform(get("/api/items/changes").param("from", "0")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        String body = mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsString();
+
+        assertThat(body).contains("\"nextOffset\":1", "\"type\":\"INSERT\"");
+    }
+
+    @Test
+    void longPollWaitsForNextWrite() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/items/changes").param("from", "0").param("waitMillis", "5000")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        assertThat(result.getRequest().isAsyncStarted()).isTrue();
+        assertThat(feed.waiterCount()).isEqualTo(1);
+
+        itemRepository.save(new Item("itemA", 10000, 10));
+        result.getAsyncResult(5000);
+        String body = mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsString();
+
+        assertThat(body).contains("\"nextOffset\":1", "\"type\":\"INSERT\"");
+        assertThat(feed.waiterCount()).isZero();
+    }
+
+    @Test
+    void sseSendsBacklogAndNewEvents() throws Exception {
+        itemRepository.save(new Item("itemA", 10000, 10));
+
+        MvcResult result = mockMvc.perform(get("/api/items/changes").param("from", "0")
+                .accept(MediaType.TEXT_EVENT_STREAM)).andReturn();
+
+        assertThat(result.getRequest().isAsyncStarted()).isTrue();
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8)).contains(id(1));
+
+        itemRepository.save(new Item("itemB", 20000, 20));
+
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8)).contains(id(1), id(2));
+    }
+
+    @Test
+    void sseResumesFromLastEventId() throws Exception {
+        itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.save(new Item("itemB", 20000, 20));
+
+        MvcResult result = mockMvc.perform(get("/api/items/changes").header("Last-Event-ID", feed.epoch() + ":1")
+                .accept(MediaType.TEXT_EVENT_STREAM)).andReturn();
+
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body).contains(id(2)).doesNotContain(id(1)).doesNotContain("\"truncated\":true");
+    }
+
+    @Test
+    void sseFromPreviousBootIsTruncated() throws Exception {
+        itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.save(new Item("itemB", 20000, 20));
+
+        // 서버가 다시 뜨기 전에 받은 id. offset은 지금도 있는 값이지만 epoch가 다르다.
+        for (String lastEventId : List.of((feed.epoch() + 2) + ":1", "1")) {
+            MvcResult result = mockMvc.perform(get("/api/items/changes").header("Last-Event-ID", lastEventId)
+                    .accept(MediaType.TEXT_EVENT_STREAM)).andReturn();
+
+            String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+            assertThat(body).as(lastEventId).contains(id(2), "\"truncated\":true", "\"offset\":0");
+            result.getRequest().getAsyncContext().complete();
+        }
+    }
+
+    @Test
+    void longPollFromPreviousBootIsTruncatedWithoutWaiting() throws Exception {
+        itemRepository.save(new Item("itemA", 10000, 10));
+
+        MvcResult result = mockMvc.perform(get("/api/items/changes").param("epoch", Long.toString(feed.epoch() + 2))
+                .param("from", "1").param("waitMillis", "5000")
+                .accept(MediaType.APPLICATION_JSON)).andReturn();
+        String body = mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsString();
+
+        assertThat(body).contains("\"epoch\":" + feed.epoch(), "\"truncated\":true", "\"nextOffset\":1");
+        assertThat(feed.waiterCount()).isZero();
+    }
+
+    @Test
+    void sseDisconnectReleasesWaiter() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/items/changes").param("from", "0")
+                .accept(MediaType.TEXT_EVENT_STREAM)).andReturn();
+        assertThat(feed.waiterCount()).isEqualTo(1);
+
+        // 클라이언트가 끊긴 것처럼 비동기 요청을 끝낸다. 다음 쓰기가 없어도 대기가 바로 풀린다.
+        result.getRequest().getAsyncContext().complete();
+
+        assertThat(feed.waiterCount()).isZero();
+    }
+
+    private String id(long offset) {
+        return "id:" + feed.epoch() + ":" + offset + "\n";
+    }
+}
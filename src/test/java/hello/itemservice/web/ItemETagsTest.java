@@ -0,0 +1,64 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.item.Item;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemETagsTest {
+
+    @Test
+    void notModifiedWhenItemIsSame() {
+        Item item = item(1);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertThat(ItemETags.checkNotModified(request(null, first), Locale.KOREAN, item)).isFalse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/\"");
+        assertThat(first.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_LANGUAGE);
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertThat(ItemETags.checkNotModified(request(etag, second), Locale.KOREAN, item(1))).isTrue();
+        assertThat(second.getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void modifiedWhenVersionOrLocaleChanges() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        ItemETags.checkNotModified(request(null, first), Locale.KOREAN, item(1));
+        String etag = first.getHeader(HttpHeaders.ETAG);
+
+        assertThat(ItemETags.checkNotModified(request(etag, new MockHttpServletResponse()), Locale.KOREAN, item(2))).isFalse();
+        assertThat(ItemETags.checkNotModified(request(etag, new MockHttpServletResponse()), Locale.ENGLISH, item(1))).isFalse();
+        assertThat(ItemETags.checkNotModified(request(etag, new MockHttpServletResponse()), Locale.KOREAN, null)).isFalse();
+    }
+
+    @Test
+    void ifMatchVersion() {
+        assertThat(ItemETags.versionTag(item(3))).isEqualTo("\"3\"");
+        assertThat(ItemETags.parseIfMatch("\"3\"")).isEqualTo(3L);
+        assertThat(ItemETags.parseIfMatch("W/\"3\"")).isEqualTo(3L);
+        assertThat(ItemETags.parseIfMatch(null)).isNull();
+        assertThat(ItemETags.parseIfMatch("*")).isNull();
+        assertThatThrownBy(() -> ItemETags.parseIfMatch("\"abc\""))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ServletWebRequest request(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/basic/items/1");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+
+    private Item item(long version) {
+        return new Item(1L, "itemA", 10000, 10, version);
+    }
+}
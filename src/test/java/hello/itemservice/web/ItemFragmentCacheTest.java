@@ -0,0 +1,136 @@
+package hello.itemservice.web;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemSearchCond;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemFragmentCacheTest {
+
+    MockServletContext servletContext = new MockServletContext();
+    StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+    ThymeleafViewResolver viewResolver = new ThymeleafViewResolver();
+    ItemRepository itemRepository = new ItemRepository();
+    ItemFragmentCache fragmentCache;
+
+    @BeforeEach
+    void setUp() {
+        applicationContext.setServletContext(servletContext);
+
+        SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
+        templateResolver.setApplicationContext(applicationContext);
+        templateResolver.setPrefix("classpath:/templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+
+        fragmentCache = new ItemFragmentCache(templateEngine, itemRepository, 100);
+        applicationContext.getBeanFactory().registerSingleton("itemFragmentCache", fragmentCache);
+        applicationContext.refresh();
+        servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+
+        viewResolver.setApplicationContext(applicationContext);
+        viewResolver.setTemplateEngine(templateEngine);
+        viewResolver.setCharacterEncoding("UTF-8");
+    }
+
+    @Test
+    void rowsAreCachedUntilItemChanges() throws Exception {
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        Item itemB = itemRepository.save(new Item("itemB", 20000, 20));
+
+        String first = renderItems("validation/v3/items");
+        assertThat(first)
+                .contains("href=\"/validation/v3/items/" + itemA.getId() + "\"")
+                .contains(">itemA<", ">itemB<", ">20000<")
+                // 조각 원본은 페이지에 나오지 않는다.
+                .doesNotContain("th:fragment", "상풍명");
+        assertThat(fragmentCache.getMissCount()).isEqualTo(2);
+
+        assertThat(renderItems("validation/v3/items")).isEqualTo(first);
+        assertThat(fragmentCache.getHitCount()).isEqualTo(2);
+
+        itemRepository.update(itemB.getId(), new Item("itemB-2", 30000, 30));
+        String updated = renderItems("validation/v3/items");
+        assertThat(updated).contains(">itemB-2<", ">30000<").doesNotContain(">itemB<");
+        // 바뀐 상품만 다시 렌더링한다.
+        assertThat(fragmentCache.getHitCount()).isEqualTo(3);
+        assertThat(fragmentCache.getMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    void templatesAndLocalesAreCachedSeparately() throws Exception {
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+        assertThat(renderItems("basic/items")).contains(">itemA<");
+        assertThat(renderItems("validation/v2/items")).contains("href=\"/validation/v2/items/" + item.getId() + "\"");
+        assertThat(render("validation/v2/item", Map.of("item", item), Locale.ENGLISH))
+                .contains("value=\"itemA\"", "/validation/v2/items/" + item.getId() + "/edit");
+
+        assertThat(fragmentCache.getMissCount()).isEqualTo(3);
+        assertThat(fragmentCache.getCacheSize()).isEqualTo(3);
+
+        itemRepository.clearStore();
+        assertThat(fragmentCache.getCacheSize()).isZero();
+    }
+
+    @Test
+    void newVersionIsRenderedAgain() throws Exception {
+        // 저장소를 거치지 않아 무효화되지 않은 경우에도 버전이 다르면 다른 키다.
+        Item item = new Item(1L, "itemA", 10000, 10, 1L);
+        render("validation/v3/item", Map.of("item", item), Locale.KOREAN);
+
+        Item changed = new Item(1L, "itemA", 10000, 11, 2L);
+        assertThat(render("validation/v3/item", Map.of("item", changed), Locale.KOREAN)).contains("value=\"11\"");
+        assertThat(fragmentCache.getHitCount()).isZero();
+    }
+
+    @Test
+    void unsavedItemIsNotCached() throws Exception {
+        Item item = new Item(1L, "itemA", 10000, 10, null);
+
+        assertThat(render("validation/v3/item", Map.of("item", item), Locale.KOREAN)).contains("value=\"itemA\"");
+        assertThat(fragmentCache.getCacheSize()).isZero();
+    }
+
+    private String renderItems(String viewName) throws Exception {
+        List<Item> items = itemRepository.findAll();
+        Map<String, Object> model = new HashMap<>();
+        model.put("items", items);
+        model.put("page", new ItemPage(items, null));
+        model.put("cond", new ItemSearchCond());
+        return render(viewName, model, Locale.KOREAN);
+    }
+
+    private String render(String viewName, Map<String, ?> model, Locale locale) throws Exception {
+        View view = viewResolver.resolveViewName(viewName, locale);
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/" + viewName);
+        request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+        request.addPreferredLocale(locale);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, request, response);
+        return response.getContentAsString();
+    }
+}
@@ -0,0 +1,67 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import hello.itemservice.web.basic.form.ItemUpdateForm;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.DefaultMessageCodesResolver;
+import org.springframework.validation.ObjectError;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemBatchProcessorTest {
+
+    ItemRepository itemRepository = new ItemRepository();
+    ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    ItemBatchProcessor itemBatchProcessor = new ItemBatchProcessor(itemRepository, validatorFactory.getValidator(),
+            new DefaultMessageCodesResolver());
+
+    @AfterEach
+    void afterEach() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void saveReportsTotalPriceMinByIndex() {
+        ItemBatchResult result = new ItemBatchResult();
+
+        itemBatchProcessor.save(List.of(form("itemA", 10000, 10), form("itemB", 1000, 1)), 5, result);
+
+        assertThat(result.getSaved()).containsOnlyKeys(5);
+        assertThat(result.getErrors()).containsOnlyKeys(6);
+        assertThat(result.getErrors().get(6)).extracting(ObjectError::getCode).containsExactly("totalPriceMin");
+    }
+
+    @Test
+    void saveRejectsNullElement() {
+        ItemBatchResult result = new ItemBatchResult();
+
+        assertThatThrownBy(() -> itemBatchProcessor.save(Arrays.asList(form("itemA", 10000, 10), null), 1000, result))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("1001");
+        // 하나라도 null이면 묶음 전체를 저장하지 않는다.
+        assertThat(itemRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void updateRejectsNullElement() {
+        ItemBatchResult result = new ItemBatchResult();
+
+        assertThatThrownBy(() -> itemBatchProcessor.update(Arrays.asList((ItemUpdateForm) null), 0, result))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ItemSaveForm form(String itemName, int price, int quantity) {
+        ItemSaveForm form = new ItemSaveForm();
+        form.setItemName(itemName);
+        form.setPrice(price);
+        form.setQuantity(quantity);
+        return form;
+    }
+}
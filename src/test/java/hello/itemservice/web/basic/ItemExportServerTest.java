@@ -0,0 +1,94 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 내보내기를 실제 서버(Tomcat)로 받는다. MockMvc는 비동기 요청의 타임아웃을 흉내 내지 않으므로
+ * 비동기 요청 타임아웃을 아주 짧게 두고, 그래도 카탈로그 전체가 끊기지 않고 오는지 본다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.mvc.async.request-timeout=1ms")
+class ItemExportServerTest {
+
+    private static final int ITEMS = 50_000;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void beforeEach() {
+        itemRepository.clearStore();
+        List<Item> items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Item("item" + i, 1000 + i, i % 100 + 1));
+        }
+        itemRepository.saveAll(items);
+    }
+
+    @Test
+    void exportIsNotCutOffByAsyncTimeout() throws Exception {
+        HttpResponse<byte[]> response = get("/validation/api/items/export?format=ndjson", "identity");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(lines(response.body())).isEqualTo(ITEMS);
+    }
+
+    @Test
+    void gzipExportIsNotCutOffByAsyncTimeout() throws Exception {
+        HttpResponse<byte[]> response = get("/validation/api/items/export?format=ndjson", "gzip");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            assertThat(lines(in.readAllBytes())).isEqualTo(ITEMS);
+        }
+    }
+
+    @Test
+    void reactiveExportIsNotCutOffByAsyncTimeout() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/reactive/api/items/export"))
+                .header("Accept", "application/x-ndjson")
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(lines(response.body())).isEqualTo(ITEMS);
+    }
+
+    private HttpResponse<byte[]> get(String path, String acceptEncoding) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept-Encoding", acceptEncoding)
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static long lines(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8).lines().filter(line -> !line.isBlank()).count();
+    }
+}
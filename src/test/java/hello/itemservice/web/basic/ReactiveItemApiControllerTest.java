@@ -0,0 +1,136 @@
+package hello.itemservice.web.basic;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ReactiveItemRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.DefaultMessageCodesResolver;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+class ReactiveItemApiControllerTest {
+
+    ItemRepository itemRepository = new ItemRepository();
+    ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void beforeEach() {
+        ItemBatchProcessor itemBatchProcessor = new ItemBatchProcessor(itemRepository, validatorFactory.getValidator(),
+                new DefaultMessageCodesResolver());
+        ReactiveItemApiController controller = new ReactiveItemApiController(new ReactiveItemRepository(itemRepository),
+                new ReactiveItemValidator(itemBatchProcessor));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.save(new Item("itemB", 20000, 20));
+    }
+
+    @AfterEach
+    void afterEach() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void item() throws Exception {
+        MvcResult result = perform(get("/reactive/api/items/1"));
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo("\"1\"");
+        assertThat(result.getResponse().getContentAsString()).contains("\"itemName\":\"itemA\"");
+    }
+
+    @Test
+    void itemNotFound() throws Exception {
+        assertThat(perform(get("/reactive/api/items/99")).getResponse().getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void addItem() throws Exception {
+        MvcResult result = perform(post("/reactive/api/items/add")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemName\":\"itemC\",\"price\":10000,\"quantity\":3}"));
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(201);
+        assertThat(result.getResponse().getHeader(HttpHeaders.LOCATION)).isEqualTo("/reactive/api/items/3");
+        assertThat(itemRepository.findById(3L).getItemName()).isEqualTo("itemC");
+    }
+
+    @Test
+    void addItemValidationFails() throws Exception {
+        MvcResult result = perform(post("/reactive/api/items/add")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemName\":\"itemC\",\"price\":1000,\"quantity\":1}"));
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(400);
+        assertThat(result.getResponse().getContentAsString()).contains("totalPriceMin");
+        assertThat(itemRepository.findAll()).hasSize(2);
+    }
+
+    @Test
+    void addItemsKeepsRequestIndexes() throws Exception {
+        MvcResult result = perform(post("/reactive/api/items/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"itemName\":\"itemC\",\"price\":10000,\"quantity\":1},"
+                        + "{\"itemName\":\" \",\"price\":10000,\"quantity\":1},"
+                        + "{\"itemName\":\"itemD\",\"price\":10000,\"quantity\":2}]"));
+
+        String body = result.getResponse().getContentAsString();
+        assertThat(body).contains("\"total\":3", "\"saved\":{\"0\":3,\"2\":4}", "\"errors\":{\"1\":");
+        assertThat(itemRepository.findById(4L).getItemName()).isEqualTo("itemD");
+    }
+
+    @Test
+    void addItemsRejectsNullElement() throws Exception {
+        MvcResult result = perform(post("/reactive/api/items/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"itemName\":\"itemC\",\"price\":10000,\"quantity\":1},null]"));
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(400);
+        assertThat(result.getResponse().getContentAsString()).contains("null: 1");
+        assertThat(itemRepository.findAll()).hasSize(2);
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        MvcResult result = perform(get("/reactive/api/items/export").accept(MediaType.APPLICATION_NDJSON));
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{").contains("\"id\":1");
+    }
+
+    @Test
+    void exportServerSentEvents() throws Exception {
+        MvcResult result = perform(get("/reactive/api/items/export").accept(MediaType.TEXT_EVENT_STREAM));
+
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .contains("data:{\"id\":1", "data:{\"id\":2");
+    }
+
+    /**
+     * Mono/Flux를 돌려주면 비동기 요청이 시작되므로 결과가 나올 때까지 기다렸다가 다시 디스패치한다.
+     */
+    private MvcResult perform(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result.getAsyncResult(5000);
+            return mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,165 @@
+package hello.itemservice.web.basic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.basic.exporter.ItemExporter;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.DefaultMessageCodesResolver;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+class ValidationItemApiControllerTest {
+
+    ItemRepository itemRepository = new ItemRepository();
+    ObjectMapper objectMapper = new ObjectMapper();
+    ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void beforeEach() {
+        ItemBatchProcessor itemBatchProcessor = new ItemBatchProcessor(itemRepository, validatorFactory.getValidator(),
+                new DefaultMessageCodesResolver());
+        // 가져오기는 ItemImporterTest에서 따로 본다.
+        ValidationItemApiController controller = new ValidationItemApiController(itemRepository, itemBatchProcessor,
+                objectMapper, null, new ItemExporter(itemRepository, objectMapper));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void afterEach() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void batchReportsErrorsByIndex() throws Exception {
+        JsonNode result = json(post("/validation/api/items/batch").contentType(MediaType.APPLICATION_JSON).content("""
+                [{"itemName":"itemA","price":10000,"quantity":10},
+                 {"itemName":"itemB","price":1000,"quantity":1}]
+                """));
+
+        assertThat(result.get("succeeded").asInt()).isEqualTo(1);
+        assertThat(result.get("saved").has("0")).isTrue();
+        assertThat(result.get("errors").get("1").get(0).get("code").asText()).isEqualTo("totalPriceMin");
+        assertThat(itemRepository.findAll()).extracting(Item::getItemName).containsExactly("itemA");
+    }
+
+    @Test
+    void ndjsonBatchReportsMalformedLineByIndex() throws Exception {
+        MockHttpServletResponse response = perform(post("/validation/api/items/batch")
+                .contentType(MediaType.APPLICATION_NDJSON).content("""
+                        {"itemName":"itemA","price":10000,"quantity":10}
+                        {"itemName":"itemB","price":
+                        null
+
+                        {"itemName":"itemC","price":20000,"quantity":20}
+                        """));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        JsonNode result = objectMapper.readTree(response.getContentAsString(StandardCharsets.UTF_8));
+        assertThat(result.get("total").asInt()).isEqualTo(4);
+        assertThat(result.get("saved").has("0")).isTrue();
+        assertThat(result.get("saved").has("3")).isTrue();
+        assertThat(result.get("errors").get("1").get(0).get("code").asText()).isEqualTo("invalidRow");
+        assertThat(result.get("errors").get("2").get(0).get("code").asText()).isEqualTo("invalidRow");
+        assertThat(itemRepository.findAll()).extracting(Item::getItemName).containsExactlyInAnyOrder("itemA", "itemC");
+    }
+
+    @Test
+    void ndjsonBatchEdit() throws Exception {
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+
+        JsonNode result = json(post("/validation/api/items/batch/edit").contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"id\":" + item.getId() + ",\"itemName\":\"itemA2\",\"price\":20000,\"quantity\":10,\"version\":1}\n"
+                        + "{\"id\":" + item.getId() + ",\"itemName\":\"itemA3\",\"price\":20000,\"quantity\":10,\"version\":1}\n"
+                        + "not json\n"));
+
+        assertThat(result.get("saved").get("0").asLong()).isEqualTo(item.getId());
+        assertThat(result.get("errors").get("1").get(0).get("code").asText()).isEqualTo("conflict");
+        assertThat(result.get("errors").get("2").get(0).get("code").asText()).isEqualTo("invalidRow");
+        assertThat(itemRepository.findById(item.getId()).getItemName()).isEqualTo("itemA2");
+    }
+
+    @Test
+    void editWithIfMatch() throws Exception {
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+        String body = "{\"id\":" + item.getId() + ",\"itemName\":\"itemA2\",\"price\":20000,\"quantity\":10}";
+
+        MockHttpServletResponse found = perform(get("/validation/api/items/" + item.getId()));
+        assertThat(found.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1\"");
+
+        MockHttpServletResponse updated = perform(post("/validation/api/items/" + item.getId() + "/edit")
+                .contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, "\"1\"").content(body));
+        assertThat(updated.getStatus()).isEqualTo(200);
+        assertThat(updated.getHeader(HttpHeaders.ETAG)).isEqualTo("\"2\"");
+
+        MockHttpServletResponse conflict = perform(post("/validation/api/items/" + item.getId() + "/edit")
+                .contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, "\"1\"").content(body));
+        assertThat(conflict.getStatus()).isEqualTo(409);
+        assertThat(conflict.getHeader(HttpHeaders.ETAG)).isEqualTo("\"2\"");
+
+        MockHttpServletResponse badTag = perform(post("/validation/api/items/" + item.getId() + "/edit")
+                .contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, "abc").content(body));
+        assertThat(badTag.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    void exportHonorsGzipQuality() throws Exception {
+        itemRepository.save(new Item("itemA", 10000, 10));
+
+        MockHttpServletResponse gzip = export("gzip, deflate");
+        assertThat(gzip.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).contains("itemA");
+        }
+
+        MockHttpServletResponse refused = export("gzip;q=0, identity");
+        assertThat(refused.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(refused.getContentAsString(StandardCharsets.UTF_8)).contains("itemA");
+    }
+
+    @Test
+    void acceptsGzipReadsQuality() {
+        assertThat(ValidationItemApiController.acceptsGzip(null)).isFalse();
+        assertThat(ValidationItemApiController.acceptsGzip("deflate, br")).isFalse();
+        assertThat(ValidationItemApiController.acceptsGzip("GZIP;q=0.5")).isTrue();
+        assertThat(ValidationItemApiController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(ValidationItemApiController.acceptsGzip("gzip; q=0.000")).isFalse();
+        assertThat(ValidationItemApiController.acceptsGzip("*")).isTrue();
+        assertThat(ValidationItemApiController.acceptsGzip("*;q=0")).isFalse();
+        // gzip을 따로 적었으면 *보다 우선한다.
+        assertThat(ValidationItemApiController.acceptsGzip("gzip;q=0, *")).isFalse();
+        assertThat(ValidationItemApiController.acceptsGzip("gzip, *;q=0")).isTrue();
+    }
+
+    private MockHttpServletResponse export(String acceptEncoding) throws Exception {
+        return perform(get("/validation/api/items/export").param("format", "ndjson")
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+    }
+
+    private JsonNode json(RequestBuilder request) throws Exception {
+        MockHttpServletResponse response = perform(request);
+        assertThat(response.getStatus()).isEqualTo(200);
+        return objectMapper.readTree(response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
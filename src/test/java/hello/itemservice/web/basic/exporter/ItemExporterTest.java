@@ -0,0 +1,59 @@
+package hello.itemservice.web.basic.exporter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemExporterTest {
+
+    ItemRepository itemRepository = new ItemRepository();
+    ObjectMapper objectMapper = new ObjectMapper();
+    ItemExporter itemExporter = new ItemExporter(itemRepository, objectMapper);
+
+    @BeforeEach
+    void beforeEach() {
+        itemRepository.save(new Item("itemA, \"special\"", 10000, 10));
+        itemRepository.save(new Item("itemB", 20000, null));
+    }
+
+    @Test
+    void exportJson() throws Exception {
+        JsonNode items = objectMapper.readTree(export(ItemExportFormat.JSON));
+
+        assertThat(items.isArray()).isTrue();
+        assertThat(items).hasSize(2);
+        assertThat(items.findValuesAsText("itemName")).containsExactlyInAnyOrder("itemA, \"special\"", "itemB");
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        String[] lines = export(ItemExportFormat.NDJSON).split("\n");
+
+        assertThat(lines).hasSize(2);
+        for (String line : lines) {
+            assertThat(objectMapper.readTree(line).get("id").isNumber()).isTrue();
+        }
+    }
+
+    @Test
+    void exportCsv() throws Exception {
+        String[] lines = export(ItemExportFormat.CSV).split("\n");
+
+        assertThat(lines[0]).isEqualTo("id,itemName,price,quantity");
+        assertThat(lines).contains("1,\"itemA, \"\"special\"\"\",10000,10", "2,itemB,20000,");
+    }
+
+    private String export(ItemExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        itemExporter.export(out, format);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
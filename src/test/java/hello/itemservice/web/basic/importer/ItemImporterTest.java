@@ -0,0 +1,152 @@
+package hello.itemservice.web.basic.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.basic.ItemValidator;
+import hello.itemservice.web.basic.exporter.ItemExportFormat;
+import hello.itemservice.web.basic.exporter.ItemExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.validation.DefaultMessageCodesResolver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemImporterTest {
+
+    ItemRepository itemRepository = new ItemRepository();
+    ItemImporter itemImporter = new ItemImporter(itemRepository, new ItemValidator(), messageSource(),
+            new DefaultMessageCodesResolver(), new ObjectMapper(), 2, 2);
+
+    @AfterEach
+    void afterEach() {
+        itemImporter.shutdown();
+    }
+
+    @Test
+    void importCsv() throws Exception {
+        String csv = """
+                price,itemName,quantity
+                10000,"itemA, ""special""",10
+                abc,itemB,1
+
+                100,itemC,1
+                20000,itemD,5
+                30000,itemE,3
+                """;
+
+        ItemImportReport report = itemImporter.importItems(stream(csv), ItemImportFormat.CSV, Locale.KOREA);
+
+        assertThat(report.getTotalRows()).isEqualTo(5);
+        assertThat(report.getImportedRows()).isEqualTo(3);
+        assertThat(report.getRejectedRows()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ItemImportError::line).containsExactly(3L, 5L);
+        assertThat(report.getErrors().get(0).messages()).containsExactly("price: 숫자를 입력해주세요.");
+        assertThat(report.getErrors().get(1).messages())
+                .contains("price: 가격은 1,000 ~ 1,000,000 까지 허용합니다.", "상품의 가격 * 수량의 합은 10,000원 이상이어야 합니다. 현재 값 = 100");
+
+        // 검증은 병렬이어도 저장은 파일 순서대로 된다.
+        List<Item> items = new ArrayList<>(itemRepository.findAll());
+        items.sort(Comparator.comparing(Item::getId));
+        assertThat(items).extracting(Item::getItemName).containsExactly("itemA, \"special\"", "itemD", "itemE");
+    }
+
+    @Test
+    void importMultiLineCsvValues() throws Exception {
+        String csv = """
+                itemName,price,quantity
+                "first
+                second",10000,10
+                abc,abc,1
+                "a ""quoted""
+                , name",20000,1
+                """;
+
+        ItemImportReport report = itemImporter.importItems(stream(csv), ItemImportFormat.CSV, Locale.KOREA);
+
+        assertThat(report.getTotalRows()).isEqualTo(3);
+        assertThat(report.getImportedRows()).isEqualTo(2);
+        // 여러 줄에 걸친 행이 있어도 오류는 그 행이 시작하는 줄 번호로 알려 준다.
+        assertThat(report.getErrors()).extracting(ItemImportError::line).containsExactly(4L);
+        List<Item> items = new ArrayList<>(itemRepository.findAll());
+        items.sort(Comparator.comparing(Item::getId));
+        assertThat(items).extracting(Item::getItemName).containsExactly("first\nsecond", "a \"quoted\"\n, name");
+    }
+
+    @Test
+    void csvRoundTrip() throws Exception {
+        ItemRepository source = new ItemRepository();
+        source.save(new Item("plain", 10000, 10));
+        source.save(new Item("comma, \"quote\"", 20000, 1));
+        source.save(new Item("line\nbreak", 30000, 2));
+        source.save(new Item("\n\"\n", 40000, 3));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ItemExporter(source, new ObjectMapper()).export(out, ItemExportFormat.CSV);
+
+        ItemImportReport report = itemImporter.importItems(new ByteArrayInputStream(out.toByteArray()), ItemImportFormat.CSV,
+                Locale.KOREA);
+
+        assertThat(report.getRejectedRows()).isZero();
+        assertThat(itemRepository.findAll()).extracting(Item::getItemName, Item::getPrice, Item::getQuantity)
+                .containsExactlyInAnyOrderElementsOf(source.findAll().stream()
+                        .map(item -> tuple(item.getItemName(), item.getPrice(), item.getQuantity())).toList());
+    }
+
+    @Test
+    void importNdjson() throws Exception {
+        String ndjson = """
+                {"itemName":"itemA","price":10000,"quantity":10}
+                {"itemName":
+                {"itemName":"itemB","price":"12x","quantity":1}
+                {"itemName":"itemC","price":"20000","quantity":1}
+                """;
+
+        ItemImportReport report = itemImporter.importItems(stream(ndjson), ItemImportFormat.NDJSON, Locale.KOREA);
+
+        assertThat(report.getImportedRows()).isEqualTo(2);
+        assertThat(report.getRejectedRows()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ItemImportError::line).containsExactly(2L, 3L);
+        assertThat(itemRepository.findAll()).hasSize(2);
+    }
+
+    @Test
+    void reportedErrorsAreBounded() throws Exception {
+        StringBuilder csv = new StringBuilder("itemName,price,quantity\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append("item").append(i).append(",1,1\n");
+        }
+
+        ItemImportReport report = itemImporter.importItems(stream(csv.toString()), ItemImportFormat.CSV, Locale.KOREA);
+
+        assertThat(report.getRejectedRows()).isEqualTo(1000);
+        assertThat(report.getErrors()).hasSize(ItemImportReport.MAX_REPORTED_ERRORS);
+        assertThat(report.isErrorsTruncated()).isTrue();
+    }
+
+    @Test
+    void missingCsvColumn() {
+        assertThatThrownBy(() -> itemImporter.importItems(stream("itemName,price\nitemA,10000\n"), ItemImportFormat.CSV, Locale.KOREA))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ResourceBundleMessageSource messageSource() {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasenames("messages", "errors");
+        messageSource.setDefaultEncoding("UTF-8");
+        return messageSource;
+    }
+}
@@ -0,0 +1,186 @@
+package hello.itemservice.web.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import hello.itemservice.web.basic.form.ItemUpdateForm;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemJsonHttpMessageConverterTest {
+
+    // 스프링 부트가 만드는 것과 같은 설정 (모르는 필드는 무시한다)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ItemJsonHttpMessageConverter converter = new ItemJsonHttpMessageConverter(objectMapper);
+
+    @Test
+    void writesLikeJackson() throws IOException {
+        List<Object> values = List.of(
+                new Item(1L, "itemA", 10000, 10, 1L),
+                new Item(Long.MAX_VALUE, "상품 😀", Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE),
+                new Item(0L, "\"quoted\" \\ back/slash\n\t\r\b\f\u0001\u001f\u007f", -1, 0, null),
+                new Item(null, null, null, null, null),
+                saveForm("itemA", 10000, 10),
+                new ItemSaveForm(),
+                updateForm(3L, "수정", 20000, null, 2L));
+
+        for (Object value : values) {
+            MockHttpOutputMessage output = new MockHttpOutputMessage();
+            converter.write(value, MediaType.APPLICATION_JSON, output);
+
+            assertThat(output.getBodyAsString(StandardCharsets.UTF_8)).isEqualTo(objectMapper.writeValueAsString(value));
+            assertThat(output.getHeaders().getContentLength()).isEqualTo(output.getBodyAsBytes().length);
+        }
+    }
+
+    @Test
+    void writesUnpairedSurrogateLikeJackson() throws IOException {
+        Item item = new Item(1L, "broken\ud800", 1000, 1, 1L);
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(item, MediaType.APPLICATION_JSON, output);
+
+        assertThat(output.getBodyAsBytes()).isEqualTo(objectMapper.writeValueAsBytes(item));
+    }
+
+    @Test
+    void readsLikeJackson() throws IOException {
+        List<String> bodies = List.of(
+                "{\"itemName\":\"itemA\",\"price\":10000,\"quantity\":10}",
+                " {\n  \"quantity\" : 10 ,\r\n\t\"itemName\":\"상품 😀\", \"price\": -5 }\n",
+                "{\"itemName\":null,\"price\":null,\"quantity\":null}",
+                "{}",
+                "{\"price\":2147483647,\"quantity\":-2147483648}",
+                // 아래는 Jackson으로 다시 읽는 입력
+                "{\"itemName\":\"esc\\\"aped\\u0041\",\"price\":10000}",
+                "{\"itemName\":\"itemA\",\"price\":\"10000\",\"quantity\":10.0}",
+                "{\"itemName\":\"itemA\",\"unknown\":{\"nested\":[1,2]},\"price\":1e4}",
+                "{\"price\":2147483648}",
+                "{\"id\":1,\"itemName\":\"itemA\",\"price\":10000,\"quantity\":10,\"version\":3}",
+                "{\"id\":123456789012345678901,\"version\":null}");
+
+        for (String body : bodies) {
+            assertThat(readOrNull(() -> readSave(body, StandardCharsets.UTF_8))).as(body).isEqualTo(jacksonRead(body, ItemSaveForm.class));
+            assertThat(readOrNull(() -> readUpdate(body))).as(body).isEqualTo(jacksonRead(body, ItemUpdateForm.class));
+        }
+    }
+
+    @Test
+    void readsOtherCharsetsWithJackson() throws IOException {
+        String body = "{\"itemName\":\"상품\",\"price\":10000,\"quantity\":10}";
+
+        assertThat(readSave(body, StandardCharsets.UTF_16)).isEqualTo(saveForm("상품", 10000, 10));
+    }
+
+    @Test
+    void malformedBodyIsNotReadable() {
+        for (String body : List.of("{\"price\":", "{\"price\":abc}", "[1]", "{\"itemName\":\"unterminated}", "{\"price\":01}")) {
+            assertThatThrownBy(() -> readSave(body, StandardCharsets.UTF_8)).as(body)
+                    .isInstanceOf(HttpMessageNotReadableException.class);
+        }
+    }
+
+    @Test
+    void bodyOverLimitIsNotReadable() throws IOException {
+        String json = "{\"itemName\":\"itemA\",\"price\":10000,\"quantity\":10}";
+        String atLimit = json + " ".repeat(ItemJsonHttpMessageConverter.MAX_BODY_SIZE - json.length());
+        assertThat(readSave(atLimit, StandardCharsets.UTF_8)).isEqualTo(saveForm("itemA", 10000, 10));
+
+        assertThatThrownBy(() -> readSave(atLimit + " ", StandardCharsets.UTF_8))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+
+        // 끝나지 않는 본문도 한도까지만 읽고 거절한다.
+        long[] read = new long[1];
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                read[0]++;
+                return ' ';
+            }
+        };
+        MockHttpInputMessage input = new MockHttpInputMessage(endless);
+        input.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        assertThatThrownBy(() -> converter.read(ItemSaveForm.class, input))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+        assertThat(read[0]).isLessThanOrEqualTo(ItemJsonHttpMessageConverter.MAX_BODY_SIZE + 1);
+
+        // 길이를 미리 알리면 읽지 않고 거절한다.
+        MockHttpInputMessage declared = new MockHttpInputMessage(json.getBytes(StandardCharsets.UTF_8));
+        declared.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        declared.getHeaders().setContentLength(ItemJsonHttpMessageConverter.MAX_BODY_SIZE + 1);
+        assertThatThrownBy(() -> converter.read(ItemSaveForm.class, declared))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    @Test
+    void handlesOnlyItemTypes() {
+        assertThat(converter.canRead(ItemSaveForm.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(ItemUpdateForm.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(Item.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(Item.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(List.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(Item.class, MediaType.TEXT_HTML)).isFalse();
+    }
+
+    private ItemSaveForm readSave(String body, Charset charset) throws IOException {
+        MockHttpInputMessage input = new MockHttpInputMessage(body.getBytes(charset));
+        input.getHeaders().setContentType(new MediaType(MediaType.APPLICATION_JSON, charset));
+        return (ItemSaveForm) converter.read(ItemSaveForm.class, input);
+    }
+
+    private ItemUpdateForm readUpdate(String body) throws IOException {
+        MockHttpInputMessage input = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+        input.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return (ItemUpdateForm) converter.read(ItemUpdateForm.class, input);
+    }
+
+    // 범위를 넘는 숫자는 Jackson도 거절하므로 양쪽 모두 null로 맞춰 비교한다.
+    private static Object readOrNull(Read read) throws IOException {
+        try {
+            return read.read();
+        } catch (HttpMessageNotReadableException e) {
+            return null;
+        }
+    }
+
+    private interface Read {
+        Object read() throws IOException;
+    }
+
+    private <T> T jacksonRead(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static ItemSaveForm saveForm(String itemName, Integer price, Integer quantity) {
+        ItemSaveForm form = new ItemSaveForm();
+        form.setItemName(itemName);
+        form.setPrice(price);
+        form.setQuantity(quantity);
+        return form;
+    }
+
+    private static ItemUpdateForm updateForm(Long id, String itemName, Integer price, Integer quantity, Long version) {
+        ItemUpdateForm form = new ItemUpdateForm();
+        form.setId(id);
+        form.setItemName(itemName);
+        form.setPrice(price);
+        form.setQuantity(quantity);
+        form.setVersion(version);
+        return form;
+    }
+}
@@ -0,0 +1,119 @@
+package hello.itemservice.web.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemRequestMetricsTest {
+
+    @Test
+    void versionOf() {
+        assertThat(ItemRequestMetrics.versionOf("/basic/items/{itemId}")).isEqualTo("basic");
+        assertThat(ItemRequestMetrics.versionOf("/validation/items/add")).isEqualTo("v1");
+        assertThat(ItemRequestMetrics.versionOf("/validation/v2/items/{itemId}/edit")).isEqualTo("v2");
+        assertThat(ItemRequestMetrics.versionOf("/validation/v3/items")).isEqualTo("v3");
+        assertThat(ItemRequestMetrics.versionOf("/validation/api/items/add")).isEqualTo("api");
+        assertThat(ItemRequestMetrics.versionOf("/reactive/api/items")).isEqualTo("reactive");
+        assertThat(ItemRequestMetrics.versionOf("/api/items/stats")).isEqualTo("other");
+    }
+
+    @Test
+    void timersPerHandlerMethodAndStage() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ItemRequestMetrics metrics = new ItemRequestMetrics(registry);
+        MockHttpServletRequest request = request("/basic/items/{itemId}", "item");
+
+        Timer handler = metrics.timer(request, ItemRequestMetrics.Stage.HANDLER);
+        handler.record(3, TimeUnit.MILLISECONDS);
+
+        assertThat(metrics.timer(request, ItemRequestMetrics.Stage.HANDLER)).isSameAs(handler);
+        assertThat(metrics.timer(request, ItemRequestMetrics.Stage.RENDER)).isNotSameAs(handler);
+        Timer registered = registry.get("item.request.stage")
+                .tags("version", "basic", "handler", "SampleController.item", "stage", "handler")
+                .timer();
+        assertThat(registered.count()).isEqualTo(1);
+        assertThat(registry.get("item.request.stage").timers()).hasSize(ItemRequestMetrics.Stage.values().length);
+    }
+
+    @Test
+    void noTimerBeforeHandlerIsChosen() {
+        ItemRequestMetrics metrics = new ItemRequestMetrics(new SimpleMeterRegistry());
+
+        assertThat(metrics.timer(new MockHttpServletRequest(), ItemRequestMetrics.Stage.HANDLER)).isNull();
+    }
+
+    @Test
+    void countErrorsByVersionAndCode() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ItemRequestMetrics metrics = new ItemRequestMetrics(registry);
+        MockHttpServletRequest request = request("/validation/v3/items/add", "addItem");
+        List<ObjectError> errors = List.of(
+                new FieldError("item", "itemName", null, false, new String[]{"NotBlank.item.itemName", "NotBlank"}, null, null),
+                new FieldError("item", "price", null, false, new String[]{"Range.item.price", "Range"}, null, null),
+                new ObjectError("item", new String[]{"totalPriceMin.item", "totalPriceMin"}, null, null));
+
+        metrics.countErrors(request, errors);
+        metrics.countErrors(request, errors.subList(0, 1));
+
+        assertThat(registry.get("item.validation.errors").tags("version", "v3", "code", "NotBlank.item.itemName").counter().count())
+                .isEqualTo(2);
+        assertThat(registry.get("item.validation.errors").tags("version", "v3", "code", "totalPriceMin.item").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void recordStageFromInsideHandler() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ItemRequestMetrics metrics = new ItemRequestMetrics(registry);
+        MockHttpServletRequest request = request("/validation/v3/items/add", "addItem");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            // 인터셉터가 요청에 넣어 두기 전에는 재지 않는다. (지표를 끈 경우)
+            ItemRequestMetrics.record(ItemRequestMetrics.Stage.TOTAL_PRICE, System.nanoTime());
+            assertThat(registry.find("item.request.stage").timer()).isNull();
+
+            request.setAttribute(ItemRequestMetrics.ATTRIBUTE, metrics);
+            ItemRequestMetrics.record(ItemRequestMetrics.Stage.TOTAL_PRICE, System.nanoTime());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertThat(registry.get("item.request.stage").tags("version", "v3", "stage", "total_price").timer().count())
+                .isEqualTo(1);
+    }
+
+    private static MockHttpServletRequest request(String pattern, String handlerMethod) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        try {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                    new HandlerMethod(new SampleController(), SampleController.class.getMethod(handlerMethod)));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return request;
+    }
+
+    static class SampleController {
+
+        public String item() {
+            return "basic/item";
+        }
+
+        public String addItem() {
+            return "validation/v3/addForm";
+        }
+    }
+}
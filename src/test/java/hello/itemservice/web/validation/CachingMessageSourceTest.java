@@ -0,0 +1,96 @@
+package hello.itemservice.web.validation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.validation.FieldError;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CachingMessageSourceTest {
+
+    CachingMessageCodesResolver codesResolver = new CachingMessageCodesResolver();
+
+    @Test
+    void sameMessagesAsResourceBundle() {
+        CachingMessageSource messageSource = messageSource("classpath:messages", "classpath:errors");
+        ResourceBundleMessageSource expected = new ResourceBundleMessageSource();
+        expected.setBasenames("messages", "errors");
+        expected.setDefaultEncoding("UTF-8");
+
+        List<MessageSourceResolvable> resolvables = List.of(
+                fieldError("range", "price", Integer.class, new Object[]{1000, 1000000}, null),
+                fieldError("max", "quantity", Integer.class, new Object[]{9999}, null),
+                fieldError("typeMismatch", "price", Integer.class, null, null),
+                fieldError("NotBlank", "itemName", String.class,
+                        new Object[]{new DefaultMessageSourceResolvable(new String[]{"item.itemName", "itemName"}, "itemName")},
+                        "공백일 수 없습니다"),
+                new DefaultMessageSourceResolvable(codesResolver.resolveMessageCodes("totalPriceMin", "item"), new Object[]{10000, 100}),
+                new DefaultMessageSourceResolvable("label.item.price"));
+
+        for (Locale locale : List.of(Locale.KOREA, Locale.ENGLISH)) {
+            for (int i = 0; i < 2; i++) {
+                for (MessageSourceResolvable resolvable : resolvables) {
+                    assertThat(messageSource.getMessage(resolvable, locale)).isEqualTo(expected.getMessage(resolvable, locale));
+                }
+                assertThat(messageSource.getMessage("page.items", null, locale)).isEqualTo(expected.getMessage("page.items", null, locale));
+            }
+        }
+        assertThat(messageSource.getHitCount()).isPositive();
+        assertThat(messageSource.getMissCount()).isEqualTo(messageSource.getCacheSize());
+    }
+
+    @Test
+    void missingMessage() {
+        CachingMessageSource messageSource = messageSource("classpath:messages", "classpath:errors");
+
+        assertThat(messageSource.getMessage("no.such.code", null, "기본", Locale.KOREA)).isEqualTo("기본");
+        assertThatThrownBy(() -> messageSource.getMessage(new DefaultMessageSourceResolvable("no.such.code"), Locale.KOREA))
+                .isInstanceOf(NoSuchMessageException.class);
+    }
+
+    @Test
+    void reload(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("custom.properties");
+        Files.writeString(file, "hello=안녕 {0}", StandardCharsets.UTF_8);
+        CachingMessageSource messageSource = messageSource("file:" + dir.resolve("custom"));
+
+        assertThat(messageSource.getMessage("hello", new Object[]{"A"}, Locale.KOREA)).isEqualTo("안녕 A");
+
+        Files.writeString(file, "hello=반가워 {0}", StandardCharsets.UTF_8);
+        assertThat(messageSource.getMessage("hello", new Object[]{"A"}, Locale.KOREA)).isEqualTo("안녕 A");
+
+        messageSource.clearCache();
+        assertThat(messageSource.getMessage("hello", new Object[]{"A"}, Locale.KOREA)).isEqualTo("반가워 A");
+    }
+
+    @Test
+    void cachedCodes() {
+        String[] codes = codesResolver.resolveMessageCodes("range", "item", "price", Integer.class);
+        codes[0] = "changed";
+
+        assertThat(codesResolver.resolveMessageCodes("range", "item", "price", Integer.class))
+                .containsExactly("range.item.price", "range.price", "range.java.lang.Integer", "range");
+    }
+
+    private FieldError fieldError(String code, String field, Class<?> fieldType, Object[] args, String defaultMessage) {
+        return new FieldError("item", field, null, false, codesResolver.resolveMessageCodes(code, "item", field, fieldType),
+                args, defaultMessage);
+    }
+
+    private static CachingMessageSource messageSource(String... basenames) {
+        CachingMessageSource messageSource = new CachingMessageSource();
+        messageSource.setBasenames(basenames);
+        messageSource.setDefaultEncoding("UTF-8");
+        return messageSource;
+    }
+}
@@ -0,0 +1,159 @@
+package hello.itemservice.web.validation;
+
+import hello.itemservice.domain.item.SaveCheck;
+import hello.itemservice.domain.item.UpdateCheck;
+import hello.itemservice.web.basic.form.ItemSaveForm;
+import hello.itemservice.web.basic.form.ItemUpdateForm;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CompiledBeanValidatorTest {
+
+    LocalValidatorFactoryBean beanValidator = beanValidator();
+    CompiledBeanValidator compiledValidator = new CompiledBeanValidator(beanValidator);
+
+    @AfterEach
+    void afterEach() {
+        beanValidator.close();
+    }
+
+    @Test
+    void sameErrorsAsBeanValidation() {
+        String[] names = {null, "", " ", "itemA"};
+        Integer[] numbers = {null, -1, 999, 1000, 9999, 10000, 1000000, 1000001};
+
+        for (String name : names) {
+            for (Integer price : numbers) {
+                for (Integer quantity : numbers) {
+                    ItemSaveForm saveForm = new ItemSaveForm();
+                    saveForm.setItemName(name);
+                    saveForm.setPrice(price);
+                    saveForm.setQuantity(quantity);
+                    assertSameErrors(saveForm, "item");
+
+                    ItemUpdateForm updateForm = new ItemUpdateForm();
+                    updateForm.setId(quantity == null ? null : 1L);
+                    updateForm.setItemName(name);
+                    updateForm.setPrice(price);
+                    updateForm.setQuantity(quantity);
+                    assertSameErrors(updateForm, "form");
+                }
+            }
+        }
+        assertThat(compiledValidator.isCompiled(ItemSaveForm.class)).isTrue();
+        assertThat(compiledValidator.isCompiled(ItemUpdateForm.class)).isTrue();
+    }
+
+    @Test
+    void groups() {
+        GroupForm form = new GroupForm();
+        form.setQuantity(10000);
+
+        assertSameErrors(form, "form");
+        assertSameErrors(form, "form", SaveCheck.class);
+        assertSameErrors(form, "form", UpdateCheck.class);
+        assertSameErrors(form, "form", SaveCheck.class, UpdateCheck.class);
+        assertThat(compiledValidator.isCompiled(GroupForm.class)).isTrue();
+    }
+
+    @Test
+    void skipBindingFailure() {
+        ItemSaveForm form = new ItemSaveForm();
+        form.setItemName("itemA");
+        form.setQuantity(10);
+        BindingResult bindingResult = new BeanPropertyBindingResult(form, "item");
+        bindingResult.addError(new FieldError("item", "price", "abc", true, new String[]{"typeMismatch"}, null, null));
+
+        compiledValidator.validate(form, bindingResult);
+
+        assertThat(bindingResult.getFieldErrors("price")).hasSize(1);
+        assertThat(bindingResult.getFieldError("price").getCode()).isEqualTo("typeMismatch");
+    }
+
+    @Test
+    void cascadedPropertyFallsBackToBeanValidation() {
+        NestedForm form = new NestedForm();
+        form.setItem(new ItemSaveForm());
+
+        assertThat(compiledValidator.isCompiled(NestedForm.class)).isFalse();
+        assertSameErrors(form, "form");
+    }
+
+    private void assertSameErrors(Object target, String objectName, Object... hints) {
+        BindingResult expected = new BeanPropertyBindingResult(target, objectName);
+        beanValidator.validate(target, expected, hints);
+        BindingResult actual = new BeanPropertyBindingResult(target, objectName);
+        compiledValidator.validate(target, actual, hints);
+
+        assertThat(describe(actual)).as("%s %s", target, Arrays.toString(hints))
+                .containsExactlyInAnyOrderElementsOf(describe(expected));
+    }
+
+    private static List<String> describe(BindingResult bindingResult) {
+        return bindingResult.getFieldErrors().stream()
+                .map(error -> String.join("|", error.getField(), String.valueOf(error.getRejectedValue()),
+                        Arrays.toString(error.getCodes()), Arrays.toString(error.getArguments()),
+                        error.getDefaultMessage(), String.valueOf(error.isBindingFailure())))
+                .toList();
+    }
+
+    private static LocalValidatorFactoryBean beanValidator() {
+        LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+        validator.afterPropertiesSet();
+        return validator;
+    }
+
+    public static class GroupForm {
+
+        @NotNull(groups = UpdateCheck.class)
+        private Long id;
+
+        @NotNull(groups = {SaveCheck.class, UpdateCheck.class})
+        private String itemName;
+
+        @Max(value = 9999, groups = SaveCheck.class)
+        private Integer quantity;
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    public static class NestedForm {
+
+        @Valid
+        private ItemSaveForm item;
+
+        public ItemSaveForm getItem() {
+            return item;
+        }
+
+        public void setItem(ItemSaveForm item) {
+            this.item = item;
+        }
+    }
+}